@@ -0,0 +1,50 @@
+package com.noom.interview.fullstack.sleep.filter;
+
+import com.noom.interview.fullstack.sleep.utils.UuidParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the X-User-Id header, for a valid header and for a malformed one: {@code UUID.fromString}, which rejects
+ * the malformed header through an exception, against the {@link UuidParser} used by {@link UserContextFilter}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserHeaderParsingBenchmark {
+
+    private String validHeader;
+    private String invalidHeader;
+
+    @Setup
+    public void setUp() {
+        validHeader = UUID.randomUUID().toString();
+        invalidHeader = validHeader.replace('-', 'x');
+    }
+
+    @Benchmark
+    public UUID parseValid() {
+        return UUID.fromString(validHeader);
+    }
+
+    @Benchmark
+    public UUID parseInvalid() {
+        try {
+            return UUID.fromString(invalidHeader);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public UUID parseValidWithUuidParser() {
+        return UuidParser.parseOrNull(validHeader);
+    }
+
+    @Benchmark
+    public UUID parseInvalidWithUuidParser() {
+        return UuidParser.parseOrNull(invalidHeader);
+    }
+}
@@ -0,0 +1,46 @@
+package com.noom.interview.fullstack.sleep.mapper;
+
+import com.noom.interview.fullstack.sleep.entity.AppUserEntity;
+import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogRequest;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The generated {@link SleepEntryMapper} on the create and read paths of a single sleep log
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SleepEntryMapperBenchmark {
+
+    private final SleepEntryMapper mapper = Mappers.getMapper(SleepEntryMapper.class);
+    private final LocalDate sleepDate = LocalDate.of(2026, 2, 11);
+    private final AppUserEntity user = AppUserEntity.builder().id(UUID.randomUUID()).build();
+    private CreateSleepLogRequest request;
+    private SleepEntryEntity entity;
+
+    @Setup
+    public void setUp() {
+        request = new CreateSleepLogRequest(
+                Instant.parse("2026-02-10T22:00:00Z"), Instant.parse("2026-02-11T06:00:00Z"), MorningFeeling.GOOD);
+        entity = mapper.toNewEntity(request, user, sleepDate, 480);
+    }
+
+    @Benchmark
+    public SleepEntryEntity toNewEntity() {
+        return mapper.toNewEntity(request, user, sleepDate, 480);
+    }
+
+    @Benchmark
+    public SleepLogResponse toResponse() {
+        return mapper.toResponse(entity);
+    }
+}
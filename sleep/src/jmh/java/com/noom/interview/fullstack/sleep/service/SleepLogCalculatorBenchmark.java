@@ -0,0 +1,93 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.model.SleepLogAccumulator;
+import com.noom.interview.fullstack.sleep.model.SleepLogStatistics;
+import com.noom.interview.fullstack.sleep.model.SleepLogTotals;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every {@link SleepLogCalculatorServiceImpl} method over 30, 365 and 3650 entries of one user
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SleepLogCalculatorBenchmark {
+
+    @Param({"30", "365", "3650"})
+    private int entryCount;
+
+    private final SleepLogCalculatorService calculator = new SleepLogCalculatorServiceImpl();
+    private List<SleepEntryEntity> entries;
+    private SleepLogTotals totals;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        MorningFeeling[] feelings = MorningFeeling.values();
+        LocalDate lastNight = LocalDate.of(2026, 2, 11);
+
+        entries = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            LocalDate sleepDate = lastNight.minusDays(i);
+            Instant start = sleepDate.minusDays(1).atTime(LocalTime.of(21, 0)).toInstant(ZoneOffset.UTC)
+                    .plusSeconds(random.nextInt(4 * 3600));
+            Instant end = start.plusSeconds(5 * 3600 + random.nextInt(5 * 3600));
+            entries.add(SleepEntryEntity.builder()
+                    .id(UUID.randomUUID())
+                    .sleepDate(sleepDate)
+                    .timeInBedStart(start)
+                    .timeInBedEnd(end)
+                    .totalTimeInBedMinutes((int) ((end.getEpochSecond() - start.getEpochSecond()) / 60))
+                    .morningFeeling(feelings[random.nextInt(feelings.length)])
+                    .build());
+        }
+        totals = new SleepLogAccumulator().addAll(entries).toTotals();
+    }
+
+    @Benchmark
+    public int calculateAverageTimeInBed() {
+        return calculator.calculateAverageTimeInBed(entries);
+    }
+
+    @Benchmark
+    public LocalTime calculateAverageTimeUserGetsInBed() {
+        return calculator.calculateAverageTimeUserGetsInBed(entries);
+    }
+
+    @Benchmark
+    public LocalTime calculateAverageTimeUserGetsOutOfBed() {
+        return calculator.calculateAverageTimeUserGetsOutOfBed(entries);
+    }
+
+    @Benchmark
+    public Map<MorningFeeling, SleepLogAveragesResponse.FeelingFrequency> calculateMorningFrequencies() {
+        return calculator.calculateMorningFrequencies(entries);
+    }
+
+    @Benchmark
+    public SleepLogStatistics calculateStatisticsFromEntries() {
+        return calculator.calculateStatistics(entries);
+    }
+
+    /**
+     * Does not depend on the number of entries, kept as the baseline of the pre-aggregated read paths
+     */
+    @Benchmark
+    public SleepLogStatistics calculateStatisticsFromTotals() {
+        return calculator.calculateStatistics(totals);
+    }
+}
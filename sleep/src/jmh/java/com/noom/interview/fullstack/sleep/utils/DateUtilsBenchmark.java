@@ -0,0 +1,35 @@
+package com.noom.interview.fullstack.sleep.utils;
+
+import com.noom.interview.fullstack.sleep.validator.SleepIntervalType;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DateUtils#validateInstantForInterval}, run twice per create request by the bean validation of the body
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateUtilsBenchmark {
+
+    private Instant lastNight;
+    private Instant thisMorning;
+
+    @Setup
+    public void setUp() {
+        thisMorning = Instant.now().minusSeconds(3600);
+        lastNight = thisMorning.minusSeconds(8 * 3600);
+    }
+
+    @Benchmark
+    public boolean validateStart() {
+        return DateUtils.validateInstantForInterval(lastNight, SleepIntervalType.START);
+    }
+
+    @Benchmark
+    public boolean validateEnd() {
+        return DateUtils.validateInstantForInterval(thisMorning, SleepIntervalType.END);
+    }
+}
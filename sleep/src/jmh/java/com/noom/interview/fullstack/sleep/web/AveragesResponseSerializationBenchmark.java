@@ -0,0 +1,62 @@
+package com.noom.interview.fullstack.sleep.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of {@link SleepLogAveragesResponse}, with an object mapper configured as Spring Boot
+ * configures the one of the HTTP message converters
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AveragesResponseSerializationBenchmark {
+
+    private ObjectWriter writer;
+    private SleepLogAveragesResponse response;
+
+    @Setup
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .build()
+                .writerFor(SleepLogAveragesResponse.class);
+
+        Map<MorningFeeling, SleepLogAveragesResponse.FeelingFrequency> frequencies = new EnumMap<>(MorningFeeling.class);
+        frequencies.put(MorningFeeling.BAD, frequency(3, "9.68"));
+        frequencies.put(MorningFeeling.OK, frequency(12, "38.71"));
+        frequencies.put(MorningFeeling.GOOD, frequency(16, "51.61"));
+        response = SleepLogAveragesResponse.builder()
+                .rangeStart(LocalDate.of(2026, 1, 12))
+                .rangeEnd(LocalDate.of(2026, 2, 11))
+                .averageTimeInBedMinutes(465)
+                .averageTimeUserGetsInBed(LocalTime.of(22, 47))
+                .averageTimeUserGetsOutOfBed(LocalTime.of(6, 32))
+                .morningFeelingFrequencies(frequencies)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws JsonProcessingException {
+        return writer.writeValueAsBytes(response);
+    }
+
+    private static SleepLogAveragesResponse.FeelingFrequency frequency(int count, String percentage) {
+        return SleepLogAveragesResponse.FeelingFrequency.builder()
+                .count(count)
+                .percentage(new BigDecimal(percentage))
+                .build();
+    }
+}
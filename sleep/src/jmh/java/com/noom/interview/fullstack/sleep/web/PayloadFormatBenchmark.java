@@ -0,0 +1,147 @@
+package com.noom.interview.fullstack.sleep.web;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.protobuf.CodedOutputStream;
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.web.protobuf.SleepLogProtobufHttpMessageConverter;
+import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogRequest;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The HTTP message converter of each negotiated format on the bodies of the sleep log endpoints: the
+ * {@link SleepLogResponse} of POST and GET /sleep-log, the {@link SleepLogAveragesResponse} of the averages endpoints
+ * and the {@link CreateSleepLogRequest} read by POST /sleep-log. The payload sizes are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PayloadFormatBenchmark {
+
+    public enum Format {
+        JSON, CBOR, SMILE, PROTOBUF
+    }
+
+    @Param
+    public Format format;
+
+    private HttpMessageConverter<Object> converter;
+    private SleepLogResponse sleepLog;
+    private SleepLogAveragesResponse averages;
+    private byte[] createRequest;
+
+    @Setup
+    public void setUp() throws IOException {
+        converter = converter(format);
+        sleepLog = SleepLogResponse.builder()
+                .id(UUID.randomUUID())
+                .sleepDate(LocalDate.of(2026, 2, 11))
+                .timeInBedStart(Instant.parse("2026-02-10T22:47:00Z"))
+                .timeInBedEnd(Instant.parse("2026-02-11T06:32:00Z"))
+                .totalTimeInBedMinutes(465)
+                .morningFeeling(MorningFeeling.GOOD)
+                .build();
+
+        Map<MorningFeeling, SleepLogAveragesResponse.FeelingFrequency> frequencies = new EnumMap<>(MorningFeeling.class);
+        frequencies.put(MorningFeeling.BAD, frequency(3, "9.68"));
+        frequencies.put(MorningFeeling.OK, frequency(12, "38.71"));
+        frequencies.put(MorningFeeling.GOOD, frequency(16, "51.61"));
+        averages = SleepLogAveragesResponse.builder()
+                .rangeStart(LocalDate.of(2026, 1, 12))
+                .rangeEnd(LocalDate.of(2026, 2, 11))
+                .averageTimeInBedMinutes(465)
+                .averageTimeUserGetsInBed(LocalTime.of(22, 47))
+                .averageTimeUserGetsOutOfBed(LocalTime.of(6, 32))
+                .morningFeelingFrequencies(frequencies)
+                .build();
+
+        CreateSleepLogRequest request = new CreateSleepLogRequest(
+                Instant.parse("2026-02-10T22:47:00Z"), Instant.parse("2026-02-11T06:32:00Z"), MorningFeeling.GOOD);
+        createRequest = format == Format.PROTOBUF ? protobufCreateRequest(request) : write(request);
+
+        System.out.printf("%n%s payload bytes: sleep log %d, averages %d, create request %d%n",
+                format, write(sleepLog).length, write(averages).length, createRequest.length);
+    }
+
+    @Benchmark
+    public byte[] writeSleepLog() throws IOException {
+        return write(sleepLog);
+    }
+
+    @Benchmark
+    public byte[] writeAverages() throws IOException {
+        return write(averages);
+    }
+
+    @Benchmark
+    public Object readCreateRequest() throws IOException {
+        return converter.read(CreateSleepLogRequest.class, new MockHttpInputMessage(createRequest));
+    }
+
+    private byte[] write(Object body) throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(body, null, output);
+        return output.getBodyAsBytes();
+    }
+
+    private static HttpMessageConverter<Object> converter(Format format) {
+        switch (format) {
+            case JSON:
+                return new MappingJackson2HttpMessageConverter(mapperBuilder().build());
+            case CBOR:
+                return new MappingJackson2CborHttpMessageConverter(mapperBuilder().factory(new CBORFactory()).build());
+            case SMILE:
+                return new MappingJackson2SmileHttpMessageConverter(mapperBuilder().factory(new SmileFactory()).build());
+            case PROTOBUF:
+                return new SleepLogProtobufHttpMessageConverter();
+            default:
+                throw new IllegalArgumentException(format.name());
+        }
+    }
+
+    /**
+     * The service only reads the create request, so protobuf clients encode it themselves as {@code CreateSleepLog}
+     */
+    private static byte[] protobufCreateRequest(CreateSleepLogRequest request) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        output.writeInt64(1, request.getTimeInBedStart().toEpochMilli());
+        output.writeInt64(2, request.getTimeInBedEnd().toEpochMilli());
+        output.writeEnum(3, request.getMorningFeeling().ordinal() + 1);
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Jackson2ObjectMapperBuilder mapperBuilder() {
+        return new Jackson2ObjectMapperBuilder()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS);
+    }
+
+    private static SleepLogAveragesResponse.FeelingFrequency frequency(int count, String percentage) {
+        return SleepLogAveragesResponse.FeelingFrequency.builder()
+                .count(count)
+                .percentage(new BigDecimal(percentage))
+                .build();
+    }
+}
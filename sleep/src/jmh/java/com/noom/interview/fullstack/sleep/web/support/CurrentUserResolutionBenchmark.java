@@ -0,0 +1,97 @@
+package com.noom.interview.fullstack.sleep.web.support;
+
+import com.noom.interview.fullstack.sleep.filter.UserContextFilter;
+import com.noom.interview.fullstack.sleep.utils.UuidParser;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.scope.ScopedProxyUtils;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.annotation.RequestScope;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The user of a request from the X-User-Id header to the controller argument. {@code requestScopedProxy} is the former
+ * path: {@code UUID.fromString} in the filter, stored into and read from a {@code @RequestScope} bean through its
+ * CGLIB proxy. {@code currentUserResolver} is the current one: {@link UuidParser} in the filter, a request attribute
+ * and {@link CurrentUserArgumentResolver}. Each invocation starts from a request without the user, as a new request
+ * would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CurrentUserResolutionBenchmark {
+
+    private final CurrentUserArgumentResolver resolver = new CurrentUserArgumentResolver();
+    private AnnotationConfigWebApplicationContext context;
+    private LegacyUserContext legacyUserContext;
+    private String legacyScopedTargetName;
+    private MockHttpServletRequest request;
+    private MethodParameter userParameter;
+    private String header;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.register(LegacyUserContext.class);
+        context.refresh();
+        legacyUserContext = context.getBean(LegacyUserContext.class);
+        legacyScopedTargetName = ScopedProxyUtils.getTargetBeanName(
+                context.getBeanNamesForType(LegacyUserContext.class)[0]);
+
+        header = UUID.randomUUID().toString();
+        request = new MockHttpServletRequest("GET", "/sleep-log");
+        request.addHeader("X-User-Id", header);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        userParameter = new MethodParameter(getClass().getMethod("handler", UUID.class), 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        context.close();
+    }
+
+    @Benchmark
+    public UUID requestScopedProxy() {
+        request.removeAttribute(legacyScopedTargetName);
+        legacyUserContext.setUserId(UUID.fromString(request.getHeader("X-User-Id")));
+        return legacyUserContext.getUserId();
+    }
+
+    @Benchmark
+    public UUID currentUserResolver() {
+        request.removeAttribute(UserContextFilter.USER_ID_ATTRIBUTE);
+        request.setAttribute(UserContextFilter.USER_ID_ATTRIBUTE, UuidParser.parseOrNull(request.getHeader("X-User-Id")));
+        return resolver.resolveArgument(userParameter, null, new ServletWebRequest(request), null);
+    }
+
+    /**
+     * Stands for the handler method of the resolved parameter
+     */
+    public void handler(@CurrentUser UUID userId) {
+    }
+
+    /**
+     * The request-scoped bean the user used to be kept in
+     */
+    @RequestScope
+    public static class LegacyUserContext {
+        private UUID userId;
+
+        public UUID getUserId() {
+            return userId;
+        }
+
+        public void setUserId(UUID userId) {
+            this.userId = userId;
+        }
+    }
+}
@@ -1,14 +1,27 @@
 package com.noom.interview.fullstack.sleep;
 
+import com.noom.interview.fullstack.sleep.cli.SleepCommands;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableAsync
+@EnableScheduling
 public class SleepApplication {
 
     public static final String UNIT_TEST_PROFILE = "unittest";
+    public static final String REACTIVE_PROFILE = "reactive";
+    /**
+     * Active when the application runs a one-off command, see {@link SleepCommands}
+     */
+    public static final String COMMAND_PROFILE = "command";
 
     public static void main(String[] args) {
+        if (SleepCommands.isCommand(args)) {
+            System.exit(SleepCommands.run(SleepApplication.class, args));
+        }
         SpringApplication.run(SleepApplication.class, args);
     }
 }
@@ -0,0 +1,61 @@
+package com.noom.interview.fullstack.sleep.cache;
+
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Cache of the last 30-day averages of a user. An entry is only valid for the range end date it was computed for, so
+ * it expires by itself when the UTC day rolls over.
+ * <p>
+ * Averages and versions are put with the {@link #generation(UUID) generation} read before they were computed. A put
+ * is dropped when the user was invalidated since, as it may hold what was computed before the invalidating write.
+ */
+public interface AveragesCache {
+    /**
+     * @param userId user identifier
+     * @param rangeEnd last sleep date of the requested range
+     * @return the cached averages, or empty when missing or computed for another range end
+     */
+    Optional<SleepLogAveragesResponse> get(UUID userId, LocalDate rangeEnd);
+
+    /**
+     * @param userId user identifier
+     * @return the generation of the user's entry, to read before computing the averages or the version to put
+     */
+    long generation(UUID userId);
+
+    /**
+     * Caches the averages of a user for {@link SleepLogAveragesResponse#getRangeEnd()}, unless the user was
+     * invalidated since generation was read
+     */
+    void put(UUID userId, long generation, SleepLogAveragesResponse averages);
+
+    /**
+     * @param userId user identifier
+     * @param rangeEnd last sleep date of the requested range
+     * @return the cached version of the data the averages are computed from, or empty when missing or cached for
+     * another range end
+     */
+    Optional<String> getVersion(UUID userId, LocalDate rangeEnd);
+
+    /**
+     * Caches the version of the data the averages of a user ending at rangeEnd are computed from, unless the user was
+     * invalidated since generation was read. It is dropped together with the averages.
+     */
+    void putVersion(UUID userId, long generation, LocalDate rangeEnd, String version);
+
+    /**
+     * Drops the cached averages and version of a user, whatever their range end, and moves the user's generation on
+     */
+    void invalidate(UUID userId);
+
+    /**
+     * Drops the cached averages of all users, e.g. after a bulk import, and moves every generation on
+     */
+    void invalidateAll();
+
+    CacheStatistics stats();
+}
@@ -0,0 +1,17 @@
+package com.noom.interview.fullstack.sleep.cache;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class CacheStatistics {
+    long hitCount;
+    long missCount;
+    long evictionCount;
+    long size;
+    /**
+     * Approximate heap used by the entries, 0 when the cache does not track it
+     */
+    long memoryBytes;
+}
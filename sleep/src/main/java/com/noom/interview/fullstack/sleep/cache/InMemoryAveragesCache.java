@@ -0,0 +1,166 @@
+package com.noom.interview.fullstack.sleep.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caffeine backed {@link AveragesCache} bounded by number of users and time since the averages were computed. There
+ * is a single entry per user, holding the range end it was computed for and the version of its data, so invalidating a
+ * user is a single removal. The averages and the version are cached independently as long as their range ends and
+ * generations match.
+ * <p>
+ * Generations are kept in a fixed number of stripes rather than per user, so that they take no memory per user.
+ * Invalidating a user moves on the generation of every user of its stripe, whose pending puts are then dropped as well;
+ * they are only computed again on the next miss. A put checks the generation while it holds the entry, and an
+ * invalidation moves the generation on before removing the entry, so a put either sees the new generation or is
+ * removed right after.
+ * <p>
+ * Writes only invalidate the cache of the instance that served them, so with several instances another instance keeps
+ * serving the averages from before the write until the entry expires. Set {@code sleep.cache.averages.type=none} when
+ * that is not acceptable.
+ */
+@Component
+@ConditionalOnProperty(name = "sleep.cache.averages.type", havingValue = "in-memory", matchIfMissing = true)
+public class InMemoryAveragesCache implements AveragesCache {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Cache<UUID, CachedAverages> cache;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public InMemoryAveragesCache(
+            @Value("${sleep.cache.averages.maximum-size:100000}") long maximumSize,
+            @Value("${sleep.cache.averages.ttl:PT10M}") Duration ttl
+    ) {
+        this(maximumSize, ttl, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    InMemoryAveragesCache(long maximumSize, Duration ttl, Ticker ticker, Executor executor) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Optional<SleepLogAveragesResponse> get(UUID userId, LocalDate rangeEnd) {
+        CachedAverages cached = cache.getIfPresent(userId);
+        if (cached == null || !cached.getRangeEnd().equals(rangeEnd) || cached.getAverages() == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(cached.getAverages());
+    }
+
+    @Override
+    public long generation(UUID userId) {
+        return generations.get(stripe(userId));
+    }
+
+    @Override
+    public void put(UUID userId, long generation, SleepLogAveragesResponse averages) {
+        putIfCurrent(userId, new CachedAverages(averages.getRangeEnd(), generation, averages, null));
+    }
+
+    @Override
+    public Optional<String> getVersion(UUID userId, LocalDate rangeEnd) {
+        CachedAverages cached = cache.getIfPresent(userId);
+        if (cached == null || !cached.getRangeEnd().equals(rangeEnd)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cached.getVersion());
+    }
+
+    @Override
+    public void putVersion(UUID userId, long generation, LocalDate rangeEnd, String version) {
+        putIfCurrent(userId, new CachedAverages(rangeEnd, generation, null, version));
+    }
+
+    @Override
+    public void invalidate(UUID userId) {
+        generations.incrementAndGet(stripe(userId));
+        cache.invalidate(userId);
+    }
+
+    @Override
+    public void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+
+    @Override
+    public CacheStatistics stats() {
+        return CacheStatistics.builder()
+                .hitCount(hits.sum())
+                .missCount(misses.sum())
+                .evictionCount(cache.stats().evictionCount())
+                .size(cache.estimatedSize())
+                .build();
+    }
+
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private void putIfCurrent(UUID userId, CachedAverages newer) {
+        cache.asMap().compute(userId, (key, existing) -> {
+            if (generations.get(stripe(userId)) != newer.getGeneration()) {
+                return existing;
+            }
+            return existing == null ? newer : existing.merge(newer);
+        });
+    }
+
+    private static int stripe(UUID userId) {
+        int hash = userId.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class CachedAverages {
+        private final LocalDate rangeEnd;
+        private final long generation;
+        private final SleepLogAveragesResponse averages;
+        private final String version;
+
+        /**
+         * Keeps what the newer entry leaves null when both are for the same range end and generation, otherwise the
+         * newer entry
+         */
+        CachedAverages merge(CachedAverages newer) {
+            if (!rangeEnd.equals(newer.rangeEnd) || generation != newer.generation) {
+                return newer;
+            }
+            return new CachedAverages(rangeEnd, generation,
+                    newer.averages != null ? newer.averages : averages,
+                    newer.version != null ? newer.version : version);
+        }
+    }
+}
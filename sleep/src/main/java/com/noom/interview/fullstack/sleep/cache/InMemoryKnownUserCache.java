@@ -0,0 +1,212 @@
+package com.noom.interview.fullstack.sleep.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@link KnownUserCache} storing the two halves of each id in a single open-addressing {@code long[]} table with
+ * linear probing, 16 bytes per slot and no object per user. The table is kept at most 3/4 full, so a million users
+ * take 32 MB against about 80 MB for a concurrent set of {@link UUID}. Lookups are lock-free optimistic reads; adds
+ * and removals take a write lock. Once {@code sleep.cache.known-users.maximum-size} users are stored the whole set is
+ * cleared and warms up again.
+ */
+@Component
+@ConditionalOnProperty(name = "sleep.cache.known-users.type", havingValue = "in-memory", matchIfMissing = true)
+public class InMemoryKnownUserCache implements KnownUserCache {
+    static final int INITIAL_CAPACITY = 1 << 10;
+
+    private final long maximumSize;
+    private final StampedLock lock = new StampedLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Slot i holds the most significant bits of an id at 2i and the least significant ones at 2i + 1. An empty slot
+     * is all zeros, so the nil UUID is never stored.
+     */
+    private volatile long[] table = new long[2 * INITIAL_CAPACITY];
+    private int size;
+
+    public InMemoryKnownUserCache(@Value("${sleep.cache.known-users.maximum-size:1000000}") long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    @Override
+    public boolean contains(UUID userId) {
+        long msb = userId.getMostSignificantBits();
+        long lsb = userId.getLeastSignificantBits();
+
+        long stamp = lock.tryOptimisticRead();
+        boolean found = indexOf(table, msb, lsb) >= 0;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                found = indexOf(table, msb, lsb) >= 0;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        (found ? hits : misses).increment();
+        return found;
+    }
+
+    @Override
+    public void add(UUID userId) {
+        long msb = userId.getMostSignificantBits();
+        long lsb = userId.getLeastSignificantBits();
+        if (msb == 0 && lsb == 0) {
+            return;
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            if (indexOf(table, msb, lsb) >= 0) {
+                return;
+            }
+            if (size >= maximumSize) {
+                evictions.add(size);
+                table = new long[2 * INITIAL_CAPACITY];
+                size = 0;
+            } else if ((size + 1) * 4L > slots(table) * 3L) {
+                table = resize(table, slots(table) * 2);
+            }
+            insert(table, msb, lsb);
+            size++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void invalidate(UUID userId) {
+        long stamp = lock.writeLock();
+        try {
+            long[] slots = table;
+            int index = indexOf(slots, userId.getMostSignificantBits(), userId.getLeastSignificantBits());
+            if (index >= 0) {
+                remove(slots, index);
+                size--;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        long stamp = lock.writeLock();
+        try {
+            table = new long[2 * INITIAL_CAPACITY];
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public CacheStatistics stats() {
+        long stamp = lock.readLock();
+        try {
+            return CacheStatistics.builder()
+                    .hitCount(hits.sum())
+                    .missCount(misses.sum())
+                    .evictionCount(evictions.sum())
+                    .size(size)
+                    .memoryBytes((long) table.length * Long.BYTES)
+                    .build();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Safe to call without the lock: the table may change during the probe, which is then bounded by its length and
+     * retried under the read lock by the caller
+     * @return slot of the id, -1 when absent
+     */
+    private static int indexOf(long[] table, long msb, long lsb) {
+        int mask = slots(table) - 1;
+        int slot = home(msb, lsb, mask);
+        for (int probes = 0; probes <= mask; probes++) {
+            long storedMsb = table[2 * slot];
+            long storedLsb = table[2 * slot + 1];
+            if (storedMsb == msb && storedLsb == lsb && (msb != 0 || lsb != 0)) {
+                return slot;
+            }
+            if (storedMsb == 0 && storedLsb == 0) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static void insert(long[] table, long msb, long lsb) {
+        int mask = slots(table) - 1;
+        int slot = home(msb, lsb, mask);
+        while (table[2 * slot] != 0 || table[2 * slot + 1] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[2 * slot] = msb;
+        table[2 * slot + 1] = lsb;
+    }
+
+    /**
+     * Backward-shift deletion: moves up the following entries of the probe run so no lookup stops early at the slot
+     */
+    private static void remove(long[] table, int slot) {
+        int mask = slots(table) - 1;
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            long msb = table[2 * next];
+            long lsb = table[2 * next + 1];
+            if (msb == 0 && lsb == 0) {
+                break;
+            }
+            int home = home(msb, lsb, mask);
+            boolean staysInPlace = hole <= next
+                    ? hole < home && home <= next
+                    : hole < home || home <= next;
+            if (!staysInPlace) {
+                table[2 * hole] = msb;
+                table[2 * hole + 1] = lsb;
+                hole = next;
+            }
+        }
+        table[2 * hole] = 0;
+        table[2 * hole + 1] = 0;
+    }
+
+    private static long[] resize(long[] table, int capacity) {
+        long[] resized = new long[2 * capacity];
+        for (int slot = 0; slot < slots(table); slot++) {
+            long msb = table[2 * slot];
+            long lsb = table[2 * slot + 1];
+            if (msb != 0 || lsb != 0) {
+                insert(resized, msb, lsb);
+            }
+        }
+        return resized;
+    }
+
+    private static int slots(long[] table) {
+        return table.length / 2;
+    }
+
+    /**
+     * Ids with a timestamp prefix share their high bits, so both halves are mixed before masking
+     */
+    private static int home(long msb, long lsb, int mask) {
+        long hash = (msb ^ Long.rotateLeft(lsb, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,178 @@
+package com.noom.interview.fullstack.sleep.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caffeine backed {@link TodayLogCache} holding a single entry per user. Sleep logs are stored as primitive fields
+ * (about 72 bytes) and "not logged yet" entries as a 16 byte marker, so with the key and the cache node a user costs
+ * roughly 200 bytes: 100 000 active users fit in about 20 MB.
+ * <p>
+ * A sleep log never changes once created, so logged entries live for {@code sleep.cache.today-log.ttl}. "Not logged
+ * yet" entries expire after {@code sleep.cache.today-log.not-logged-ttl} (seconds by default): the cache is local to the
+ * instance, and a log created through another instance is only seen once the entry has expired.
+ */
+@Component
+@ConditionalOnProperty(name = "sleep.cache.today-log.type", havingValue = "in-memory", matchIfMissing = true)
+public class InMemoryTodayLogCache implements TodayLogCache {
+    private static final MorningFeeling[] FEELINGS = MorningFeeling.values();
+
+    private final Cache<UUID, Entry> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public InMemoryTodayLogCache(
+            @Value("${sleep.cache.today-log.maximum-size:100000}") long maximumSize,
+            @Value("${sleep.cache.today-log.ttl:PT1H}") Duration ttl,
+            @Value("${sleep.cache.today-log.not-logged-ttl:PT5S}") Duration notLoggedTtl
+    ) {
+        this(maximumSize, ttl, notLoggedTtl, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    InMemoryTodayLogCache(long maximumSize, Duration ttl, Duration notLoggedTtl, Ticker ticker, Executor executor) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new EntryExpiry(ttl.toNanos(), notLoggedTtl.toNanos()))
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Optional<TodayLog> get(UUID userId, LocalDate sleepDate) {
+        Entry entry = cache.getIfPresent(userId);
+        if (entry == null || entry.epochDay != sleepDate.toEpochDay()) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(entry instanceof LoggedEntry
+                ? TodayLog.logged(((LoggedEntry) entry).toResponse())
+                : TodayLog.notLogged());
+    }
+
+    @Override
+    public void putLogged(UUID userId, SleepLogResponse sleepLog) {
+        cache.put(userId, new LoggedEntry(sleepLog));
+    }
+
+    @Override
+    public void putNotLogged(UUID userId, LocalDate sleepDate) {
+        int epochDay = Math.toIntExact(sleepDate.toEpochDay());
+        cache.asMap().compute(userId, (id, existing) ->
+                existing instanceof LoggedEntry && existing.epochDay == epochDay ? existing : new Entry(epochDay));
+    }
+
+    @Override
+    public void invalidate(UUID userId) {
+        cache.invalidate(userId);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public CacheStatistics stats() {
+        return CacheStatistics.builder()
+                .hitCount(hits.sum())
+                .missCount(misses.sum())
+                .evictionCount(cache.stats().evictionCount())
+                .size(cache.estimatedSize())
+                .build();
+    }
+
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    /**
+     * Expires every entry a fixed time after it was written, depending on whether it holds a sleep log
+     */
+    private static final class EntryExpiry implements Expiry<UUID, Entry> {
+        private final long loggedNanos;
+        private final long notLoggedNanos;
+
+        EntryExpiry(long loggedNanos, long notLoggedNanos) {
+            this.loggedNanos = loggedNanos;
+            this.notLoggedNanos = notLoggedNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(UUID userId, Entry entry, long currentTime) {
+            return entry instanceof LoggedEntry ? loggedNanos : notLoggedNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(UUID userId, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(userId, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(UUID userId, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static class Entry {
+        final int epochDay;
+
+        Entry(int epochDay) {
+            this.epochDay = epochDay;
+        }
+    }
+
+    private static final class LoggedEntry extends Entry {
+        private final long idMostSignificantBits;
+        private final long idLeastSignificantBits;
+        private final long startEpochSecond;
+        private final long endEpochSecond;
+        private final int startNano;
+        private final int endNano;
+        private final int totalTimeInBedMinutes;
+        private final byte morningFeeling;
+
+        LoggedEntry(SleepLogResponse sleepLog) {
+            super(Math.toIntExact(sleepLog.getSleepDate().toEpochDay()));
+            this.idMostSignificantBits = sleepLog.getId().getMostSignificantBits();
+            this.idLeastSignificantBits = sleepLog.getId().getLeastSignificantBits();
+            this.startEpochSecond = sleepLog.getTimeInBedStart().getEpochSecond();
+            this.startNano = sleepLog.getTimeInBedStart().getNano();
+            this.endEpochSecond = sleepLog.getTimeInBedEnd().getEpochSecond();
+            this.endNano = sleepLog.getTimeInBedEnd().getNano();
+            this.totalTimeInBedMinutes = sleepLog.getTotalTimeInBedMinutes();
+            this.morningFeeling = (byte) sleepLog.getMorningFeeling().ordinal();
+        }
+
+        SleepLogResponse toResponse() {
+            return SleepLogResponse.builder()
+                    .id(new UUID(idMostSignificantBits, idLeastSignificantBits))
+                    .sleepDate(LocalDate.ofEpochDay(epochDay))
+                    .timeInBedStart(Instant.ofEpochSecond(startEpochSecond, startNano))
+                    .timeInBedEnd(Instant.ofEpochSecond(endEpochSecond, endNano))
+                    .totalTimeInBedMinutes(totalTimeInBedMinutes)
+                    .morningFeeling(FEELINGS[morningFeeling])
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.noom.interview.fullstack.sleep.cache;
+
+import java.util.UUID;
+
+/**
+ * Set of the users that have an app_user row, so writes of known users can skip creating the user. A user deleted
+ * after being added is still reported as known until invalidated, so callers must treat a missing user row as a
+ * cache miss and invalidate it.
+ */
+public interface KnownUserCache {
+    /**
+     * @return true when the user was added and not invalidated since
+     */
+    boolean contains(UUID userId);
+
+    void add(UUID userId);
+
+    void invalidate(UUID userId);
+
+    void invalidateAll();
+
+    CacheStatistics stats();
+}
@@ -0,0 +1,49 @@
+package com.noom.interview.fullstack.sleep.cache;
+
+import com.noom.interview.fullstack.sleep.SleepApplication;
+import com.noom.interview.fullstack.sleep.repository.AppUserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Adds the existing users to the {@link KnownUserCache} at startup when {@code sleep.cache.known-users.preload=true},
+ * up to the maximum size of the cache. Without it the cache is warmed by the first write of each user.
+ */
+@Component
+@Profile("!" + SleepApplication.UNIT_TEST_PROFILE + " & !" + SleepApplication.COMMAND_PROFILE)
+@ConditionalOnProperty(name = "sleep.cache.known-users.preload", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class KnownUserCachePreloader implements ApplicationRunner {
+
+    private final AppUserRepository appUserRepository;
+    private final KnownUserCache knownUserCache;
+
+    @Value("${sleep.cache.known-users.maximum-size:1000000}")
+    private long maximumSize = 1_000_000;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void run(ApplicationArguments args) {
+        log.info("Preloading known users");
+        LongAdder loaded = new LongAdder();
+        try (Stream<UUID> ids = appUserRepository.streamAllIds()) {
+            ids.limit(maximumSize).forEach(userId -> {
+                knownUserCache.add(userId);
+                loaded.increment();
+            });
+        }
+        log.info("Preloaded {} known users", loaded.sum());
+    }
+}
@@ -0,0 +1,59 @@
+package com.noom.interview.fullstack.sleep.cache;
+
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AveragesCache} that never caches, selected with {@code sleep.cache.averages.type=none}
+ */
+@Component
+@ConditionalOnProperty(name = "sleep.cache.averages.type", havingValue = "none")
+public class NoOpAveragesCache implements AveragesCache {
+
+    private final LongAdder misses = new LongAdder();
+
+    @Override
+    public Optional<SleepLogAveragesResponse> get(UUID userId, LocalDate rangeEnd) {
+        misses.increment();
+        return Optional.empty();
+    }
+
+    @Override
+    public long generation(UUID userId) {
+        return 0;
+    }
+
+    @Override
+    public void put(UUID userId, long generation, SleepLogAveragesResponse averages) {
+    }
+
+    @Override
+    public Optional<String> getVersion(UUID userId, LocalDate rangeEnd) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void putVersion(UUID userId, long generation, LocalDate rangeEnd, String version) {
+    }
+
+    @Override
+    public void invalidate(UUID userId) {
+    }
+
+    @Override
+    public void invalidateAll() {
+    }
+
+    @Override
+    public CacheStatistics stats() {
+        return CacheStatistics.builder()
+                .missCount(misses.sum())
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.noom.interview.fullstack.sleep.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link KnownUserCache} that never caches, selected with {@code sleep.cache.known-users.type=none}
+ */
+@Component
+@ConditionalOnProperty(name = "sleep.cache.known-users.type", havingValue = "none")
+public class NoOpKnownUserCache implements KnownUserCache {
+
+    private final LongAdder misses = new LongAdder();
+
+    @Override
+    public boolean contains(UUID userId) {
+        misses.increment();
+        return false;
+    }
+
+    @Override
+    public void add(UUID userId) {
+    }
+
+    @Override
+    public void invalidate(UUID userId) {
+    }
+
+    @Override
+    public void invalidateAll() {
+    }
+
+    @Override
+    public CacheStatistics stats() {
+        return CacheStatistics.builder()
+                .missCount(misses.sum())
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.noom.interview.fullstack.sleep.cache;
+
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link TodayLogCache} that never caches, selected with {@code sleep.cache.today-log.type=none}
+ */
+@Component
+@ConditionalOnProperty(name = "sleep.cache.today-log.type", havingValue = "none")
+public class NoOpTodayLogCache implements TodayLogCache {
+
+    private final LongAdder misses = new LongAdder();
+
+    @Override
+    public Optional<TodayLog> get(UUID userId, LocalDate sleepDate) {
+        misses.increment();
+        return Optional.empty();
+    }
+
+    @Override
+    public void putLogged(UUID userId, SleepLogResponse sleepLog) {
+    }
+
+    @Override
+    public void putNotLogged(UUID userId, LocalDate sleepDate) {
+    }
+
+    @Override
+    public void invalidate(UUID userId) {
+    }
+
+    @Override
+    public void invalidateAll() {
+    }
+
+    @Override
+    public CacheStatistics stats() {
+        return CacheStatistics.builder()
+                .missCount(misses.sum())
+                .build();
+    }
+}
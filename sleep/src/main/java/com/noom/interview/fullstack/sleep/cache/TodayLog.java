@@ -0,0 +1,30 @@
+package com.noom.interview.fullstack.sleep.cache;
+
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+
+import java.util.Optional;
+
+/**
+ * Cached result of looking up a user's sleep log for a date: either the log or the fact that there is none
+ */
+public final class TodayLog {
+    private static final TodayLog NOT_LOGGED = new TodayLog(null);
+
+    private final SleepLogResponse log;
+
+    private TodayLog(SleepLogResponse log) {
+        this.log = log;
+    }
+
+    public static TodayLog notLogged() {
+        return NOT_LOGGED;
+    }
+
+    public static TodayLog logged(SleepLogResponse log) {
+        return new TodayLog(log);
+    }
+
+    public Optional<SleepLogResponse> getLog() {
+        return Optional.ofNullable(log);
+    }
+}
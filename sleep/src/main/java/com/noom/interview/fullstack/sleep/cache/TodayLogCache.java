@@ -0,0 +1,37 @@
+package com.noom.interview.fullstack.sleep.cache;
+
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Cache of the sleep log a user has for a UTC sleep date, including the fact that the user has not logged yet. An
+ * entry is only valid for the sleep date it was stored for.
+ */
+public interface TodayLogCache {
+    /**
+     * @param userId user identifier
+     * @param sleepDate UTC sleep date being looked up
+     * @return the cached lookup result, or empty when nothing is cached for this user and sleep date
+     */
+    Optional<TodayLog> get(UUID userId, LocalDate sleepDate);
+
+    /**
+     * Stores the sleep log of a user for {@link SleepLogResponse#getSleepDate()}, replacing any previous entry
+     */
+    void putLogged(UUID userId, SleepLogResponse sleepLog);
+
+    /**
+     * Records that the user has no sleep log for the sleep date. Never replaces a sleep log already cached for that
+     * date, so a lookup racing with a create cannot hide the created log.
+     */
+    void putNotLogged(UUID userId, LocalDate sleepDate);
+
+    void invalidate(UUID userId);
+
+    void invalidateAll();
+
+    CacheStatistics stats();
+}
@@ -0,0 +1,73 @@
+package com.noom.interview.fullstack.sleep.cli;
+
+import com.noom.interview.fullstack.sleep.SleepApplication;
+import com.noom.interview.fullstack.sleep.model.ImportFormat;
+import com.noom.interview.fullstack.sleep.service.SleepLogImportService;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogImportResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports a CSV or NDJSON file of sleep entries when the application is started with
+ * {@code --import-sleep-logs=<path>}, see {@link SleepCommands}. The format is taken from {@code --import-format} or
+ * else from the file extension. The application exits with {@value #EXIT_ROWS_REJECTED} when rows were rejected.
+ */
+@Component
+@Profile("!" + SleepApplication.UNIT_TEST_PROFILE)
+@RequiredArgsConstructor
+@Slf4j
+public class ImportSleepLogsRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    static final String IMPORT_OPTION = "import-sleep-logs";
+    static final String FORMAT_OPTION = "import-format";
+    static final int EXIT_ROWS_REJECTED = 2;
+
+    private final SleepLogImportService sleepLogImportService;
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<String> files = args.getOptionValues(IMPORT_OPTION);
+        if (files == null) {
+            return;
+        }
+        for (String file : files) {
+            Path path = Path.of(file);
+            ImportFormat format = format(args, path);
+            log.info("Importing sleep logs from {} as {}", path, format);
+            try (InputStream input = Files.newInputStream(path)) {
+                SleepLogImportResponse result = sleepLogImportService.importLogs(input, format);
+                log.info("Imported {}: {} rows read, {} created, {} skipped, {} rejected",
+                        path, result.getRowsRead(), result.getCreated(), result.getSkipped(), result.getRejected());
+                result.getErrors().forEach(error -> log.warn("Rejected {}", error));
+                rejected.addAndGet(result.getRejected());
+            }
+        }
+    }
+
+    @Override
+    public int getExitCode() {
+        return rejected.get() > 0 ? EXIT_ROWS_REJECTED : 0;
+    }
+
+    private static ImportFormat format(ApplicationArguments args, Path path) {
+        List<String> formats = args.getOptionValues(FORMAT_OPTION);
+        if (formats == null || formats.isEmpty()) {
+            return ImportFormat.fromFileName(path.getFileName().toString());
+        }
+        return ImportFormat.valueOf(formats.get(0).toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,35 @@
+package com.noom.interview.fullstack.sleep.cli;
+
+import com.noom.interview.fullstack.sleep.SleepApplication;
+import com.noom.interview.fullstack.sleep.service.SleepAggregateService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes the rolling sleep aggregates from sleep_entry when the application is started with
+ * {@code --rebuild-aggregates}, e.g. after rows were written outside the API, see {@link SleepCommands}
+ */
+@Component
+@Profile("!" + SleepApplication.UNIT_TEST_PROFILE)
+@RequiredArgsConstructor
+@Slf4j
+public class RebuildAggregatesRunner implements ApplicationRunner {
+
+    static final String REBUILD_AGGREGATES_OPTION = "rebuild-aggregates";
+
+    private final SleepAggregateService sleepAggregateService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(REBUILD_AGGREGATES_OPTION)) {
+            return;
+        }
+        log.info("Rebuilding sleep aggregates from sleep_entry");
+        int rows = sleepAggregateService.rebuildAll();
+        log.info("Rebuilt sleep aggregates for {} users", rows);
+    }
+}
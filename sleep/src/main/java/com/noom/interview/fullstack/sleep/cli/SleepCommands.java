@@ -0,0 +1,44 @@
+package com.noom.interview.fullstack.sleep.cli;
+
+import com.noom.interview.fullstack.sleep.SleepApplication;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * One-off commands run by starting the application with their option: {@code --import-sleep-logs=<path>} and
+ * {@code --rebuild-aggregates}. They run without the web server, in the {@value SleepApplication#COMMAND_PROFILE}
+ * profile, which leaves out the partition maintenance and the other startup and scheduled jobs, and the application
+ * exits once they are done.
+ */
+public final class SleepCommands {
+
+    static final int EXIT_FAILED = 1;
+
+    private SleepCommands() {
+    }
+
+    public static boolean isCommand(String... args) {
+        DefaultApplicationArguments arguments = new DefaultApplicationArguments(args);
+        return arguments.containsOption(ImportSleepLogsRunner.IMPORT_OPTION)
+                || arguments.containsOption(RebuildAggregatesRunner.REBUILD_AGGREGATES_OPTION);
+    }
+
+    /**
+     * @return the exit code of the command: 0 when it succeeded, {@value #EXIT_FAILED} when it failed, which is logged
+     * by Spring Boot, or the code of its {@link org.springframework.boot.ExitCodeGenerator}
+     */
+    public static int run(Class<?> source, String... args) {
+        SpringApplication application = new SpringApplication(source);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setAdditionalProfiles(SleepApplication.COMMAND_PROFILE);
+        ConfigurableApplicationContext context;
+        try {
+            context = application.run(args);
+        } catch (RuntimeException ex) {
+            return EXIT_FAILED;
+        }
+        return SpringApplication.exit(context);
+    }
+}
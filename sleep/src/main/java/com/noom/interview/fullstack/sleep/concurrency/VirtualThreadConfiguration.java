@@ -0,0 +1,70 @@
+package com.noom.interview.fullstack.sleep.concurrency;
+
+import com.noom.interview.fullstack.sleep.filter.ConcurrencyLimitFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs servlet requests, async MVC processing and {@code @Async} methods on virtual threads when
+ * {@code sleep.threads.virtual.enabled=true}. Without the Tomcat thread pool bounding concurrency, the
+ * {@link ConcurrencyLimitFilter} caps the requests in progress at a multiple of the connection pool size, so a burst
+ * of requests is rejected early instead of piling up on the pool and timing out there.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "sleep.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfiguration {
+
+    @Value("${sleep.datasource.pool.maximum-size:10}")
+    private int maximumPoolSize = 10;
+
+    @Value("${sleep.threads.virtual.requests-per-connection:4}")
+    private int requestsPerConnection = 4;
+
+    @Value("${sleep.threads.virtual.queue-timeout:PT1S}")
+    private Duration queueTimeout = Duration.ofSeconds(1);
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sleep-virtual-", 0).factory());
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /**
+     * Replaces the pool of the auto-configuration, which serves both async MVC processing and {@code @Async} methods
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter() {
+        int maxConcurrentRequests = maximumPoolSize * requestsPerConnection;
+        log.info("Virtual threads enabled, at most {} concurrent requests", maxConcurrentRequests);
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(maxConcurrentRequests, queueTimeout));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,16 @@
+package com.noom.interview.fullstack.sleep.db;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the statements Hibernate prepares for the current request. Registered with the
+ * {@code hibernate.session_factory.statement_inspector} property, so Hibernate creates it.
+ */
+public class CountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatistics.recordHibernateStatement();
+        return sql;
+    }
+}
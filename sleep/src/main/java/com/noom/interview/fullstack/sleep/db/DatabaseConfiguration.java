@@ -1,21 +1,35 @@
 package com.noom.interview.fullstack.sleep.db;
 
 import com.noom.interview.fullstack.sleep.SleepApplication;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 import javax.sql.DataSource;
-import java.sql.Connection;
-import java.sql.SQLException;
+import java.time.Duration;
 
+/**
+ * HikariCP pool of the primary database and, when {@code sleep.datasource.replica.url} is set, a second pool of a
+ * read replica that serves the {@code @Transactional(readOnly = true)} work. Without a replica every connection comes
+ * from the primary pool. Connections are handed out through a {@link StatementCountingDataSource}, which counts the
+ * statements of each request.
+ */
 @Configuration
 @Profile("!" + SleepApplication.UNIT_TEST_PROFILE)
 public class DatabaseConfiguration {
 
+    static final String PRIMARY_POOL_NAME = "sleep-primary";
+    static final String REPLICA_POOL_NAME = "sleep-replica";
+
     @Value("${spring.datasource.url}")
     private String url;
 
@@ -25,23 +39,68 @@ public class DatabaseConfiguration {
     @Value("${spring.datasource.password}")
     private String password;
 
-    @Bean
-    public DataSource dataSource() {
-        return DataSourceBuilder.create()
-                .driverClassName("org.postgresql.Driver")
-                .url(url)
-                .username(username)
-                .password(password)
-                .build();
+    @Value("${sleep.datasource.pool.maximum-size:10}")
+    private int maximumPoolSize = 10;
+
+    @Value("${sleep.datasource.pool.minimum-idle:2}")
+    private int minimumIdle = 2;
+
+    @Value("${sleep.datasource.pool.connection-timeout:PT30S}")
+    private Duration connectionTimeout = Duration.ofSeconds(30);
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource primaryDataSource() {
+        return pool(PRIMARY_POOL_NAME, url, username, password);
     }
 
-    @Bean
-    public Connection dbConnection(DataSource dataSource) throws SQLException {
-        return dataSource.getConnection();
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("!'${sleep.datasource.replica.url:}'.isBlank()")
+    public HikariDataSource replicaDataSource(
+            @Value("${sleep.datasource.replica.url}") String replicaUrl,
+            @Value("${sleep.datasource.replica.username:${spring.datasource.username}}") String replicaUsername,
+            @Value("${sleep.datasource.replica.password:${spring.datasource.password}}") String replicaPassword
+    ) {
+        HikariDataSource replica = pool(REPLICA_POOL_NAME, replicaUrl, replicaUsername, replicaPassword);
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    /**
+     * The pools are closed by their own beans, hence no destroy method here. Connections are only borrowed when a
+     * statement runs, so read-only transactions can be routed after they begin.
+     */
+    @Bean(destroyMethod = "")
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+            @Qualifier("replicaDataSource") ObjectProvider<HikariDataSource> replicaDataSource
+    ) {
+        HikariDataSource replica = replicaDataSource.getIfAvailable();
+        if (replica == null) {
+            return new StatementCountingDataSource(primaryDataSource);
+        }
+        return new LazyConnectionDataSourceProxy(
+                new StatementCountingDataSource(new ReadOnlyRoutingDataSource(primaryDataSource, replica)));
     }
 
     @Bean
     public NamedParameterJdbcTemplate namedParameterJdbcTemplate(DataSource dataSource) {
         return new NamedParameterJdbcTemplate(dataSource);
     }
+
+    private HikariDataSource pool(String poolName, String jdbcUrl, String user, String secret) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setDriverClassName("org.postgresql.Driver");
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(user);
+        config.setPassword(secret);
+        config.setMaximumPoolSize(maximumPoolSize);
+        config.setMinimumIdle(Math.min(minimumIdle, maximumPoolSize));
+        config.setConnectionTimeout(connectionTimeout.toMillis());
+        config.setRegisterMbeans(true);
+        // Shows which pool a session comes from in pg_stat_activity
+        config.addDataSourceProperty("ApplicationName", poolName);
+        return new HikariDataSource(config);
+    }
 }
@@ -0,0 +1,17 @@
+package com.noom.interview.fullstack.sleep.db;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class PoolStatistics {
+    int activeConnections;
+    int idleConnections;
+    int totalConnections;
+    int maximumPoolSize;
+    /**
+     * Threads currently waiting for a connection, above 0 when the pool is too small for the load
+     */
+    int threadsAwaitingConnection;
+}
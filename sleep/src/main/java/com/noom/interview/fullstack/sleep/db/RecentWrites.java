@@ -0,0 +1,66 @@
+package com.noom.interview.fullstack.sleep.db;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Users who wrote through this instance within {@code sleep.datasource.replica.max-lag}. The replica may not have
+ * replayed their writes yet, so their reads are sent to the primary with
+ * {@link ReadOnlyRoutingDataSource#readFromPrimary}: a read from a lagging replica would return, and let the caches keep
+ * for their whole TTL, the data from before the write. A bulk write covers every user for the same time.
+ */
+@Component
+public class RecentWrites {
+    /**
+     * Users beyond it are forgotten early and read from the replica again
+     */
+    static final long MAXIMUM_USERS = 100_000;
+
+    private final Cache<UUID, Boolean> writers;
+    private final long maxLagNanos;
+    private final Ticker ticker;
+    private volatile long bulkWriteNanos;
+    private volatile boolean bulkWritten;
+
+    @Autowired
+    public RecentWrites(@Value("${sleep.datasource.replica.max-lag:PT10S}") Duration maxLag) {
+        this(maxLag, Ticker.systemTicker());
+    }
+
+    RecentWrites(Duration maxLag, Ticker ticker) {
+        this.maxLagNanos = maxLag.toNanos();
+        this.ticker = ticker;
+        this.writers = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_USERS)
+                .expireAfterWrite(maxLag)
+                .ticker(ticker)
+                .executor(Runnable::run)
+                .build();
+    }
+
+    public void recordWrite(UUID userId) {
+        writers.put(userId, Boolean.TRUE);
+    }
+
+    public void recordBulkWrite() {
+        bulkWriteNanos = ticker.read();
+        bulkWritten = true;
+    }
+
+    /**
+     * @return true when the user, or a bulk write, wrote within the maximum replica lag
+     */
+    public boolean isRecent(UUID userId) {
+        if (bulkWritten && ticker.read() - bulkWriteNanos < maxLagNanos) {
+            return true;
+        }
+        return writers.getIfPresent(userId) != null;
+    }
+}
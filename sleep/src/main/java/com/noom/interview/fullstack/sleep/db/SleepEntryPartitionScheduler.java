@@ -0,0 +1,114 @@
+package com.noom.interview.fullstack.sleep.db;
+
+import com.noom.interview.fullstack.sleep.SleepApplication;
+import com.noom.interview.fullstack.sleep.model.PartitionMaintenanceResult;
+import com.noom.interview.fullstack.sleep.service.SleepAggregateService;
+import com.noom.interview.fullstack.sleep.service.SleepEntryPartitionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the sleep_entry partition maintenance at startup and then every day, on
+ * {@code sleep.partitions.maintenance.cron} (UTC). Sleep dates without a partition go to the default partition, so a
+ * few failed runs go unnoticed by the API, but every run is counted in {@value #MAINTENANCE_METRIC} by outcome and the
+ * time of the last successful one is kept in {@value #LAST_SUCCESS_METRIC} to alert on.
+ * <p>
+ * Once partitions were detached, the aggregates and the running totals are rebuilt without their rows. The rebuild
+ * runs in a transaction of its own, as waiting for the writers of every user while holding the lock of the detach
+ * would deadlock with the sleep log inserts.
+ */
+@Component
+@Profile("!" + SleepApplication.UNIT_TEST_PROFILE + " & !" + SleepApplication.COMMAND_PROFILE)
+@ConditionalOnProperty(name = "sleep.partitions.maintenance.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class SleepEntryPartitionScheduler implements ApplicationRunner {
+
+    static final String MAINTENANCE_METRIC = "sleep.partitions.maintenance";
+    static final String LAST_SUCCESS_METRIC = "sleep.partitions.maintenance.last-success";
+
+    private final SleepEntryPartitionService sleepEntryPartitionService;
+    private final SleepAggregateService sleepAggregateService;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final AtomicLong lastSuccessEpochSeconds;
+
+    public SleepEntryPartitionScheduler(
+            SleepEntryPartitionService sleepEntryPartitionService,
+            SleepAggregateService sleepAggregateService,
+            MeterRegistry meterRegistry
+    ) {
+        this(sleepEntryPartitionService, sleepAggregateService, meterRegistry, Clock.systemUTC());
+    }
+
+    SleepEntryPartitionScheduler(
+            SleepEntryPartitionService sleepEntryPartitionService,
+            SleepAggregateService sleepAggregateService,
+            MeterRegistry meterRegistry,
+            Clock clock
+    ) {
+        this.sleepEntryPartitionService = sleepEntryPartitionService;
+        this.sleepAggregateService = sleepAggregateService;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.lastSuccessEpochSeconds = meterRegistry.gauge(LAST_SUCCESS_METRIC, new AtomicLong());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${sleep.partitions.maintenance.cron:0 5 0 * * *}", zone = "UTC")
+    public void maintainPartitions() {
+        PartitionMaintenanceResult result;
+        try {
+            result = sleepEntryPartitionService.maintain(LocalDate.now(clock));
+        } catch (RuntimeException ex) {
+            log.error("Partition maintenance failed, sleep dates without a partition go to sleep_entry_default", ex);
+            count("failed");
+            return;
+        }
+
+        if (result.isSkipped()) {
+            log.debug("Partition maintenance skipped, running on another instance");
+            count("skipped");
+            return;
+        }
+        if (!result.getCreated().isEmpty() || !result.getDetached().isEmpty()) {
+            log.info("Created sleep_entry partitions {}, detached {}", result.getCreated(), result.getDetached());
+        }
+        if (!result.getKeptPastRetention().isEmpty()) {
+            log.warn("Partitions {} hold sleep dates past the retention but have no lower bound, so they are not " +
+                    "detached; split or detach them by hand", result.getKeptPastRetention());
+        }
+
+        if (!result.getDetached().isEmpty()) {
+            try {
+                int rows = sleepAggregateService.rebuildAll();
+                log.info("Rebuilt sleep aggregates for {} users without the detached partitions", rows);
+            } catch (RuntimeException ex) {
+                log.error("Rebuilding the sleep aggregates after detaching {} failed, they still count the detached " +
+                        "rows until the application is run with --rebuild-aggregates", result.getDetached(), ex);
+                count("failed");
+                return;
+            }
+        }
+
+        lastSuccessEpochSeconds.set(clock.instant().getEpochSecond());
+        count("success");
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter(MAINTENANCE_METRIC, "outcome", outcome).increment();
+    }
+}
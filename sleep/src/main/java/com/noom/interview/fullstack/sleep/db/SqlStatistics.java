@@ -0,0 +1,61 @@
+package com.noom.interview.fullstack.sleep.db;
+
+/**
+ * SQL statements executed and time spent in the database by the current request. Bound to the request thread by
+ * {@link com.noom.interview.fullstack.sleep.filter.SqlStatisticsFilter}; statements run on other threads, such as the
+ * async part of the export, are not counted. Not thread safe.
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private int hibernateStatements;
+    private long databaseNanos;
+
+    /**
+     * Starts counting the statements of the current thread
+     */
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    static void recordExecution(long nanos) {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements++;
+            statistics.databaseNanos += nanos;
+        }
+    }
+
+    static void recordHibernateStatement() {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.hibernateStatements++;
+        }
+    }
+
+    /**
+     * @return statements executed over JDBC, whether issued by Hibernate or by plain JDBC
+     */
+    public int getStatements() {
+        return statements;
+    }
+
+    /**
+     * @return statements prepared by Hibernate, a subset of {@link #getStatements()}
+     */
+    public int getHibernateStatements() {
+        return hibernateStatements;
+    }
+
+    public long getDatabaseNanos() {
+        return databaseNanos;
+    }
+}
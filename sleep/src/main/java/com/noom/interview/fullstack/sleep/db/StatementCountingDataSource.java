@@ -0,0 +1,91 @@
+package com.noom.interview.fullstack.sleep.db;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Hands out connections whose statements report each execution and its duration to {@link SqlStatistics}. A batch
+ * counts as a single statement, as it is a single round trip.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    public StatementCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return countingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return countingConnection(super.getConnection(username, password));
+    }
+
+    static Connection countingConnection(Connection connection) {
+        return proxy(Connection.class, connection, (method, result) -> {
+            if (result instanceof CallableStatement) {
+                return countingStatement(CallableStatement.class, (CallableStatement) result);
+            }
+            if (result instanceof PreparedStatement) {
+                return countingStatement(PreparedStatement.class, (PreparedStatement) result);
+            }
+            if (result instanceof Statement) {
+                return countingStatement(Statement.class, (Statement) result);
+            }
+            return result;
+        });
+    }
+
+    private static <T extends Statement> T countingStatement(Class<T> type, T statement) {
+        return proxy(type, statement, null);
+    }
+
+    private static <T> T proxy(Class<T> type, T target, ResultWrapper resultWrapper) {
+        Object proxy = Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (self, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return self == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(self);
+                        default:
+                            break;
+                    }
+                    if (resultWrapper == null && method.getName().startsWith("execute")) {
+                        long start = System.nanoTime();
+                        try {
+                            return invoke(method, target, args);
+                        } finally {
+                            SqlStatistics.recordExecution(System.nanoTime() - start);
+                        }
+                    }
+                    Object result = invoke(method, target, args);
+                    return resultWrapper != null ? resultWrapper.wrap(method, result) : result;
+                });
+        return type.cast(proxy);
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ResultWrapper {
+        Object wrap(Method method, Object result);
+    }
+}
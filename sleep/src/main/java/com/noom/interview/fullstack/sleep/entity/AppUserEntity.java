@@ -1,5 +1,6 @@
 package com.noom.interview.fullstack.sleep.entity;
 
+import com.noom.interview.fullstack.sleep.utils.UuidV7;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 
@@ -27,7 +28,7 @@ public class AppUserEntity {
     @PrePersist
     void prePersist() {
         if (id == null) {
-            id = UUID.randomUUID();
+            id = UuidV7.randomUuid();
         }
     }
 }
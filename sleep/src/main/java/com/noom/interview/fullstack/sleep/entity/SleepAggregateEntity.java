@@ -0,0 +1,57 @@
+package com.noom.interview.fullstack.sleep.entity;
+
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Per-user rolling totals of the sleep entries whose sleep date falls in [windowStart, windowEnd].
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "sleep_aggregate")
+public class SleepAggregateEntity {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "window_start", nullable = false)
+    private LocalDate windowStart;
+
+    @Column(name = "window_end", nullable = false)
+    private LocalDate windowEnd;
+
+    @Column(name = "entry_count", nullable = false)
+    private long entryCount;
+
+    @Column(name = "total_time_in_bed_minutes", nullable = false)
+    private long totalTimeInBedMinutes;
+
+    @Column(name = "total_bed_time_epoch_seconds", nullable = false)
+    private long totalBedTimeEpochSeconds;
+
+    @Column(name = "total_wake_time_epoch_seconds", nullable = false)
+    private long totalWakeTimeEpochSeconds;
+
+    @Column(name = "bad_count", nullable = false)
+    private long badCount;
+
+    @Column(name = "ok_count", nullable = false)
+    private long okCount;
+
+    @Column(name = "good_count", nullable = false)
+    private long goodCount;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -1,6 +1,7 @@
 package com.noom.interview.fullstack.sleep.entity;
 
 import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.utils.UuidV7;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -54,7 +55,7 @@ public class SleepEntryEntity {
     @PrePersist
     void prePersist() {
         if (id == null) {
-            id = UUID.randomUUID();
+            id = UuidV7.randomUuid();
         }
     }
 }
@@ -0,0 +1,127 @@
+package com.noom.interview.fullstack.sleep.filter;
+
+import com.noom.interview.fullstack.sleep.db.SqlStatistics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Counts the SQL statements and the database time of each request and writes them to the request log at debug
+ * level. When {@code sleep.sql-stats.response-headers} is set they are also returned as response headers, which the
+ * query budget assertions of the tests read; the prod profile turns the headers off.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    public static final String HIBERNATE_STATEMENTS_HEADER = "X-Sql-Hibernate-Statements";
+    public static final String DATABASE_TIME_HEADER = "X-Sql-Time-Ms";
+
+    @Value("${sleep.sql-stats.response-headers:false}")
+    private boolean responseHeaders;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        SqlStatistics statistics = SqlStatistics.start();
+        HttpServletResponse target = responseHeaders ? new HeadersOnCommitResponse(response, statistics) : response;
+        try {
+            filterChain.doFilter(request, target);
+        } finally {
+            SqlStatistics.stop();
+            if (target instanceof HeadersOnCommitResponse) {
+                // Responses without a body are committed after the filter returns
+                ((HeadersOnCommitResponse) target).addHeaders();
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("{} {} {} statements={} hibernateStatements={} databaseTime={}ms",
+                        request.getMethod(), request.getRequestURI(), response.getStatus(), statistics.getStatements(),
+                        statistics.getHibernateStatements(), millis(statistics.getDatabaseNanos()));
+            }
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * Adds the headers right before the response is committed, once the statements of the handler have run
+     */
+    private static class HeadersOnCommitResponse extends HttpServletResponseWrapper {
+        private final SqlStatistics statistics;
+        private boolean headersAdded;
+
+        HeadersOnCommitResponse(HttpServletResponse response, SqlStatistics statistics) {
+            super(response);
+            this.statistics = statistics;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addHeaders();
+            super.sendRedirect(location);
+        }
+
+        void addHeaders() {
+            if (headersAdded || isCommitted()) {
+                return;
+            }
+            headersAdded = true;
+            setHeader(STATEMENTS_HEADER, Integer.toString(statistics.getStatements()));
+            setHeader(HIBERNATE_STATEMENTS_HEADER, Integer.toString(statistics.getHibernateStatements()));
+            setHeader(DATABASE_TIME_HEADER, millis(statistics.getDatabaseNanos()));
+        }
+    }
+}
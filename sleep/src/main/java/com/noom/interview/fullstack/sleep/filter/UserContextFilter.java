@@ -1,5 +1,7 @@
 package com.noom.interview.fullstack.sleep.filter;
 
+import com.noom.interview.fullstack.sleep.utils.UuidParser;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -10,17 +12,17 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.UUID;
 
+/**
+ * Parses the X-User-Id header once per request into the {@link #USER_ID_ATTRIBUTE} request attribute, which
+ * {@link com.noom.interview.fullstack.sleep.web.support.CurrentUser} parameters are resolved from
+ */
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserContextFilter extends OncePerRequestFilter {
 
-    private static final String USER_HEADER = "X-User-Id";
-
-    private final UserContext userContext;
-
-    public UserContextFilter(UserContext userContext) {
-        this.userContext = userContext;
-    }
+    public static final String USER_ID_ATTRIBUTE = UserContextFilter.class.getName() + ".userId";
 
+    private static final String USER_HEADER = "X-User-Id";
 
     @Override
     protected void doFilterInternal(
@@ -32,15 +34,15 @@ public class UserContextFilter extends OncePerRequestFilter {
         String headerValue = request.getHeader(USER_HEADER);
 
         if (headerValue != null && !headerValue.isBlank()) {
-            try {
-                userContext.setUserId(UUID.fromString(headerValue));
-            } catch (IllegalArgumentException ex) {
+            UUID userId = UuidParser.parseOrNull(headerValue);
+            if (userId == null) {
                 response.sendError(
                         HttpServletResponse.SC_BAD_REQUEST,
                         "Invalid X-User-Id header"
                 );
                 return;
             }
+            request.setAttribute(USER_ID_ATTRIBUTE, userId);
         }
         filterChain.doFilter(request, response);
     }
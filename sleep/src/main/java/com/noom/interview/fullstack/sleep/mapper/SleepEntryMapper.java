@@ -2,17 +2,17 @@ package com.noom.interview.fullstack.sleep.mapper;
 
 import com.noom.interview.fullstack.sleep.entity.AppUserEntity;
 import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
+import com.noom.interview.fullstack.sleep.utils.UuidV7;
 import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogRequest;
 import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
 import org.mapstruct.*;
 
 import java.time.LocalDate;
-import java.util.UUID;
 
-@Mapper(componentModel = "spring", imports = UUID.class)
+@Mapper(componentModel = "spring", imports = UuidV7.class)
 public interface SleepEntryMapper {
 
-    @Mapping(target = "id", expression = "java(UUID.randomUUID())")
+    @Mapping(target = "id", expression = "java(UuidV7.randomUuid())")
     @Mapping(target = "user", source = "user")
     @Mapping(target = "sleepDate", source = "sleepDate")
     @Mapping(target = "totalTimeInBedMinutes", source = "totalMinutes")
@@ -0,0 +1,21 @@
+package com.noom.interview.fullstack.sleep.metrics;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the {@link io.micrometer.core.annotation.Timed} timers of the services. The timers are tagged with the class
+ * and method, and have percentile histograms enabled in application.properties.
+ */
+@Configuration
+public class MetricsConfiguration {
+    public static final String SERVICE_TIMER = "sleep.service";
+    public static final String CALCULATOR_TIMER = "sleep.calculator";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
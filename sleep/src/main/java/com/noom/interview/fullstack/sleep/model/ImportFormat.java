@@ -0,0 +1,23 @@
+package com.noom.interview.fullstack.sleep.model;
+
+import java.util.Locale;
+
+/**
+ * File formats accepted by the sleep log import, one sleep entry per line
+ */
+public enum ImportFormat {
+    /**
+     * {@code user_id,sleep_date,time_in_bed_start,time_in_bed_end,morning_feeling}, with an optional header line
+     */
+    CSV,
+    /**
+     * One JSON object per line with {@code userId}, {@code sleepDate}, {@code timeInBedStart}, {@code timeInBedEnd}
+     * and {@code morningFeeling}
+     */
+    NDJSON;
+
+    public static ImportFormat fromFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl") ? NDJSON : CSV;
+    }
+}
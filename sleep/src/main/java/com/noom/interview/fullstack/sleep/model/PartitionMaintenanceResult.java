@@ -0,0 +1,29 @@
+package com.noom.interview.fullstack.sleep.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class PartitionMaintenanceResult {
+    /**
+     * Another instance was running the maintenance, nothing was changed
+     */
+    public static final PartitionMaintenanceResult SKIPPED = PartitionMaintenanceResult.builder()
+            .skipped(true)
+            .created(List.of())
+            .detached(List.of())
+            .keptPastRetention(List.of())
+            .build();
+
+    boolean skipped;
+    List<String> created;
+    List<String> detached;
+    /**
+     * Partitions past the retention without a lower bound, e.g. sleep_entry_legacy, which are never detached by the
+     * maintenance
+     */
+    List<String> keptPastRetention;
+}
@@ -0,0 +1,23 @@
+package com.noom.interview.fullstack.sleep.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Partition of sleep_entry holding the sleep dates in [from, to)
+ */
+@Value
+@Builder
+public class SleepEntryPartition {
+    String name;
+    /**
+     * Null when the partition is unbounded below
+     */
+    LocalDate from;
+    /**
+     * Null when the partition is unbounded above
+     */
+    LocalDate to;
+}
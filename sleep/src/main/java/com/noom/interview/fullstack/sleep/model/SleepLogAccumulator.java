@@ -0,0 +1,75 @@
+package com.noom.interview.fullstack.sleep.model;
+
+import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
+
+import java.time.Instant;
+
+/**
+ * Mutable, primitive-only counterpart of {@link SleepLogTotals} used to sum any number of sleep entries in a single
+ * pass without allocating per entry. Not thread safe.
+ */
+public class SleepLogAccumulator {
+    private long entryCount;
+    private long totalTimeInBedMinutes;
+    private long totalBedTimeEpochSeconds;
+    private long totalWakeTimeEpochSeconds;
+    private long badCount;
+    private long okCount;
+    private long goodCount;
+
+    public SleepLogAccumulator add(SleepEntryEntity entry) {
+        Instant start = entry.getTimeInBedStart();
+        Instant end = entry.getTimeInBedEnd();
+
+        entryCount++;
+        totalTimeInBedMinutes += minutesBetween(start, end);
+        totalBedTimeEpochSeconds += start.getEpochSecond();
+        totalWakeTimeEpochSeconds += end.getEpochSecond();
+
+        MorningFeeling feeling = entry.getMorningFeeling();
+        if (feeling != null) {
+            switch (feeling) {
+                case BAD:
+                    badCount++;
+                    break;
+                case OK:
+                    okCount++;
+                    break;
+                case GOOD:
+                    goodCount++;
+                    break;
+            }
+        }
+        return this;
+    }
+
+    public SleepLogAccumulator addAll(Iterable<SleepEntryEntity> entries) {
+        for (SleepEntryEntity entry : entries) {
+            add(entry);
+        }
+        return this;
+    }
+
+    public SleepLogTotals toTotals() {
+        return SleepLogTotals.builder()
+                .entryCount(entryCount)
+                .totalTimeInBedMinutes(totalTimeInBedMinutes)
+                .totalBedTimeEpochSeconds(totalBedTimeEpochSeconds)
+                .totalWakeTimeEpochSeconds(totalWakeTimeEpochSeconds)
+                .badCount(badCount)
+                .okCount(okCount)
+                .goodCount(goodCount)
+                .build();
+    }
+
+    /**
+     * Same value as {@code Duration.between(start, end).toMinutes()} without allocating the {@link java.time.Duration}
+     */
+    static long minutesBetween(Instant start, Instant end) {
+        long seconds = end.getEpochSecond() - start.getEpochSecond();
+        if (end.getNano() < start.getNano()) {
+            seconds--;
+        }
+        return seconds / 60;
+    }
+}
@@ -0,0 +1,29 @@
+package com.noom.interview.fullstack.sleep.model;
+
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+
+@Value
+@Builder
+public class SleepLogStatistics {
+    int averageTimeInBedMinutes;
+    LocalTime averageTimeUserGetsInBed;
+    LocalTime averageTimeUserGetsOutOfBed;
+    Map<MorningFeeling, SleepLogAveragesResponse.FeelingFrequency> morningFeelingFrequencies;
+
+    public SleepLogAveragesResponse toAveragesResponse(LocalDate rangeStart, LocalDate rangeEnd) {
+        return SleepLogAveragesResponse.builder()
+                .rangeStart(rangeStart)
+                .rangeEnd(rangeEnd)
+                .averageTimeInBedMinutes(averageTimeInBedMinutes)
+                .averageTimeUserGetsInBed(averageTimeUserGetsInBed)
+                .averageTimeUserGetsOutOfBed(averageTimeUserGetsOutOfBed)
+                .morningFeelingFrequencies(morningFeelingFrequencies)
+                .build();
+    }
+}
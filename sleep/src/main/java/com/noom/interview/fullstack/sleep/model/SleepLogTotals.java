@@ -0,0 +1,69 @@
+package com.noom.interview.fullstack.sleep.model;
+
+import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Additive sums and counters of a set of sleep entries. Every average exposed by the API can be derived from these
+ * values, so totals of disjoint sets of entries can be combined with {@link #plus} and {@link #minus} instead of
+ * re-reading the entries themselves.
+ */
+@Value
+@Builder(toBuilder = true)
+public class SleepLogTotals {
+    public static final SleepLogTotals EMPTY = SleepLogTotals.builder().build();
+
+    long entryCount;
+    long totalTimeInBedMinutes;
+    long totalBedTimeEpochSeconds;
+    long totalWakeTimeEpochSeconds;
+    long badCount;
+    long okCount;
+    long goodCount;
+
+    public static SleepLogTotals of(SleepEntryEntity entry) {
+        return new SleepLogAccumulator().add(entry).toTotals();
+    }
+
+    public long getFeelingCount(MorningFeeling feeling) {
+        switch (feeling) {
+            case BAD:
+                return badCount;
+            case OK:
+                return okCount;
+            case GOOD:
+                return goodCount;
+            default:
+                throw new IllegalArgumentException("Unknown morning feeling " + feeling);
+        }
+    }
+
+    public boolean isEmpty() {
+        return entryCount == 0;
+    }
+
+    public SleepLogTotals plus(SleepLogTotals other) {
+        return SleepLogTotals.builder()
+                .entryCount(entryCount + other.entryCount)
+                .totalTimeInBedMinutes(totalTimeInBedMinutes + other.totalTimeInBedMinutes)
+                .totalBedTimeEpochSeconds(totalBedTimeEpochSeconds + other.totalBedTimeEpochSeconds)
+                .totalWakeTimeEpochSeconds(totalWakeTimeEpochSeconds + other.totalWakeTimeEpochSeconds)
+                .badCount(badCount + other.badCount)
+                .okCount(okCount + other.okCount)
+                .goodCount(goodCount + other.goodCount)
+                .build();
+    }
+
+    public SleepLogTotals minus(SleepLogTotals other) {
+        return SleepLogTotals.builder()
+                .entryCount(entryCount - other.entryCount)
+                .totalTimeInBedMinutes(totalTimeInBedMinutes - other.totalTimeInBedMinutes)
+                .totalBedTimeEpochSeconds(totalBedTimeEpochSeconds - other.totalBedTimeEpochSeconds)
+                .totalWakeTimeEpochSeconds(totalWakeTimeEpochSeconds - other.totalWakeTimeEpochSeconds)
+                .badCount(badCount - other.badCount)
+                .okCount(okCount - other.okCount)
+                .goodCount(goodCount - other.goodCount)
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.noom.interview.fullstack.sleep.reactive;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Server and R2DBC connection pool of the reactive read API, active with the {@code reactive} profile. The R2DBC
+ * auto-configuration is excluded, so that its transaction manager does not compete with the JPA one; the reactive reads
+ * are single statements and need no transactions. Without {@code sleep.reactive.r2dbc.url} the URL is derived from
+ * {@code spring.datasource.url}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfiguration {
+
+    @Value("${sleep.reactive.r2dbc.url:}")
+    private String r2dbcUrl = "";
+
+    @Value("${spring.datasource.url}")
+    private String jdbcUrl;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Value("${sleep.reactive.r2dbc.pool.maximum-size:10}")
+    private int maximumPoolSize = 10;
+
+    /**
+     * Tomcat is on the classpath for the servlet stack and would otherwise be picked, serving each connection from a
+     * servlet container thread pool
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionFactory() {
+        String url = r2dbcUrl.isBlank() ? toR2dbcUrl(jdbcUrl) : r2dbcUrl;
+        ConnectionFactory connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .name("sleep-reactive")
+                .initialSize(Math.min(2, maximumPoolSize))
+                .maxSize(maximumPoolSize)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    /**
+     * {@code jdbc:postgresql://host:5432/db?options} to {@code r2dbc:postgresql://host:5432/db}. The JDBC query
+     * parameters are dropped, as they are driver specific.
+     */
+    static String toR2dbcUrl(String jdbcUrl) {
+        if (!jdbcUrl.startsWith("jdbc:postgresql:")) {
+            throw new IllegalArgumentException("Set sleep.reactive.r2dbc.url, cannot derive it from " + jdbcUrl);
+        }
+        int query = jdbcUrl.indexOf('?');
+        return "r2dbc:" + jdbcUrl.substring("jdbc:".length(), query < 0 ? jdbcUrl.length() : query);
+    }
+}
@@ -2,10 +2,23 @@ package com.noom.interview.fullstack.sleep.repository;
 
 import com.noom.interview.fullstack.sleep.entity.AppUserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface AppUserRepository extends JpaRepository<AppUserEntity, UUID> {
+
+    /**
+     * Streams the ids of all users with a database cursor, must be consumed inside a transaction
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT u.id FROM AppUserEntity u")
+    Stream<UUID> streamAllIds();
 }
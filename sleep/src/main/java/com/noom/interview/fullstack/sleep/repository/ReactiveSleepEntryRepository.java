@@ -0,0 +1,60 @@
+package com.noom.interview.fullstack.sleep.repository;
+
+import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Non-blocking reads of sleep entries over R2DBC. Rows are mapped to detached entities without their user.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveSleepEntryRepository {
+
+    private static final String SELECT_ENTRY = "SELECT id, sleep_date, time_in_bed_start, time_in_bed_end, " +
+            "total_time_in_bed_minutes, morning_feeling FROM sleep_entry ";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<SleepEntryEntity> findByUserIdAndSleepDate(UUID userId, LocalDate sleepDate) {
+        return databaseClient.sql(SELECT_ENTRY + "WHERE user_id = :userId AND sleep_date = :sleepDate")
+                .bind("userId", userId)
+                .bind("sleepDate", sleepDate)
+                .map((row, metadata) -> toEntity(row))
+                .one();
+    }
+
+    /**
+     * Emits the entries as the rows arrive, without collecting them
+     */
+    public Flux<SleepEntryEntity> findByUserIdAndSleepDateBetween(UUID userId, LocalDate from, LocalDate to) {
+        return databaseClient.sql(SELECT_ENTRY + "WHERE user_id = :userId AND sleep_date BETWEEN :from AND :to")
+                .bind("userId", userId)
+                .bind("from", from)
+                .bind("to", to)
+                .map((row, metadata) -> toEntity(row))
+                .all();
+    }
+
+    private static SleepEntryEntity toEntity(Row row) {
+        return SleepEntryEntity.builder()
+                .id(row.get("id", UUID.class))
+                .sleepDate(row.get("sleep_date", LocalDate.class))
+                .timeInBedStart(row.get("time_in_bed_start", OffsetDateTime.class).toInstant())
+                .timeInBedEnd(row.get("time_in_bed_end", OffsetDateTime.class).toInstant())
+                .totalTimeInBedMinutes(row.get("total_time_in_bed_minutes", Integer.class))
+                .morningFeeling(MorningFeeling.valueOf(row.get("morning_feeling", String.class)))
+                .build();
+    }
+}
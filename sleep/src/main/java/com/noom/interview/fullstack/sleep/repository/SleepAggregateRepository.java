@@ -0,0 +1,66 @@
+package com.noom.interview.fullstack.sleep.repository;
+
+import com.noom.interview.fullstack.sleep.entity.SleepAggregateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface SleepAggregateRepository extends JpaRepository<SleepAggregateEntity, UUID> {
+
+    String REBUILD_SELECT = "SELECT u.id, CAST(:windowStart AS date), CAST(:windowEnd AS date), " +
+            "count(e.id), " +
+            "coalesce(sum(e.total_time_in_bed_minutes), 0), " +
+            "coalesce(sum(CAST(floor(extract(epoch from e.time_in_bed_start)) AS bigint)), 0), " +
+            "coalesce(sum(CAST(floor(extract(epoch from e.time_in_bed_end)) AS bigint)), 0), " +
+            "count(e.id) FILTER (WHERE e.morning_feeling = 'BAD'), " +
+            "count(e.id) FILTER (WHERE e.morning_feeling = 'OK'), " +
+            "count(e.id) FILTER (WHERE e.morning_feeling = 'GOOD'), " +
+            "now() " +
+            "FROM app_user u " +
+            "LEFT JOIN sleep_entry e ON e.user_id = u.id AND e.sleep_date BETWEEN CAST(:windowStart AS date) AND CAST(:windowEnd AS date) ";
+
+    String REBUILD_UPSERT = "INSERT INTO sleep_aggregate (user_id, window_start, window_end, entry_count, " +
+            "total_time_in_bed_minutes, total_bed_time_epoch_seconds, total_wake_time_epoch_seconds, " +
+            "bad_count, ok_count, good_count, updated_at) ";
+
+    String REBUILD_ON_CONFLICT = "ON CONFLICT (user_id) DO UPDATE SET " +
+            "window_start = EXCLUDED.window_start, " +
+            "window_end = EXCLUDED.window_end, " +
+            "entry_count = EXCLUDED.entry_count, " +
+            "total_time_in_bed_minutes = EXCLUDED.total_time_in_bed_minutes, " +
+            "total_bed_time_epoch_seconds = EXCLUDED.total_bed_time_epoch_seconds, " +
+            "total_wake_time_epoch_seconds = EXCLUDED.total_wake_time_epoch_seconds, " +
+            "bad_count = EXCLUDED.bad_count, " +
+            "ok_count = EXCLUDED.ok_count, " +
+            "good_count = EXCLUDED.good_count, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    @Query("SELECT a.updatedAt FROM SleepAggregateEntity a WHERE a.userId = :userId")
+    Optional<Instant> findUpdatedAtByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Recomputes the aggregate row of every user from sleep_entry for the given window
+     * @return number of aggregate rows written
+     */
+    @Modifying
+    @Query(value = REBUILD_UPSERT + REBUILD_SELECT + "GROUP BY u.id " + REBUILD_ON_CONFLICT, nativeQuery = true)
+    int rebuildAll(@Param("windowStart") LocalDate windowStart, @Param("windowEnd") LocalDate windowEnd);
+
+    /**
+     * Recomputes the aggregate row of a single user from sleep_entry for the given window
+     * @return number of aggregate rows written, 0 if the user does not exist
+     */
+    @Modifying
+    @Query(value = REBUILD_UPSERT + REBUILD_SELECT + "WHERE u.id = :userId GROUP BY u.id " + REBUILD_ON_CONFLICT, nativeQuery = true)
+    int rebuildForUser(@Param("userId") UUID userId,
+                       @Param("windowStart") LocalDate windowStart,
+                       @Param("windowEnd") LocalDate windowEnd);
+}
@@ -0,0 +1,53 @@
+package com.noom.interview.fullstack.sleep.repository;
+
+import com.noom.interview.fullstack.sleep.model.SleepLogTotals;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Aggregates of the sleep entries of all users, read through the sleep_date index
+ */
+@Repository
+@RequiredArgsConstructor
+public class SleepAnalyticsRepository {
+    private static final String DAILY_TOTALS = "SELECT sleep_date, " +
+            "count(*) AS entry_count, " +
+            "sum(total_time_in_bed_minutes) AS total_time_in_bed_minutes, " +
+            "CAST(sum(floor(extract(epoch from time_in_bed_start))) AS bigint) AS total_bed_time_epoch_seconds, " +
+            "CAST(sum(floor(extract(epoch from time_in_bed_end))) AS bigint) AS total_wake_time_epoch_seconds, " +
+            "count(*) FILTER (WHERE morning_feeling = 'BAD') AS bad_count, " +
+            "count(*) FILTER (WHERE morning_feeling = 'OK') AS ok_count, " +
+            "count(*) FILTER (WHERE morning_feeling = 'GOOD') AS good_count " +
+            "FROM sleep_entry " +
+            "WHERE sleep_date BETWEEN :from AND :to " +
+            "GROUP BY sleep_date";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * @return totals of the entries of every user by sleep date, only for the dates that have entries
+     */
+    public Map<LocalDate, SleepLogTotals> findDailyTotals(LocalDate from, LocalDate to) {
+        Map<LocalDate, SleepLogTotals> totals = new HashMap<>();
+        namedParameterJdbcTemplate.query(DAILY_TOTALS,
+                new MapSqlParameterSource("from", from).addValue("to", to),
+                rs -> {
+                    totals.put(rs.getObject("sleep_date", LocalDate.class), SleepLogTotals.builder()
+                            .entryCount(rs.getLong("entry_count"))
+                            .totalTimeInBedMinutes(rs.getLong("total_time_in_bed_minutes"))
+                            .totalBedTimeEpochSeconds(rs.getLong("total_bed_time_epoch_seconds"))
+                            .totalWakeTimeEpochSeconds(rs.getLong("total_wake_time_epoch_seconds"))
+                            .badCount(rs.getLong("bad_count"))
+                            .okCount(rs.getLong("ok_count"))
+                            .goodCount(rs.getLong("good_count"))
+                            .build());
+                });
+        return totals;
+    }
+}
@@ -1,7 +1,11 @@
 package com.noom.interview.fullstack.sleep.repository;
 
 import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -13,4 +17,38 @@ import java.util.UUID;
 public interface SleepEntityRepository extends JpaRepository<SleepEntryEntity, UUID> {
     Optional<SleepEntryEntity> findByUserIdAndSleepDate(UUID userId, LocalDate sleepDate);
     List<SleepEntryEntity> findByUserIdAndSleepDateBetween(UUID userId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Seeks to {@code before} on the (user_id, sleep_date) index, scanning it backwards through the monthly partitions
+     * newest first, and reads the following rows, so a page costs the same however far back it is. Only the page size of
+     * the pageable is used.
+     * @return the user's sleep logs dated before {@code before}, newest first
+     */
+    @Query("SELECT new com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse(" +
+            "e.id, e.sleepDate, e.timeInBedStart, e.timeInBedEnd, e.totalTimeInBedMinutes, e.morningFeeling) " +
+            "FROM SleepEntryEntity e " +
+            "WHERE e.user.id = :userId AND e.sleepDate < :before " +
+            "ORDER BY e.sleepDate DESC")
+    List<SleepLogResponse> findHistoryPage(@Param("userId") UUID userId,
+                                           @Param("before") LocalDate before,
+                                           Pageable pageable);
+
+    /**
+     * Aggregates the user's entries between the two dates (inclusive) in the database, without loading any entity
+     * @return the sums and feeling counters, empty when the user has no entries in the range
+     */
+    @Query(value = "SELECT count(*) AS \"entryCount\", " +
+            "sum(total_time_in_bed_minutes) AS \"totalTimeInBedMinutes\", " +
+            "CAST(sum(floor(extract(epoch from time_in_bed_start))) AS bigint) AS \"totalBedTimeEpochSeconds\", " +
+            "CAST(sum(floor(extract(epoch from time_in_bed_end))) AS bigint) AS \"totalWakeTimeEpochSeconds\", " +
+            "count(*) FILTER (WHERE morning_feeling = 'BAD') AS \"badCount\", " +
+            "count(*) FILTER (WHERE morning_feeling = 'OK') AS \"okCount\", " +
+            "count(*) FILTER (WHERE morning_feeling = 'GOOD') AS \"goodCount\" " +
+            "FROM sleep_entry " +
+            "WHERE user_id = :userId AND sleep_date BETWEEN :startDate AND :endDate " +
+            "GROUP BY user_id",
+            nativeQuery = true)
+    Optional<SleepTotalsProjection> aggregateByUserIdAndSleepDateBetween(@Param("userId") UUID userId,
+                                                                         @Param("startDate") LocalDate startDate,
+                                                                         @Param("endDate") LocalDate endDate);
 }
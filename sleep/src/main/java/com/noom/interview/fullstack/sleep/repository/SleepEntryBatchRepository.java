@@ -0,0 +1,164 @@
+package com.noom.interview.fullstack.sleep.repository;
+
+import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Plain JDBC writes of sleep entries, bypassing the persistence context
+ */
+@Repository
+@RequiredArgsConstructor
+public class SleepEntryBatchRepository {
+    /**
+     * 7 parameters per row keeps a full statement far below the 32767 bind parameters Postgres accepts
+     */
+    static final int ROWS_PER_STATEMENT = 500;
+
+    private static final String INSERT_INTO = "INSERT INTO sleep_entry (id, user_id, sleep_date, " +
+            "time_in_bed_start, time_in_bed_end, total_time_in_bed_minutes, morning_feeling) ";
+
+    private static final String INSERT_COLUMNS = INSERT_INTO + "VALUES ";
+
+    private static final String ON_CONFLICT = " ON CONFLICT (user_id, sleep_date) DO NOTHING RETURNING id, sleep_date";
+
+    /**
+     * Takes the lock of the user, see {@link UserLockRepository}. Being read by the main query, it is taken before the
+     * entry is inserted and held until the transaction ends, so the statements that follow update the read models of
+     * the user alone.
+     */
+    private static final String USER_LOCK = "user_lock AS (SELECT " + UserLockRepository.LOCK_USER + ")";
+
+    private static final String SELECT_ENTRY = "SELECT CAST(:id0 AS uuid), CAST(:userId0 AS uuid), " +
+            "CAST(:sleepDate0 AS date), CAST(:timeInBedStart0 AS timestamptz), CAST(:timeInBedEnd0 AS timestamptz), " +
+            "CAST(:totalTimeInBedMinutes0 AS integer), CAST(:morningFeeling0 AS varchar) ";
+
+    /**
+     * The user row is inserted by the CTE; the foreign key is checked at the end of the statement, once it exists
+     */
+    private static final String INSERT_WITH_USER = "WITH " + USER_LOCK + ", new_user AS (" +
+            "INSERT INTO app_user (id) VALUES (:userId0) ON CONFLICT (id) DO NOTHING) " +
+            INSERT_INTO + SELECT_ENTRY + "FROM user_lock" + ON_CONFLICT;
+
+    /**
+     * Only inserts when the app_user row is found, so a user deleted in the meantime inserts nothing instead of failing
+     * the foreign key and the transaction. Reports whether the user row was found, which tells a missing user apart
+     * from a night that is already logged.
+     */
+    private static final String INSERT_FOR_EXISTING_USER = "WITH " + USER_LOCK + ", existing_user AS (" +
+            "SELECT id FROM app_user WHERE id = CAST(:userId0 AS uuid)), " +
+            "inserted AS (" + INSERT_INTO + SELECT_ENTRY + "FROM existing_user" + ON_CONFLICT + ") " +
+            "SELECT EXISTS (SELECT 1 FROM existing_user) AS user_exists, EXISTS (SELECT 1 FROM inserted) AS inserted " +
+            "FROM user_lock";
+
+    /**
+     * Outcome of inserting the entry of a user expected to exist
+     */
+    public enum InsertResult {
+        INSERTED,
+        ALREADY_EXISTS,
+        USER_MISSING
+    }
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public void insertUserIfMissing(UUID userId) {
+        namedParameterJdbcTemplate.update(
+                "INSERT INTO app_user (id) VALUES (:userId) ON CONFLICT (id) DO NOTHING",
+                new MapSqlParameterSource("userId", userId)
+        );
+    }
+
+    /**
+     * Creates the user if missing and inserts the entry, in a single statement and round trip. Concurrent inserts of
+     * the same (user, sleep date) wait for each other, so exactly one of them inserts a row. Takes the lock of the user
+     * until the transaction ends.
+     * @param entry entry with its id assigned
+     * @return false when the user already has an entry for the sleep date
+     */
+    public boolean insertIfAbsent(SleepEntryEntity entry) {
+        return !namedParameterJdbcTemplate.queryForList(INSERT_WITH_USER, lockingParameters(entry)).isEmpty();
+    }
+
+    /**
+     * Inserts the entry of a user expected to exist, without creating the user. Takes the lock of the user until the
+     * transaction ends.
+     * @param entry entry with its id assigned
+     * @return whether the entry was inserted, the night was already logged or the user does not exist
+     */
+    public InsertResult insertIfAbsentForExistingUser(SleepEntryEntity entry) {
+        return namedParameterJdbcTemplate.queryForObject(INSERT_FOR_EXISTING_USER, lockingParameters(entry),
+                (rs, rowNum) -> {
+                    if (rs.getBoolean("inserted")) {
+                        return InsertResult.INSERTED;
+                    }
+                    return rs.getBoolean("user_exists") ? InsertResult.ALREADY_EXISTS : InsertResult.USER_MISSING;
+                });
+    }
+
+    /**
+     * Inserts the entries with multi-row INSERT statements, skipping the ones whose (user, sleep date) already exists
+     * @param entries entries of a single user, with their id assigned and distinct sleep dates
+     * @return ids of the inserted entries by sleep date
+     */
+    public Map<LocalDate, UUID> insertIgnoringConflicts(List<SleepEntryEntity> entries) {
+        Map<LocalDate, UUID> inserted = new HashMap<>();
+        for (int from = 0; from < entries.size(); from += ROWS_PER_STATEMENT) {
+            List<SleepEntryEntity> chunk = entries.subList(from, Math.min(from + ROWS_PER_STATEMENT, entries.size()));
+            namedParameterJdbcTemplate.query(insertStatement(chunk.size()), parameters(chunk), rs -> {
+                inserted.put(rs.getObject("sleep_date", LocalDate.class), rs.getObject("id", UUID.class));
+            });
+        }
+        return inserted;
+    }
+
+    private static String insertStatement(int rows) {
+        return INSERT_COLUMNS + insertValues(rows) + ON_CONFLICT;
+    }
+
+    private static String insertValues(int rows) {
+        StringBuilder sql = new StringBuilder(rows * 120);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:id").append(i)
+                    .append(", :userId").append(i)
+                    .append(", :sleepDate").append(i)
+                    .append(", :timeInBedStart").append(i)
+                    .append(", :timeInBedEnd").append(i)
+                    .append(", :totalTimeInBedMinutes").append(i)
+                    .append(", :morningFeeling").append(i)
+                    .append(')');
+        }
+        return sql.toString();
+    }
+
+    private static MapSqlParameterSource lockingParameters(SleepEntryEntity entry) {
+        return parameters(List.of(entry)).addValue("lockUserKey", UserLockRepository.userKey(entry.getUser().getId()));
+    }
+
+    private static MapSqlParameterSource parameters(List<SleepEntryEntity> chunk) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        for (int i = 0; i < chunk.size(); i++) {
+            SleepEntryEntity entry = chunk.get(i);
+            parameters.addValue("id" + i, entry.getId())
+                    .addValue("userId" + i, entry.getUser().getId())
+                    .addValue("sleepDate" + i, entry.getSleepDate())
+                    .addValue("timeInBedStart" + i, entry.getTimeInBedStart().atOffset(ZoneOffset.UTC))
+                    .addValue("timeInBedEnd" + i, entry.getTimeInBedEnd().atOffset(ZoneOffset.UTC))
+                    .addValue("totalTimeInBedMinutes" + i, entry.getTotalTimeInBedMinutes())
+                    .addValue("morningFeeling" + i, entry.getMorningFeeling().name());
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,61 @@
+package com.noom.interview.fullstack.sleep.repository;
+
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Reads all sleep entries of a user through a forward-only cursor, so only one fetch of rows is held in memory at a
+ * time whatever the length of the history
+ */
+@Repository
+@RequiredArgsConstructor
+public class SleepEntryExportRepository {
+    static final int FETCH_SIZE = 1_000;
+
+    private static final String SELECT_BY_USER = "SELECT id, sleep_date, time_in_bed_start, time_in_bed_end, " +
+            "total_time_in_bed_minutes, morning_feeling " +
+            "FROM sleep_entry " +
+            "WHERE user_id = ? " +
+            "ORDER BY sleep_date";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Must be called within a transaction: pgjdbc only fetches rows in batches of the fetch size when auto-commit is
+     * off, otherwise it reads the whole result set at once.
+     * @param userId user identifier
+     * @param action called for every entry of the user, oldest first
+     */
+    public void forEachByUserId(UUID userId, Consumer<SleepLogResponse> action) {
+        namedParameterJdbcTemplate.getJdbcTemplate().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    SELECT_BY_USER, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setObject(1, userId);
+            return statement;
+        }, (RowCallbackHandler) rs -> action.accept(toResponse(rs)));
+    }
+
+    private static SleepLogResponse toResponse(ResultSet rs) throws SQLException {
+        return SleepLogResponse.builder()
+                .id(rs.getObject("id", UUID.class))
+                .sleepDate(rs.getObject("sleep_date", LocalDate.class))
+                .timeInBedStart(rs.getObject("time_in_bed_start", OffsetDateTime.class).toInstant())
+                .timeInBedEnd(rs.getObject("time_in_bed_end", OffsetDateTime.class).toInstant())
+                .totalTimeInBedMinutes(rs.getInt("total_time_in_bed_minutes"))
+                .morningFeeling(MorningFeeling.valueOf(rs.getString("morning_feeling")))
+                .build();
+    }
+}
@@ -0,0 +1,92 @@
+package com.noom.interview.fullstack.sleep.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Bulk import of sleep entries: rows are streamed with COPY into a per-session staging table, then merged into
+ * app_user and sleep_entry with set-based statements. Must be called within a transaction, the staging table is
+ * emptied on commit.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SleepEntryImportRepository {
+    static final String CREATE_STAGING_TABLE = "CREATE TEMP TABLE IF NOT EXISTS sleep_entry_staging (" +
+            "id UUID NOT NULL, " +
+            "user_id UUID NOT NULL, " +
+            "sleep_date DATE NOT NULL, " +
+            "time_in_bed_start TIMESTAMPTZ NOT NULL, " +
+            "time_in_bed_end TIMESTAMPTZ NOT NULL, " +
+            "total_time_in_bed_minutes INTEGER NOT NULL, " +
+            "morning_feeling VARCHAR(4) NOT NULL, " +
+            "line_number BIGINT NOT NULL" +
+            ") ON COMMIT DELETE ROWS";
+
+    static final String COPY_INTO_STAGING = "COPY sleep_entry_staging (id, user_id, sleep_date, time_in_bed_start, " +
+            "time_in_bed_end, total_time_in_bed_minutes, morning_feeling, line_number) FROM STDIN WITH (FORMAT csv)";
+
+    static final String MERGE_USERS = "INSERT INTO app_user (id) " +
+            "SELECT DISTINCT user_id FROM sleep_entry_staging " +
+            "ON CONFLICT (id) DO NOTHING";
+
+    /**
+     * The first line of the file wins when it has several rows for the same night
+     */
+    static final String MERGE_ENTRIES = "INSERT INTO sleep_entry (id, user_id, sleep_date, time_in_bed_start, " +
+            "time_in_bed_end, total_time_in_bed_minutes, morning_feeling) " +
+            "SELECT DISTINCT ON (user_id, sleep_date) id, user_id, sleep_date, time_in_bed_start, time_in_bed_end, " +
+            "total_time_in_bed_minutes, morning_feeling " +
+            "FROM sleep_entry_staging " +
+            "ORDER BY user_id, sleep_date, line_number " +
+            "ON CONFLICT (user_id, sleep_date) DO NOTHING";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public void createStagingTable() {
+        jdbcTemplate().execute(CREATE_STAGING_TABLE);
+    }
+
+    /**
+     * Streams the rows into the staging table over the connection of the current transaction
+     * @param rows CSV lines in the column order of {@link #COPY_INTO_STAGING}, each ending with a line break
+     * @return number of rows copied
+     */
+    public long copyIntoStaging(Iterator<String> rows) {
+        Long copied = jdbcTemplate().execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_INTO_STAGING);
+            try {
+                while (rows.hasNext()) {
+                    byte[] row = rows.next().getBytes(StandardCharsets.UTF_8);
+                    copyIn.writeToCopy(row, 0, row.length);
+                }
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+        return copied == null ? 0 : copied;
+    }
+
+    /**
+     * Creates the missing users and the staged entries whose night is not logged yet
+     * @return number of sleep entries created
+     */
+    public int mergeStaging() {
+        jdbcTemplate().update(MERGE_USERS);
+        return jdbcTemplate().update(MERGE_ENTRIES);
+    }
+
+    private JdbcTemplate jdbcTemplate() {
+        return namedParameterJdbcTemplate.getJdbcTemplate();
+    }
+}
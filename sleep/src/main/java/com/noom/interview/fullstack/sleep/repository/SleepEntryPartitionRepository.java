@@ -0,0 +1,93 @@
+package com.noom.interview.fullstack.sleep.repository;
+
+import com.noom.interview.fullstack.sleep.model.SleepEntryPartition;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Monthly range partitions of sleep_entry, read from the Postgres catalog
+ */
+@Repository
+@RequiredArgsConstructor
+public class SleepEntryPartitionRepository {
+    /**
+     * Shared by all instances, so a single one runs the maintenance at a time
+     */
+    static final long MAINTENANCE_LOCK_KEY = 0x736c656570L;
+
+    private static final String FIND_PARTITIONS = "SELECT c.relname AS name, " +
+            "pg_get_expr(c.relpartbound, c.oid) AS bound " +
+            "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = CAST('sleep_entry' AS regclass) " +
+            "ORDER BY c.relname";
+
+    private static final Pattern RANGE_BOUND =
+            Pattern.compile("FOR VALUES FROM \\((.+)\\) TO \\((.+)\\)");
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Must be called within a transaction, the lock is released when it ends
+     * @return false when another instance holds the lock
+     */
+    public boolean tryLockMaintenance() {
+        Boolean locked = namedParameterJdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(:key)",
+                new MapSqlParameterSource("key", MAINTENANCE_LOCK_KEY), Boolean.class);
+        return Boolean.TRUE.equals(locked);
+    }
+
+    /**
+     * @return the partitions ordered by name, which for the monthly ones is also their date order
+     */
+    public List<SleepEntryPartition> findPartitions() {
+        return namedParameterJdbcTemplate.query(FIND_PARTITIONS,
+                (rs, rowNum) -> toPartition(rs.getString("name"), rs.getString("bound")));
+    }
+
+    /**
+     * Creates the partition of the month of monthStart unless it exists
+     * @return name of the partition
+     */
+    public String createMonthlyPartition(LocalDate monthStart) {
+        return namedParameterJdbcTemplate.queryForObject("SELECT create_sleep_entry_partition(:monthStart)",
+                new MapSqlParameterSource("monthStart", monthStart), String.class);
+    }
+
+    /**
+     * Detaches the partition from sleep_entry, keeping it as a standalone table. Its rows are no longer read by any
+     * query of sleep_entry.
+     */
+    public void detachPartition(String name) {
+        namedParameterJdbcTemplate.getJdbcTemplate()
+                .execute("ALTER TABLE sleep_entry DETACH PARTITION \"" + name.replace("\"", "\"\"") + "\"");
+    }
+
+    static SleepEntryPartition toPartition(String name, String bound) {
+        Matcher matcher = RANGE_BOUND.matcher(bound);
+        if (!matcher.matches()) {
+            return SleepEntryPartition.builder().name(name).build();
+        }
+        return SleepEntryPartition.builder()
+                .name(name)
+                .from(toDate(matcher.group(1)))
+                .to(toDate(matcher.group(2)))
+                .build();
+    }
+
+    /**
+     * @param value {@code '2026-02-01'}, {@code MINVALUE} or {@code MAXVALUE}
+     */
+    private static LocalDate toDate(String value) {
+        if (!value.startsWith("'")) {
+            return null;
+        }
+        return LocalDate.parse(value.substring(1, value.length() - 1));
+    }
+}
@@ -0,0 +1,131 @@
+package com.noom.interview.fullstack.sleep.repository;
+
+import com.noom.interview.fullstack.sleep.model.SleepLogTotals;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Per-user running totals of sleep entries by sleep date, stored in sleep_prefix_sum
+ */
+@Repository
+@RequiredArgsConstructor
+public class SleepPrefixSumRepository {
+    private static final String TOTALS_COLUMNS = "entry_count, total_time_in_bed_minutes, " +
+            "total_bed_time_epoch_seconds, total_wake_time_epoch_seconds, bad_count, ok_count, good_count";
+
+    private static final String FIND_UP_TO = "SELECT " + TOTALS_COLUMNS + " FROM sleep_prefix_sum " +
+            "WHERE user_id = :userId AND sleep_date <= :sleepDate " +
+            "ORDER BY sleep_date DESC LIMIT 1";
+
+    /**
+     * Running totals at the end of the range minus the ones before its start, both found by index lookups
+     */
+    private static final String FIND_BETWEEN = "SELECT " +
+            "coalesce(t.entry_count, 0) - coalesce(f.entry_count, 0) AS entry_count, " +
+            "coalesce(t.total_time_in_bed_minutes, 0) - coalesce(f.total_time_in_bed_minutes, 0) AS total_time_in_bed_minutes, " +
+            "coalesce(t.total_bed_time_epoch_seconds, 0) - coalesce(f.total_bed_time_epoch_seconds, 0) AS total_bed_time_epoch_seconds, " +
+            "coalesce(t.total_wake_time_epoch_seconds, 0) - coalesce(f.total_wake_time_epoch_seconds, 0) AS total_wake_time_epoch_seconds, " +
+            "coalesce(t.bad_count, 0) - coalesce(f.bad_count, 0) AS bad_count, " +
+            "coalesce(t.ok_count, 0) - coalesce(f.ok_count, 0) AS ok_count, " +
+            "coalesce(t.good_count, 0) - coalesce(f.good_count, 0) AS good_count " +
+            "FROM (SELECT 1) AS one " +
+            "LEFT JOIN LATERAL (SELECT * FROM sleep_prefix_sum " +
+            "WHERE user_id = :userId AND sleep_date <= :to " +
+            "ORDER BY sleep_date DESC LIMIT 1) AS t ON true " +
+            "LEFT JOIN LATERAL (SELECT * FROM sleep_prefix_sum " +
+            "WHERE user_id = :userId AND sleep_date < :from " +
+            "ORDER BY sleep_date DESC LIMIT 1) AS f ON true";
+
+    private static final String REBUILD_INSERT = "INSERT INTO sleep_prefix_sum (user_id, sleep_date, " + TOTALS_COLUMNS + ") " +
+            "SELECT user_id, sleep_date, " +
+            "count(*) OVER w, " +
+            "sum(total_time_in_bed_minutes) OVER w, " +
+            "sum(CAST(floor(extract(epoch from time_in_bed_start)) AS bigint)) OVER w, " +
+            "sum(CAST(floor(extract(epoch from time_in_bed_end)) AS bigint)) OVER w, " +
+            "count(*) FILTER (WHERE morning_feeling = 'BAD') OVER w, " +
+            "count(*) FILTER (WHERE morning_feeling = 'OK') OVER w, " +
+            "count(*) FILTER (WHERE morning_feeling = 'GOOD') OVER w " +
+            "FROM sleep_entry ";
+
+    private static final String REBUILD_WINDOW = "WINDOW w AS (PARTITION BY user_id ORDER BY sleep_date)";
+
+    /**
+     * Running totals of the user's entries dated on or after :from, starting from the totals of the last earlier date
+     */
+    private static final String REBUILD_FROM_INSERT = "INSERT INTO sleep_prefix_sum (user_id, sleep_date, " + TOTALS_COLUMNS + ") " +
+            "SELECT e.user_id, e.sleep_date, " +
+            "coalesce(p.entry_count, 0) + count(*) OVER w, " +
+            "coalesce(p.total_time_in_bed_minutes, 0) + sum(e.total_time_in_bed_minutes) OVER w, " +
+            "coalesce(p.total_bed_time_epoch_seconds, 0) + sum(CAST(floor(extract(epoch from e.time_in_bed_start)) AS bigint)) OVER w, " +
+            "coalesce(p.total_wake_time_epoch_seconds, 0) + sum(CAST(floor(extract(epoch from e.time_in_bed_end)) AS bigint)) OVER w, " +
+            "coalesce(p.bad_count, 0) + count(*) FILTER (WHERE e.morning_feeling = 'BAD') OVER w, " +
+            "coalesce(p.ok_count, 0) + count(*) FILTER (WHERE e.morning_feeling = 'OK') OVER w, " +
+            "coalesce(p.good_count, 0) + count(*) FILTER (WHERE e.morning_feeling = 'GOOD') OVER w " +
+            "FROM sleep_entry e " +
+            "LEFT JOIN LATERAL (SELECT * FROM sleep_prefix_sum " +
+            "WHERE user_id = :userId AND sleep_date < :from " +
+            "ORDER BY sleep_date DESC LIMIT 1) AS p ON true " +
+            "WHERE e.user_id = :userId AND e.sleep_date >= :from " +
+            "WINDOW w AS (ORDER BY e.sleep_date)";
+
+    private static final RowMapper<SleepLogTotals> TOTALS_MAPPER = (rs, rowNum) -> SleepLogTotals.builder()
+            .entryCount(rs.getLong("entry_count"))
+            .totalTimeInBedMinutes(rs.getLong("total_time_in_bed_minutes"))
+            .totalBedTimeEpochSeconds(rs.getLong("total_bed_time_epoch_seconds"))
+            .totalWakeTimeEpochSeconds(rs.getLong("total_wake_time_epoch_seconds"))
+            .badCount(rs.getLong("bad_count"))
+            .okCount(rs.getLong("ok_count"))
+            .goodCount(rs.getLong("good_count"))
+            .build();
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * @return totals of the user's entries dated on or before {@code sleepDate}, empty when there are none
+     */
+    public Optional<SleepLogTotals> findUpTo(UUID userId, LocalDate sleepDate) {
+        return namedParameterJdbcTemplate.query(FIND_UP_TO,
+                        new MapSqlParameterSource("userId", userId).addValue("sleepDate", sleepDate),
+                        TOTALS_MAPPER)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Totals of the user's entries dated in [from, to], in a single statement
+     * @return the totals, {@link SleepLogTotals#EMPTY} when the user has no entries in the range
+     */
+    public SleepLogTotals findBetween(UUID userId, LocalDate from, LocalDate to) {
+        return namedParameterJdbcTemplate.queryForObject(FIND_BETWEEN,
+                new MapSqlParameterSource("userId", userId).addValue("from", from).addValue("to", to),
+                TOTALS_MAPPER);
+    }
+
+    /**
+     * Recomputes the running totals of every user from sleep_entry
+     * @return number of rows written
+     */
+    public int rebuildAll() {
+        namedParameterJdbcTemplate.getJdbcTemplate().update("DELETE FROM sleep_prefix_sum");
+        return namedParameterJdbcTemplate.getJdbcTemplate().update(REBUILD_INSERT + REBUILD_WINDOW);
+    }
+
+    /**
+     * Recomputes the running totals of a single user from sleep_entry, for the sleep dates on or after {@code from}
+     * only. The rows before it are left as they are.
+     * @return number of rows written
+     */
+    public int rebuildForUserFrom(UUID userId, LocalDate from) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("userId", userId).addValue("from", from);
+        namedParameterJdbcTemplate.update(
+                "DELETE FROM sleep_prefix_sum WHERE user_id = :userId AND sleep_date >= :from", parameters);
+        return namedParameterJdbcTemplate.update(REBUILD_FROM_INSERT, parameters);
+    }
+}
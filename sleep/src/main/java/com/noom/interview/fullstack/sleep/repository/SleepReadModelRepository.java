@@ -0,0 +1,108 @@
+package com.noom.interview.fullstack.sleep.repository;
+
+import com.noom.interview.fullstack.sleep.model.SleepLogTotals;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Writes of a new entry to both per-user read models, sleep_aggregate and sleep_prefix_sum, in a single statement
+ */
+@Repository
+@RequiredArgsConstructor
+public class SleepReadModelRepository {
+
+    /**
+     * Totals columns and the parameters holding the entry's value of each
+     */
+    private static final List<List<String>> TOTALS = List.of(
+            List.of("entry_count", "entryCount"),
+            List.of("total_time_in_bed_minutes", "totalTimeInBedMinutes"),
+            List.of("total_bed_time_epoch_seconds", "totalBedTimeEpochSeconds"),
+            List.of("total_wake_time_epoch_seconds", "totalWakeTimeEpochSeconds"),
+            List.of("bad_count", "badCount"),
+            List.of("ok_count", "okCount"),
+            List.of("good_count", "goodCount"));
+
+    /**
+     * Row of the new sleep date: the running totals of the previous date plus the entry
+     */
+    private static final String PREFIX_ROW = "INSERT INTO sleep_prefix_sum (user_id, sleep_date, " +
+            eachTotal("{column}") + ") " +
+            "SELECT CAST(:userId AS uuid), CAST(:sleepDate AS date), " + eachTotal("coalesce(p.{column}, 0) + :{param}") + " " +
+            "FROM (SELECT 1) AS one " +
+            "LEFT JOIN LATERAL (SELECT * FROM sleep_prefix_sum " +
+            "WHERE user_id = CAST(:userId AS uuid) AND sleep_date < CAST(:sleepDate AS date) " +
+            "ORDER BY sleep_date DESC LIMIT 1) AS p ON true " +
+            "ON CONFLICT (user_id, sleep_date) DO UPDATE SET " + eachTotal("{column} = sleep_prefix_sum.{column} + :{param}");
+
+    /**
+     * Later sleep dates include the entry as well. Touches no row when the entry is the user's newest one.
+     */
+    private static final String LATER_ROWS = "UPDATE sleep_prefix_sum SET " + eachTotal("{column} = {column} + :{param}") + " " +
+            "WHERE user_id = CAST(:userId AS uuid) AND sleep_date > CAST(:sleepDate AS date)";
+
+    /**
+     * The window ends on the newest of its end and the entry's sleep date. The nights that fall out of it, from the
+     * current start to the day before the new one, are subtracted with the running totals at both ends; when it does
+     * not move they are the same row. The entry counts when it is within the window. Every CTE and the main query see
+     * the rows as they were before the statement, so the running totals read here do not include the entry yet.
+     */
+    private static final String ADD_ENTRY = "WITH prefix_row AS (" + PREFIX_ROW + "), " +
+            "later_rows AS (" + LATER_ROWS + ") " +
+            SleepAggregateRepository.REBUILD_UPSERT +
+            "SELECT CAST(:userId AS uuid), w.window_start, w.window_end, " +
+            eachTotal("coalesce(a.{column}, 0) - coalesce(dropped_to.{column}, 0) + coalesce(dropped_from.{column}, 0) + " +
+                    "CASE WHEN CAST(:sleepDate AS date) >= w.window_start THEN :{param} ELSE 0 END") + ", " +
+            "now() " +
+            "FROM (SELECT 1) AS one " +
+            "LEFT JOIN sleep_aggregate a ON a.user_id = CAST(:userId AS uuid) " +
+            "CROSS JOIN LATERAL (SELECT greatest(a.window_start, CAST(:windowStart AS date)) AS window_start, " +
+            "greatest(a.window_end, CAST(:sleepDate AS date)) AS window_end) AS w " +
+            "LEFT JOIN LATERAL (SELECT * FROM sleep_prefix_sum " +
+            "WHERE user_id = CAST(:userId AS uuid) AND sleep_date < w.window_start AND sleep_date <= a.window_end " +
+            "ORDER BY sleep_date DESC LIMIT 1) AS dropped_to ON true " +
+            "LEFT JOIN LATERAL (SELECT * FROM sleep_prefix_sum " +
+            "WHERE user_id = CAST(:userId AS uuid) AND sleep_date < a.window_start " +
+            "ORDER BY sleep_date DESC LIMIT 1) AS dropped_from ON true " +
+            SleepAggregateRepository.REBUILD_ON_CONFLICT;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Adds a new entry to the user's rolling aggregate, sliding its window forward first when the entry is newer than
+     * the window end, and to the running totals of its sleep date and of every later one. A user without an aggregate
+     * gets one holding the entry alone. The caller must hold the lock of the user, see {@link UserLockRepository}.
+     * @param windowStart start of the window ending on the sleep date
+     * @param entry totals of the single entry
+     */
+    public void addEntry(UUID userId, LocalDate sleepDate, LocalDate windowStart, SleepLogTotals entry) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("userId", userId)
+                .addValue("sleepDate", sleepDate)
+                .addValue("windowStart", windowStart)
+                .addValue("entryCount", entry.getEntryCount())
+                .addValue("totalTimeInBedMinutes", entry.getTotalTimeInBedMinutes())
+                .addValue("totalBedTimeEpochSeconds", entry.getTotalBedTimeEpochSeconds())
+                .addValue("totalWakeTimeEpochSeconds", entry.getTotalWakeTimeEpochSeconds())
+                .addValue("badCount", entry.getBadCount())
+                .addValue("okCount", entry.getOkCount())
+                .addValue("goodCount", entry.getGoodCount());
+        namedParameterJdbcTemplate.update(ADD_ENTRY, parameters);
+    }
+
+    /**
+     * @param template expression with {@code {column}} and {@code {param}} placeholders
+     * @return the expression for every totals column, comma separated
+     */
+    private static String eachTotal(String template) {
+        return TOTALS.stream()
+                .map(total -> template.replace("{column}", total.get(0)).replace("{param}", total.get(1)))
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,34 @@
+package com.noom.interview.fullstack.sleep.repository;
+
+import com.noom.interview.fullstack.sleep.model.SleepLogTotals;
+
+/**
+ * One row of sums and feeling counters computed by Postgres over a user's sleep entries
+ */
+public interface SleepTotalsProjection {
+    long getEntryCount();
+
+    long getTotalTimeInBedMinutes();
+
+    long getTotalBedTimeEpochSeconds();
+
+    long getTotalWakeTimeEpochSeconds();
+
+    long getBadCount();
+
+    long getOkCount();
+
+    long getGoodCount();
+
+    default SleepLogTotals toTotals() {
+        return SleepLogTotals.builder()
+                .entryCount(getEntryCount())
+                .totalTimeInBedMinutes(getTotalTimeInBedMinutes())
+                .totalBedTimeEpochSeconds(getTotalBedTimeEpochSeconds())
+                .totalWakeTimeEpochSeconds(getTotalWakeTimeEpochSeconds())
+                .badCount(getBadCount())
+                .okCount(getOkCount())
+                .goodCount(getGoodCount())
+                .build();
+    }
+}
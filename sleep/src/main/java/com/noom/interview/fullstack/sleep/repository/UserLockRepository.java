@@ -0,0 +1,61 @@
+package com.noom.interview.fullstack.sleep.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+/**
+ * Transaction-scoped Postgres advisory locks serializing the writes of the per-user read models, sleep_aggregate and
+ * sleep_prefix_sum. Writers of a single user share the all-users lock and hold the lock of their user, so a rebuild
+ * of every user excludes all of them while writers of different users run in parallel.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserLockRepository {
+    /**
+     * Single-key lock, distinct from the partition maintenance one
+     */
+    static final long ALL_USERS_LOCK_KEY = 0x736c656575L;
+
+    /**
+     * First key of the two-key user locks, which live apart from the single-key ones. The second key is the hash of
+     * the user id; users sharing a hash only wait for each other.
+     */
+    static final int USER_LOCK_CLASS = 0x736c6575;
+
+    /**
+     * Select list taking the lock of the user in {@code :lockUserKey}, for statements that lock as they write
+     */
+    public static final String LOCK_USER = "pg_advisory_xact_lock_shared(" + ALL_USERS_LOCK_KEY + "), " +
+            "pg_advisory_xact_lock(" + USER_LOCK_CLASS + ", CAST(:lockUserKey AS integer))";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Waits for the lock of the user. Must be called within a transaction, the lock is released when it ends.
+     */
+    public void lockUser(UUID userId) {
+        namedParameterJdbcTemplate.query("SELECT " + LOCK_USER,
+                new MapSqlParameterSource("lockUserKey", userKey(userId)), (RowCallbackHandler) rs -> { });
+    }
+
+    /**
+     * Waits until no transaction holds the lock of any user and keeps new ones from taking one. Must be called within a
+     * transaction, the lock is released when it ends.
+     */
+    public void lockAllUsers() {
+        namedParameterJdbcTemplate.query("SELECT pg_advisory_xact_lock(:key)",
+                new MapSqlParameterSource("key", ALL_USERS_LOCK_KEY), (RowCallbackHandler) rs -> { });
+    }
+
+    /**
+     * @return value of {@code :lockUserKey} for {@link #LOCK_USER}
+     */
+    public static int userKey(UUID userId) {
+        return userId.hashCode();
+    }
+}
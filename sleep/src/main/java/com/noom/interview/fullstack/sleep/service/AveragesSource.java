@@ -0,0 +1,24 @@
+package com.noom.interview.fullstack.sleep.service;
+
+/**
+ * Where {@link SleepLogService#getAverages} reads its data from, selected by {@code sleep.averages.source}
+ */
+public enum AveragesSource {
+    /**
+     * Loads the entries of the range and runs {@link SleepLogCalculatorService} over them
+     */
+    ENTRIES,
+    /**
+     * Reads the per-user rolling 30-day totals maintained by {@link SleepAggregateService} when the range is that
+     * window, the running totals otherwise
+     */
+    AGGREGATE,
+    /**
+     * Reads the per-user running totals at both ends of the range, whatever its length
+     */
+    PREFIX_SUM,
+    /**
+     * Lets Postgres compute the sums and feeling counters of the range in a single aggregate query
+     */
+    SQL
+}
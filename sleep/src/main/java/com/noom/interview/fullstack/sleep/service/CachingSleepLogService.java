@@ -0,0 +1,157 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.cache.AveragesCache;
+import com.noom.interview.fullstack.sleep.cache.TodayLog;
+import com.noom.interview.fullstack.sleep.cache.TodayLogCache;
+import com.noom.interview.fullstack.sleep.db.ReadOnlyRoutingDataSource;
+import com.noom.interview.fullstack.sleep.db.RecentWrites;
+import com.noom.interview.fullstack.sleep.metrics.MetricsConfiguration;
+import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogBatchRequest;
+import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogRequest;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogBatchResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogHistoryResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityNotFoundException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Caching layer in front of {@link SleepLogServiceImpl}. Lookups are served before any transaction is opened and
+ * invalidation happens once the write transaction of the delegate has completed. The averages and their version are
+ * put with the cache generation read before computing them, so a read racing with a write does not cache what it
+ * computed before the write once the write has invalidated the user.
+ * <p>
+ * The caches are local to the instance and only writes served by this instance invalidate them, so they are exact on a
+ * single instance only. With several instances a write through another one is seen once the entries expire: after
+ * {@code sleep.cache.today-log.not-logged-ttl} for a missing log of today, after {@code sleep.cache.averages.ttl} for
+ * the averages.
+ * <p>
+ * The averages and their version are read in read-only transactions, which go to the replica when one is configured.
+ * Until the replica may have replayed a write, the user's reads go to the primary instead, so a lagging replica cannot
+ * fill the cache with the averages from before the write.
+ * <p>
+ * Its methods are timed like those of the delegate, so {@value MetricsConfiguration#SERVICE_TIMER} with
+ * {@code class=CachingSleepLogService} includes the calls served from the caches, while the one of the delegate only
+ * counts the calls that reach it.
+ */
+@Service
+@Primary
+public class CachingSleepLogService implements SleepLogService {
+    private final SleepLogService delegate;
+    private final AveragesCache averagesCache;
+    private final TodayLogCache todayLogCache;
+    private final RecentWrites recentWrites;
+
+    public CachingSleepLogService(@Qualifier("sleepLogServiceImpl") SleepLogService delegate,
+                                  AveragesCache averagesCache,
+                                  TodayLogCache todayLogCache,
+                                  RecentWrites recentWrites) {
+        this.delegate = delegate;
+        this.averagesCache = averagesCache;
+        this.todayLogCache = todayLogCache;
+        this.recentWrites = recentWrites;
+    }
+
+    @Override
+    @Timed(MetricsConfiguration.SERVICE_TIMER)
+    public SleepLogResponse createLastNightLog(UUID userId, CreateSleepLogRequest request) {
+        try {
+            SleepLogResponse created = delegate.createLastNightLog(userId, request);
+            todayLogCache.putLogged(userId, created);
+            return created;
+        } catch (RuntimeException ex) {
+            todayLogCache.invalidate(userId);
+            throw ex;
+        } finally {
+            recentWrites.recordWrite(userId);
+            averagesCache.invalidate(userId);
+        }
+    }
+
+    @Override
+    @Timed(MetricsConfiguration.SERVICE_TIMER)
+    public SleepLogResponse getLastNightLog(UUID userId) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Optional<TodayLog> cached = todayLogCache.get(userId, today);
+        if (cached.isPresent()) {
+            return cached.get().getLog()
+                    .orElseThrow(() -> new EntityNotFoundException("Sleep log for today not found"));
+        }
+
+        try {
+            SleepLogResponse sleepLog = delegate.getLastNightLog(userId);
+            todayLogCache.putLogged(userId, sleepLog);
+            return sleepLog;
+        } catch (EntityNotFoundException ex) {
+            todayLogCache.putNotLogged(userId, today);
+            throw ex;
+        }
+    }
+
+    @Override
+    @Timed(MetricsConfiguration.SERVICE_TIMER)
+    public SleepLogAveragesResponse getLast30DayAverages(UUID userId) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Optional<SleepLogAveragesResponse> cached = averagesCache.get(userId, today);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        long generation = averagesCache.generation(userId);
+        SleepLogAveragesResponse averages = read(userId, () -> delegate.getLast30DayAverages(userId));
+        averagesCache.put(userId, generation, averages);
+        return averages;
+    }
+
+    @Override
+    @Timed(MetricsConfiguration.SERVICE_TIMER)
+    public Optional<String> getLast30DayAveragesVersion(UUID userId) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Optional<String> cached = averagesCache.getVersion(userId, today);
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        long generation = averagesCache.generation(userId);
+        Optional<String> version = read(userId, () -> delegate.getLast30DayAveragesVersion(userId));
+        version.ifPresent(value -> averagesCache.putVersion(userId, generation, today, value));
+        return version;
+    }
+
+    @Override
+    @Timed(MetricsConfiguration.SERVICE_TIMER)
+    public SleepLogBatchResponse createLogs(UUID userId, CreateSleepLogBatchRequest request) {
+        try {
+            return delegate.createLogs(userId, request);
+        } finally {
+            recentWrites.recordWrite(userId);
+            todayLogCache.invalidate(userId);
+            averagesCache.invalidate(userId);
+        }
+    }
+
+    @Override
+    @Timed(MetricsConfiguration.SERVICE_TIMER)
+    public SleepLogHistoryResponse getHistory(UUID userId, LocalDate before, int limit) {
+        return delegate.getHistory(userId, before, limit);
+    }
+
+    @Override
+    @Timed(MetricsConfiguration.SERVICE_TIMER)
+    public SleepLogAveragesResponse getAverages(UUID userId, LocalDate from, LocalDate to) {
+        return delegate.getAverages(userId, from, to);
+    }
+
+    private <T> T read(UUID userId, Supplier<T> read) {
+        return recentWrites.isRecent(userId) ? ReadOnlyRoutingDataSource.readFromPrimary(read) : read.get();
+    }
+}
@@ -0,0 +1,27 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of the read side of {@link SleepLogService}, served by the reactive profile
+ */
+public interface ReactiveSleepLogService {
+    /**
+     * Fetches today's sleep log of the user
+     * @param userId id of the user
+     * @return the sleep log, or an error with {@link javax.persistence.EntityNotFoundException} when there is none
+     */
+    Mono<SleepLogResponse> getLastNightLog(UUID userId);
+
+    /**
+     * Calculates the averages of the last 30 days (inclusive) in UTC, reading the entries as a stream
+     * @param userId id of the user
+     * @return the averages, or an error with {@link javax.persistence.EntityNotFoundException} when there are no
+     * entries in the range
+     */
+    Mono<SleepLogAveragesResponse> getLast30DayAverages(UUID userId);
+}
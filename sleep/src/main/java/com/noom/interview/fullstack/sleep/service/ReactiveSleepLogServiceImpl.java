@@ -0,0 +1,50 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.mapper.SleepEntryMapper;
+import com.noom.interview.fullstack.sleep.model.SleepLogAccumulator;
+import com.noom.interview.fullstack.sleep.repository.ReactiveSleepEntryRepository;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import javax.persistence.EntityNotFoundException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveSleepLogServiceImpl implements ReactiveSleepLogService {
+
+    private final ReactiveSleepEntryRepository reactiveSleepEntryRepository;
+    private final SleepEntryMapper sleepEntryMapper;
+    private final SleepLogCalculatorService sleepLogCalculatorService;
+
+    @Override
+    public Mono<SleepLogResponse> getLastNightLog(UUID userId) {
+        return reactiveSleepEntryRepository.findByUserIdAndSleepDate(userId, LocalDate.now(ZoneOffset.UTC))
+                .map(sleepEntryMapper::toResponse)
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException("Sleep log for today not found")));
+    }
+
+    /**
+     * Each row is added to an accumulator as it arrives and then dropped, so memory does not grow with the number of
+     * entries in the range
+     */
+    @Override
+    public Mono<SleepLogAveragesResponse> getLast30DayAverages(UUID userId) {
+        LocalDate to = LocalDate.now(ZoneOffset.UTC);
+        LocalDate from = to.minusDays(30);
+        return reactiveSleepEntryRepository.findByUserIdAndSleepDateBetween(userId, from, to)
+                .reduceWith(SleepLogAccumulator::new, SleepLogAccumulator::add)
+                .map(SleepLogAccumulator::toTotals)
+                .filter(totals -> !totals.isEmpty())
+                .map(totals -> sleepLogCalculatorService.calculateStatistics(totals).toAveragesResponse(from, to))
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException(
+                        "No sleep logs found for user between " + from + " and " + to)));
+    }
+}
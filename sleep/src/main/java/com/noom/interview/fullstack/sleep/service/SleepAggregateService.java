@@ -0,0 +1,64 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
+import com.noom.interview.fullstack.sleep.model.SleepLogTotals;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface SleepAggregateService {
+    /**
+     * Adds a freshly persisted sleep entry to its user's rolling aggregate, sliding the window forward first when the
+     * entry is newer than the current window, and to the user's running totals, with a single statement. Must run in
+     * the transaction that persisted the entry with one of the inserts of
+     * {@link com.noom.interview.fullstack.sleep.repository.SleepEntryBatchRepository}, which take the lock of the user
+     * until the transaction ends, so the writes of a user and the rebuilds are applied one at a time.
+     * @param entry sleep entry that was just saved
+     */
+    void recordEntry(SleepEntryEntity entry);
+
+    /**
+     * Brings the rolling aggregate and the running totals of a user up to date after several entries were inserted,
+     * ending the window today (UTC). Only the running totals from the earliest inserted sleep date on are recomputed.
+     * Must run in the transaction that inserted the entries; takes the lock of the user like
+     * {@link #recordEntry(SleepEntryEntity)}.
+     * @param userId user identifier
+     * @param earliestSleepDate earliest sleep date among the inserted entries
+     */
+    void recordEntries(UUID userId, LocalDate earliestSleepDate);
+
+    /**
+     * Reads the totals of a user's entries in [windowStart, windowEnd] from the rolling aggregate
+     * @param userId user identifier
+     * @param windowStart first sleep date of the window (inclusive)
+     * @param windowEnd last sleep date of the window (inclusive)
+     * @return the totals, or empty when the aggregate cannot answer for this window and the entries must be read
+     */
+    Optional<SleepLogTotals> findWindowTotals(UUID userId, LocalDate windowStart, LocalDate windowEnd);
+
+    /**
+     * Reads when the rolling aggregate of a user was last written, by the entries of the user or by a rebuild, with a
+     * primary key lookup
+     * @param userId user identifier
+     * @return the time of the last write, or empty when the user has no aggregate
+     */
+    Optional<Instant> findLastUpdate(UUID userId);
+
+    /**
+     * Computes the totals of a user's entries in [from, to] from the running totals at both ends of the range
+     * @param userId user identifier
+     * @param from first sleep date of the range (inclusive)
+     * @param to last sleep date of the range (inclusive)
+     * @return the totals, {@link SleepLogTotals#EMPTY} when the user has no entries in the range
+     */
+    SleepLogTotals findRangeTotals(UUID userId, LocalDate from, LocalDate to);
+
+    /**
+     * Recomputes the rolling aggregate and the running totals of every user from sleep_entry, ending the window today
+     * (UTC). Waits for the running writes of every user and holds off new ones until the transaction ends.
+     * @return number of aggregate rows written
+     */
+    int rebuildAll();
+}
@@ -0,0 +1,119 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.entity.SleepAggregateEntity;
+import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
+import com.noom.interview.fullstack.sleep.model.SleepLogTotals;
+import com.noom.interview.fullstack.sleep.repository.SleepAggregateRepository;
+import com.noom.interview.fullstack.sleep.repository.SleepPrefixSumRepository;
+import com.noom.interview.fullstack.sleep.repository.SleepReadModelRepository;
+import com.noom.interview.fullstack.sleep.repository.UserLockRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class SleepAggregateServiceImpl implements SleepAggregateService {
+    /**
+     * The aggregate covers the same 31 sleep dates as the last 30-day averages: [windowEnd - 30, windowEnd]
+     */
+    static final int WINDOW_DAYS = 30;
+
+    private final SleepAggregateRepository sleepAggregateRepository;
+    private final SleepPrefixSumRepository sleepPrefixSumRepository;
+    private final SleepReadModelRepository sleepReadModelRepository;
+    private final UserLockRepository userLockRepository;
+
+    @Override
+    @Transactional
+    public void recordEntry(SleepEntryEntity entry) {
+        LocalDate sleepDate = entry.getSleepDate();
+        sleepReadModelRepository.addEntry(entry.getUser().getId(), sleepDate, sleepDate.minusDays(WINDOW_DAYS),
+                SleepLogTotals.of(entry));
+    }
+
+    @Override
+    @Transactional
+    public void recordEntries(UUID userId, LocalDate earliestSleepDate) {
+        userLockRepository.lockUser(userId);
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        sleepAggregateRepository.rebuildForUser(userId, today.minusDays(WINDOW_DAYS), today);
+        sleepPrefixSumRepository.rebuildForUserFrom(userId, earliestSleepDate);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<SleepLogTotals> findWindowTotals(UUID userId, LocalDate windowStart, LocalDate windowEnd) {
+        if (!windowStart.plusDays(WINDOW_DAYS).equals(windowEnd)) {
+            return Optional.empty();
+        }
+
+        return sleepAggregateRepository.findById(userId)
+                .filter(aggregate -> !aggregate.getWindowEnd().isAfter(windowEnd))
+                .map(aggregate -> aggregate.getWindowEnd().equals(windowEnd)
+                        ? toTotals(aggregate)
+                        : slide(aggregate, windowStart));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Instant> findLastUpdate(UUID userId) {
+        return sleepAggregateRepository.findUpdatedAtByUserId(userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SleepLogTotals findRangeTotals(UUID userId, LocalDate from, LocalDate to) {
+        SleepLogTotals upToEnd = sleepPrefixSumRepository.findUpTo(userId, to).orElse(SleepLogTotals.EMPTY);
+        if (upToEnd.isEmpty()) {
+            return SleepLogTotals.EMPTY;
+        }
+        SleepLogTotals beforeStart = sleepPrefixSumRepository.findUpTo(userId, from.minusDays(1)).orElse(SleepLogTotals.EMPTY);
+        return upToEnd.minus(beforeStart);
+    }
+
+    @Override
+    @Transactional
+    public int rebuildAll() {
+        userLockRepository.lockAllUsers();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        int rows = sleepAggregateRepository.rebuildAll(today.minusDays(WINDOW_DAYS), today);
+        sleepPrefixSumRepository.rebuildAll();
+        return rows;
+    }
+
+    /**
+     * Computes the totals of the aggregate once its window starts at {@code windowStart}, by subtracting the days that
+     * fall out of the window, read from the running totals. Entries newer than the current window end are not included.
+     */
+    private SleepLogTotals slide(SleepAggregateEntity aggregate, LocalDate windowStart) {
+        if (!windowStart.isAfter(aggregate.getWindowStart())) {
+            return toTotals(aggregate);
+        }
+        if (windowStart.isAfter(aggregate.getWindowEnd())) {
+            return SleepLogTotals.EMPTY;
+        }
+
+        SleepLogTotals dropped = sleepPrefixSumRepository.findBetween(
+                aggregate.getUserId(), aggregate.getWindowStart(), windowStart.minusDays(1));
+        return toTotals(aggregate).minus(dropped);
+    }
+
+    private SleepLogTotals toTotals(SleepAggregateEntity aggregate) {
+        return SleepLogTotals.builder()
+                .entryCount(aggregate.getEntryCount())
+                .totalTimeInBedMinutes(aggregate.getTotalTimeInBedMinutes())
+                .totalBedTimeEpochSeconds(aggregate.getTotalBedTimeEpochSeconds())
+                .totalWakeTimeEpochSeconds(aggregate.getTotalWakeTimeEpochSeconds())
+                .badCount(aggregate.getBadCount())
+                .okCount(aggregate.getOkCount())
+                .goodCount(aggregate.getGoodCount())
+                .build();
+    }
+}
@@ -0,0 +1,16 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.web.responses.SleepAnalyticsResponse;
+
+import java.time.LocalDate;
+
+public interface SleepAnalyticsService {
+    /**
+     * Calculates the average time in bed and the morning feeling frequencies of all users, for the whole range and
+     * for each sleep date of it
+     * @param from first sleep date of the range
+     * @param to last sleep date of the range, included
+     * @return statistics of the range and of each sleep date that has sleep logs
+     */
+    SleepAnalyticsResponse getDailyStatistics(LocalDate from, LocalDate to);
+}
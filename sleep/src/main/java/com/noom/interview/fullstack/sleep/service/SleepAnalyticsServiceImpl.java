@@ -0,0 +1,140 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.exception.ValidationException;
+import com.noom.interview.fullstack.sleep.model.SleepLogStatistics;
+import com.noom.interview.fullstack.sleep.model.SleepLogTotals;
+import com.noom.interview.fullstack.sleep.repository.SleepAnalyticsRepository;
+import com.noom.interview.fullstack.sleep.web.responses.SleepAnalyticsResponse;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Splits the range into chunks of {@code sleep.analytics.chunk-days} sleep dates and runs one aggregate query per
+ * chunk on a dedicated fork-join pool. Each running chunk holds a database connection, so
+ * {@code sleep.analytics.parallelism} must stay below the size of the connection pool.
+ */
+@Service
+public class SleepAnalyticsServiceImpl implements SleepAnalyticsService, DisposableBean {
+    static final int MAX_RANGE_DAYS = 3660;
+
+    private final SleepAnalyticsRepository sleepAnalyticsRepository;
+    private final SleepLogCalculatorService sleepLogCalculatorService;
+    private final ForkJoinPool pool;
+    private final int chunkDays;
+
+    @Autowired
+    public SleepAnalyticsServiceImpl(
+            SleepAnalyticsRepository sleepAnalyticsRepository,
+            SleepLogCalculatorService sleepLogCalculatorService,
+            @Value("${sleep.analytics.parallelism:4}") int parallelism,
+            @Value("${sleep.analytics.chunk-days:31}") int chunkDays
+    ) {
+        this(sleepAnalyticsRepository, sleepLogCalculatorService, new ForkJoinPool(parallelism), chunkDays);
+    }
+
+    SleepAnalyticsServiceImpl(
+            SleepAnalyticsRepository sleepAnalyticsRepository,
+            SleepLogCalculatorService sleepLogCalculatorService,
+            ForkJoinPool pool,
+            int chunkDays
+    ) {
+        if (chunkDays < 1) {
+            throw new IllegalArgumentException("chunkDays must be positive");
+        }
+        this.sleepAnalyticsRepository = sleepAnalyticsRepository;
+        this.sleepLogCalculatorService = sleepLogCalculatorService;
+        this.pool = pool;
+        this.chunkDays = chunkDays;
+    }
+
+    @Override
+    public SleepAnalyticsResponse getDailyStatistics(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new ValidationException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new ValidationException("range must not be longer than " + MAX_RANGE_DAYS + " days");
+        }
+
+        Map<LocalDate, SleepLogTotals> dailyTotals = new TreeMap<>(aggregateDailyTotals(from, to));
+
+        List<SleepAnalyticsResponse.DailyStatistics> days = new ArrayList<>(dailyTotals.size());
+        SleepLogTotals rangeTotals = SleepLogTotals.EMPTY;
+        for (Map.Entry<LocalDate, SleepLogTotals> day : dailyTotals.entrySet()) {
+            SleepLogStatistics statistics = sleepLogCalculatorService.calculateStatistics(day.getValue());
+            days.add(SleepAnalyticsResponse.DailyStatistics.builder()
+                    .sleepDate(day.getKey())
+                    .entryCount(day.getValue().getEntryCount())
+                    .averageTimeInBedMinutes(statistics.getAverageTimeInBedMinutes())
+                    .morningFeelingFrequencies(statistics.getMorningFeelingFrequencies())
+                    .build());
+            rangeTotals = rangeTotals.plus(day.getValue());
+        }
+
+        SleepLogStatistics statistics = sleepLogCalculatorService.calculateStatistics(rangeTotals);
+        return SleepAnalyticsResponse.builder()
+                .rangeStart(from)
+                .rangeEnd(to)
+                .entryCount(rangeTotals.getEntryCount())
+                .averageTimeInBedMinutes(statistics.getAverageTimeInBedMinutes())
+                .morningFeelingFrequencies(statistics.getMorningFeelingFrequencies())
+                .days(days)
+                .build();
+    }
+
+    /**
+     * Totals of every user by sleep date, queried chunk by chunk in parallel and merged
+     */
+    Map<LocalDate, SleepLogTotals> aggregateDailyTotals(LocalDate from, LocalDate to) {
+        return pool.invoke(new DailyTotalsTask(from, to));
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+
+    /**
+     * Halves the range on a chunk boundary until it fits in a single chunk, so the leaves are the same chunks
+     * whatever the order they run in
+     */
+    private class DailyTotalsTask extends RecursiveTask<Map<LocalDate, SleepLogTotals>> {
+        private final LocalDate from;
+        private final LocalDate to;
+
+        DailyTotalsTask(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<LocalDate, SleepLogTotals> compute() {
+            long days = ChronoUnit.DAYS.between(from, to) + 1;
+            if (days <= chunkDays) {
+                return sleepAnalyticsRepository.findDailyTotals(from, to);
+            }
+
+            long chunks = (days + chunkDays - 1) / chunkDays;
+            LocalDate leftEnd = from.plusDays(chunks / 2 * chunkDays - 1);
+            DailyTotalsTask left = new DailyTotalsTask(from, leftEnd);
+            DailyTotalsTask right = new DailyTotalsTask(leftEnd.plusDays(1), to);
+
+            left.fork();
+            Map<LocalDate, SleepLogTotals> merged = new HashMap<>(right.compute());
+            left.join().forEach((sleepDate, totals) -> merged.merge(sleepDate, totals, SleepLogTotals::plus));
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.model.PartitionMaintenanceResult;
+
+import java.time.LocalDate;
+
+public interface SleepEntryPartitionService {
+
+    /**
+     * Creates the missing monthly partitions of sleep_entry from the current month to
+     * {@code sleep.partitions.months-ahead} months ahead, and detaches the partitions whose sleep dates are all older
+     * than {@code sleep.partitions.retention-months} months, except the one without a lower bound. Only one instance
+     * runs it at a time.
+     * @param today current UTC date
+     * @return names of the created and detached partitions, and of those kept past the retention
+     */
+    PartitionMaintenanceResult maintain(LocalDate today);
+}
@@ -0,0 +1,93 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.model.PartitionMaintenanceResult;
+import com.noom.interview.fullstack.sleep.model.SleepEntryPartition;
+import com.noom.interview.fullstack.sleep.repository.SleepEntryPartitionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detaching is off unless {@code sleep.partitions.retention-months} is positive: the rows of a detached partition are
+ * kept in a standalone table but no longer read by the API, the rebuild of the aggregates or the running totals. The
+ * read models still count them until they are rebuilt, which the caller does once the detach is committed.
+ * <p>
+ * A partition without a lower bound, i.e. sleep_entry_legacy, holds every sleep date before the partitioning and is
+ * never detached: once its upper bound is past the retention, detaching it would drop all those months at once. It is
+ * reported as kept instead, to be split or detached by hand.
+ */
+@Service
+public class SleepEntryPartitionServiceImpl implements SleepEntryPartitionService {
+
+    private final SleepEntryPartitionRepository sleepEntryPartitionRepository;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public SleepEntryPartitionServiceImpl(
+            SleepEntryPartitionRepository sleepEntryPartitionRepository,
+            @Value("${sleep.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${sleep.partitions.retention-months:0}") int retentionMonths
+    ) {
+        if (monthsAhead < 0 || retentionMonths < 0) {
+            throw new IllegalArgumentException("monthsAhead and retentionMonths must not be negative");
+        }
+        this.sleepEntryPartitionRepository = sleepEntryPartitionRepository;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Override
+    @Transactional
+    public PartitionMaintenanceResult maintain(LocalDate today) {
+        if (!sleepEntryPartitionRepository.tryLockMaintenance()) {
+            return PartitionMaintenanceResult.SKIPPED;
+        }
+
+        List<SleepEntryPartition> partitions = sleepEntryPartitionRepository.findPartitions();
+        LocalDate currentMonth = today.withDayOfMonth(1);
+
+        List<String> created = new ArrayList<>();
+        for (int month = 0; month <= monthsAhead; month++) {
+            LocalDate monthStart = currentMonth.plusMonths(month);
+            if (partitions.stream().noneMatch(partition -> covers(partition, monthStart))) {
+                created.add(sleepEntryPartitionRepository.createMonthlyPartition(monthStart));
+            }
+        }
+
+        List<String> detached = new ArrayList<>();
+        List<String> keptPastRetention = new ArrayList<>();
+        if (retentionMonths > 0) {
+            LocalDate oldestKept = currentMonth.minusMonths(retentionMonths);
+            for (SleepEntryPartition partition : partitions) {
+                if (partition.getTo() == null || partition.getTo().isAfter(oldestKept)) {
+                    continue;
+                }
+                if (partition.getFrom() == null) {
+                    keptPastRetention.add(partition.getName());
+                } else {
+                    sleepEntryPartitionRepository.detachPartition(partition.getName());
+                    detached.add(partition.getName());
+                }
+            }
+        }
+
+        return PartitionMaintenanceResult.builder()
+                .created(created)
+                .detached(detached)
+                .keptPastRetention(keptPastRetention)
+                .build();
+    }
+
+    private static boolean covers(SleepEntryPartition partition, LocalDate sleepDate) {
+        if (partition.getFrom() == null && partition.getTo() == null) {
+            // a default partition, which does not stand for the month's own partition
+            return false;
+        }
+        return (partition.getFrom() == null || !partition.getFrom().isAfter(sleepDate))
+                && (partition.getTo() == null || partition.getTo().isAfter(sleepDate));
+    }
+}
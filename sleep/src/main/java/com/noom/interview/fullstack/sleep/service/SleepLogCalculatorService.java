@@ -2,6 +2,8 @@ package com.noom.interview.fullstack.sleep.service;
 
 import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
 import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.model.SleepLogStatistics;
+import com.noom.interview.fullstack.sleep.model.SleepLogTotals;
 import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
 
 import java.time.LocalTime;
@@ -39,4 +41,20 @@ public interface SleepLogCalculatorService {
      * @return a map containing for each feeling value the count and percentage found
      */
     Map<MorningFeeling, SleepLogAveragesResponse.FeelingFrequency> calculateMorningFrequencies(List<SleepEntryEntity> sleepEntryEntities);
+
+    /**
+     * Calculates all the averages and the morning feeling frequencies from pre-aggregated sums and counters, giving
+     * the same results as the methods above applied to the entries the totals were built from
+     * @param totals sums and counters of the sleep entries in the range
+     * @return averages and frequencies of the range
+     */
+    SleepLogStatistics calculateStatistics(SleepLogTotals totals);
+
+    /**
+     * Calculates all the averages and the morning feeling frequencies in a single pass over the entries, without
+     * allocating per entry. Gives the same results as the four per-metric methods above.
+     * @param sleepEntryEntities sleep entries retrieved from database
+     * @return averages and frequencies of the entries
+     */
+    SleepLogStatistics calculateStatistics(List<SleepEntryEntity> sleepEntryEntities);
 }
@@ -1,8 +1,13 @@
 package com.noom.interview.fullstack.sleep.service;
 
 import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
+import com.noom.interview.fullstack.sleep.metrics.MetricsConfiguration;
 import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.model.SleepLogAccumulator;
+import com.noom.interview.fullstack.sleep.model.SleepLogStatistics;
+import com.noom.interview.fullstack.sleep.model.SleepLogTotals;
 import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -18,6 +23,7 @@ import java.util.Map;
 @Service
 public class SleepLogCalculatorServiceImpl implements SleepLogCalculatorService {
     @Override
+    @Timed(MetricsConfiguration.CALCULATOR_TIMER)
     public int calculateAverageTimeInBed(List<SleepEntryEntity> sleepEntryEntities) {
         return (int) sleepEntryEntities.stream()
                 .mapToLong(sleepEntry -> Duration.between(sleepEntry.getTimeInBedStart(), sleepEntry.getTimeInBedEnd()).toMinutes())
@@ -26,34 +32,29 @@ public class SleepLogCalculatorServiceImpl implements SleepLogCalculatorService
     }
 
     @Override
+    @Timed(MetricsConfiguration.CALCULATOR_TIMER)
     public LocalTime calculateAverageTimeUserGetsInBed(List<SleepEntryEntity> sleepEntryEntities) {
-        long avgEpochSeconds = Math.round(
+        return toUtcTimeOfDay(
                 sleepEntryEntities.stream()
                         .mapToLong(se -> se.getTimeInBedStart().getEpochSecond())
                         .average()
                         .orElse(0.0)
         );
-
-        return Instant.ofEpochSecond(avgEpochSeconds)
-                .atZone(ZoneOffset.UTC)
-                .toLocalTime();
     }
 
     @Override
+    @Timed(MetricsConfiguration.CALCULATOR_TIMER)
     public LocalTime calculateAverageTimeUserGetsOutOfBed(List<SleepEntryEntity> sleepEntryEntities) {
-        long avgEpochSeconds = Math.round(
+        return toUtcTimeOfDay(
                 sleepEntryEntities.stream()
                         .mapToLong(se -> se.getTimeInBedEnd().getEpochSecond())
                         .average()
                         .orElse(0.0)
         );
-
-        return Instant.ofEpochSecond(avgEpochSeconds)
-                .atZone(ZoneOffset.UTC)
-                .toLocalTime();
     }
 
     @Override
+    @Timed(MetricsConfiguration.CALCULATOR_TIMER)
     public Map<MorningFeeling, SleepLogAveragesResponse.FeelingFrequency> calculateMorningFrequencies(List<SleepEntryEntity> sleepEntryEntities) {
         Map<MorningFeeling, SleepLogAveragesResponse.FeelingFrequency> frequencies = new EnumMap<>(MorningFeeling.class);
         for (SleepEntryEntity entry : sleepEntryEntities) {
@@ -69,10 +70,57 @@ public class SleepLogCalculatorServiceImpl implements SleepLogCalculatorService
             int newCount = currentFrequency.getCount() + 1;
             SleepLogAveragesResponse.FeelingFrequency newFrequency = SleepLogAveragesResponse.FeelingFrequency.builder()
                     .count(newCount)
-                    .percentage(BigDecimal.valueOf((double) newCount / sleepEntryEntities.size() * 100.0).setScale(2, RoundingMode.HALF_UP))
+                    .percentage(toPercentage(newCount, sleepEntryEntities.size()))
                     .build();
             frequencies.put(currentMorningFeeling, newFrequency);
         }
         return frequencies;
     }
+
+    @Override
+    @Timed(MetricsConfiguration.CALCULATOR_TIMER)
+    public SleepLogStatistics calculateStatistics(List<SleepEntryEntity> sleepEntryEntities) {
+        return calculateStatistics(new SleepLogAccumulator().addAll(sleepEntryEntities).toTotals());
+    }
+
+    @Override
+    @Timed(MetricsConfiguration.CALCULATOR_TIMER)
+    public SleepLogStatistics calculateStatistics(SleepLogTotals totals) {
+        long entryCount = totals.getEntryCount();
+
+        Map<MorningFeeling, SleepLogAveragesResponse.FeelingFrequency> frequencies = new EnumMap<>(MorningFeeling.class);
+        for (MorningFeeling feeling : MorningFeeling.values()) {
+            long count = totals.getFeelingCount(feeling);
+            if (count > 0) {
+                frequencies.put(feeling, SleepLogAveragesResponse.FeelingFrequency.builder()
+                        .count(Math.toIntExact(count))
+                        .percentage(toPercentage(count, entryCount))
+                        .build());
+            }
+        }
+
+        return SleepLogStatistics.builder()
+                .averageTimeInBedMinutes((int) average(totals.getTotalTimeInBedMinutes(), entryCount))
+                .averageTimeUserGetsInBed(toUtcTimeOfDay(average(totals.getTotalBedTimeEpochSeconds(), entryCount)))
+                .averageTimeUserGetsOutOfBed(toUtcTimeOfDay(average(totals.getTotalWakeTimeEpochSeconds(), entryCount)))
+                .morningFeelingFrequencies(frequencies)
+                .build();
+    }
+
+    /**
+     * Same result as {@link java.util.stream.LongStream#average()} over the summed values, 0 when there are none
+     */
+    private static double average(long sum, long count) {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    private static LocalTime toUtcTimeOfDay(double averageEpochSeconds) {
+        return Instant.ofEpochSecond(Math.round(averageEpochSeconds))
+                .atZone(ZoneOffset.UTC)
+                .toLocalTime();
+    }
+
+    private static BigDecimal toPercentage(long count, long total) {
+        return BigDecimal.valueOf((double) count / total * 100.0).setScale(2, RoundingMode.HALF_UP);
+    }
 }
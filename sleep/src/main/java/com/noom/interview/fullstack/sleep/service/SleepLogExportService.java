@@ -0,0 +1,16 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.UUID;
+
+public interface SleepLogExportService {
+    /**
+     * Writes the whole sleep history of a user as NDJSON, one {@link com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse}
+     * per line, oldest night first
+     * @param userId user identifier
+     * @param output stream the entries are written to, flushed but not closed
+     * @return number of exported entries
+     */
+    long exportLogs(UUID userId, OutputStream output) throws IOException;
+}
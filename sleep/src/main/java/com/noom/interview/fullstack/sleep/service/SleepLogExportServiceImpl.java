@@ -0,0 +1,51 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.noom.interview.fullstack.sleep.repository.SleepEntryExportRepository;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class SleepLogExportServiceImpl implements SleepLogExportService {
+
+    private final SleepEntryExportRepository sleepEntryExportRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportLogs(UUID userId, OutputStream output) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(SleepLogResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long[] exported = new long[1];
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            try {
+                sleepEntryExportRepository.forEachByUserId(userId, sleepLog -> {
+                    try {
+                        writer.writeValue(generator, sleepLog);
+                        generator.writeRaw('\n');
+                        exported[0]++;
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        }
+        return exported[0];
+    }
+}
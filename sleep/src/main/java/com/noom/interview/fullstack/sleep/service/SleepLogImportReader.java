@@ -0,0 +1,169 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.noom.interview.fullstack.sleep.model.ImportFormat;
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.utils.UuidV7;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * Reads an import file line by line and turns every valid line into a CSV row of the staging table. Invalid lines are
+ * counted and skipped, so only the current line is held in memory whatever the size of the file.
+ */
+class SleepLogImportReader implements Iterator<String> {
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final String CSV_HEADER_PREFIX = "user_id";
+
+    private final BufferedReader reader;
+    private final ImportFormat format;
+    private final ObjectMapper objectMapper;
+    private final Instant now = Instant.now();
+    private final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+    private final List<String> errors = new ArrayList<>();
+    private long lineNumber;
+    private long rowsRead;
+    private long rejected;
+    private String next;
+    private boolean exhausted;
+
+    SleepLogImportReader(BufferedReader reader, ImportFormat format, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !exhausted) {
+            String line = readLine();
+            if (line == null) {
+                exhausted = true;
+            } else if (!line.isBlank() && !isCsvHeader(line)) {
+                rowsRead++;
+                next = toStagingRow(line);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String row = next;
+        next = null;
+        return row;
+    }
+
+    long getRowsRead() {
+        return rowsRead;
+    }
+
+    long getRejected() {
+        return rejected;
+    }
+
+    List<String> getErrors() {
+        return List.copyOf(errors);
+    }
+
+    private String readLine() {
+        try {
+            String line = reader.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read import file at line " + (lineNumber + 1), ex);
+        }
+    }
+
+    private boolean isCsvHeader(String line) {
+        return format == ImportFormat.CSV && lineNumber == 1 && line.startsWith(CSV_HEADER_PREFIX);
+    }
+
+    private String toStagingRow(String line) {
+        try {
+            String[] fields = format == ImportFormat.CSV ? csvFields(line) : jsonFields(line);
+
+            UUID userId = UUID.fromString(fields[0]);
+            LocalDate sleepDate = LocalDate.parse(fields[1]);
+            Instant timeInBedStart = Instant.parse(fields[2]);
+            Instant timeInBedEnd = Instant.parse(fields[3]);
+            MorningFeeling morningFeeling = MorningFeeling.valueOf(fields[4]);
+
+            if (sleepDate.isAfter(today) || timeInBedEnd.isAfter(now)) {
+                throw new IllegalArgumentException("sleep log must not be in the future");
+            }
+            if (!timeInBedEnd.isAfter(timeInBedStart)) {
+                throw new IllegalArgumentException("timeInBedEnd must be after timeInBedStart");
+            }
+            long minutes = Duration.between(timeInBedStart, timeInBedEnd).toMinutes();
+            if (minutes < 1 || minutes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("time in bed must be at least one minute");
+            }
+
+            return UuidV7.randomUuid() + "," + userId + "," + sleepDate + "," + timeInBedStart + "," + timeInBedEnd +
+                    "," + minutes + "," + morningFeeling.name() + "," + lineNumber + "\n";
+        } catch (IllegalArgumentException | DateTimeException | JsonProcessingException ex) {
+            reject(ex.getMessage());
+            return null;
+        }
+    }
+
+    private String[] csvFields(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("expected 5 columns but found " + fields.length);
+        }
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = fields[i].trim();
+        }
+        return fields;
+    }
+
+    private String[] jsonFields(String line) throws JsonProcessingException {
+        JsonNode node = objectMapper.readTree(line);
+        return new String[]{
+                requiredText(node, "userId"),
+                requiredText(node, "sleepDate"),
+                requiredText(node, "timeInBedStart"),
+                requiredText(node, "timeInBedEnd"),
+                requiredText(node, "morningFeeling")
+        };
+    }
+
+    private static String requiredText(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || !value.isTextual()) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        return value.asText();
+    }
+
+    private void reject(String reason) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add("line " + lineNumber + ": " + reason);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.model.ImportFormat;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogImportResponse;
+
+import java.io.InputStream;
+
+public interface SleepLogImportService {
+    /**
+     * Streams sleep entries of any number of users into sleep_entry. The input is processed in chunks, each one
+     * merged in its own transaction and logged with the running totals, and nights that are already logged are skipped.
+     * @param input UTF-8 encoded import file, not closed by this method
+     * @param format format of the file
+     * @return the totals of the whole import
+     */
+    SleepLogImportResponse importLogs(InputStream input, ImportFormat format);
+}
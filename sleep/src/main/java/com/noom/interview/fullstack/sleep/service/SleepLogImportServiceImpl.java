@@ -0,0 +1,121 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.noom.interview.fullstack.sleep.cache.AveragesCache;
+import com.noom.interview.fullstack.sleep.cache.TodayLogCache;
+import com.noom.interview.fullstack.sleep.db.RecentWrites;
+import com.noom.interview.fullstack.sleep.model.ImportFormat;
+import com.noom.interview.fullstack.sleep.repository.SleepEntryImportRepository;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogImportResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SleepLogImportServiceImpl implements SleepLogImportService {
+
+    private final SleepEntryImportRepository sleepEntryImportRepository;
+    private final SleepAggregateService sleepAggregateService;
+    private final AveragesCache averagesCache;
+    private final TodayLogCache todayLogCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final RecentWrites recentWrites;
+
+    @Value("${sleep.import.chunk-size:50000}")
+    private int chunkSize = 50_000;
+
+    @Override
+    public SleepLogImportResponse importLogs(InputStream input, ImportFormat format) {
+        SleepLogImportReader reader = new SleepLogImportReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), format, objectMapper);
+
+        int chunks = 0;
+        long staged = 0;
+        long created = 0;
+        try {
+            while (reader.hasNext()) {
+                Iterator<String> chunk = limit(reader, chunkSize);
+                long[] chunkResult = transactionTemplate.execute(status -> {
+                    sleepEntryImportRepository.createStagingTable();
+                    long copied = sleepEntryImportRepository.copyIntoStaging(chunk);
+                    return new long[]{copied, sleepEntryImportRepository.mergeStaging()};
+                });
+                chunks++;
+                staged += chunkResult[0];
+                created += chunkResult[1];
+
+                log.info("Imported chunk {}: {} rows read, {} created, {} skipped, {} rejected",
+                        chunks, reader.getRowsRead(), created, staged - created, reader.getRejected());
+            }
+        } catch (RuntimeException ex) {
+            // The chunks merged so far are committed, so the aggregates and caches must include them anyway
+            if (created > 0) {
+                log.warn("Import failed after {} chunks, refreshing the aggregates for the {} rows created", chunks, created);
+                try {
+                    refreshReadModels();
+                } catch (RuntimeException refreshFailure) {
+                    ex.addSuppressed(refreshFailure);
+                }
+            }
+            throw ex;
+        }
+
+        if (created > 0) {
+            refreshReadModels();
+        }
+        return toResponse(chunks, staged, created, reader);
+    }
+
+    private void refreshReadModels() {
+        sleepAggregateService.rebuildAll();
+        recentWrites.recordBulkWrite();
+        averagesCache.invalidateAll();
+        todayLogCache.invalidateAll();
+    }
+
+    private static SleepLogImportResponse toResponse(int chunks, long staged, long created, SleepLogImportReader reader) {
+        return SleepLogImportResponse.builder()
+                .chunks(chunks)
+                .rowsRead(reader.getRowsRead())
+                .created(created)
+                .skipped(staged - created)
+                .rejected(reader.getRejected())
+                .errors(reader.getErrors())
+                .build();
+    }
+
+    /**
+     * View of the next {@code size} rows of the reader
+     */
+    private static Iterator<String> limit(Iterator<String> rows, int size) {
+        return new Iterator<>() {
+            private int remaining = size;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0 && rows.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                remaining--;
+                return rows.next();
+            }
+        };
+    }
+}
@@ -1,9 +1,14 @@
 package com.noom.interview.fullstack.sleep.service;
 
+import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogBatchRequest;
 import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogRequest;
 import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogBatchResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogHistoryResponse;
 import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
 
+import java.time.LocalDate;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface SleepLogService {
@@ -12,5 +17,40 @@ public interface SleepLogService {
     SleepLogResponse getLastNightLog(UUID userId);
 
     SleepLogAveragesResponse getLast30DayAverages(UUID userId);
+
+    /**
+     * Returns a version of the data the last 30-day averages of the user are computed from, without computing them.
+     * It changes when the UTC day rolls over and whenever the user's entries are written.
+     * @param userId user identifier
+     * @return the version, or empty when the user never logged a night
+     */
+    Optional<String> getLast30DayAveragesVersion(UUID userId);
+
+    /**
+     * Computes the averages of the user's sleep logs dated in [from, to]
+     * @param userId user identifier
+     * @param from first sleep date of the range (inclusive)
+     * @param to last sleep date of the range (inclusive)
+     * @return the averages of the range
+     */
+    SleepLogAveragesResponse getAverages(UUID userId, LocalDate from, LocalDate to);
+
+    /**
+     * Creates sleep logs for explicit sleep dates. Invalid entries, entries repeating a sleep date of the batch and
+     * entries for nights the user already logged are skipped and reported, the others are created.
+     * @param userId user identifier
+     * @param request entries to create
+     * @return the status of each entry, in request order
+     */
+    SleepLogBatchResponse createLogs(UUID userId, CreateSleepLogBatchRequest request);
+
+    /**
+     * Returns a page of the user's past sleep logs, newest first
+     * @param userId user identifier
+     * @param before only sleep logs dated strictly before this date are returned, null to start from the latest one
+     * @param limit maximum number of sleep logs, between 1 and 365
+     * @return the page and the {@code before} value of the next page
+     */
+    SleepLogHistoryResponse getHistory(UUID userId, LocalDate before, int limit);
 }
 
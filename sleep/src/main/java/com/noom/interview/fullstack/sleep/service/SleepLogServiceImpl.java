@@ -1,37 +1,63 @@
 package com.noom.interview.fullstack.sleep.service;
 
+import com.noom.interview.fullstack.sleep.cache.KnownUserCache;
 import com.noom.interview.fullstack.sleep.entity.AppUserEntity;
 import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
 import com.noom.interview.fullstack.sleep.exception.SleepLogAlreadyExistsException;
 import com.noom.interview.fullstack.sleep.exception.ValidationException;
 import com.noom.interview.fullstack.sleep.mapper.SleepEntryMapper;
-import com.noom.interview.fullstack.sleep.repository.AppUserRepository;
+import com.noom.interview.fullstack.sleep.metrics.MetricsConfiguration;
+import com.noom.interview.fullstack.sleep.model.SleepLogTotals;
 import com.noom.interview.fullstack.sleep.repository.SleepEntityRepository;
+import com.noom.interview.fullstack.sleep.repository.SleepEntryBatchRepository;
+import com.noom.interview.fullstack.sleep.repository.SleepEntryBatchRepository.InsertResult;
+import com.noom.interview.fullstack.sleep.repository.SleepTotalsProjection;
+import com.noom.interview.fullstack.sleep.utils.UuidV7;
+import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogBatchRequest;
 import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogRequest;
+import com.noom.interview.fullstack.sleep.web.requests.SleepLogBatchEntry;
 import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogBatchResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogHistoryResponse;
 import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.CollectionUtils;
 
 import javax.persistence.EntityNotFoundException;
+import javax.validation.Validator;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class SleepLogServiceImpl implements SleepLogService {
-    private final AppUserRepository appUserRepository;
+    static final int MAX_HISTORY_PAGE_SIZE = 365;
+    static final Duration MAX_TIME_IN_BED = Duration.ofHours(24);
+
     private final SleepEntityRepository sleepEntityRepository;
     private final SleepEntryMapper sleepEntryMapper;
     private final SleepLogCalculatorService sleepLogCalculatorService;
+    private final SleepAggregateService sleepAggregateService;
+    private final SleepEntryBatchRepository sleepEntryBatchRepository;
+    private final Validator validator;
+    private final KnownUserCache knownUserCache;
+
+    @Value("${sleep.averages.source:AGGREGATE}")
+    private AveragesSource averagesSource = AveragesSource.AGGREGATE;
 
     @Override
     @Transactional
+    @Timed(MetricsConfiguration.SERVICE_TIMER)
     public SleepLogResponse createLastNightLog(UUID userId, CreateSleepLogRequest request) {
         if (!request.getTimeInBedEnd().isAfter(request.getTimeInBedStart())) {
             throw new ValidationException("timeInBedEnd must be after timeInBedStart");
@@ -43,29 +69,58 @@ public class SleepLogServiceImpl implements SleepLogService {
 
         LocalDate sleepDate = LocalDate.now(ZoneOffset.UTC);
 
-        AppUserEntity user = appUserRepository.findById(userId)
-                .orElseGet(() -> appUserRepository.save(AppUserEntity.builder().id(userId).build()));
-
-        boolean alreadyExists = sleepEntityRepository
-                .findByUserIdAndSleepDate(user.getId(), sleepDate)
-                .isPresent();
-        if (alreadyExists) {
-            throw new SleepLogAlreadyExistsException();
-        }
-
         var entity = sleepEntryMapper.toNewEntity(
                 request,
-                user,
+                AppUserEntity.builder().id(userId).build(),
                 sleepDate,
                 totalMinutes
         );
 
-        var saved = sleepEntityRepository.save(entity);
+        if (!insert(userId, entity)) {
+            // The conflicting entry is committed, so its user exists whatever happens to this transaction
+            knownUserCache.add(userId);
+            throw new SleepLogAlreadyExistsException();
+        }
+        addKnownUserAfterCommit(userId);
+        sleepAggregateService.recordEntry(entity);
 
-        return sleepEntryMapper.toResponse(saved);
+        return sleepEntryMapper.toResponse(entity);
+    }
+
+    /**
+     * Known users skip the app_user upsert. When the user row is missing, the user was deleted since it was cached, so
+     * it is forgotten and the entry is inserted with the statement creating the user.
+     */
+    private boolean insert(UUID userId, SleepEntryEntity entity) {
+        if (knownUserCache.contains(userId)) {
+            InsertResult result = sleepEntryBatchRepository.insertIfAbsentForExistingUser(entity);
+            if (result != InsertResult.USER_MISSING) {
+                return result == InsertResult.INSERTED;
+            }
+            knownUserCache.invalidate(userId);
+        }
+        return sleepEntryBatchRepository.insertIfAbsent(entity);
+    }
+
+    /**
+     * The user row may have been inserted by the current transaction, so the user is only known to exist once it
+     * commits. Without a transaction the user is added right away.
+     */
+    private void addKnownUserAfterCommit(UUID userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            knownUserCache.add(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                knownUserCache.add(userId);
+            }
+        });
     }
 
     @Override
+    @Timed(MetricsConfiguration.SERVICE_TIMER)
     public SleepLogResponse getLastNightLog(UUID userId) {
         LocalDate sleepDate = LocalDate.now(ZoneOffset.UTC);
 
@@ -80,22 +135,186 @@ public class SleepLogServiceImpl implements SleepLogService {
 
     @Override
     @Transactional(readOnly = true)
+    @Timed(MetricsConfiguration.SERVICE_TIMER)
     public SleepLogAveragesResponse getLast30DayAverages(UUID userId) {
         LocalDate today = LocalDate.now(ZoneOffset.UTC);
-        LocalDate thirtyDaysAgo = today.minusDays(30);
-        List<SleepEntryEntity> sleepEntries = sleepEntityRepository.findByUserIdAndSleepDateBetween(userId, thirtyDaysAgo, today);
-        if (CollectionUtils.isEmpty(sleepEntries)) {
-            throw new EntityNotFoundException("No sleep logs found for user in the last 30 days");
-        }
-
-        return SleepLogAveragesResponse.builder()
-                .rangeStart(thirtyDaysAgo)
-                .rangeEnd(today)
-                .averageTimeInBedMinutes(sleepLogCalculatorService.calculateAverageTimeInBed(sleepEntries))
-                .averageTimeUserGetsInBed(sleepLogCalculatorService.calculateAverageTimeUserGetsInBed(sleepEntries))
-                .averageTimeUserGetsOutOfBed(sleepLogCalculatorService.calculateAverageTimeUserGetsOutOfBed(sleepEntries))
-                .morningFeelingFrequencies(sleepLogCalculatorService.calculateMorningFrequencies(sleepEntries))
+        return getAverages(userId, today.minusDays(30), today);
+    }
+
+    /**
+     * The window end date and the last write of the rolling aggregate, which every write path updates
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @Timed(MetricsConfiguration.SERVICE_TIMER)
+    public Optional<String> getLast30DayAveragesVersion(UUID userId) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        return sleepAggregateService.findLastUpdate(userId)
+                .map(updatedAt -> today.toEpochDay() + "-" + Long.toHexString(
+                        updatedAt.getEpochSecond() * 1_000_000 + updatedAt.getNano() / 1_000));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Timed(MetricsConfiguration.SERVICE_TIMER)
+    public SleepLogAveragesResponse getAverages(UUID userId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new ValidationException("from must not be after to");
+        }
+
+        if (averagesSource == AveragesSource.ENTRIES) {
+            List<SleepEntryEntity> sleepEntries = sleepEntityRepository.findByUserIdAndSleepDateBetween(userId, from, to);
+            if (CollectionUtils.isEmpty(sleepEntries)) {
+                throw noSleepLogsFound(from, to);
+            }
+            return sleepLogCalculatorService.calculateStatistics(sleepEntries).toAveragesResponse(from, to);
+        }
+
+        SleepLogTotals totals = findTotals(userId, from, to);
+        if (totals.isEmpty()) {
+            throw noSleepLogsFound(from, to);
+        }
+        return sleepLogCalculatorService.calculateStatistics(totals).toAveragesResponse(from, to);
+    }
+
+    private SleepLogTotals findTotals(UUID userId, LocalDate from, LocalDate to) {
+        if (averagesSource == AveragesSource.SQL) {
+            return sleepEntityRepository.aggregateByUserIdAndSleepDateBetween(userId, from, to)
+                    .map(SleepTotalsProjection::toTotals)
+                    .orElse(SleepLogTotals.EMPTY);
+        }
+        if (averagesSource == AveragesSource.AGGREGATE) {
+            Optional<SleepLogTotals> windowTotals = sleepAggregateService.findWindowTotals(userId, from, to);
+            if (windowTotals.isPresent()) {
+                return windowTotals.get();
+            }
+        }
+        return sleepAggregateService.findRangeTotals(userId, from, to);
+    }
+
+    private static EntityNotFoundException noSleepLogsFound(LocalDate from, LocalDate to) {
+        return new EntityNotFoundException("No sleep logs found for user between " + from + " and " + to);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Timed(MetricsConfiguration.SERVICE_TIMER)
+    public SleepLogHistoryResponse getHistory(UUID userId, LocalDate before, int limit) {
+        if (limit < 1 || limit > MAX_HISTORY_PAGE_SIZE) {
+            throw new ValidationException("limit must be between 1 and " + MAX_HISTORY_PAGE_SIZE);
+        }
+        LocalDate seek = before != null ? before : LocalDate.now(ZoneOffset.UTC).plusDays(1);
+
+        List<SleepLogResponse> items = sleepEntityRepository.findHistoryPage(userId, seek, PageRequest.ofSize(limit + 1));
+        boolean hasMore = items.size() > limit;
+        if (hasMore) {
+            items = items.subList(0, limit);
+        }
+
+        return SleepLogHistoryResponse.builder()
+                .items(items)
+                .nextBefore(hasMore ? items.get(limit - 1).getSleepDate() : null)
                 .build();
+    }
 
+    @Override
+    @Transactional
+    @Timed(MetricsConfiguration.SERVICE_TIMER)
+    public SleepLogBatchResponse createLogs(UUID userId, CreateSleepLogBatchRequest request) {
+        List<SleepLogBatchEntry> entries = request.getEntries();
+        SleepLogBatchResponse.ItemStatus[] statuses = new SleepLogBatchResponse.ItemStatus[entries.size()];
+        Map<Integer, List<String>> errors = new HashMap<>();
+        Map<LocalDate, Integer> indexBySleepDate = new HashMap<>();
+        List<SleepEntryEntity> toInsert = new ArrayList<>(entries.size());
+        AppUserEntity user = AppUserEntity.builder().id(userId).build();
+
+        for (int i = 0; i < entries.size(); i++) {
+            SleepLogBatchEntry entry = entries.get(i);
+            List<String> violations = validate(entry);
+            if (!violations.isEmpty()) {
+                statuses[i] = SleepLogBatchResponse.ItemStatus.INVALID;
+                errors.put(i, violations);
+            } else if (indexBySleepDate.putIfAbsent(entry.getSleepDate(), i) != null) {
+                statuses[i] = SleepLogBatchResponse.ItemStatus.DUPLICATE_IN_BATCH;
+            } else {
+                toInsert.add(SleepEntryEntity.builder()
+                        .id(UuidV7.randomUuid())
+                        .user(user)
+                        .sleepDate(entry.getSleepDate())
+                        .timeInBedStart(entry.getTimeInBedStart())
+                        .timeInBedEnd(entry.getTimeInBedEnd())
+                        .totalTimeInBedMinutes(Math.toIntExact(
+                                Duration.between(entry.getTimeInBedStart(), entry.getTimeInBedEnd()).toMinutes()))
+                        .morningFeeling(entry.getMorningFeeling())
+                        .build());
+            }
+        }
+
+        Map<LocalDate, UUID> inserted = Map.of();
+        if (!toInsert.isEmpty()) {
+            sleepEntryBatchRepository.insertUserIfMissing(userId);
+            addKnownUserAfterCommit(userId);
+            inserted = sleepEntryBatchRepository.insertIgnoringConflicts(toInsert);
+            if (!inserted.isEmpty()) {
+                sleepAggregateService.recordEntries(userId, Collections.min(inserted.keySet()));
+            }
+        }
+
+        List<SleepLogBatchResponse.ItemResult> items = new ArrayList<>(entries.size());
+        int created = 0;
+        int alreadyExisting = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            // A null entry is INVALID and has no sleep date to report
+            LocalDate sleepDate = entries.get(i) != null ? entries.get(i).getSleepDate() : null;
+            UUID id = null;
+            if (statuses[i] == null) {
+                id = inserted.get(sleepDate);
+                statuses[i] = id != null ? SleepLogBatchResponse.ItemStatus.CREATED : SleepLogBatchResponse.ItemStatus.ALREADY_EXISTS;
+            }
+            if (statuses[i] == SleepLogBatchResponse.ItemStatus.CREATED) {
+                created++;
+            } else if (statuses[i] == SleepLogBatchResponse.ItemStatus.ALREADY_EXISTS) {
+                alreadyExisting++;
+            }
+            items.add(SleepLogBatchResponse.ItemResult.builder()
+                    .index(i)
+                    .sleepDate(sleepDate)
+                    .status(statuses[i])
+                    .id(id)
+                    .errors(errors.get(i))
+                    .build());
+        }
+
+        return SleepLogBatchResponse.builder()
+                .created(created)
+                .alreadyExisting(alreadyExisting)
+                .rejected(entries.size() - created - alreadyExisting)
+                .items(items)
+                .build();
+    }
+
+    private List<String> validate(SleepLogBatchEntry entry) {
+        if (entry == null) {
+            return List.of("entry must not be null");
+        }
+        List<String> violations = validator.validate(entry).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (violations.isEmpty()) {
+            if (!entry.getTimeInBedEnd().isAfter(entry.getTimeInBedStart())) {
+                violations.add("timeInBedEnd must be after timeInBedStart");
+            } else if (Duration.between(entry.getTimeInBedStart(), entry.getTimeInBedEnd()).toMinutes() < 1) {
+                violations.add("time in bed must be at least one minute");
+            } else if (Duration.between(entry.getTimeInBedStart(), entry.getTimeInBedEnd()).compareTo(MAX_TIME_IN_BED) > 0) {
+                violations.add("time in bed must be at most " + MAX_TIME_IN_BED.toHours() + " hours");
+            }
+            // The night belongs to the UTC date of the wake time, as for the last night's log. With timeInBedEnd not
+            // in the future, this also keeps the sleep date from being after today (UTC).
+            if (!LocalDate.ofInstant(entry.getTimeInBedEnd(), ZoneOffset.UTC).equals(entry.getSleepDate())) {
+                violations.add("timeInBedEnd must fall on sleepDate (UTC)");
+            }
+        }
+        return violations;
     }
 }
@@ -1,7 +0,0 @@
-package com.noom.interview.fullstack.sleep.service;
-
-import java.util.UUID;
-
-public interface UserService {
-    UUID getCurrentUserId();
-}
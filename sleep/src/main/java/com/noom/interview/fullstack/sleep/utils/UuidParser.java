@@ -0,0 +1,59 @@
+package com.noom.interview.fullstack.sleep.utils;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Parses the canonical 36-character form of a UUID ({@code 8-4-4-4-12} hex digits, either case) without throwing, so
+ * malformed input costs no exception and stack trace. Unlike {@link UUID#fromString}, the shortened forms with fewer
+ * digits per group are rejected.
+ */
+public final class UuidParser {
+    private static final int LENGTH = 36;
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            HEX_VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private UuidParser() {
+    }
+
+    /**
+     * @return the UUID, or null when the value is null or not a canonical UUID
+     */
+    public static UUID parseOrNull(CharSequence value) {
+        if (value == null || value.length() != LENGTH
+                || value.charAt(8) != '-' || value.charAt(13) != '-'
+                || value.charAt(18) != '-' || value.charAt(23) != '-') {
+            return null;
+        }
+        long mostSignificantBits = 0;
+        long leastSignificantBits = 0;
+        int digits = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                continue;
+            }
+            char c = value.charAt(i);
+            int digit = c < HEX_VALUES.length ? HEX_VALUES[c] : -1;
+            if (digit < 0) {
+                return null;
+            }
+            if (digits < 16) {
+                mostSignificantBits = mostSignificantBits << 4 | digit;
+            } else {
+                leastSignificantBits = leastSignificantBits << 4 | digit;
+            }
+            digits++;
+        }
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+}
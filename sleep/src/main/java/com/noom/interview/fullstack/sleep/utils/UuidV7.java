@@ -0,0 +1,59 @@
+package com.noom.interview.fullstack.sleep.utils;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered UUID version 7 (RFC 9562): 48 bits of Unix milliseconds, a 12-bit counter and 62 random bits. Ids of
+ * the same process are strictly increasing, also within a millisecond and if the clock goes back, so new rows are
+ * appended at the right edge of the primary key index instead of at random pages.
+ * <p>
+ * The random bits come from {@link ThreadLocalRandom}: ids are unique but not secret.
+ */
+public final class UuidV7 {
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final long RANDOM_LSB_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+    private static final int COUNTER_BITS = 12;
+
+    private static final UuidV7 INSTANCE = new UuidV7();
+
+    /**
+     * Last timestamp and counter handed out, as {@code millis << 12 | counter}
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    UuidV7() {
+    }
+
+    public static UUID randomUuid() {
+        return INSTANCE.next(System.currentTimeMillis());
+    }
+
+    UUID next(long nowMillis) {
+        long previous;
+        long next;
+        do {
+            previous = last.get();
+            if (nowMillis > previous >>> COUNTER_BITS) {
+                // Start the counter in its lower half, leaving room for the ids of the same millisecond
+                next = nowMillis << COUNTER_BITS | ThreadLocalRandom.current().nextInt(1 << (COUNTER_BITS - 1));
+            } else {
+                // Same millisecond or clock moved back: a counter overflow carries into the timestamp
+                next = previous + 1;
+            }
+        } while (!last.compareAndSet(previous, next));
+
+        long msb = (next >>> COUNTER_BITS) << 16 | VERSION | (next & ((1 << COUNTER_BITS) - 1));
+        long lsb = VARIANT | (ThreadLocalRandom.current().nextLong() & RANDOM_LSB_MASK);
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * @return Unix milliseconds stored in a version 7 id
+     */
+    public static long timestampMillis(UUID uuid) {
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+}
@@ -0,0 +1,120 @@
+package com.noom.interview.fullstack.sleep.web.controller;
+
+import com.noom.interview.fullstack.sleep.cache.AveragesCache;
+import com.noom.interview.fullstack.sleep.cache.CacheStatistics;
+import com.noom.interview.fullstack.sleep.cache.KnownUserCache;
+import com.noom.interview.fullstack.sleep.cache.TodayLogCache;
+import com.noom.interview.fullstack.sleep.db.PoolStatistics;
+import com.noom.interview.fullstack.sleep.model.ImportFormat;
+import com.noom.interview.fullstack.sleep.service.SleepAnalyticsService;
+import com.noom.interview.fullstack.sleep.service.SleepLogImportService;
+import com.noom.interview.fullstack.sleep.web.responses.SleepAnalyticsResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogImportResponse;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+public class AdminController {
+    private final AveragesCache averagesCache;
+    private final TodayLogCache todayLogCache;
+    private final KnownUserCache knownUserCache;
+    private final SleepLogImportService sleepLogImportService;
+    private final SleepAnalyticsService sleepAnalyticsService;
+    private final ObjectProvider<HikariDataSource> connectionPools;
+
+    @GetMapping("/caches")
+    @Operation(
+            summary = "Get cache statistics",
+            description = "Returns hit, miss and eviction counters, the current size and, when tracked, the memory " +
+                    "used by each cache."
+    )
+    @ApiResponse(responseCode = "200", description = "Cache statistics returned")
+    public Map<String, CacheStatistics> getCacheStatistics() {
+        Map<String, CacheStatistics> statistics = new LinkedHashMap<>();
+        statistics.put("averages", averagesCache.stats());
+        statistics.put("todayLog", todayLogCache.stats());
+        statistics.put("knownUsers", knownUserCache.stats());
+        return statistics;
+    }
+
+    @GetMapping("/pools")
+    @Operation(
+            summary = "Get connection pool statistics",
+            description = "Returns the active, idle and total connections and the threads waiting for a connection of " +
+                    "each database connection pool, by pool name."
+    )
+    @ApiResponse(responseCode = "200", description = "Pool statistics returned")
+    public Map<String, PoolStatistics> getPoolStatistics() {
+        Map<String, PoolStatistics> statistics = new LinkedHashMap<>();
+        connectionPools.orderedStream().forEach(pool -> {
+            HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+            if (bean != null) {
+                statistics.put(pool.getPoolName(), PoolStatistics.builder()
+                        .activeConnections(bean.getActiveConnections())
+                        .idleConnections(bean.getIdleConnections())
+                        .totalConnections(bean.getTotalConnections())
+                        .maximumPoolSize(pool.getMaximumPoolSize())
+                        .threadsAwaitingConnection(bean.getThreadsAwaitingConnection())
+                        .build());
+            }
+        });
+        return statistics;
+    }
+
+    @PostMapping(
+            value = "/imports/sleep-logs",
+            consumes = {"text/csv", "application/x-ndjson", MediaType.APPLICATION_OCTET_STREAM_VALUE}
+    )
+    @Operation(
+            summary = "Import sleep logs",
+            description = "Streams a CSV or NDJSON file of sleep entries of any number of users into the database. " +
+                    "Nights that are already logged are skipped and invalid lines are reported."
+    )
+    @ApiResponse(responseCode = "200", description = "Import completed",
+            content = @Content(schema = @Schema(implementation = SleepLogImportResponse.class)))
+    @ApiResponse(responseCode = "400", description = "Unknown format", content = @Content)
+    public SleepLogImportResponse importSleepLogs(
+            @Parameter(description = "Format of the request body")
+            @RequestParam(defaultValue = "CSV") ImportFormat format,
+            InputStream body
+    ) {
+        return sleepLogImportService.importLogs(body, format);
+    }
+
+    @GetMapping("/analytics/sleep")
+    @Operation(
+            summary = "Get sleep statistics of all users",
+            description = "Computes the average time in bed and the morning feeling frequencies of all users over a range " +
+                    "of sleep dates (inclusive, UTC), for the whole range and for each sleep date."
+    )
+    @ApiResponse(responseCode = "200", description = "Statistics returned",
+            content = @Content(schema = @Schema(implementation = SleepAnalyticsResponse.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid range", content = @Content)
+    public SleepAnalyticsResponse getSleepAnalytics(
+            @Parameter(description = "First sleep date of the range (inclusive)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last sleep date of the range (inclusive)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return sleepAnalyticsService.getDailyStatistics(from, to);
+    }
+}
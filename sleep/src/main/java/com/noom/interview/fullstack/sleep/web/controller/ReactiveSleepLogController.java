@@ -0,0 +1,51 @@
+package com.noom.interview.fullstack.sleep.web.controller;
+
+import com.noom.interview.fullstack.sleep.service.ReactiveSleepLogService;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Read endpoints of the reactive profile, with the same paths and responses as {@link SleepLogController}
+ */
+@RestController
+@RequestMapping("/sleep-log")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveSleepLogController {
+    private static final String USER_HEADER = "X-User-Id";
+
+    private final ReactiveSleepLogService reactiveSleepLogService;
+
+    @GetMapping
+    @Operation(summary = "Get last night's sleep log", description = "Returns today's sleep log for the current user.")
+    @ApiResponse(responseCode = "200", description = "Sleep log found",
+            content = @Content(schema = @Schema(implementation = SleepLogResponse.class)))
+    @ApiResponse(responseCode = "404", description = "Sleep log not found")
+    @ApiResponse(responseCode = "400", description = "Missing or invalid X-User-Id header")
+    public Mono<SleepLogResponse> getLastNightSleepLog(@RequestHeader(USER_HEADER) UUID userId) {
+        return reactiveSleepLogService.getLastNightLog(userId);
+    }
+
+    @GetMapping("/averages/last-30-days")
+    @Operation(summary = "Get last 30-day averages",
+            description = "Returns averages for the last 30 days (inclusive) in UTC.")
+    @ApiResponse(responseCode = "200", description = "Averages returned",
+            content = @Content(schema = @Schema(implementation = SleepLogAveragesResponse.class)))
+    @ApiResponse(responseCode = "400", description = "Missing/invalid user header", content = @Content)
+    public Mono<SleepLogAveragesResponse> getLast30DayAverages(@RequestHeader(USER_HEADER) UUID userId) {
+        return reactiveSleepLogService.getLast30DayAverages(userId);
+    }
+}
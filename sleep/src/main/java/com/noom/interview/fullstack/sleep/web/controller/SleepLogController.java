@@ -1,10 +1,15 @@
 package com.noom.interview.fullstack.sleep.web.controller;
 
+import com.noom.interview.fullstack.sleep.service.SleepLogExportService;
 import com.noom.interview.fullstack.sleep.service.SleepLogService;
-import com.noom.interview.fullstack.sleep.service.UserService;
+import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogBatchRequest;
 import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogRequest;
 import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogBatchResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogHistoryResponse;
 import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import com.noom.interview.fullstack.sleep.web.support.ConditionalResponses;
+import com.noom.interview.fullstack.sleep.web.support.CurrentUser;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
@@ -12,18 +17,31 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.time.LocalDate;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/sleep-log")
 @RequiredArgsConstructor
 public class SleepLogController {
-    private final UserService userService;
+    static final String NDJSON_VALUE = "application/x-ndjson";
+
     private final SleepLogService sleepLogService;
+    private final SleepLogExportService sleepLogExportService;
+    private final ConditionalResponses conditionalResponses;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -45,16 +63,43 @@ public class SleepLogController {
     @ApiResponse(responseCode = "400", description = "Invalid request (missing header, null fields, or invalid interval)",
             content = @Content)
     public SleepLogResponse createSleepLog(
+            @CurrentUser UUID userId,
             @Valid @RequestBody CreateSleepLogRequest request
     ) {
-        UUID userId = userService.getCurrentUserId();
         return sleepLogService.createLastNightLog(userId, request);
     }
 
+    @PostMapping("/batch")
+    @Operation(
+            summary = "Create sleep logs in bulk",
+            description = "Creates sleep logs for explicit sleep dates for the current user. Each entry is reported " +
+                    "as created, already existing, duplicated within the batch, or invalid.",
+            parameters = {
+                    @Parameter(
+                            name = "X-User-Id",
+                            in = ParameterIn.HEADER,
+                            required = true,
+                            description = "User identifier (UUID)",
+                            schema = @Schema(type = "string", format = "uuid")
+                    )
+            }
+    )
+    @ApiResponse(responseCode = "200", description = "Batch processed, see the status of each entry",
+            content = @Content(schema = @Schema(implementation = SleepLogBatchResponse.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid request (missing header, no entries, or too many entries)",
+            content = @Content)
+    public SleepLogBatchResponse createSleepLogs(
+            @CurrentUser UUID userId,
+            @Valid @RequestBody CreateSleepLogBatchRequest request
+    ) {
+        return sleepLogService.createLogs(userId, request);
+    }
+
     @GetMapping
     @Operation(
             summary = "Get last night's sleep log",
-            description = "Returns today's sleep log for the current user.",
+            description = "Returns today's sleep log for the current user. Send the returned ETag in If-None-Match " +
+                    "to get a 304 while the sleep log is unchanged.",
             parameters = {
                     @Parameter(
                             name = "X-User-Id",
@@ -67,17 +112,102 @@ public class SleepLogController {
     )
     @ApiResponse(responseCode = "200", description = "Sleep log found",
             content = @Content(schema = @Schema(implementation = SleepLogResponse.class)))
+    @ApiResponse(responseCode = "304", description = "Sleep log unchanged since the ETag in If-None-Match", content = @Content)
     @ApiResponse(responseCode = "404", description = "Sleep log not found")
     @ApiResponse(responseCode = "400", description = "Missing or invalid X-User-Id header")
-    public SleepLogResponse getLastNightSleepLog() {
-        UUID userId = userService.getCurrentUserId();
-        return sleepLogService.getLastNightLog(userId);
+    public ResponseEntity<SleepLogResponse> getLastNightSleepLog(@CurrentUser UUID userId, HttpServletRequest request) {
+        SleepLogResponse log = sleepLogService.getLastNightLog(userId);
+        // entries are never updated, so the id identifies the content
+        return conditionalResponses.respond(request, "log-" + log.getId(), () -> log);
+    }
+
+    @GetMapping("/history")
+    @Operation(
+            summary = "Get sleep history",
+            description = "Returns a page of past sleep logs of the current user, newest first. Pass the returned " +
+                    "nextBefore as before to get the next page.",
+            parameters = {
+                    @Parameter(
+                            name = "X-User-Id",
+                            in = ParameterIn.HEADER,
+                            required = true,
+                            description = "User identifier (UUID)",
+                            schema = @Schema(type = "string", format = "uuid")
+                    )
+            }
+    )
+    @ApiResponse(responseCode = "200", description = "Sleep history page returned",
+            content = @Content(schema = @Schema(implementation = SleepLogHistoryResponse.class)))
+    @ApiResponse(responseCode = "400", description = "Missing/invalid user header, invalid date or limit", content = @Content)
+    public SleepLogHistoryResponse getSleepHistory(
+            @CurrentUser UUID userId,
+            @Parameter(description = "Only sleep logs dated strictly before this date (UTC) are returned")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            @Parameter(description = "Maximum number of sleep logs, between 1 and 365")
+            @RequestParam(defaultValue = "30") int limit
+    ) {
+        return sleepLogService.getHistory(userId, before, limit);
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON_VALUE)
+    @Operation(
+            summary = "Export sleep history",
+            description = "Streams all sleep logs of the current user as NDJSON, one sleep log per line, oldest first.",
+            parameters = {
+                    @Parameter(
+                            name = "X-User-Id",
+                            in = ParameterIn.HEADER,
+                            required = true,
+                            description = "User identifier (UUID)",
+                            schema = @Schema(type = "string", format = "uuid")
+                    )
+            }
+    )
+    @ApiResponse(responseCode = "200", description = "Sleep history streamed",
+            content = @Content(mediaType = NDJSON_VALUE, schema = @Schema(implementation = SleepLogResponse.class)))
+    @ApiResponse(responseCode = "400", description = "Missing or invalid X-User-Id header", content = @Content)
+    public ResponseEntity<StreamingResponseBody> exportSleepLogs(@CurrentUser UUID userId) {
+        StreamingResponseBody body = output -> sleepLogExportService.exportLogs(userId, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"sleep-log.ndjson\"")
+                .body(body);
+    }
+
+    @GetMapping("/averages")
+    @Operation(
+            summary = "Get averages of a date range",
+            description = "Returns averages of the sleep logs dated between from and to (inclusive, UTC).",
+            parameters = {
+                    @Parameter(
+                            name = "X-User-Id",
+                            in = ParameterIn.HEADER,
+                            required = true,
+                            description = "User identifier (UUID)",
+                            schema = @Schema(type = "string", format = "uuid")
+                    )
+            }
+    )
+    @ApiResponse(responseCode = "200", description = "Averages returned",
+            content = @Content(schema = @Schema(implementation = SleepLogAveragesResponse.class)))
+    @ApiResponse(responseCode = "400", description = "Missing/invalid user header or invalid range", content = @Content)
+    @ApiResponse(responseCode = "404", description = "No sleep logs in the range", content = @Content)
+    public SleepLogAveragesResponse getAverages(
+            @CurrentUser UUID userId,
+            @Parameter(description = "First sleep date of the range (inclusive)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last sleep date of the range (inclusive)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return sleepLogService.getAverages(userId, from, to);
     }
 
     @GetMapping("/averages/last-30-days")
     @Operation(
             summary = "Get last 30-day averages",
-            description = "Returns averages for the last 30 days (inclusive) in UTC.",
+            description = "Returns averages for the last 30 days (inclusive) in UTC, the same as the averages of the " +
+                    "range from today - 30 days to today. Send the returned ETag in If-None-Match to get a 304, " +
+                    "without the averages being computed, while no sleep log was added and the day is the same.",
             parameters = {
                     @Parameter(
                             name = "X-User-Id",
@@ -90,9 +220,17 @@ public class SleepLogController {
     )
     @ApiResponse(responseCode = "200", description = "Averages returned",
             content = @Content(schema = @Schema(implementation = SleepLogAveragesResponse.class)))
+    @ApiResponse(responseCode = "304", description = "Averages unchanged since the ETag in If-None-Match", content = @Content)
     @ApiResponse(responseCode = "400", description = "Missing/invalid user header", content = @Content)
-    public SleepLogAveragesResponse getLast30DayAverages() {
-        UUID userId = userService.getCurrentUserId();
-        return sleepLogService.getLast30DayAverages(userId);
+    public ResponseEntity<SleepLogAveragesResponse> getLast30DayAverages(
+            @CurrentUser UUID userId,
+            HttpServletRequest request
+    ) {
+        Optional<String> version = sleepLogService.getLast30DayAveragesVersion(userId);
+        if (version.isEmpty()) {
+            return ResponseEntity.ok(sleepLogService.getLast30DayAverages(userId));
+        }
+        return conditionalResponses.respond(request, "averages-" + version.get(),
+                () -> sleepLogService.getLast30DayAverages(userId));
     }
 }
@@ -1,17 +1,22 @@
 package com.noom.interview.fullstack.sleep.web.exception;
 
 import com.noom.interview.fullstack.sleep.exception.SleepLogAlreadyExistsException;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Builder;
+import lombok.RequiredArgsConstructor;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingRequestHeaderException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import javax.persistence.EntityNotFoundException;
 import javax.servlet.http.HttpServletRequest;
@@ -20,8 +25,13 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Slf4j
+@RequiredArgsConstructor
 public class ApiExceptionHandler {
+    static final String ERRORS_METRIC = "sleep.api.errors";
+
+    private final MeterRegistry meterRegistry;
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiErrorResponse> handleValidation(
@@ -42,6 +52,7 @@ public class ApiExceptionHandler {
                 .violations(violations)
                 .build();
 
+        countError(HttpStatus.BAD_REQUEST, ex);
         return ResponseEntity.badRequest().body(body);
     }
 
@@ -57,6 +68,23 @@ public class ApiExceptionHandler {
                 .path(request.getRequestURI())
                 .build();
 
+        countError(HttpStatus.BAD_REQUEST, ex);
+        return ResponseEntity.badRequest().body(body);
+    }
+
+    @ExceptionHandler(MissingServletRequestParameterException.class)
+    public ResponseEntity<ApiErrorResponse> handleMissingParameter(
+            MissingServletRequestParameterException ex,
+            HttpServletRequest request
+    ) {
+        ApiErrorResponse body = ApiErrorResponse.builder()
+                .timestamp(Instant.now())
+                .status(HttpStatus.BAD_REQUEST.value())
+                .error("Missing parameter: " + ex.getParameterName())
+                .path(request.getRequestURI())
+                .build();
+
+        countError(HttpStatus.BAD_REQUEST, ex);
         return ResponseEntity.badRequest().body(body);
     }
 
@@ -72,6 +100,23 @@ public class ApiExceptionHandler {
                 .path(request.getRequestURI())
                 .build();
 
+        countError(HttpStatus.BAD_REQUEST, ex);
+        return ResponseEntity.badRequest().body(body);
+    }
+
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ApiErrorResponse> handleTypeMismatch(
+            MethodArgumentTypeMismatchException ex,
+            HttpServletRequest request
+    ) {
+        ApiErrorResponse body = ApiErrorResponse.builder()
+                .timestamp(Instant.now())
+                .status(HttpStatus.BAD_REQUEST.value())
+                .error("Invalid value for parameter: " + ex.getName())
+                .path(request.getRequestURI())
+                .build();
+
+        countError(HttpStatus.BAD_REQUEST, ex);
         return ResponseEntity.badRequest().body(body);
     }
 
@@ -82,6 +127,7 @@ public class ApiExceptionHandler {
                 .status(HttpStatus.BAD_REQUEST.value())
                 .error(ex.getMessage() != null ? ex.getMessage() : "Bad request")
                 .build();
+        countError(HttpStatus.BAD_REQUEST, ex);
         return ResponseEntity.badRequest().body(body);
     }
 
@@ -97,6 +143,7 @@ public class ApiExceptionHandler {
                 .path(request.getRequestURI())
                 .build();
 
+        countError(HttpStatus.NOT_FOUND, ex);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
     }
 
@@ -112,6 +159,7 @@ public class ApiExceptionHandler {
                 .path(request.getRequestURI())
                 .build();
 
+        countError(HttpStatus.CONFLICT, ex);
         return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
     }
 
@@ -129,9 +177,20 @@ public class ApiExceptionHandler {
                 .path(request.getRequestURI())
                 .build();
 
+        countError(HttpStatus.INTERNAL_SERVER_ERROR, ex);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(body);
     }
 
+    /**
+     * One counter per status and exception type, so a rise of 409s or 404s shows up apart from validation errors
+     */
+    private void countError(HttpStatus status, Exception ex) {
+        meterRegistry.counter(ERRORS_METRIC,
+                "status", String.valueOf(status.value()),
+                "exception", ex.getClass().getSimpleName()
+        ).increment();
+    }
+
     private ApiErrorResponse.Violation toViolation(FieldError fe) {
         return ApiErrorResponse.Violation.builder()
                 .field(fe.getField())
@@ -0,0 +1,58 @@
+package com.noom.interview.fullstack.sleep.web.exception;
+
+import com.noom.interview.fullstack.sleep.web.exception.ApiExceptionHandler.ApiErrorResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
+
+import javax.persistence.EntityNotFoundException;
+import java.time.Instant;
+
+/**
+ * Error responses of the reactive profile, in the same shape as the ones of {@link ApiExceptionHandler}
+ */
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveApiExceptionHandler {
+
+    private final MeterRegistry meterRegistry;
+
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ApiErrorResponse> handleBadInput(ServerWebInputException ex, ServerHttpRequest request) {
+        return error(HttpStatus.BAD_REQUEST, ex, ex.getReason() != null ? ex.getReason() : "Bad request", request);
+    }
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<ApiErrorResponse> handleNotFound(EntityNotFoundException ex, ServerHttpRequest request) {
+        return error(HttpStatus.NOT_FOUND, ex, ex.getMessage() != null ? ex.getMessage() : "Not found", request);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ApiErrorResponse> handleUnexpected(Exception ex, ServerHttpRequest request) {
+        log.error("Unexpected error", ex);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, ex, "Internal server error", request);
+    }
+
+    private ResponseEntity<ApiErrorResponse> error(HttpStatus status, Exception ex, String message, ServerHttpRequest request) {
+        meterRegistry.counter(ApiExceptionHandler.ERRORS_METRIC,
+                "status", String.valueOf(status.value()),
+                "exception", ex.getClass().getSimpleName()
+        ).increment();
+        ApiErrorResponse body = ApiErrorResponse.builder()
+                .timestamp(Instant.now())
+                .status(status.value())
+                .error(message)
+                .path(request.getPath().value())
+                .build();
+        return ResponseEntity.status(status).body(body);
+    }
+}
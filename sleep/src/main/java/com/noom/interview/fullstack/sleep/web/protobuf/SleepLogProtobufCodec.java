@@ -0,0 +1,177 @@
+package com.noom.interview.fullstack.sleep.web.protobuf;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.web.exception.ApiExceptionHandler.ApiErrorResponse;
+import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogRequest;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+
+/**
+ * Protocol buffers encoding of the sleep log DTOs, written and read field by field as described by
+ * {@code proto/sleep_log.proto}, without generated message classes or an intermediate object per message. Null values
+ * are left out; a missing field of a request is read as null, so bean validation rejects it as for JSON.
+ */
+final class SleepLogProtobufCodec {
+
+    private SleepLogProtobufCodec() {
+    }
+
+    static boolean canWrite(Class<?> type) {
+        return SleepLogResponse.class == type || SleepLogAveragesResponse.class == type || ApiErrorResponse.class == type;
+    }
+
+    static boolean canRead(Class<?> type) {
+        return CreateSleepLogRequest.class == type;
+    }
+
+    static void write(Object value, CodedOutputStream output) throws IOException {
+        if (value instanceof SleepLogResponse) {
+            writeSleepLog((SleepLogResponse) value, output);
+        } else if (value instanceof SleepLogAveragesResponse) {
+            writeAverages((SleepLogAveragesResponse) value, output);
+        } else if (value instanceof ApiErrorResponse) {
+            writeError((ApiErrorResponse) value, output);
+        } else {
+            throw new IllegalArgumentException("No protobuf encoding of " + value.getClass().getName());
+        }
+    }
+
+    static CreateSleepLogRequest readCreateSleepLogRequest(InputStream body) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(body);
+        CreateSleepLogRequest request = new CreateSleepLogRequest();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1:
+                    request.setTimeInBedStart(Instant.ofEpochMilli(input.readInt64()));
+                    break;
+                case 2:
+                    request.setTimeInBedEnd(Instant.ofEpochMilli(input.readInt64()));
+                    break;
+                case 3:
+                    request.setMorningFeeling(toMorningFeeling(input.readEnum()));
+                    break;
+                default:
+                    input.skipField(tag);
+            }
+        }
+        return request;
+    }
+
+    private static void writeSleepLog(SleepLogResponse log, CodedOutputStream output) throws IOException {
+        if (log.getId() != null) {
+            output.writeTag(1, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(16);
+            output.writeFixed64NoTag(Long.reverseBytes(log.getId().getMostSignificantBits()));
+            output.writeFixed64NoTag(Long.reverseBytes(log.getId().getLeastSignificantBits()));
+        }
+        if (log.getSleepDate() != null) {
+            output.writeInt32(2, Math.toIntExact(log.getSleepDate().toEpochDay()));
+        }
+        if (log.getTimeInBedStart() != null) {
+            output.writeInt64(3, log.getTimeInBedStart().toEpochMilli());
+        }
+        if (log.getTimeInBedEnd() != null) {
+            output.writeInt64(4, log.getTimeInBedEnd().toEpochMilli());
+        }
+        output.writeInt32(5, log.getTotalTimeInBedMinutes());
+        if (log.getMorningFeeling() != null) {
+            output.writeEnum(6, toEnumNumber(log.getMorningFeeling()));
+        }
+    }
+
+    private static void writeAverages(SleepLogAveragesResponse averages, CodedOutputStream output) throws IOException {
+        writeDate(1, averages.getRangeStart(), output);
+        writeDate(2, averages.getRangeEnd(), output);
+        output.writeInt32(3, averages.getAverageTimeInBedMinutes());
+        writeTime(4, averages.getAverageTimeUserGetsInBed(), output);
+        writeTime(5, averages.getAverageTimeUserGetsOutOfBed(), output);
+        if (averages.getMorningFeelingFrequencies() == null) {
+            return;
+        }
+        for (Map.Entry<MorningFeeling, SleepLogAveragesResponse.FeelingFrequency> entry
+                : averages.getMorningFeelingFrequencies().entrySet()) {
+            int feeling = toEnumNumber(entry.getKey());
+            int count = entry.getValue().getCount();
+            int hundredths = toHundredths(entry.getValue().getPercentage());
+            output.writeTag(6, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(CodedOutputStream.computeEnumSize(1, feeling)
+                    + CodedOutputStream.computeInt32Size(2, count)
+                    + CodedOutputStream.computeInt32Size(3, hundredths));
+            output.writeEnum(1, feeling);
+            output.writeInt32(2, count);
+            output.writeInt32(3, hundredths);
+        }
+    }
+
+    private static void writeError(ApiErrorResponse error, CodedOutputStream output) throws IOException {
+        if (error.getTimestamp() != null) {
+            output.writeInt64(1, error.getTimestamp().toEpochMilli());
+        }
+        output.writeInt32(2, error.getStatus());
+        writeString(3, error.getError(), output);
+        writeString(4, error.getPath(), output);
+        if (error.getViolations() == null) {
+            return;
+        }
+        for (ApiErrorResponse.Violation violation : error.getViolations()) {
+            output.writeTag(5, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(stringSize(1, violation.getField())
+                    + stringSize(2, violation.getMessage())
+                    + stringSize(3, violation.getRejectedValue()));
+            writeString(1, violation.getField(), output);
+            writeString(2, violation.getMessage(), output);
+            writeString(3, violation.getRejectedValue(), output);
+        }
+    }
+
+    private static void writeDate(int field, LocalDate date, CodedOutputStream output) throws IOException {
+        if (date != null) {
+            output.writeInt32(field, Math.toIntExact(date.toEpochDay()));
+        }
+    }
+
+    private static void writeTime(int field, LocalTime time, CodedOutputStream output) throws IOException {
+        if (time != null) {
+            output.writeInt32(field, time.toSecondOfDay());
+        }
+    }
+
+    private static void writeString(int field, String value, CodedOutputStream output) throws IOException {
+        if (value != null) {
+            output.writeString(field, value);
+        }
+    }
+
+    private static int stringSize(int field, String value) {
+        return value != null ? CodedOutputStream.computeStringSize(field, value) : 0;
+    }
+
+    private static int toHundredths(BigDecimal percentage) {
+        return percentage != null ? percentage.setScale(2, RoundingMode.HALF_UP).unscaledValue().intValueExact() : 0;
+    }
+
+    /**
+     * 0 is the unspecified value of the proto enum, the feelings follow in declaration order
+     */
+    private static int toEnumNumber(MorningFeeling feeling) {
+        return feeling.ordinal() + 1;
+    }
+
+    private static MorningFeeling toMorningFeeling(int number) {
+        MorningFeeling[] feelings = MorningFeeling.values();
+        return number >= 1 && number <= feelings.length ? feelings[number - 1] : null;
+    }
+}
@@ -0,0 +1,55 @@
+package com.noom.interview.fullstack.sleep.web.protobuf;
+
+import com.google.protobuf.CodedOutputStream;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes the sleep log DTOs in the protocol buffers encoding of {@code proto/sleep_log.proto}, for clients
+ * sending {@code Accept} or {@code Content-Type: application/x-protobuf}
+ */
+public class SleepLogProtobufHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    public SleepLogProtobufHttpMessageConverter() {
+        super(PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return SleepLogProtobufCodec.canRead(clazz) || SleepLogProtobufCodec.canWrite(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+        return SleepLogProtobufCodec.canRead(clazz) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, @Nullable MediaType mediaType) {
+        return SleepLogProtobufCodec.canWrite(clazz) && canWrite(mediaType);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return SleepLogProtobufCodec.readCreateSleepLogRequest(inputMessage.getBody());
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Invalid protobuf body: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputMessage.getBody());
+        SleepLogProtobufCodec.write(value, output);
+        output.flush();
+    }
+}
@@ -0,0 +1,26 @@
+package com.noom.interview.fullstack.sleep.web.requests;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Entries are validated one by one by the service so that an invalid entry is reported in the batch response instead
+ * of rejecting the whole batch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateSleepLogBatchRequest {
+    public static final int MAX_ENTRIES = 10_000;
+
+    @NotEmpty
+    @Size(max = MAX_ENTRIES)
+    @Schema(description = "Sleep logs to create, one per night", requiredMode = Schema.RequiredMode.REQUIRED)
+    private List<SleepLogBatchEntry> entries;
+}
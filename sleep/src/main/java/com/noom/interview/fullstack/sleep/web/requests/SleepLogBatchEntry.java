@@ -0,0 +1,38 @@
+package com.noom.interview.fullstack.sleep.web.requests;
+
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.validator.SleepIntervalConstraint;
+import com.noom.interview.fullstack.sleep.validator.SleepIntervalType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * The service also checks that timeInBedEnd falls on sleepDate (UTC) and that the time in bed is at most 24 hours
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SleepLogBatchEntry {
+    @NotNull
+    @Schema(description = "Date of the night (UTC), the date of timeInBedEnd", requiredMode = Schema.RequiredMode.REQUIRED)
+    private LocalDate sleepDate;
+    @NotNull
+    @Schema(description = "Time when the user went to bed (UTC)", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Instant timeInBedStart;
+    @NotNull
+    @SleepIntervalConstraint(message = "Invalid value, should not be after current date", sleepInterval = SleepIntervalType.END)
+    @Schema(description = "Time when the user got out of bed (UTC)", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Instant timeInBedEnd;
+    @NotNull
+    @Schema(
+            description = "How the user felt in the morning",
+            requiredMode = Schema.RequiredMode.REQUIRED
+    )
+    private MorningFeeling morningFeeling;
+}
@@ -0,0 +1,35 @@
+package com.noom.interview.fullstack.sleep.web.responses;
+
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Value
+@Builder
+public class SleepAnalyticsResponse {
+    LocalDate rangeStart;
+    LocalDate rangeEnd;
+    /**
+     * Sleep logs of all users in the range
+     */
+    long entryCount;
+    int averageTimeInBedMinutes;
+    Map<MorningFeeling, SleepLogAveragesResponse.FeelingFrequency> morningFeelingFrequencies;
+    /**
+     * Statistics of each sleep date of the range that has sleep logs, oldest first
+     */
+    List<DailyStatistics> days;
+
+    @Value
+    @Builder
+    public static class DailyStatistics {
+        LocalDate sleepDate;
+        long entryCount;
+        int averageTimeInBedMinutes;
+        Map<MorningFeeling, SleepLogAveragesResponse.FeelingFrequency> morningFeelingFrequencies;
+    }
+}
@@ -0,0 +1,34 @@
+package com.noom.interview.fullstack.sleep.web.responses;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Value
+@Builder
+public class SleepLogBatchResponse {
+    int created;
+    int alreadyExisting;
+    int rejected;
+    List<ItemResult> items;
+
+    public enum ItemStatus {
+        CREATED,
+        ALREADY_EXISTS,
+        DUPLICATE_IN_BATCH,
+        INVALID
+    }
+
+    @Value
+    @Builder
+    public static class ItemResult {
+        int index;
+        LocalDate sleepDate;
+        ItemStatus status;
+        UUID id;
+        List<String> errors;
+    }
+}
@@ -0,0 +1,20 @@
+package com.noom.interview.fullstack.sleep.web.responses;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Value
+@Builder
+public class SleepLogHistoryResponse {
+    /**
+     * Sleep logs of the page, newest first
+     */
+    List<SleepLogResponse> items;
+    /**
+     * Value of {@code before} for the next page, null on the last page
+     */
+    LocalDate nextBefore;
+}
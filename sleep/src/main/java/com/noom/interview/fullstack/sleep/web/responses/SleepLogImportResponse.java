@@ -0,0 +1,29 @@
+package com.noom.interview.fullstack.sleep.web.responses;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class SleepLogImportResponse {
+    /**
+     * Number of chunks merged into sleep_entry so far
+     */
+    int chunks;
+    /**
+     * Non-blank data lines read from the file
+     */
+    long rowsRead;
+    long created;
+    /**
+     * Valid rows for a night that was already logged, in the database or earlier in the file
+     */
+    long skipped;
+    long rejected;
+    /**
+     * The first rejected lines with the reason they were rejected
+     */
+    List<String> errors;
+}
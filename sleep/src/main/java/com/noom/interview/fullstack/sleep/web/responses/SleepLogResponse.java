@@ -1,6 +1,7 @@
 package com.noom.interview.fullstack.sleep.web.responses;
 
 import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Value;
 
@@ -10,6 +11,7 @@ import java.util.UUID;
 
 @Value
 @Builder
+@AllArgsConstructor
 public class SleepLogResponse {
     UUID id;
     LocalDate sleepDate;
@@ -0,0 +1,177 @@
+package com.noom.interview.fullstack.sleep.web.support;
+
+import com.noom.interview.fullstack.sleep.web.protobuf.SleepLogProtobufHttpMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET of the per-user resources that change at most once a day. The strong ETag is built from a version
+ * the caller gets cheaply, without computing the body, so a matching {@code If-None-Match} is answered with 304 before
+ * the body is computed. The ETag also names the media type and the content encoding of the response, as each is a
+ * different representation: the media type is negotiated here from the {@code Accept} header and set on the response,
+ * so the body is written in the one the ETag names. The encoding is gzip when Tomcat compresses the media type for
+ * the client ({@code server.compression.*}); like Tomcat, any {@code gzip} in {@code Accept-Encoding} counts, whatever
+ * its weight. Responses below {@code server.compression.min-response-size} go uncompressed under a gzip ETag, which
+ * only costs a separate copy in caches.
+ * <p>
+ * Responses may be cached privately for {@code sleep.http.cache.max-age}, but never beyond the next UTC midnight,
+ * when today's log and the 30-day window change.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ConditionalResponses {
+
+    static final String VARY = String.join(", ", HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, "X-User-Id");
+
+    /**
+     * Media types the conditional resources are written in, see {@link WebMvcConfiguration}. JSON comes first, so it is
+     * the one chosen for clients accepting any media type.
+     */
+    static final List<MediaType> MEDIA_TYPES = List.of(
+            MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_CBOR,
+            new MediaType("application", "x-jackson-smile"),
+            SleepLogProtobufHttpMessageConverter.PROTOBUF);
+
+    private final Duration maxAge;
+    private final List<MediaType> compressedMediaTypes;
+    private final Clock clock;
+
+    @Autowired
+    public ConditionalResponses(
+            @Value("${sleep.http.cache.max-age:PT5M}") Duration maxAge,
+            @Value("${server.compression.enabled:false}") boolean compressionEnabled,
+            @Value("${server.compression.mime-types:application/json}") String[] compressedMimeTypes
+    ) {
+        this(maxAge, compressionEnabled ? MediaType.parseMediaTypes(List.of(compressedMimeTypes)) : List.of(),
+                Clock.systemUTC());
+    }
+
+    ConditionalResponses(Duration maxAge, List<MediaType> compressedMediaTypes, Clock clock) {
+        this.maxAge = maxAge;
+        this.compressedMediaTypes = compressedMediaTypes;
+        this.clock = clock;
+    }
+
+    /**
+     * @param version identifies the data of the resource, e.g. an entry id; the body must only change with it
+     * @param body computes the body, only called when the client's copy is not current
+     * @return 304 when {@code If-None-Match} holds the current ETag, otherwise 200 with the body, or 406 when the
+     * client accepts none of {@link #MEDIA_TYPES}
+     */
+    public <T> ResponseEntity<T> respond(HttpServletRequest request, String version, Supplier<T> body) {
+        Optional<MediaType> mediaType = negotiateMediaType(request);
+        if (mediaType.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).header(HttpHeaders.VARY, VARY).build();
+        }
+
+        String etag = etag(version, mediaType.get(), contentEncoding(request, mediaType.get()));
+        boolean notModified = isNotModified(request, etag);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(etag)
+                .cacheControl(cacheControl())
+                .header(HttpHeaders.VARY, VARY);
+        return notModified ? response.build() : response.contentType(mediaType.get()).body(body.get());
+    }
+
+    String etag(HttpServletRequest request, String version) {
+        return negotiateMediaType(request)
+                .map(mediaType -> etag(version, mediaType, contentEncoding(request, mediaType)))
+                .orElseThrow(() -> new IllegalArgumentException("No acceptable media type"));
+    }
+
+    private static String etag(String version, MediaType mediaType, String contentEncoding) {
+        return "\"" + version + "-" + mediaType.getSubtype() + "-" + contentEncoding + "\"";
+    }
+
+    /**
+     * @return the first of {@link #MEDIA_TYPES} matching the most specific and preferred accepted media type, empty
+     * when none is acceptable or the header cannot be parsed
+     */
+    static Optional<MediaType> negotiateMediaType(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(accept == null || accept.isBlank() ? List.of(MediaType.ALL) : MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException ex) {
+            return Optional.empty();
+        }
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType acceptedType : accepted) {
+            if (acceptedType.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType mediaType : MEDIA_TYPES) {
+                if (acceptedType.includes(mediaType)) {
+                    return Optional.of(mediaType);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return {@code gzip} when Tomcat compresses the media type and the client accepts gzip, otherwise
+     * {@code identity}
+     */
+    String contentEncoding(HttpServletRequest request, MediaType mediaType) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean compressed = compressedMediaTypes.stream().anyMatch(compressedType -> compressedType.includes(mediaType));
+        if (!compressed || acceptEncoding == null) {
+            return "identity";
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            if (coding.split(";")[0].trim().equalsIgnoreCase("gzip")) {
+                return "gzip";
+            }
+        }
+        return "identity";
+    }
+
+    /**
+     * Weak comparison, as RFC 9110 requires for If-None-Match
+     */
+    static boolean isNotModified(HttpServletRequest request, String etag) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    CacheControl cacheControl() {
+        Instant now = clock.instant();
+        Instant nextMidnight = LocalDate.ofInstant(now, ZoneOffset.UTC).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        Duration untilMidnight = Duration.between(now, nextMidnight);
+        Duration age = untilMidnight.compareTo(maxAge) < 0 ? untilMidnight : maxAge;
+        return CacheControl.maxAge(age).cachePrivate().mustRevalidate();
+    }
+}
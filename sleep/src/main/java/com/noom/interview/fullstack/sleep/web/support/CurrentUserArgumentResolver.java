@@ -0,0 +1,38 @@
+package com.noom.interview.fullstack.sleep.web.support;
+
+import com.noom.interview.fullstack.sleep.exception.MissingUserIdHeaderException;
+import com.noom.interview.fullstack.sleep.filter.UserContextFilter;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.UUID;
+
+/**
+ * Resolves {@link CurrentUser} parameters from the request attribute set by {@link UserContextFilter}, a plain
+ * attribute lookup without a request-scoped bean or parsing the header again
+ */
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class) && UUID.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public UUID resolveArgument(
+            MethodParameter parameter,
+            ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest,
+            WebDataBinderFactory binderFactory
+    ) {
+        Object userId = webRequest.getAttribute(UserContextFilter.USER_ID_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (userId == null) {
+            throw new MissingUserIdHeaderException("Missing X-User-Id header");
+        }
+        return (UUID) userId;
+    }
+}
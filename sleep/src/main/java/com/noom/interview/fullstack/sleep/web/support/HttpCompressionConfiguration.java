@@ -0,0 +1,22 @@
+package com.noom.interview.fullstack.sleep.web.support;
+
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tomcat does not gzip responses carrying a strong ETag by default, as the compressed bytes would share the ETag of
+ * the uncompressed ones. The ETags of {@link ConditionalResponses} already name the content encoding, so
+ * compression is kept for them.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class HttpCompressionConfiguration {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<AbstractHttp11Protocol<?>> strongETagCompressionCustomizer() {
+        return protocolHandler -> protocolHandler.setNoCompressionStrongETag(false);
+    }
+}
@@ -0,0 +1,55 @@
+CREATE TABLE IF NOT EXISTS sleep_aggregate (
+    user_id UUID PRIMARY KEY REFERENCES app_user(id) ON DELETE CASCADE,
+
+    window_start DATE NOT NULL,
+    window_end   DATE NOT NULL,
+
+    entry_count                   BIGINT NOT NULL DEFAULT 0,
+    total_time_in_bed_minutes     BIGINT NOT NULL DEFAULT 0,
+    total_bed_time_epoch_seconds  BIGINT NOT NULL DEFAULT 0,
+    total_wake_time_epoch_seconds BIGINT NOT NULL DEFAULT 0,
+
+    bad_count  BIGINT NOT NULL DEFAULT 0,
+    ok_count   BIGINT NOT NULL DEFAULT 0,
+    good_count BIGINT NOT NULL DEFAULT 0,
+
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+
+    CONSTRAINT ck_sleep_aggregate_window
+    CHECK (window_end >= window_start)
+    );
+
+-- Backfill the read model for the entries already present (e.g. the V3 seed data). The window ends on the current UTC
+-- date, as sleep dates are UTC dates, whatever the time zone of the session.
+INSERT INTO sleep_aggregate (
+    user_id,
+    window_start,
+    window_end,
+    entry_count,
+    total_time_in_bed_minutes,
+    total_bed_time_epoch_seconds,
+    total_wake_time_epoch_seconds,
+    bad_count,
+    ok_count,
+    good_count,
+    updated_at
+)
+SELECT
+    u.id,
+    t.today - 30,
+    t.today,
+    count(e.id),
+    coalesce(sum(floor(extract(epoch from (e.time_in_bed_end - e.time_in_bed_start)) / 60)::bigint), 0),
+    coalesce(sum(floor(extract(epoch from e.time_in_bed_start))::bigint), 0),
+    coalesce(sum(floor(extract(epoch from e.time_in_bed_end))::bigint), 0),
+    count(e.id) FILTER (WHERE e.morning_feeling = 'BAD'),
+    count(e.id) FILTER (WHERE e.morning_feeling = 'OK'),
+    count(e.id) FILTER (WHERE e.morning_feeling = 'GOOD'),
+    now()
+FROM app_user u
+    CROSS JOIN (SELECT (now() AT TIME ZONE 'UTC')::date AS today) AS t
+    LEFT JOIN sleep_entry e
+        ON e.user_id = u.id
+        AND e.sleep_date BETWEEN t.today - 30 AND t.today
+GROUP BY u.id, t.today
+    ON CONFLICT (user_id) DO NOTHING;
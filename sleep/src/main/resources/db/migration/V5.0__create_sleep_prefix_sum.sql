@@ -0,0 +1,44 @@
+-- Running totals of each user's sleep entries: the row of a sleep date holds the sums and feeling counters of all the
+-- user's entries up to and including that date, so the totals of any range are the difference of two rows
+CREATE TABLE IF NOT EXISTS sleep_prefix_sum (
+    user_id UUID NOT NULL REFERENCES app_user(id) ON DELETE CASCADE,
+
+    sleep_date DATE NOT NULL,
+
+    entry_count                   BIGINT NOT NULL,
+    total_time_in_bed_minutes     BIGINT NOT NULL,
+    total_bed_time_epoch_seconds  BIGINT NOT NULL,
+    total_wake_time_epoch_seconds BIGINT NOT NULL,
+
+    bad_count  BIGINT NOT NULL,
+    ok_count   BIGINT NOT NULL,
+    good_count BIGINT NOT NULL,
+
+    PRIMARY KEY (user_id, sleep_date)
+    );
+
+-- Backfill the running totals of the entries already present (e.g. the V3 seed data)
+INSERT INTO sleep_prefix_sum (
+    user_id,
+    sleep_date,
+    entry_count,
+    total_time_in_bed_minutes,
+    total_bed_time_epoch_seconds,
+    total_wake_time_epoch_seconds,
+    bad_count,
+    ok_count,
+    good_count
+)
+SELECT
+    user_id,
+    sleep_date,
+    count(*) OVER w,
+    sum(floor(extract(epoch from (time_in_bed_end - time_in_bed_start)) / 60)::bigint) OVER w,
+    sum(floor(extract(epoch from time_in_bed_start))::bigint) OVER w,
+    sum(floor(extract(epoch from time_in_bed_end))::bigint) OVER w,
+    count(*) FILTER (WHERE morning_feeling = 'BAD') OVER w,
+    count(*) FILTER (WHERE morning_feeling = 'OK') OVER w,
+    count(*) FILTER (WHERE morning_feeling = 'GOOD') OVER w
+FROM sleep_entry
+WINDOW w AS (PARTITION BY user_id ORDER BY sleep_date)
+    ON CONFLICT (user_id, sleep_date) DO NOTHING;
@@ -0,0 +1,20 @@
+-- Time-ordered UUID version 7 for the ids generated by the database, matching the ids generated by the application:
+-- the first 48 bits of a random v4 id are replaced by the Unix milliseconds and the version bits turned from 4 to 7
+CREATE OR REPLACE FUNCTION uuid_generate_v7() RETURNS uuid
+    LANGUAGE sql
+    VOLATILE
+AS $$
+SELECT encode(
+               set_bit(
+                       set_bit(
+                               overlay(uuid_send(gen_random_uuid())
+                                       placing substring(int8send(floor(extract(epoch from clock_timestamp()) * 1000)::bigint) from 3)
+                                       from 1 for 6),
+                               52, 1),
+                       53, 1),
+               'hex')::uuid
+$$;
+
+ALTER TABLE app_user ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+
+ALTER TABLE sleep_entry ALTER COLUMN id SET DEFAULT uuid_generate_v7();
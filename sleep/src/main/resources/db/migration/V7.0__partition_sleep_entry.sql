@@ -0,0 +1,94 @@
+-- Range partitions of sleep_entry by month of sleep_date, each with its own indexes and vacuumed on its own.
+-- The existing table is not copied: it is attached as the partition of every sleep date before the current month.
+-- Only the rows of the current month move to their own partition. Partitions of the following months are created
+-- ahead of time by create_sleep_entry_partition, run by the application every day.
+-- A partitioned table's unique constraints must include the partition key, so the primary key becomes
+-- (id, sleep_date); uq_sleep_entry_user_date already includes it.
+
+CREATE OR REPLACE FUNCTION create_sleep_entry_partition(month_start date) RETURNS text
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    first_day date := date_trunc('month', month_start)::date;
+    partition_name text := 'sleep_entry_p' || to_char(first_day, 'YYYY_MM');
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF sleep_entry FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, first_day, (first_day + interval '1 month')::date);
+    RETURN partition_name;
+END
+$$;
+
+ALTER TABLE sleep_entry RENAME TO sleep_entry_legacy;
+ALTER TABLE sleep_entry_legacy RENAME CONSTRAINT uq_sleep_entry_user_date TO sleep_entry_legacy_user_id_sleep_date_key;
+ALTER TABLE sleep_entry_legacy DROP CONSTRAINT sleep_entry_pkey;
+ALTER INDEX idx_sleep_entry_sleep_date RENAME TO sleep_entry_legacy_sleep_date_idx;
+-- Backward scans of the unique (user_id, sleep_date) index serve the newest-first reads
+DROP INDEX idx_sleep_entry_user_date;
+
+CREATE TABLE sleep_entry (
+    id UUID NOT NULL DEFAULT uuid_generate_v7(),
+
+    user_id UUID NOT NULL REFERENCES app_user(id) ON DELETE CASCADE,
+
+    sleep_date DATE NOT NULL,
+
+    time_in_bed_start TIMESTAMPTZ NOT NULL,
+    time_in_bed_end   TIMESTAMPTZ NOT NULL,
+
+    total_time_in_bed_minutes INTEGER NOT NULL,
+
+    morning_feeling VARCHAR(4) NOT NULL,
+
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+
+    CONSTRAINT sleep_entry_pkey
+    PRIMARY KEY (id, sleep_date),
+
+    CONSTRAINT ck_sleep_time_order
+    CHECK (time_in_bed_end > time_in_bed_start),
+
+    CONSTRAINT ck_total_time_positive
+    CHECK (total_time_in_bed_minutes > 0),
+
+    CONSTRAINT ck_morning_feeling
+    CHECK (morning_feeling IN ('BAD', 'OK', 'GOOD')),
+
+    CONSTRAINT uq_sleep_entry_user_date
+    UNIQUE (user_id, sleep_date)
+    ) PARTITION BY RANGE (sleep_date);
+
+-- Attached to the existing index of the legacy partition instead of building a new one
+CREATE INDEX idx_sleep_entry_sleep_date
+    ON sleep_entry (sleep_date);
+
+DO $$
+DECLARE
+    current_month date := date_trunc('month', (now() AT TIME ZONE 'UTC')::date)::date;
+    last_month date;
+    month_start date;
+BEGIN
+    SELECT (date_trunc('month', greatest(max(sleep_date), current_month)) + interval '3 months')::date
+    INTO last_month
+    FROM sleep_entry_legacy;
+
+    month_start := current_month;
+    WHILE month_start <= last_month LOOP
+        PERFORM create_sleep_entry_partition(month_start);
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+
+    INSERT INTO sleep_entry (id, user_id, sleep_date, time_in_bed_start, time_in_bed_end, total_time_in_bed_minutes,
+                             morning_feeling, created_at, updated_at)
+    SELECT id, user_id, sleep_date, time_in_bed_start, time_in_bed_end, total_time_in_bed_minutes,
+           morning_feeling, created_at, updated_at
+    FROM sleep_entry_legacy
+    WHERE sleep_date >= current_month;
+
+    DELETE FROM sleep_entry_legacy WHERE sleep_date >= current_month;
+
+    -- Scans the legacy rows once to check the bound, and builds the (id, sleep_date) primary key index
+    EXECUTE format('ALTER TABLE sleep_entry ATTACH PARTITION sleep_entry_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+                   current_month);
+END
+$$;
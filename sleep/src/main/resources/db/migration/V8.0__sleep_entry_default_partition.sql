@@ -0,0 +1,34 @@
+-- Sleep dates without a partition of their own, e.g. further ahead than the months created by the maintenance or in a
+-- month it missed, go to the default partition instead of failing the insert.
+CREATE TABLE IF NOT EXISTS sleep_entry_default PARTITION OF sleep_entry DEFAULT;
+
+-- A partition cannot be created for a month the default partition holds rows of, so those rows are moved into a
+-- standalone table first, which is then attached as the partition of the month. Attaching scans the default partition
+-- once more to check that no row of the month is left.
+CREATE OR REPLACE FUNCTION create_sleep_entry_partition(month_start date) RETURNS text
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    first_day date := date_trunc('month', month_start)::date;
+    next_month date := (first_day + interval '1 month')::date;
+    partition_name text := 'sleep_entry_p' || to_char(first_day, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM sleep_entry_default WHERE sleep_date >= first_day AND sleep_date < next_month) THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF sleep_entry FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, first_day, next_month);
+        RETURN partition_name;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE sleep_entry INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM sleep_entry_default WHERE sleep_date >= %L AND sleep_date < %L RETURNING *) '
+                       || 'INSERT INTO %I SELECT * FROM moved',
+                   first_day, next_month, partition_name);
+    EXECUTE format('ALTER TABLE sleep_entry ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, first_day, next_month);
+    RETURN partition_name;
+END
+$$;
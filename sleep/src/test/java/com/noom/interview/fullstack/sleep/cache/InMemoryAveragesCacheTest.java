@@ -0,0 +1,179 @@
+package com.noom.interview.fullstack.sleep.cache;
+
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryAveragesCacheTest {
+    private static final LocalDate TODAY = LocalDate.of(2026, 2, 11);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final InMemoryAveragesCache cache = new InMemoryAveragesCache(2, Duration.ofMinutes(10), nanos::get, Runnable::run);
+
+    @Test
+    void get_returnsCachedAverages_forSameRangeEnd() {
+        UUID userId = UUID.randomUUID();
+        SleepLogAveragesResponse averages = averages(TODAY);
+
+        cache.put(userId, cache.generation(userId), averages);
+
+        assertThat(cache.get(userId, TODAY)).containsSame(averages);
+        assertThat(cache.stats().getHitCount()).isEqualTo(1);
+        assertThat(cache.stats().getMissCount()).isZero();
+    }
+
+    @Test
+    void get_misses_whenDayRolledOver() {
+        UUID userId = UUID.randomUUID();
+        cache.put(userId, cache.generation(userId), averages(TODAY));
+
+        assertThat(cache.get(userId, TODAY.plusDays(1))).isEmpty();
+        assertThat(cache.stats().getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void get_misses_afterInvalidate() {
+        UUID userId = UUID.randomUUID();
+        cache.put(userId, cache.generation(userId), averages(TODAY));
+
+        cache.invalidate(userId);
+
+        assertThat(cache.get(userId, TODAY)).isEmpty();
+        assertThat(cache.stats().getSize()).isZero();
+    }
+
+    @Test
+    void get_misses_afterTtlExpired() {
+        UUID userId = UUID.randomUUID();
+        cache.put(userId, cache.generation(userId), averages(TODAY));
+
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(11));
+
+        assertThat(cache.get(userId, TODAY)).isEmpty();
+    }
+
+    @Test
+    void put_evicts_whenMaximumSizeExceeded() {
+        for (int i = 0; i < 3; i++) {
+            UUID userId = UUID.randomUUID();
+            cache.put(userId, cache.generation(userId), averages(TODAY));
+        }
+
+        cache.cleanUp();
+
+        assertThat(cache.stats().getSize()).isEqualTo(2);
+        assertThat(cache.stats().getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getVersion_keepsAveragesAndVersion_ofSameRangeEnd() {
+        UUID userId = UUID.randomUUID();
+        SleepLogAveragesResponse averages = averages(TODAY);
+
+        cache.putVersion(userId, cache.generation(userId), TODAY, "v1");
+        cache.put(userId, cache.generation(userId), averages);
+
+        assertThat(cache.getVersion(userId, TODAY)).contains("v1");
+        assertThat(cache.get(userId, TODAY)).containsSame(averages);
+        assertThat(cache.getVersion(userId, TODAY.plusDays(1))).isEmpty();
+    }
+
+    @Test
+    void get_misses_whenOnlyVersionCached() {
+        UUID userId = UUID.randomUUID();
+        cache.putVersion(userId, cache.generation(userId), TODAY, "v1");
+
+        assertThat(cache.get(userId, TODAY)).isEmpty();
+        assertThat(cache.stats().getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void put_replacesVersion_ofPreviousRangeEnd() {
+        UUID userId = UUID.randomUUID();
+        cache.putVersion(userId, cache.generation(userId), TODAY.minusDays(1), "v1");
+
+        cache.put(userId, cache.generation(userId), averages(TODAY));
+
+        assertThat(cache.getVersion(userId, TODAY)).isEmpty();
+        assertThat(cache.getVersion(userId, TODAY.minusDays(1))).isEmpty();
+    }
+
+    @Test
+    void getVersion_misses_afterInvalidate() {
+        UUID userId = UUID.randomUUID();
+        cache.putVersion(userId, cache.generation(userId), TODAY, "v1");
+
+        cache.invalidate(userId);
+
+        assertThat(cache.getVersion(userId, TODAY)).isEmpty();
+    }
+
+    @Test
+    void put_isDropped_whenUserInvalidatedWhileComputing() {
+        UUID userId = UUID.randomUUID();
+        long generation = cache.generation(userId);
+
+        cache.invalidate(userId);
+        cache.put(userId, generation, averages(TODAY));
+        cache.putVersion(userId, generation, TODAY, "v1");
+
+        assertThat(cache.get(userId, TODAY)).isEmpty();
+        assertThat(cache.getVersion(userId, TODAY)).isEmpty();
+        assertThat(cache.stats().getSize()).isZero();
+    }
+
+    @Test
+    void put_isDropped_whenAllInvalidatedWhileComputing() {
+        UUID userId = UUID.randomUUID();
+        long generation = cache.generation(userId);
+
+        cache.invalidateAll();
+        cache.put(userId, generation, averages(TODAY));
+
+        assertThat(cache.get(userId, TODAY)).isEmpty();
+    }
+
+    @Test
+    void putVersion_doesNotKeepAverages_ofPreviousGeneration() {
+        UUID userId = UUID.randomUUID();
+        cache.put(userId, cache.generation(userId), averages(TODAY));
+        // Another user of the same stripe moves the generation on without removing this entry
+        cache.invalidate(userOfSameStripe(userId));
+
+        cache.putVersion(userId, cache.generation(userId), TODAY, "v2");
+
+        assertThat(cache.getVersion(userId, TODAY)).contains("v2");
+        assertThat(cache.get(userId, TODAY)).isEmpty();
+    }
+
+    /**
+     * @return a user whose invalidation moves the generation of userId on
+     */
+    private UUID userOfSameStripe(UUID userId) {
+        while (true) {
+            UUID other = UUID.randomUUID();
+            long before = cache.generation(userId);
+            cache.invalidate(other);
+            if (cache.generation(userId) != before) {
+                return other;
+            }
+        }
+    }
+
+    private static SleepLogAveragesResponse averages(LocalDate rangeEnd) {
+        return SleepLogAveragesResponse.builder()
+                .rangeStart(rangeEnd.minusDays(30))
+                .rangeEnd(rangeEnd)
+                .averageTimeInBedMinutes(450)
+                .morningFeelingFrequencies(Map.of())
+                .build();
+    }
+}
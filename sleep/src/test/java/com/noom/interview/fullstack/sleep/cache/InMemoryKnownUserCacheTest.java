@@ -0,0 +1,131 @@
+package com.noom.interview.fullstack.sleep.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryKnownUserCacheTest {
+
+    private final InMemoryKnownUserCache cache = new InMemoryKnownUserCache(1_000_000);
+
+    @Test
+    void contains_isTrue_onlyAfterAdd() {
+        UUID userId = UUID.randomUUID();
+
+        assertThat(cache.contains(userId)).isFalse();
+        cache.add(userId);
+        cache.add(userId);
+
+        assertThat(cache.contains(userId)).isTrue();
+        assertThat(cache.stats().getSize()).isEqualTo(1);
+        assertThat(cache.stats().getHitCount()).isEqualTo(1);
+        assertThat(cache.stats().getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidate_keepsOtherUsersOfTheProbeRun() {
+        List<UUID> userIds = new ArrayList<>();
+        for (long i = 1; i <= 20_000; i++) {
+            UUID userId = new UUID(0x0190_0000_0000_7000L + (i << 16), i);
+            userIds.add(userId);
+            cache.add(userId);
+        }
+
+        for (int i = 0; i < userIds.size(); i += 2) {
+            cache.invalidate(userIds.get(i));
+        }
+
+        for (int i = 0; i < userIds.size(); i++) {
+            assertThat(cache.contains(userIds.get(i))).isEqualTo(i % 2 == 1);
+        }
+        assertThat(cache.stats().getSize()).isEqualTo(10_000);
+    }
+
+    @Test
+    void add_clearsTheSet_whenMaximumSizeReached() {
+        InMemoryKnownUserCache small = new InMemoryKnownUserCache(2);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        small.add(first);
+        small.add(second);
+        small.add(third);
+
+        assertThat(small.contains(first)).isFalse();
+        assertThat(small.contains(third)).isTrue();
+        assertThat(small.stats().getEvictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void add_ignoresNilUuid() {
+        UUID nil = new UUID(0, 0);
+
+        cache.add(nil);
+
+        assertThat(cache.contains(nil)).isFalse();
+        assertThat(cache.stats().getSize()).isZero();
+    }
+
+    @Test
+    void invalidateAll_removesEveryUser() {
+        UUID userId = UUID.randomUUID();
+        cache.add(userId);
+
+        cache.invalidateAll();
+
+        assertThat(cache.contains(userId)).isFalse();
+        assertThat(cache.stats().getMemoryBytes()).isEqualTo(InMemoryKnownUserCache.INITIAL_CAPACITY * 16L);
+    }
+
+    @Test
+    void stats_reportsAtMost32MegabytesPerMillionUsers() {
+        for (int i = 0; i < 1_000_000; i++) {
+            cache.add(UUID.randomUUID());
+        }
+
+        CacheStatistics stats = cache.stats();
+        assertThat(stats.getSize()).isEqualTo(1_000_000);
+        assertThat(stats.getMemoryBytes()).isEqualTo(32L * 1024 * 1024);
+    }
+
+    @Test
+    void contains_seesEveryAddedUser_whileOtherThreadsAdd() throws Exception {
+        int threads = 4;
+        int usersPerThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    boolean allFound = true;
+                    for (int i = 0; i < usersPerThread; i++) {
+                        UUID userId = UUID.randomUUID();
+                        cache.add(userId);
+                        allFound &= cache.contains(userId);
+                    }
+                    return allFound;
+                }));
+            }
+            start.countDown();
+
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(30, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(cache.stats().getSize()).isEqualTo((long) threads * usersPerThread);
+    }
+}
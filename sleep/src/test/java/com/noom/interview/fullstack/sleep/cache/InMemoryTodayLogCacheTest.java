@@ -0,0 +1,125 @@
+package com.noom.interview.fullstack.sleep.cache;
+
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryTodayLogCacheTest {
+    private static final LocalDate TODAY = LocalDate.of(2026, 2, 11);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final InMemoryTodayLogCache cache = new InMemoryTodayLogCache(
+            2, Duration.ofHours(1), Duration.ofSeconds(5), nanos::get, Runnable::run);
+
+    @Test
+    void get_returnsEqualLog_afterPutLogged() {
+        UUID userId = UUID.randomUUID();
+        SleepLogResponse sleepLog = sleepLog(TODAY);
+
+        cache.putLogged(userId, sleepLog);
+
+        assertThat(cache.get(userId, TODAY))
+                .hasValueSatisfying(todayLog -> assertThat(todayLog.getLog()).contains(sleepLog));
+        assertThat(cache.stats().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void get_returnsNotLogged_afterPutNotLogged() {
+        UUID userId = UUID.randomUUID();
+
+        cache.putNotLogged(userId, TODAY);
+
+        assertThat(cache.get(userId, TODAY))
+                .hasValueSatisfying(todayLog -> assertThat(todayLog.getLog()).isEmpty());
+    }
+
+    @Test
+    void putNotLogged_doesNotReplaceLogOfSameDay() {
+        UUID userId = UUID.randomUUID();
+        SleepLogResponse sleepLog = sleepLog(TODAY);
+
+        cache.putLogged(userId, sleepLog);
+        cache.putNotLogged(userId, TODAY);
+
+        assertThat(cache.get(userId, TODAY))
+                .hasValueSatisfying(todayLog -> assertThat(todayLog.getLog()).contains(sleepLog));
+    }
+
+    @Test
+    void putNotLogged_replacesLogOfPreviousDay() {
+        UUID userId = UUID.randomUUID();
+
+        cache.putLogged(userId, sleepLog(TODAY.minusDays(1)));
+        cache.putNotLogged(userId, TODAY);
+
+        assertThat(cache.get(userId, TODAY))
+                .hasValueSatisfying(todayLog -> assertThat(todayLog.getLog()).isEmpty());
+    }
+
+    @Test
+    void get_misses_forAnotherDay() {
+        UUID userId = UUID.randomUUID();
+        cache.putNotLogged(userId, TODAY.minusDays(1));
+
+        assertThat(cache.get(userId, TODAY)).isEmpty();
+        assertThat(cache.stats().getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void putLogged_replacesNegativeEntry() {
+        UUID userId = UUID.randomUUID();
+        SleepLogResponse sleepLog = sleepLog(TODAY);
+
+        cache.putNotLogged(userId, TODAY);
+        cache.putLogged(userId, sleepLog);
+
+        assertThat(cache.get(userId, TODAY))
+                .hasValueSatisfying(todayLog -> assertThat(todayLog.getLog()).contains(sleepLog));
+    }
+
+    @Test
+    void notLoggedEntry_expiresAfterSeconds_whileLogStaysCached() {
+        UUID notLogged = UUID.randomUUID();
+        UUID logged = UUID.randomUUID();
+        SleepLogResponse sleepLog = sleepLog(TODAY);
+
+        cache.putNotLogged(notLogged, TODAY);
+        cache.putLogged(logged, sleepLog);
+        nanos.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        assertThat(cache.get(notLogged, TODAY)).isEmpty();
+        assertThat(cache.get(logged, TODAY))
+                .hasValueSatisfying(todayLog -> assertThat(todayLog.getLog()).contains(sleepLog));
+    }
+
+    @Test
+    void putNotLogged_evicts_whenMaximumSizeExceeded() {
+        cache.putNotLogged(UUID.randomUUID(), TODAY);
+        cache.putNotLogged(UUID.randomUUID(), TODAY);
+        cache.putNotLogged(UUID.randomUUID(), TODAY);
+
+        cache.cleanUp();
+
+        assertThat(cache.stats().getSize()).isEqualTo(2);
+        assertThat(cache.stats().getEvictionCount()).isEqualTo(1);
+    }
+
+    private static SleepLogResponse sleepLog(LocalDate sleepDate) {
+        return SleepLogResponse.builder()
+                .id(UUID.randomUUID())
+                .sleepDate(sleepDate)
+                .timeInBedStart(Instant.parse("2026-02-10T22:00:00.123456Z"))
+                .timeInBedEnd(Instant.parse("2026-02-11T06:00:00Z"))
+                .totalTimeInBedMinutes(479)
+                .morningFeeling(MorningFeeling.OK)
+                .build();
+    }
+}
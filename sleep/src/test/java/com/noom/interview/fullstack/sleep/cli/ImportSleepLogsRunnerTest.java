@@ -0,0 +1,80 @@
+package com.noom.interview.fullstack.sleep.cli;
+
+import com.noom.interview.fullstack.sleep.model.ImportFormat;
+import com.noom.interview.fullstack.sleep.service.SleepLogImportService;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogImportResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportSleepLogsRunnerTest {
+
+    @Mock
+    private SleepLogImportService sleepLogImportService;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void run_exitsWithZero_whenEveryRowWasImported() throws Exception {
+        Path file = Files.writeString(directory.resolve("logs.csv"), "header\n");
+        when(sleepLogImportService.importLogs(any(), eq(ImportFormat.CSV))).thenReturn(result(0));
+        ImportSleepLogsRunner runner = new ImportSleepLogsRunner(sleepLogImportService);
+
+        runner.run(new DefaultApplicationArguments("--import-sleep-logs=" + file));
+
+        assertThat(runner.getExitCode()).isZero();
+    }
+
+    @Test
+    void run_exitsWithRowsRejected_whenAnyRowWasRejected() throws Exception {
+        Path file = Files.writeString(directory.resolve("logs.ndjson"), "{}\n");
+        when(sleepLogImportService.importLogs(any(), eq(ImportFormat.NDJSON))).thenReturn(result(1));
+        ImportSleepLogsRunner runner = new ImportSleepLogsRunner(sleepLogImportService);
+
+        runner.run(new DefaultApplicationArguments("--import-sleep-logs=" + file));
+
+        assertThat(runner.getExitCode()).isEqualTo(ImportSleepLogsRunner.EXIT_ROWS_REJECTED);
+    }
+
+    @Test
+    void run_fails_whenFileIsMissing() {
+        ImportSleepLogsRunner runner = new ImportSleepLogsRunner(sleepLogImportService);
+
+        assertThatThrownBy(() -> runner.run(new DefaultApplicationArguments(
+                "--import-sleep-logs=" + directory.resolve("missing.csv"))))
+                .isInstanceOf(NoSuchFileException.class);
+
+        verifyNoInteractions(sleepLogImportService);
+    }
+
+    @Test
+    void isCommand_onlyForCommandOptions() {
+        assertThat(SleepCommands.isCommand("--import-sleep-logs=logs.csv")).isTrue();
+        assertThat(SleepCommands.isCommand("--rebuild-aggregates")).isTrue();
+        assertThat(SleepCommands.isCommand("--server.port=8080")).isFalse();
+        assertThat(SleepCommands.isCommand()).isFalse();
+    }
+
+    private static SleepLogImportResponse result(long rejected) {
+        return SleepLogImportResponse.builder()
+                .rowsRead(1)
+                .created(1 - rejected)
+                .rejected(rejected)
+                .errors(List.of())
+                .build();
+    }
+}
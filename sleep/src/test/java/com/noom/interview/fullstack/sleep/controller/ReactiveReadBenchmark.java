@@ -0,0 +1,200 @@
+package com.noom.interview.fullstack.sleep.controller;
+
+import com.noom.interview.fullstack.sleep.SleepApplication;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds {@code -Dbenchmark.connections} (10 000 by default) concurrent clients on the last night and last 30-day
+ * averages endpoints, against the servlet stack with platform threads, the servlet stack with virtual threads and the
+ * reactive profile, and logs the requests per second, the peak number of platform threads and the peak heap and direct
+ * memory of each. The clients run on virtual threads in the same JVM, so the platform thread count is the server's.
+ * Run with {@code ./gradlew benchmark --tests '*ReactiveReadBenchmark'}, with a limit of open files above twice the
+ * number of connections.
+ */
+@Testcontainers
+@Tag("benchmark")
+@Slf4j
+class ReactiveReadBenchmark {
+
+    private static final int CONNECTIONS = Integer.getInteger("benchmark.connections", 10_000);
+    private static final int SECONDS = Integer.getInteger("benchmark.seconds", 30);
+    private static final int USERS = 10_000;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13-alpine")
+            .withDatabaseName("sleepdb")
+            .withUsername("sleep")
+            .withPassword("sleep");
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Test
+    void threadsAndMemoryAt10kConnections_servletVersusReactive() throws Exception {
+        List<String> summary = new ArrayList<>();
+        boolean seeded = false;
+        for (String mode : new String[]{"platform", "virtual", "reactive"}) {
+            try (ConfigurableApplicationContext context = start(mode)) {
+                if (!seeded) {
+                    seed();
+                    seeded = true;
+                }
+                String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                for (String path : new String[]{"/sleep-log", "/sleep-log/averages/last-30-days"}) {
+                    Result result = run(baseUrl + path);
+                    summary.add(String.format("%-10s %-34s %10.0f %10d %14.1f %14.1f %10d", mode, path, result.rps,
+                            result.peakThreads, result.peakHeapBytes / 1048576.0, result.peakDirectBytes / 1048576.0,
+                            result.errors));
+                }
+            }
+        }
+
+        log.info(String.format("%-10s %-34s %10s %10s %14s %14s %10s",
+                "mode", "endpoint", "RPS", "threads", "heap MB", "direct MB", "errors"));
+        summary.forEach(log::info);
+    }
+
+    private ConfigurableApplicationContext start(String mode) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(SleepApplication.class)
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.max-connections=" + (CONNECTIONS + 1_000),
+                        "spring.datasource.url=" + POSTGRES.getJdbcUrl(),
+                        "spring.datasource.username=" + POSTGRES.getUsername(),
+                        "spring.datasource.password=" + POSTGRES.getPassword(),
+                        "spring.flyway.enabled=true",
+                        "sleep.threads.virtual.enabled=" + mode.equals("virtual"),
+                        // Every request waits for a connection rather than being turned away
+                        "sleep.threads.virtual.requests-per-connection=" + CONNECTIONS,
+                        "sleep.threads.virtual.queue-timeout=PT1M",
+                        "sleep.cache.today-log.type=none",
+                        "sleep.cache.averages.type=none");
+        if (mode.equals("reactive")) {
+            builder.profiles(SleepApplication.REACTIVE_PROFILE);
+        }
+        return builder.run();
+    }
+
+    /**
+     * Gives every user a sleep entry for each of the last 31 nights, after Flyway created the schema
+     */
+    private void seed() throws Exception {
+        try (Connection connection = POSTGRES.createConnection(""); Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO app_user (id) " +
+                    "SELECT CAST(md5(CAST(u AS text)) AS uuid) FROM generate_series(1, " + USERS + ") AS u");
+            statement.execute("INSERT INTO sleep_entry (user_id, sleep_date, time_in_bed_start, time_in_bed_end, " +
+                    "total_time_in_bed_minutes, morning_feeling) " +
+                    "SELECT CAST(md5(CAST(u AS text)) AS uuid), d, d - interval '2 hours', d + interval '6 hours', 480, " +
+                    "(ARRAY['BAD', 'OK', 'GOOD'])[1 + u % 3] " +
+                    "FROM generate_series(1, " + USERS + ") AS u, " +
+                    "LATERAL (SELECT CAST(current_date - n AS date) AS d FROM generate_series(0, 30) AS n) AS night");
+            statement.execute("VACUUM ANALYZE sleep_entry");
+        }
+    }
+
+    private Result run(String url) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        LongAdder completed = new LongAdder();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicLong peakHeap = new AtomicLong();
+        AtomicLong peakDirect = new AtomicLong();
+        long deadline = System.nanoTime() + Duration.ofSeconds(SECONDS).toNanos();
+
+        System.gc();
+        threads.resetPeakThreadCount();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONNECTIONS; i++) {
+                int user = 1 + i % USERS;
+                clients.submit(() -> {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                            .header("X-User-Id", md5Uuid(user))
+                            .timeout(Duration.ofMinutes(1))
+                            .GET()
+                            .build();
+                    while (System.nanoTime() < deadline) {
+                        try {
+                            if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                                completed.increment();
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            while (System.nanoTime() < deadline) {
+                peakHeap.accumulateAndGet(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), Math::max);
+                peakDirect.accumulateAndGet(directMemoryUsed(), Math::max);
+                Thread.sleep(250);
+            }
+        }
+        return new Result(completed.sum() / (double) SECONDS, threads.getPeakThreadCount(), peakHeap.get(),
+                peakDirect.get(), errors.get());
+    }
+
+    /**
+     * Same ids as the seed: the md5 of the user number read as a UUID
+     */
+    private static String md5Uuid(int user) {
+        try {
+            byte[] md5 = MessageDigest.getInstance("MD5").digest(String.valueOf(user).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(32);
+            for (byte b : md5) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.insert(20, '-').insert(16, '-').insert(12, '-').insert(8, '-').toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long directMemoryUsed() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+
+    @Value
+    private static class Result {
+        double rps;
+        int peakThreads;
+        long peakHeapBytes;
+        long peakDirectBytes;
+        int errors;
+    }
+}
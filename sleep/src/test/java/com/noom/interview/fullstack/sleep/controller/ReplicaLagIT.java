@@ -0,0 +1,136 @@
+package com.noom.interview.fullstack.sleep.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogRequest;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The replica is a second database of the same server with the same schema that never receives the writes of the
+ * primary, like a replica whose replay is paused. Reads that must see a write therefore only pass when they are
+ * served by the primary.
+ */
+@Testcontainers
+@SpringBootTest
+@AutoConfigureMockMvc
+@Tag("it")
+class ReplicaLagIT {
+
+    private static final long MAX_LAG_MILLIS = 2_000;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13-alpine")
+            .withDatabaseName("sleepdb")
+            .withUsername("sleep")
+            .withPassword("sleep");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("sleep.datasource.replica.url", ReplicaLagIT::pausedReplicaUrl);
+        registry.add("sleep.datasource.replica.max-lag", () -> "PT" + MAX_LAG_MILLIS / 1000 + "S");
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void servesAndCachesAveragesOfTheWrite_whileReplicaLags() throws Exception {
+        UUID userId = UUID.randomUUID();
+        createLastNightLog(userId, MorningFeeling.GOOD);
+
+        String etag = mockMvc.perform(get("/sleep-log/averages/last-30-days").header("X-User-Id", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.morningFeelingFrequencies.GOOD.count").value(1))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Once the replica is read again, the cached averages and version are still the ones of the primary
+        Thread.sleep(MAX_LAG_MILLIS + 500);
+
+        mockMvc.perform(get("/sleep-log/averages/last-30-days").header("X-User-Id", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(jsonPath("$.morningFeelingFrequencies.GOOD.count").value(1));
+        mockMvc.perform(get("/sleep-log/averages/last-30-days")
+                        .header("X-User-Id", userId.toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void readsLaggingReplica_onceMaxLagHasPassedSinceWrite() throws Exception {
+        UUID userId = UUID.randomUUID();
+        createLastNightLog(userId, MorningFeeling.OK);
+
+        Thread.sleep(MAX_LAG_MILLIS + 500);
+
+        mockMvc.perform(get("/sleep-log/averages/last-30-days").header("X-User-Id", userId.toString()))
+                .andExpect(status().isNotFound());
+    }
+
+    private void createLastNightLog(UUID userId, MorningFeeling feeling) throws Exception {
+        CreateSleepLogRequest request = new CreateSleepLogRequest();
+        request.setTimeInBedStart(Instant.now().minusSeconds(8 * 3600));
+        request.setTimeInBedEnd(Instant.now());
+        request.setMorningFeeling(feeling);
+
+        mockMvc.perform(post("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+    }
+
+    /**
+     * Creates the replica database with the schema of the primary, once per container
+     */
+    private static synchronized String pausedReplicaUrl() {
+        String replicaUrl = POSTGRES.getJdbcUrl().replace("/" + POSTGRES.getDatabaseName(), "/replica");
+        try (Connection connection = DriverManager.getConnection(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+             Statement statement = connection.createStatement()) {
+            if (!statement.executeQuery("SELECT 1 FROM pg_database WHERE datname = 'replica'").next()) {
+                statement.execute("CREATE DATABASE replica");
+                Flyway.configure()
+                        .dataSource(replicaUrl, POSTGRES.getUsername(), POSTGRES.getPassword())
+                        .load()
+                        .migrate();
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not create the replica database", ex);
+        }
+        return replicaUrl;
+    }
+}
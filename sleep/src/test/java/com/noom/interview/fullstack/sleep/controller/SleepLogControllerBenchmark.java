@@ -0,0 +1,190 @@
+package com.noom.interview.fullstack.sleep.controller;
+
+import com.noom.interview.fullstack.sleep.SleepApplication;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the application with platform and with virtual request threads, drives the create, last night and last 30-day
+ * averages endpoints with a closed-loop load at increasing concurrency, and logs the throughput and p99 latency of every
+ * step. The max sustainable RPS of an endpoint is the best throughput of the steps without errors and with a p99 below
+ * {@code -Dbenchmark.p99-limit-ms}. Run with {@code ./gradlew benchmark --tests '*SleepLogControllerBenchmark'}; the
+ * length of a step is set with {@code -Dbenchmark.seconds}.
+ */
+@Testcontainers
+@Tag("benchmark")
+@Slf4j
+class SleepLogControllerBenchmark {
+
+    private static final int SECONDS = Integer.getInteger("benchmark.seconds", 20);
+    private static final int P99_LIMIT_MILLIS = Integer.getInteger("benchmark.p99-limit-ms", 250);
+    private static final int[] CONCURRENCY = {16, 64, 256, 1024};
+    private static final int USERS = 10_000;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13-alpine")
+            .withDatabaseName("sleepdb")
+            .withUsername("sleep")
+            .withPassword("sleep")
+            .withCommand("postgres", "-c", "max_connections=200");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @Test
+    void maxSustainableThroughput_platformVersusVirtualThreads() throws Exception {
+        List<String> summary = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            String mode = virtual ? "virtual" : "platform";
+            try (ConfigurableApplicationContext context = start(virtual)) {
+                String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                List<UUID> users = seedUsers(baseUrl);
+
+                AtomicInteger next = new AtomicInteger();
+                summary.add(measure(mode, "POST /sleep-log", () -> createRequest(baseUrl, UUID.randomUUID())));
+                summary.add(measure(mode, "GET /sleep-log", () -> getRequest(baseUrl + "/sleep-log",
+                        users.get(next.getAndIncrement() % USERS))));
+                summary.add(measure(mode, "GET /sleep-log/averages/last-30-days", () -> getRequest(
+                        baseUrl + "/sleep-log/averages/last-30-days", users.get(next.getAndIncrement() % USERS))));
+            }
+        }
+
+        log.info(String.format("%-10s %-40s %14s %10s", "mode", "endpoint", "max RPS", "p99 ms"));
+        summary.forEach(log::info);
+    }
+
+    private ConfigurableApplicationContext start(boolean virtual) {
+        return new SpringApplicationBuilder(SleepApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + POSTGRES.getJdbcUrl(),
+                        "spring.datasource.username=" + POSTGRES.getUsername(),
+                        "spring.datasource.password=" + POSTGRES.getPassword(),
+                        "spring.flyway.enabled=true",
+                        "sleep.threads.virtual.enabled=" + virtual,
+                        // Measure the database path rather than the caches
+                        "sleep.cache.averages.type=none",
+                        "sleep.cache.today-log.type=none")
+                .run();
+    }
+
+    private List<UUID> seedUsers(String baseUrl) throws Exception {
+        List<UUID> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            UUID userId = UUID.randomUUID();
+            HttpResponse<Void> response = client.send(createRequest(baseUrl, userId), HttpResponse.BodyHandlers.discarding());
+            assertThat(response.statusCode()).isEqualTo(201);
+            users.add(userId);
+        }
+        return users;
+    }
+
+    /**
+     * Runs one step per concurrency level and returns the summary line of the best sustainable step
+     */
+    private String measure(String mode, String endpoint, Supplier<HttpRequest> requests) throws Exception {
+        double bestRps = 0;
+        long bestP99 = 0;
+        log.info(String.format("%-10s %-40s %12s %10s %10s %10s", mode, endpoint, "concurrency", "RPS", "p99 ms", "errors"));
+        for (int concurrency : CONCURRENCY) {
+            Step step = runStep(concurrency, requests);
+            log.info(String.format("%-10s %-40s %12d %10.0f %10d %10d",
+                    mode, endpoint, concurrency, step.rps, step.p99Millis, step.errors));
+            if (step.errors == 0 && step.p99Millis <= P99_LIMIT_MILLIS && step.rps > bestRps) {
+                bestRps = step.rps;
+                bestP99 = step.p99Millis;
+            }
+        }
+        return String.format("%-10s %-40s %14.0f %10d", mode, endpoint, bestRps, bestP99);
+    }
+
+    private Step runStep(int concurrency, Supplier<HttpRequest> requests) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(SECONDS).toNanos();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<long[]>> results = new ArrayList<>();
+            AtomicInteger errors = new AtomicInteger();
+            for (int worker = 0; worker < concurrency; worker++) {
+                results.add(workers.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        int status = client.send(requests.get(), HttpResponse.BodyHandlers.discarding()).statusCode();
+                        long elapsed = System.nanoTime() - start;
+                        if (status >= 400) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = elapsed;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+
+            long[] all = new long[0];
+            for (Future<long[]> result : results) {
+                long[] latencies = result.get();
+                int offset = all.length;
+                all = Arrays.copyOf(all, offset + latencies.length);
+                System.arraycopy(latencies, 0, all, offset, latencies.length);
+            }
+            Arrays.sort(all);
+            long p99 = all.length == 0 ? 0 : all[(int) Math.min(all.length - 1, Math.ceil(all.length * 0.99) - 1)];
+            return new Step((double) all.length / SECONDS, p99 / 1_000_000, errors.get());
+        }
+    }
+
+    private static HttpRequest createRequest(String baseUrl, UUID userId) {
+        Instant end = Instant.now();
+        String body = String.format("{\"timeInBedStart\":\"%s\",\"timeInBedEnd\":\"%s\",\"morningFeeling\":\"GOOD\"}",
+                end.minus(Duration.ofHours(8)), end);
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/sleep-log"))
+                .header("X-User-Id", userId.toString())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static HttpRequest getRequest(String url, UUID userId) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("X-User-Id", userId.toString())
+                .GET()
+                .build();
+    }
+
+    @Value
+    private static class Step {
+        double rps;
+        long p99Millis;
+        int errors;
+    }
+}
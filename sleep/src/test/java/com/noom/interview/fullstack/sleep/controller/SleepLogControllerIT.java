@@ -1,8 +1,14 @@
 package com.noom.interview.fullstack.sleep.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.noom.interview.fullstack.sleep.db.SqlBudget;
+import com.noom.interview.fullstack.sleep.model.SleepEntryPartition;
+import com.noom.interview.fullstack.sleep.repository.AppUserRepository;
+import com.noom.interview.fullstack.sleep.repository.SleepEntryPartitionRepository;
 import com.noom.interview.fullstack.sleep.repository.SleepEntityRepository;
+import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogBatchRequest;
 import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogRequest;
+import com.noom.interview.fullstack.sleep.web.requests.SleepLogBatchEntry;
 import com.noom.interview.fullstack.sleep.model.MorningFeeling;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -10,9 +16,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -20,9 +30,19 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -45,6 +65,8 @@ class SleepLogControllerIT {
         registry.add("spring.datasource.username", POSTGRES::getUsername);
         registry.add("spring.datasource.password", POSTGRES::getPassword);
         registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        // A second pool to the same server stands in for the replica
+        registry.add("sleep.datasource.replica.url", POSTGRES::getJdbcUrl);
         registry.add("spring.flyway.enabled", () -> "true");
         registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
     }
@@ -58,6 +80,18 @@ class SleepLogControllerIT {
     @Autowired
     SleepEntityRepository sleepEntityRepository;
 
+    @Autowired
+    AppUserRepository appUserRepository;
+
+    @Autowired
+    NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    SleepEntryPartitionRepository sleepEntryPartitionRepository;
+
     @Test
     void createsTodaysSleepLog_andSecondCreateReturnsConflict() throws Exception {
         UUID userId = UUID.randomUUID();
@@ -164,4 +198,621 @@ class SleepLogControllerIT {
                 .andExpect(jsonPath("$.morningFeelingFrequencies.OK.count").doesNotExist())
                 .andExpect(jsonPath("$.morningFeelingFrequencies.BAD.count").doesNotExist());
     }
+
+    @Test
+    void aggregateQuery_returnsSumsAndFeelingCounts_forCreatedEntry() throws Exception {
+        UUID userId = UUID.randomUUID();
+
+        CreateSleepLogRequest req = new CreateSleepLogRequest();
+        req.setTimeInBedStart(Instant.parse("2026-02-10T22:00:00Z"));
+        req.setTimeInBedEnd(Instant.parse("2026-02-11T06:00:00Z"));
+        req.setMorningFeeling(MorningFeeling.OK);
+
+        mockMvc.perform(post("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isCreated());
+
+        LocalDate todayUtc = LocalDate.now(ZoneOffset.UTC);
+        var totals = sleepEntityRepository.aggregateByUserIdAndSleepDateBetween(userId, todayUtc.minusDays(30), todayUtc);
+
+        assertThat(totals).isPresent();
+        assertThat(totals.get().getEntryCount()).isEqualTo(1);
+        assertThat(totals.get().getTotalTimeInBedMinutes()).isEqualTo(480);
+        assertThat(totals.get().getTotalBedTimeEpochSeconds()).isEqualTo(req.getTimeInBedStart().getEpochSecond());
+        assertThat(totals.get().getTotalWakeTimeEpochSeconds()).isEqualTo(req.getTimeInBedEnd().getEpochSecond());
+        assertThat(totals.get().getOkCount()).isEqualTo(1);
+        assertThat(totals.get().getGoodCount()).isZero();
+        assertThat(totals.get().getBadCount()).isZero();
+    }
+
+    @Test
+    void batchCreate_insertsNewNights_andReportsExistingOnes() throws Exception {
+        UUID userId = UUID.randomUUID();
+        LocalDate todayUtc = LocalDate.now(ZoneOffset.UTC);
+        LocalDate yesterday = todayUtc.minusDays(1);
+        Instant yesterdayMorning = yesterday.atTime(6, 0).toInstant(ZoneOffset.UTC);
+
+        CreateSleepLogBatchRequest request = new CreateSleepLogBatchRequest(List.of(
+                new SleepLogBatchEntry(yesterday, yesterdayMorning.minusSeconds(8 * 3600), yesterdayMorning, MorningFeeling.GOOD)
+        ));
+
+        mockMvc.perform(post("/sleep-log/batch")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"));
+
+        assertThat(sleepEntityRepository.findByUserIdAndSleepDate(userId, yesterday))
+                .hasValueSatisfying(entry -> assertThat(entry.getTotalTimeInBedMinutes()).isEqualTo(480));
+
+        mockMvc.perform(post("/sleep-log/batch")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(0))
+                .andExpect(jsonPath("$.alreadyExisting").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("ALREADY_EXISTS"));
+    }
+
+    @Test
+    void importSleepLogs_copiesCsvIntoSleepEntry_andSkipsExistingNights() throws Exception {
+        UUID userId = UUID.randomUUID();
+        LocalDate lastWeek = LocalDate.now(ZoneOffset.UTC).minusDays(7);
+        Instant wakeTime = lastWeek.atTime(7, 0).toInstant(ZoneOffset.UTC);
+
+        String csv = "user_id,sleep_date,time_in_bed_start,time_in_bed_end,morning_feeling\n" +
+                userId + "," + lastWeek + "," + wakeTime.minusSeconds(8 * 3600) + "," + wakeTime + ",BAD\n" +
+                userId + "," + lastWeek.minusDays(1) + ",not-an-instant," + wakeTime + ",OK\n";
+
+        mockMvc.perform(post("/admin/imports/sleep-logs")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(1));
+
+        assertThat(sleepEntityRepository.findByUserIdAndSleepDate(userId, lastWeek))
+                .hasValueSatisfying(entry -> assertThat(entry.getTotalTimeInBedMinutes()).isEqualTo(480));
+
+        mockMvc.perform(post("/admin/imports/sleep-logs")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(0))
+                .andExpect(jsonPath("$.skipped").value(1));
+    }
+
+    @Test
+    void exportSleepLogs_streamsWholeHistoryAsNdjson_oldestFirst() throws Exception {
+        UUID userId = UUID.randomUUID();
+        LocalDate todayUtc = LocalDate.now(ZoneOffset.UTC);
+
+        List<SleepLogBatchEntry> entries = new ArrayList<>();
+        for (int daysAgo = 1; daysAgo <= 3; daysAgo++) {
+            LocalDate sleepDate = todayUtc.minusDays(daysAgo);
+            Instant wakeTime = sleepDate.atTime(6, 0).toInstant(ZoneOffset.UTC);
+            entries.add(new SleepLogBatchEntry(sleepDate, wakeTime.minusSeconds(7 * 3600), wakeTime, MorningFeeling.OK));
+        }
+
+        mockMvc.perform(post("/sleep-log/batch")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateSleepLogBatchRequest(entries))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(3));
+
+        var result = mockMvc.perform(get("/sleep-log/export")
+                        .header("X-User-Id", userId.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readTree(lines[0]).get("sleepDate").asText()).isEqualTo(todayUtc.minusDays(3).toString());
+        assertThat(objectMapper.readTree(lines[2]).get("sleepDate").asText()).isEqualTo(todayUtc.minusDays(1).toString());
+        assertThat(objectMapper.readTree(lines[2]).get("totalTimeInBedMinutes").asInt()).isEqualTo(420);
+    }
+
+    @Test
+    void getSleepHistory_pagesBackwardsWithNextBefore() throws Exception {
+        UUID userId = UUID.randomUUID();
+        LocalDate todayUtc = LocalDate.now(ZoneOffset.UTC);
+
+        List<SleepLogBatchEntry> entries = new ArrayList<>();
+        for (int daysAgo = 1; daysAgo <= 5; daysAgo++) {
+            LocalDate sleepDate = todayUtc.minusDays(daysAgo);
+            Instant wakeTime = sleepDate.atTime(6, 0).toInstant(ZoneOffset.UTC);
+            entries.add(new SleepLogBatchEntry(sleepDate, wakeTime.minusSeconds(8 * 3600), wakeTime, MorningFeeling.GOOD));
+        }
+
+        mockMvc.perform(post("/sleep-log/batch")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateSleepLogBatchRequest(entries))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/sleep-log/history")
+                        .header("X-User-Id", userId.toString())
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].sleepDate").value(todayUtc.minusDays(1).toString()))
+                .andExpect(jsonPath("$.items[1].sleepDate").value(todayUtc.minusDays(2).toString()))
+                .andExpect(jsonPath("$.nextBefore").value(todayUtc.minusDays(2).toString()));
+
+        mockMvc.perform(get("/sleep-log/history")
+                        .header("X-User-Id", userId.toString())
+                        .param("before", todayUtc.minusDays(4).toString())
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].sleepDate").value(todayUtc.minusDays(5).toString()))
+                .andExpect(jsonPath("$.items[0].totalTimeInBedMinutes").value(480))
+                .andExpect(jsonPath("$.nextBefore").doesNotExist());
+    }
+
+    @Test
+    void getAverages_ofRange_matchesEntriesInRange_afterBatchAndSingleCreate() throws Exception {
+        UUID userId = UUID.randomUUID();
+        LocalDate todayUtc = LocalDate.now(ZoneOffset.UTC);
+
+        List<SleepLogBatchEntry> entries = new ArrayList<>();
+        for (int daysAgo = 1; daysAgo <= 90; daysAgo++) {
+            LocalDate sleepDate = todayUtc.minusDays(daysAgo);
+            Instant wakeTime = sleepDate.atTime(6, 0).toInstant(ZoneOffset.UTC);
+            long hoursInBed = daysAgo <= 7 ? 8 : 6;
+            entries.add(new SleepLogBatchEntry(sleepDate, wakeTime.minusSeconds(hoursInBed * 3600), wakeTime,
+                    daysAgo <= 7 ? MorningFeeling.GOOD : MorningFeeling.BAD));
+        }
+
+        mockMvc.perform(post("/sleep-log/batch")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateSleepLogBatchRequest(entries))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(90));
+
+        CreateSleepLogRequest tonight = new CreateSleepLogRequest();
+        tonight.setTimeInBedStart(Instant.now().minusSeconds(8 * 3600));
+        tonight.setTimeInBedEnd(Instant.now());
+        tonight.setMorningFeeling(MorningFeeling.GOOD);
+
+        mockMvc.perform(post("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(tonight)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/sleep-log/averages")
+                        .header("X-User-Id", userId.toString())
+                        .param("from", todayUtc.minusDays(7).toString())
+                        .param("to", todayUtc.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.averageTimeInBedMinutes").value(480))
+                .andExpect(jsonPath("$.morningFeelingFrequencies.GOOD.count").value(8))
+                .andExpect(jsonPath("$.morningFeelingFrequencies.BAD.count").doesNotExist());
+
+        mockMvc.perform(get("/sleep-log/averages")
+                        .header("X-User-Id", userId.toString())
+                        .param("from", todayUtc.minusDays(90).toString())
+                        .param("to", todayUtc.minusDays(8).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.averageTimeInBedMinutes").value(360))
+                .andExpect(jsonPath("$.morningFeelingFrequencies.BAD.count").value(83));
+    }
+
+    @Test
+    void getSleepAnalytics_aggregatesAllUsersByDay() throws Exception {
+        LocalDate firstNight = LocalDate.of(2001, 3, 1);
+        for (int user = 0; user < 3; user++) {
+            List<SleepLogBatchEntry> entries = new ArrayList<>();
+            for (int day = 0; day < 40; day++) {
+                LocalDate sleepDate = firstNight.plusDays(day);
+                Instant wakeTime = sleepDate.atTime(6, 0).toInstant(ZoneOffset.UTC);
+                entries.add(new SleepLogBatchEntry(sleepDate, wakeTime.minusSeconds((6 + user) * 3600L), wakeTime,
+                        user == 0 ? MorningFeeling.BAD : MorningFeeling.GOOD));
+            }
+            mockMvc.perform(post("/sleep-log/batch")
+                            .header("X-User-Id", UUID.randomUUID().toString())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new CreateSleepLogBatchRequest(entries))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.created").value(40));
+        }
+
+        mockMvc.perform(get("/admin/analytics/sleep")
+                        .param("from", "2001-02-25")
+                        .param("to", "2001-04-14"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entryCount").value(120))
+                .andExpect(jsonPath("$.averageTimeInBedMinutes").value(420))
+                .andExpect(jsonPath("$.morningFeelingFrequencies.BAD.count").value(40))
+                .andExpect(jsonPath("$.morningFeelingFrequencies.GOOD.count").value(80))
+                .andExpect(jsonPath("$.days.length()").value(40))
+                .andExpect(jsonPath("$.days[0].sleepDate").value("2001-03-01"))
+                .andExpect(jsonPath("$.days[0].entryCount").value(3))
+                .andExpect(jsonPath("$.days[39].sleepDate").value("2001-04-09"));
+
+        mockMvc.perform(get("/admin/analytics/sleep")
+                        .param("from", "2001-04-14")
+                        .param("to", "2001-02-25"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void concurrentCreatesOfSameNight_haveExactlyOneWinner() throws Exception {
+        int requests = 16;
+        UUID userId = UUID.randomUUID();
+
+        CreateSleepLogRequest request = new CreateSleepLogRequest();
+        request.setTimeInBedStart(Instant.now().minusSeconds(7 * 3600));
+        request.setTimeInBedEnd(Instant.now());
+        request.setMorningFeeling(MorningFeeling.OK);
+        String body = objectMapper.writeValueAsString(request);
+
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        try {
+            for (int i = 0; i < requests; i++) {
+                Callable<Integer> create = () -> {
+                    start.await();
+                    return mockMvc.perform(post("/sleep-log")
+                                    .header("X-User-Id", userId.toString())
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(body))
+                            .andReturn()
+                            .getResponse()
+                            .getStatus();
+                };
+                statuses.add(executor.submit(create));
+            }
+            start.countDown();
+
+            List<Integer> actual = new ArrayList<>();
+            for (Future<Integer> status : statuses) {
+                actual.add(status.get(30, TimeUnit.SECONDS));
+            }
+            assertThat(actual).containsOnly(201, 409);
+            assertThat(actual).filteredOn(status -> status == 201).hasSize(1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(sleepEntityRepository.findByUserIdAndSleepDate(userId, LocalDate.now(ZoneOffset.UTC))).isPresent();
+        mockMvc.perform(get("/sleep-log/averages")
+                        .header("X-User-Id", userId.toString())
+                        .param("from", LocalDate.now(ZoneOffset.UTC).toString())
+                        .param("to", LocalDate.now(ZoneOffset.UTC).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.morningFeelingFrequencies.OK.count").value(1));
+    }
+
+    @Test
+    void concurrentBatchesAndCreate_keepAggregatesEqualToEntries() throws Exception {
+        int batches = 8;
+        int nightsPerBatch = 5;
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        List<String> bodies = new ArrayList<>();
+        for (int batch = 0; batch < batches; batch++) {
+            List<SleepLogBatchEntry> entries = new ArrayList<>();
+            for (int night = 0; night < nightsPerBatch; night++) {
+                LocalDate sleepDate = today.minusDays(1 + night * batches + batch);
+                Instant morning = sleepDate.atTime(6, 0).toInstant(ZoneOffset.UTC);
+                entries.add(new SleepLogBatchEntry(sleepDate, morning.minusSeconds((6 + night) * 3600L), morning,
+                        MorningFeeling.values()[(batch + night) % MorningFeeling.values().length]));
+            }
+            bodies.add(objectMapper.writeValueAsString(new CreateSleepLogBatchRequest(entries)));
+        }
+
+        CreateSleepLogRequest request = new CreateSleepLogRequest();
+        request.setTimeInBedStart(Instant.now().minusSeconds(8 * 3600));
+        request.setTimeInBedEnd(Instant.now());
+        request.setMorningFeeling(MorningFeeling.GOOD);
+        String createBody = objectMapper.writeValueAsString(request);
+
+        ExecutorService executor = Executors.newFixedThreadPool(batches + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        try {
+            for (String body : bodies) {
+                statuses.add(executor.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(post("/sleep-log/batch")
+                                    .header("X-User-Id", userId.toString())
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(body))
+                            .andReturn().getResponse().getStatus();
+                }));
+            }
+            statuses.add(executor.submit(() -> {
+                start.await();
+                return mockMvc.perform(post("/sleep-log")
+                                .header("X-User-Id", userId.toString())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(createBody))
+                        .andReturn().getResponse().getStatus();
+            }));
+            start.countDown();
+
+            List<Integer> actual = new ArrayList<>();
+            for (Future<Integer> status : statuses) {
+                actual.add(status.get(30, TimeUnit.SECONDS));
+            }
+            assertThat(actual).containsOnly(200, 201);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        MapSqlParameterSource user = new MapSqlParameterSource("userId", userId);
+        assertThat(namedParameterJdbcTemplate.queryForObject(
+                "SELECT count(*) FROM sleep_entry WHERE user_id = :userId", user, Long.class))
+                .isEqualTo(batches * nightsPerBatch + 1L);
+        // Every running total equals the entries up to its night, and there is one row per night
+        assertThat(namedParameterJdbcTemplate.queryForObject(
+                "SELECT count(*) FROM sleep_prefix_sum p WHERE p.user_id = :userId AND (p.entry_count, p.total_time_in_bed_minutes) <> " +
+                        "(SELECT count(*), sum(e.total_time_in_bed_minutes) FROM sleep_entry e " +
+                        "WHERE e.user_id = p.user_id AND e.sleep_date <= p.sleep_date)", user, Long.class))
+                .isZero();
+        assertThat(namedParameterJdbcTemplate.queryForObject(
+                "SELECT count(*) FROM sleep_prefix_sum WHERE user_id = :userId", user, Long.class))
+                .isEqualTo(batches * nightsPerBatch + 1L);
+        assertThat(namedParameterJdbcTemplate.queryForObject(
+                "SELECT count(*) FROM sleep_aggregate a WHERE a.user_id = :userId AND a.window_end = CAST(:today AS date) " +
+                        "AND (a.entry_count, a.total_time_in_bed_minutes) = " +
+                        "(SELECT count(*), sum(e.total_time_in_bed_minutes) FROM sleep_entry e " +
+                        "WHERE e.user_id = a.user_id AND e.sleep_date BETWEEN a.window_start AND a.window_end)",
+                user.addValue("today", today), Long.class))
+                .isEqualTo(1L);
+    }
+
+    @Test
+    void createSlidesStaleAggregate_toTotalsOfEntriesInNewWindow() throws Exception {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        List<SleepLogBatchEntry> entries = new ArrayList<>();
+        for (int night = 1; night <= 40; night++) {
+            LocalDate sleepDate = today.minusDays(night);
+            Instant morning = sleepDate.atTime(6, 0).toInstant(ZoneOffset.UTC);
+            entries.add(new SleepLogBatchEntry(sleepDate, morning.minusSeconds((5 + night % 4) * 3600L), morning,
+                    MorningFeeling.values()[night % MorningFeeling.values().length]));
+        }
+        mockMvc.perform(post("/sleep-log/batch")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateSleepLogBatchRequest(entries))))
+                .andExpect(status().isOk());
+
+        // The window as it was when the user last logged three days ago
+        MapSqlParameterSource user = new MapSqlParameterSource("userId", userId).addValue("today", today);
+        namedParameterJdbcTemplate.update("UPDATE sleep_aggregate a SET " +
+                "window_start = CAST(:today AS date) - 33, window_end = CAST(:today AS date) - 3, " +
+                "(entry_count, total_time_in_bed_minutes, bad_count, ok_count, good_count) = " +
+                "(SELECT count(*), coalesce(sum(e.total_time_in_bed_minutes), 0), " +
+                "count(*) FILTER (WHERE e.morning_feeling = 'BAD'), count(*) FILTER (WHERE e.morning_feeling = 'OK'), " +
+                "count(*) FILTER (WHERE e.morning_feeling = 'GOOD') FROM sleep_entry e " +
+                "WHERE e.user_id = a.user_id AND e.sleep_date BETWEEN CAST(:today AS date) - 33 AND CAST(:today AS date) - 3) " +
+                "WHERE a.user_id = :userId", user);
+
+        CreateSleepLogRequest request = new CreateSleepLogRequest();
+        request.setTimeInBedStart(Instant.now().minusSeconds(8 * 3600));
+        request.setTimeInBedEnd(Instant.now());
+        request.setMorningFeeling(MorningFeeling.GOOD);
+        mockMvc.perform(post("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        assertThat(namedParameterJdbcTemplate.queryForObject(
+                "SELECT count(*) FROM sleep_aggregate a WHERE a.user_id = :userId " +
+                        "AND a.window_start = CAST(:today AS date) - 30 AND a.window_end = CAST(:today AS date) " +
+                        "AND (a.entry_count, a.total_time_in_bed_minutes, a.bad_count, a.ok_count, a.good_count) = " +
+                        "(SELECT count(*), sum(e.total_time_in_bed_minutes), " +
+                        "count(*) FILTER (WHERE e.morning_feeling = 'BAD'), count(*) FILTER (WHERE e.morning_feeling = 'OK'), " +
+                        "count(*) FILTER (WHERE e.morning_feeling = 'GOOD') FROM sleep_entry e " +
+                        "WHERE e.user_id = a.user_id AND e.sleep_date BETWEEN a.window_start AND a.window_end)",
+                user, Long.class))
+                .isEqualTo(1L);
+    }
+
+    @Test
+    void createsSleepLog_whenKnownUserWasDeleted() throws Exception {
+        UUID userId = UUID.randomUUID();
+
+        CreateSleepLogRequest request = new CreateSleepLogRequest();
+        request.setTimeInBedStart(Instant.now().minusSeconds(8 * 3600));
+        request.setTimeInBedEnd(Instant.now());
+        request.setMorningFeeling(MorningFeeling.GOOD);
+        String body = objectMapper.writeValueAsString(request);
+
+        mockMvc.perform(post("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated());
+
+        appUserRepository.deleteById(userId);
+        assertThat(appUserRepository.existsById(userId)).isFalse();
+
+        mockMvc.perform(post("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated());
+
+        assertThat(appUserRepository.existsById(userId)).isTrue();
+        assertThat(sleepEntityRepository.findByUserIdAndSleepDate(userId, LocalDate.now(ZoneOffset.UTC))).isPresent();
+    }
+
+    /**
+     * Creating the first log of a new user runs the entry insert, which creates the user and takes its lock, and the
+     * statement adding the entry to the aggregate and the running totals. The reads that follow are served by the
+     * caches or by the single aggregate row, read once for the ETag version and once for the averages.
+     */
+    @Test
+    void staysWithinStatementBudgets() throws Exception {
+        UUID userId = UUID.randomUUID();
+
+        CreateSleepLogRequest request = new CreateSleepLogRequest();
+        request.setTimeInBedStart(Instant.parse("2026-02-10T22:00:00Z"));
+        request.setTimeInBedEnd(Instant.parse("2026-02-11T06:00:00Z"));
+        request.setMorningFeeling(MorningFeeling.OK);
+
+        mockMvc.perform(post("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(SqlBudget.statementsAtMost(2));
+
+        mockMvc.perform(get("/sleep-log").header("X-User-Id", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(SqlBudget.statementsAtMost(1));
+
+        String etag = mockMvc.perform(get("/sleep-log/averages/last-30-days").header("X-User-Id", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(SqlBudget.statementsAtMost(2))
+                .andExpect(SqlBudget.hibernateStatementsAtMost(2))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/sleep-log/averages/last-30-days").header("X-User-Id", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(SqlBudget.statementsAtMost(0));
+
+        mockMvc.perform(get("/sleep-log/averages/last-30-days")
+                        .header("X-User-Id", userId.toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(SqlBudget.statementsAtMost(0));
+    }
+
+    @Test
+    void changesAveragesEtag_whenNightIsLogged() throws Exception {
+        UUID userId = UUID.randomUUID();
+        LocalDate twoDaysAgo = LocalDate.now(ZoneOffset.UTC).minusDays(2);
+        Instant twoDaysAgoMorning = twoDaysAgo.atTime(6, 0).toInstant(ZoneOffset.UTC);
+
+        CreateSleepLogBatchRequest batch = new CreateSleepLogBatchRequest(List.of(
+                new SleepLogBatchEntry(twoDaysAgo, twoDaysAgoMorning.minusSeconds(8 * 3600), twoDaysAgoMorning, MorningFeeling.OK)
+        ));
+        mockMvc.perform(post("/sleep-log/batch")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk());
+
+        String etag = mockMvc.perform(get("/sleep-log/averages/last-30-days").header("X-User-Id", userId.toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        CreateSleepLogRequest request = new CreateSleepLogRequest();
+        request.setTimeInBedStart(Instant.parse("2026-02-10T22:00:00Z"));
+        request.setTimeInBedEnd(Instant.parse("2026-02-11T06:00:00Z"));
+        request.setMorningFeeling(MorningFeeling.GOOD);
+        mockMvc.perform(post("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/sleep-log/averages/last-30-days")
+                        .header("X-User-Id", userId.toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.morningFeelingFrequencies.GOOD.count").value(1));
+    }
+
+    @Test
+    void routesReadOnlyTransactionsToReplicaPool() throws Exception {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        assertThat(readOnly.execute(status -> applicationName())).isEqualTo("sleep-replica");
+        assertThat(readWrite.execute(status -> applicationName())).isEqualTo("sleep-primary");
+        assertThat(applicationName()).isEqualTo("sleep-primary");
+
+        mockMvc.perform(get("/admin/pools"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['sleep-primary'].maximumPoolSize").value(10))
+                .andExpect(jsonPath("$['sleep-replica'].totalConnections").isNumber());
+    }
+
+    @Test
+    void partitionsSleepEntryByMonth_andPrunesRangeQueries() {
+        LocalDate currentMonth = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+
+        assertThat(sleepEntryPartitionRepository.findPartitions())
+                .extracting(SleepEntryPartition::getName)
+                .contains("sleep_entry_legacy", partitionName(currentMonth), partitionName(currentMonth.plusMonths(3)));
+        assertThat(sleepEntryPartitionRepository.findPartitions())
+                .filteredOn(partition -> partition.getName().equals("sleep_entry_legacy"))
+                .singleElement()
+                .satisfies(legacy -> {
+                    assertThat(legacy.getFrom()).isNull();
+                    assertThat(legacy.getTo()).isBeforeOrEqualTo(currentMonth);
+                });
+
+        String plan = String.join("\n", namedParameterJdbcTemplate.getJdbcOperations().queryForList(
+                "EXPLAIN SELECT * FROM sleep_entry WHERE user_id = ? AND sleep_date BETWEEN ? AND ?",
+                String.class, UUID.randomUUID(), currentMonth, currentMonth.plusDays(6)));
+
+        assertThat(plan)
+                .contains(partitionName(currentMonth))
+                .doesNotContain("sleep_entry_legacy")
+                .doesNotContain(partitionName(currentMonth.plusMonths(1)));
+    }
+
+    @Test
+    void keepsEntriesWithoutPartitionInDefault_andMovesThemIntoTheirMonthOnceCreated() {
+        UUID userId = UUID.randomUUID();
+        LocalDate month = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1).plusMonths(12);
+        Instant morning = month.plusDays(4).atTime(6, 0).toInstant(ZoneOffset.UTC);
+        MapSqlParameterSource entry = new MapSqlParameterSource("userId", userId)
+                .addValue("sleepDate", month.plusDays(4))
+                .addValue("start", morning.minusSeconds(8 * 3600).atOffset(ZoneOffset.UTC))
+                .addValue("end", morning.atOffset(ZoneOffset.UTC));
+        String partitionOfEntry = "SELECT CAST(tableoid AS regclass)::text FROM sleep_entry WHERE user_id = :userId";
+
+        namedParameterJdbcTemplate.update("INSERT INTO app_user (id) VALUES (:userId)", entry);
+        namedParameterJdbcTemplate.update("INSERT INTO sleep_entry (user_id, sleep_date, time_in_bed_start, " +
+                "time_in_bed_end, total_time_in_bed_minutes, morning_feeling) " +
+                "VALUES (:userId, :sleepDate, :start, :end, 480, 'GOOD')", entry);
+
+        assertThat(namedParameterJdbcTemplate.queryForObject(partitionOfEntry, entry, String.class))
+                .isEqualTo("sleep_entry_default");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> sleepEntryPartitionRepository.createMonthlyPartition(month));
+
+        assertThat(namedParameterJdbcTemplate.queryForObject(partitionOfEntry, entry, String.class))
+                .isEqualTo(partitionName(month));
+        assertThat(namedParameterJdbcTemplate.queryForObject(
+                "SELECT count(*) FROM sleep_entry_default WHERE sleep_date >= :sleepDate", entry, Long.class))
+                .isZero();
+    }
+
+    private static String partitionName(LocalDate monthStart) {
+        return String.format("sleep_entry_p%d_%02d", monthStart.getYear(), monthStart.getMonthValue());
+    }
+
+    private String applicationName() {
+        return namedParameterJdbcTemplate.getJdbcOperations()
+                .queryForObject("SELECT current_setting('application_name')", String.class);
+    }
 }
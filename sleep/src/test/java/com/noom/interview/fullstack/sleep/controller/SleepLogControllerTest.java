@@ -1,18 +1,30 @@
 package com.noom.interview.fullstack.sleep.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.noom.interview.fullstack.sleep.exception.MissingUserIdHeaderException;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.protobuf.CodedOutputStream;
 import com.noom.interview.fullstack.sleep.exception.SleepLogAlreadyExistsException;
-import com.noom.interview.fullstack.sleep.filter.UserContext;
 import com.noom.interview.fullstack.sleep.filter.UserContextFilter;
 import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.service.SleepLogExportService;
 import com.noom.interview.fullstack.sleep.service.SleepLogService;
-import com.noom.interview.fullstack.sleep.service.UserService;
 import com.noom.interview.fullstack.sleep.web.controller.SleepLogController;
 import com.noom.interview.fullstack.sleep.web.exception.ApiExceptionHandler;
+import com.noom.interview.fullstack.sleep.web.protobuf.SleepLogProtobufHttpMessageConverter;
+import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogBatchRequest;
 import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogRequest;
+import com.noom.interview.fullstack.sleep.web.requests.SleepLogBatchEntry;
 import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogBatchResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogHistoryResponse;
 import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import com.noom.interview.fullstack.sleep.web.support.ConditionalResponses;
+import com.noom.interview.fullstack.sleep.web.support.WebMvcConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -20,24 +32,38 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import javax.persistence.EntityNotFoundException;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = SleepLogController.class)
-@Import({UserContextFilter.class, UserContext.class, ApiExceptionHandler.class})
+@Import({UserContextFilter.class, WebMvcConfiguration.class, ConditionalResponses.class, ApiExceptionHandler.class,
+        SimpleMeterRegistry.class})
 class SleepLogControllerTest {
 
     @Autowired
@@ -46,12 +72,15 @@ class SleepLogControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
-    @MockBean
-    private UserService userService;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @MockBean
     private SleepLogService sleepLogService;
 
+    @MockBean
+    private SleepLogExportService sleepLogExportService;
+
     @Test
     void createSleepLog_returns201_whenValid() throws Exception {
         UUID userId = UUID.randomUUID();
@@ -70,11 +99,11 @@ class SleepLogControllerTest {
                 .morningFeeling(MorningFeeling.GOOD)
                 .build();
 
-        when(userService.getCurrentUserId()).thenReturn(userId);
         when(sleepLogService.createLastNightLog(eq(userId), any(CreateSleepLogRequest.class)))
                 .thenReturn(response);
 
         mockMvc.perform(post("/sleep-log")
+                        .header("X-User-Id", userId.toString())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isCreated())
@@ -84,6 +113,81 @@ class SleepLogControllerTest {
                 .andExpect(jsonPath("$.morningFeeling").value("GOOD"));
     }
 
+    @Test
+    void getLastNight_returnsCbor_whenAccepted() throws Exception {
+        UUID userId = UUID.randomUUID();
+        when(sleepLogService.getLastNightLog(userId)).thenReturn(lastNightLog());
+
+        byte[] body = mockMvc.perform(get("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode log = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertThat(log.get("timeInBedStart").asText()).isEqualTo("2026-02-10T22:00:00Z");
+        assertThat(log.get("totalTimeInBedMinutes").asInt()).isEqualTo(480);
+    }
+
+    @Test
+    void createSleepLog_acceptsSmileBody() throws Exception {
+        UUID userId = UUID.randomUUID();
+        CreateSleepLogRequest request = new CreateSleepLogRequest(
+                Instant.parse("2026-02-10T22:00:00Z"), Instant.parse("2026-02-11T06:00:00Z"), MorningFeeling.GOOD);
+        when(sleepLogService.createLastNightLog(userId, request)).thenReturn(lastNightLog());
+
+        mockMvc.perform(post("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .contentType("application/x-jackson-smile")
+                        .content(new ObjectMapper(new SmileFactory()).findAndRegisterModules()
+                                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                                .writeValueAsBytes(request)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void createSleepLog_readsAndWritesProtobuf() throws Exception {
+        UUID userId = UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(body);
+        output.writeInt64(1, Instant.parse("2026-02-10T22:00:00Z").toEpochMilli());
+        output.writeInt64(2, Instant.parse("2026-02-11T06:00:00Z").toEpochMilli());
+        output.writeEnum(3, 3);
+        output.flush();
+        CreateSleepLogRequest expected = new CreateSleepLogRequest(
+                Instant.parse("2026-02-10T22:00:00Z"), Instant.parse("2026-02-11T06:00:00Z"), MorningFeeling.GOOD);
+        when(sleepLogService.createLastNightLog(userId, expected)).thenReturn(lastNightLog());
+
+        byte[] response = mockMvc.perform(post("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(SleepLogProtobufHttpMessageConverter.PROTOBUF)
+                        .accept(SleepLogProtobufHttpMessageConverter.PROTOBUF)
+                        .content(body.toByteArray()))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(SleepLogProtobufHttpMessageConverter.PROTOBUF))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(response).hasSizeLessThan(objectMapper.writeValueAsBytes(lastNightLog()).length / 3);
+    }
+
+    @Test
+    void createSleepLog_returns400_whenProtobufBodyMissesFields() throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(body);
+        output.writeEnum(3, 1);
+        output.flush();
+
+        mockMvc.perform(post("/sleep-log")
+                        .header("X-User-Id", UUID.randomUUID().toString())
+                        .contentType(SleepLogProtobufHttpMessageConverter.PROTOBUF)
+                        .content(body.toByteArray()))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(sleepLogService);
+    }
+
     @Test
     void createSleepLog_returns400_whenBodyInvalid() throws Exception {
         CreateSleepLogRequest request = new CreateSleepLogRequest();
@@ -101,9 +205,6 @@ class SleepLogControllerTest {
         request.setTimeInBedEnd(Instant.parse("2026-02-11T06:00:00Z"));
         request.setMorningFeeling(MorningFeeling.OK);
 
-        when(userService.getCurrentUserId())
-                .thenThrow(new MissingUserIdHeaderException("Missing X-User-Id header"));
-
         mockMvc.perform(post("/sleep-log")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
@@ -119,14 +220,67 @@ class SleepLogControllerTest {
         request.setTimeInBedEnd(Instant.parse("2026-02-11T06:00:00Z"));
         request.setMorningFeeling(MorningFeeling.BAD);
 
-        when(userService.getCurrentUserId()).thenReturn(userId);
         when(sleepLogService.createLastNightLog(eq(userId), any(CreateSleepLogRequest.class)))
                 .thenThrow(new SleepLogAlreadyExistsException());
 
         mockMvc.perform(post("/sleep-log")
+                        .header("X-User-Id", userId.toString())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isConflict());
+
+        assertThat(meterRegistry.get("sleep.api.errors")
+                .tag("status", "409")
+                .tag("exception", "SleepLogAlreadyExistsException")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void createSleepLogs_returns200_withItemStatuses() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID createdId = UUID.randomUUID();
+
+        CreateSleepLogBatchRequest request = new CreateSleepLogBatchRequest(List.of(
+                new SleepLogBatchEntry(LocalDate.parse("2026-02-10"), Instant.parse("2026-02-09T22:00:00Z"),
+                        Instant.parse("2026-02-10T06:00:00Z"), MorningFeeling.GOOD),
+                new SleepLogBatchEntry(LocalDate.parse("2026-02-11"), Instant.parse("2026-02-10T22:00:00Z"),
+                        Instant.parse("2026-02-11T06:00:00Z"), MorningFeeling.OK)
+        ));
+
+        SleepLogBatchResponse response = SleepLogBatchResponse.builder()
+                .created(1)
+                .alreadyExisting(1)
+                .rejected(0)
+                .items(List.of(
+                        SleepLogBatchResponse.ItemResult.builder().index(0).sleepDate(LocalDate.parse("2026-02-10"))
+                                .status(SleepLogBatchResponse.ItemStatus.CREATED).id(createdId).build(),
+                        SleepLogBatchResponse.ItemResult.builder().index(1).sleepDate(LocalDate.parse("2026-02-11"))
+                                .status(SleepLogBatchResponse.ItemStatus.ALREADY_EXISTS).build()
+                ))
+                .build();
+
+        when(sleepLogService.createLogs(eq(userId), any(CreateSleepLogBatchRequest.class))).thenReturn(response);
+
+        mockMvc.perform(post("/sleep-log/batch")
+                        .header("X-User-Id", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.alreadyExisting").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[0].id").value(createdId.toString()))
+                .andExpect(jsonPath("$.items[1].status").value("ALREADY_EXISTS"));
+    }
+
+    @Test
+    void createSleepLogs_returns400_whenNoEntries() throws Exception {
+        mockMvc.perform(post("/sleep-log/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateSleepLogBatchRequest(List.of()))))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(sleepLogService);
     }
 
     @Test
@@ -142,10 +296,10 @@ class SleepLogControllerTest {
                 .morningFeeling(com.noom.interview.fullstack.sleep.model.MorningFeeling.GOOD)
                 .build();
 
-        when(userService.getCurrentUserId()).thenReturn(userId);
         when(sleepLogService.getLastNightLog(userId)).thenReturn(response);
 
         mockMvc.perform(get("/sleep-log")
+                        .header("X-User-Id", userId.toString())
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
@@ -158,23 +312,111 @@ class SleepLogControllerTest {
     void getLastNight_returns404_whenMissing() throws Exception {
         UUID userId = UUID.randomUUID();
 
-        when(userService.getCurrentUserId()).thenReturn(userId);
         when(sleepLogService.getLastNightLog(userId))
                 .thenThrow(new EntityNotFoundException("Sleep log for today not found"));
 
-        mockMvc.perform(get("/sleep-log"))
+        mockMvc.perform(get("/sleep-log")
+                        .header("X-User-Id", userId.toString()))
                 .andExpect(status().isNotFound());
     }
 
     @Test
     void getLastNight_returns400_whenUserHeaderMissing() throws Exception {
-        when(userService.getCurrentUserId())
-                .thenThrow(new MissingUserIdHeaderException("Missing X-User-Id header"));
-
         mockMvc.perform(get("/sleep-log"))
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void getLastNight_returns400_whenUserHeaderMalformed() throws Exception {
+        mockMvc.perform(get("/sleep-log")
+                        .header("X-User-Id", "not-a-uuid"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(sleepLogService);
+    }
+
+    @Test
+    void getSleepHistory_returns200_withPage() throws Exception {
+        UUID userId = UUID.randomUUID();
+        LocalDate before = LocalDate.parse("2026-02-11");
+
+        SleepLogHistoryResponse response = SleepLogHistoryResponse.builder()
+                .items(List.of(SleepLogResponse.builder()
+                        .id(UUID.randomUUID())
+                        .sleepDate(LocalDate.parse("2026-02-10"))
+                        .totalTimeInBedMinutes(420)
+                        .morningFeeling(MorningFeeling.OK)
+                        .build()))
+                .nextBefore(LocalDate.parse("2026-02-10"))
+                .build();
+
+        when(sleepLogService.getHistory(userId, before, 1)).thenReturn(response);
+
+        mockMvc.perform(get("/sleep-log/history")
+                        .header("X-User-Id", userId.toString())
+                        .param("before", "2026-02-11")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].sleepDate").value("2026-02-10"))
+                .andExpect(jsonPath("$.items[0].totalTimeInBedMinutes").value(420))
+                .andExpect(jsonPath("$.nextBefore").value("2026-02-10"));
+    }
+
+    @Test
+    void getSleepHistory_usesDefaults_whenParamsMissing() throws Exception {
+        UUID userId = UUID.randomUUID();
+
+        when(sleepLogService.getHistory(userId, null, 30))
+                .thenReturn(SleepLogHistoryResponse.builder().items(List.of()).build());
+
+        mockMvc.perform(get("/sleep-log/history")
+                        .header("X-User-Id", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty());
+    }
+
+    @Test
+    void getSleepHistory_returns400_whenBeforeInvalid() throws Exception {
+
+        mockMvc.perform(get("/sleep-log/history")
+                        .header("X-User-Id", UUID.randomUUID().toString())
+                        .param("before", "yesterday"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(sleepLogService);
+    }
+
+    @Test
+    void exportSleepLogs_streamsNdjson() throws Exception {
+        UUID userId = UUID.randomUUID();
+        String ndjson = "{\"sleepDate\":\"2026-02-10\"}\n{\"sleepDate\":\"2026-02-11\"}\n";
+
+        when(sleepLogExportService.exportLogs(eq(userId), any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(1);
+            output.write(ndjson.getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/sleep-log/export")
+                        .header("X-User-Id", userId.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"sleep-log.ndjson\""))
+                .andExpect(content().string(ndjson));
+    }
+
+    @Test
+    void exportSleepLogs_returns400_whenUserHeaderMissing() throws Exception {
+        mockMvc.perform(get("/sleep-log/export"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(sleepLogExportService);
+    }
+
     @Test
     void getLast30DayAverages_returns200() throws Exception {
         UUID userId = UUID.randomUUID();
@@ -196,10 +438,10 @@ class SleepLogControllerTest {
                 .morningFeelingFrequencies(freq)
                 .build();
 
-        when(userService.getCurrentUserId()).thenReturn(userId);
         when(sleepLogService.getLast30DayAverages(eq(userId))).thenReturn(response);
 
         mockMvc.perform(get("/sleep-log/averages/last-30-days")
+                        .header("X-User-Id", userId.toString())
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
@@ -212,11 +454,145 @@ class SleepLogControllerTest {
     }
 
     @Test
-    void getLast30DayAverages_returns400_whenUserMissing() throws Exception {
-        when(userService.getCurrentUserId())
-                .thenThrow(new MissingUserIdHeaderException("Missing X-User-Id header"));
+    void getAverages_returns200_forRange() throws Exception {
+        UUID userId = UUID.randomUUID();
+        LocalDate from = LocalDate.of(2025, 2, 12);
+        LocalDate to = LocalDate.of(2026, 2, 11);
+
+        SleepLogAveragesResponse response = SleepLogAveragesResponse.builder()
+                .rangeStart(from)
+                .rangeEnd(to)
+                .averageTimeInBedMinutes(431)
+                .morningFeelingFrequencies(Map.of())
+                .build();
+
+        when(sleepLogService.getAverages(userId, from, to)).thenReturn(response);
+
+        mockMvc.perform(get("/sleep-log/averages")
+                        .header("X-User-Id", userId.toString())
+                        .param("from", "2025-02-12")
+                        .param("to", "2026-02-11"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rangeStart").value("2025-02-12"))
+                .andExpect(jsonPath("$.rangeEnd").value("2026-02-11"))
+                .andExpect(jsonPath("$.averageTimeInBedMinutes").value(431));
+    }
+
+    @Test
+    void getAverages_returns400_whenRangeMissing() throws Exception {
+
+        mockMvc.perform(get("/sleep-log/averages")
+                        .header("X-User-Id", UUID.randomUUID().toString())
+                        .param("from", "2025-02-12"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(sleepLogService);
+    }
 
+    @Test
+    void getLast30DayAverages_returns400_whenUserMissing() throws Exception {
         mockMvc.perform(get("/sleep-log/averages/last-30-days"))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void getLast30DayAverages_returns304_withoutComputingAverages_whenEtagMatches() throws Exception {
+        UUID userId = UUID.randomUUID();
+        when(sleepLogService.getLast30DayAveragesVersion(userId)).thenReturn(Optional.of("20495-5f3a"));
+        when(sleepLogService.getLast30DayAverages(userId)).thenReturn(SleepLogAveragesResponse.builder()
+                .rangeStart(LocalDate.of(2026, 1, 13))
+                .rangeEnd(LocalDate.of(2026, 2, 11))
+                .morningFeelingFrequencies(Map.of())
+                .build());
+
+        String etag = mockMvc.perform(get("/sleep-log/averages/last-30-days")
+                        .header("X-User-Id", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", containsString("private")))
+                .andExpect(header().string("Vary", containsString("Accept-Encoding")))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(etag).startsWith("\"averages-20495-5f3a-");
+
+        mockMvc.perform(get("/sleep-log/averages/last-30-days")
+                        .header("X-User-Id", userId.toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        verify(sleepLogService, times(1)).getLast30DayAverages(userId);
+    }
+
+    @Test
+    void getLast30DayAverages_returns200WithoutEtag_whenUserNeverLogged() throws Exception {
+        UUID userId = UUID.randomUUID();
+        when(sleepLogService.getLast30DayAveragesVersion(userId)).thenReturn(Optional.empty());
+        when(sleepLogService.getLast30DayAverages(userId)).thenThrow(new EntityNotFoundException("No sleep logs"));
+
+        mockMvc.perform(get("/sleep-log/averages/last-30-days")
+                        .header("X-User-Id", userId.toString())
+                        .header("If-None-Match", "*"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    @Test
+    void getLastNight_returns304_onlyForSameRepresentation() throws Exception {
+        UUID userId = UUID.randomUUID();
+        when(sleepLogService.getLastNightLog(userId)).thenReturn(lastNightLog());
+
+        String etag = mockMvc.perform(get("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("If-None-Match", "W/" + etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .accept("application/cbor")
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    void getLastNight_returns304_forAnyAcceptHeaderNegotiatingSameMediaType() throws Exception {
+        UUID userId = UUID.randomUUID();
+        when(sleepLogService.getLastNightLog(userId)).thenReturn(lastNightLog());
+
+        String etag = mockMvc.perform(get("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .header("Accept", "application/json, application/cbor;q=0.5")
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/sleep-log")
+                        .header("X-User-Id", userId.toString())
+                        .header("Accept", "application/json;q=0.5, application/cbor")
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"));
+    }
+
+    private static SleepLogResponse lastNightLog() {
+        return SleepLogResponse.builder()
+                .id(UUID.randomUUID())
+                .sleepDate(LocalDate.parse("2026-02-11"))
+                .timeInBedStart(Instant.parse("2026-02-10T22:00:00Z"))
+                .timeInBedEnd(Instant.parse("2026-02-11T06:00:00Z"))
+                .totalTimeInBedMinutes(480)
+                .morningFeeling(MorningFeeling.GOOD)
+                .build();
+    }
 }
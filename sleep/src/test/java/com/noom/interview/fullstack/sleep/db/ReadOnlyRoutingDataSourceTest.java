@@ -0,0 +1,81 @@
+package com.noom.interview.fullstack.sleep.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReadOnlyRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    @AfterEach
+    void clearTransactionState() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void getConnection_usesReplica_inReadOnlyTransaction() throws Exception {
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(new ReadOnlyRoutingDataSource(primary, replica).getConnection()).isSameAs(replicaConnection);
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void getConnection_usesPrimary_outsideReadOnlyTransaction() throws Exception {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertThat(new ReadOnlyRoutingDataSource(primary, replica).getConnection()).isSameAs(primaryConnection);
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void getConnection_usesPrimary_inReadOnlyTransactionReadingFromPrimary() throws Exception {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        ReadOnlyRoutingDataSource routing = new ReadOnlyRoutingDataSource(primary, replica);
+
+        Connection connection = ReadOnlyRoutingDataSource.readFromPrimary(() -> {
+            try {
+                return routing.getConnection();
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+
+        assertThat(connection).isSameAs(primaryConnection);
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void readFromPrimary_routesToReplicaAgain_onceWorkCompletes() throws Exception {
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        ReadOnlyRoutingDataSource.readFromPrimary(() -> null);
+
+        assertThat(new ReadOnlyRoutingDataSource(primary, replica).getConnection()).isSameAs(replicaConnection);
+    }
+}
@@ -0,0 +1,41 @@
+package com.noom.interview.fullstack.sleep.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentWritesTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final RecentWrites recentWrites = new RecentWrites(Duration.ofSeconds(10), nanos::get);
+
+    @Test
+    void isRecent_untilMaxLagHasPassedSinceUsersWrite() {
+        UUID writer = UUID.randomUUID();
+
+        recentWrites.recordWrite(writer);
+        nanos.addAndGet(Duration.ofSeconds(9).toNanos());
+
+        assertThat(recentWrites.isRecent(writer)).isTrue();
+        assertThat(recentWrites.isRecent(UUID.randomUUID())).isFalse();
+
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+
+        assertThat(recentWrites.isRecent(writer)).isFalse();
+    }
+
+    @Test
+    void isRecent_forEveryUser_afterBulkWrite() {
+        recentWrites.recordBulkWrite();
+
+        assertThat(recentWrites.isRecent(UUID.randomUUID())).isTrue();
+
+        nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertThat(recentWrites.isRecent(UUID.randomUUID())).isFalse();
+    }
+}
@@ -0,0 +1,191 @@
+package com.noom.interview.fullstack.sleep.db;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Seeds the same synthetic sleep entries into a single heap table shaped like the original sleep_entry and into a
+ * table partitioned by month like the current one, then logs for each the median duration of range queries and the
+ * duration of a vacuum after deleting part of the newest month. The heap vacuum scans all of its indexes, the
+ * partitioned one only those of the partition with dead rows. Run with
+ * {@code ./gradlew benchmark --tests '*SleepEntryPartitionBenchmark'}; the size of the population is set with
+ * {@code -Dbenchmark.users} and {@code -Dbenchmark.days}.
+ */
+@Testcontainers
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Slf4j
+class SleepEntryPartitionBenchmark {
+
+    private static final int USERS = Integer.getInteger("benchmark.users", 5_000);
+    private static final int DAYS = Integer.getInteger("benchmark.days", 730);
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 7;
+
+    private static final LocalDate FIRST_NIGHT = LocalDate.of(2024, 1, 1);
+    private static final LocalDate LAST_NIGHT = FIRST_NIGHT.plusDays(DAYS - 1);
+
+    private static final String HEAP = "sleep_entry_heap";
+    private static final String PARTITIONED = "sleep_entry_monthly";
+
+    private static final String COLUMNS = "id UUID NOT NULL, " +
+            "user_id UUID NOT NULL, " +
+            "sleep_date DATE NOT NULL, " +
+            "time_in_bed_start TIMESTAMPTZ NOT NULL, " +
+            "time_in_bed_end TIMESTAMPTZ NOT NULL, " +
+            "total_time_in_bed_minutes INTEGER NOT NULL, " +
+            "morning_feeling VARCHAR(4) NOT NULL, ";
+
+    private static final String SEED = "INSERT INTO %s " +
+            "SELECT md5(u || '-' || d)::uuid, CAST(md5(CAST(u AS text)) AS uuid), d, " +
+            "d - interval '2 hours', d + interval '6 hours', 480, " +
+            "(ARRAY['BAD', 'OK', 'GOOD'])[1 + (u + d - DATE '2024-01-01') % 3] " +
+            "FROM generate_series(1, %d) AS u, " +
+            "generate_series(DATE '%s', DATE '%s', interval '1 day') AS g(day), " +
+            "LATERAL (SELECT CAST(g.day AS date) AS d) AS night";
+
+    /**
+     * A week of every user, as read by the analytics endpoint
+     */
+    private static final String DAILY_TOTALS = "SELECT sleep_date, count(*), sum(total_time_in_bed_minutes) " +
+            "FROM %s WHERE sleep_date BETWEEN ? AND ? GROUP BY sleep_date";
+
+    /**
+     * The 30-day window of a user, as read by the averages endpoints
+     */
+    private static final String USER_WINDOW = "SELECT count(*), sum(total_time_in_bed_minutes) " +
+            "FROM %s WHERE user_id = ? AND sleep_date BETWEEN ? AND ?";
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13-alpine")
+            .withDatabaseName("sleepdb")
+            .withUsername("sleep")
+            .withPassword("sleep")
+            .withCommand("postgres", "-c", "shared_buffers=128MB", "-c", "max_wal_size=4GB", "-c", "autovacuum=off");
+
+    private final UUID[] userIds = new UUID[USERS];
+
+    @BeforeAll
+    void seed() throws SQLException {
+        log.info("Seeding {} users x {} nights into both tables", USERS, DAYS);
+        try (Connection connection = POSTGRES.createConnection(""); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE " + HEAP + " (" + COLUMNS +
+                    "PRIMARY KEY (id), UNIQUE (user_id, sleep_date))");
+            statement.execute("CREATE INDEX ON " + HEAP + " (user_id, sleep_date DESC)");
+            statement.execute("CREATE INDEX ON " + HEAP + " (sleep_date)");
+
+            statement.execute("CREATE TABLE " + PARTITIONED + " (" + COLUMNS +
+                    "PRIMARY KEY (id, sleep_date), UNIQUE (user_id, sleep_date)) PARTITION BY RANGE (sleep_date)");
+            statement.execute("CREATE INDEX ON " + PARTITIONED + " (sleep_date)");
+            for (LocalDate month = FIRST_NIGHT.withDayOfMonth(1); !month.isAfter(LAST_NIGHT); month = month.plusMonths(1)) {
+                statement.execute(String.format("CREATE TABLE %s_p%d_%02d PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                        PARTITIONED, month.getYear(), month.getMonthValue(), PARTITIONED, month, month.plusMonths(1)));
+            }
+
+            for (String table : new String[]{HEAP, PARTITIONED}) {
+                statement.execute(String.format(SEED, table, USERS, FIRST_NIGHT, LAST_NIGHT));
+                statement.execute("VACUUM ANALYZE " + table);
+            }
+
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT CAST(md5(CAST(u AS text)) AS uuid) FROM generate_series(1, " + USERS + ") AS u")) {
+                for (int user = 0; rs.next(); user++) {
+                    userIds[user] = rs.getObject(1, UUID.class);
+                }
+            }
+        }
+    }
+
+    @Test
+    void rangeQueriesAndVacuum_heapVersusMonthlyPartitions() throws SQLException {
+        try (Connection connection = POSTGRES.createConnection("")) {
+            log.info("{} users x {} nights", USERS, DAYS);
+            log.info(String.format("%22s %18s %18s %12s", "median ms", HEAP, PARTITIONED, "speedup"));
+            compare("week of all users", median(connection, HEAP, DAILY_TOTALS, false),
+                    median(connection, PARTITIONED, DAILY_TOTALS, false));
+            compare("30 days of a user", median(connection, HEAP, USER_WINDOW, true),
+                    median(connection, PARTITIONED, USER_WINDOW, true));
+
+            LocalDate newestMonth = LAST_NIGHT.withDayOfMonth(1);
+            String newestPartition = String.format("%s_p%d_%02d", PARTITIONED, newestMonth.getYear(), newestMonth.getMonthValue());
+            long heapVacuum = vacuumAfterDelete(connection, HEAP, HEAP, newestMonth);
+            long partitionVacuum = vacuumAfterDelete(connection, PARTITIONED, newestPartition, newestMonth);
+            compare("vacuum newest month", heapVacuum, partitionVacuum);
+            log.info(String.format("%22s %17.1fM %17.1fM", "vacuumed relation",
+                    totalSize(connection, HEAP) / 1048576.0, totalSize(connection, newestPartition) / 1048576.0));
+        }
+    }
+
+    private static void compare(String label, long heapMillis, long partitionedMillis) {
+        log.info(String.format("%22s %18d %18d %11.2fx",
+                label, heapMillis, partitionedMillis, (double) heapMillis / Math.max(partitionedMillis, 1)));
+    }
+
+    private long median(Connection connection, String table, String query, boolean perUser) throws SQLException {
+        long[] millis = new long[MEASURED_RUNS];
+        try (PreparedStatement statement = connection.prepareStatement(String.format(query, table))) {
+            for (int run = -WARMUP_RUNS; run < MEASURED_RUNS; run++) {
+                LocalDate to = LAST_NIGHT.minusDays(7L * Math.max(run, 0));
+                int parameter = 1;
+                if (perUser) {
+                    statement.setObject(parameter++, userIds[((run + WARMUP_RUNS) * 7919) % USERS]);
+                    statement.setObject(parameter++, to.minusDays(30));
+                } else {
+                    statement.setObject(parameter++, to.minusDays(6));
+                }
+                statement.setObject(parameter, to);
+                long start = System.nanoTime();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getLong(2);
+                    }
+                }
+                if (run >= 0) {
+                    millis[run] = (System.nanoTime() - start) / 1_000_000;
+                }
+            }
+        }
+        Arrays.sort(millis);
+        return millis[MEASURED_RUNS / 2];
+    }
+
+    /**
+     * Deletes a tenth of the users' entries of the month, then vacuums the relation holding them
+     */
+    private static long vacuumAfterDelete(Connection connection, String table, String vacuumed, LocalDate month)
+            throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            int deleted = statement.executeUpdate(String.format("DELETE FROM %s WHERE sleep_date >= DATE '%s' " +
+                    "AND get_byte(uuid_send(user_id), 0) < 26", table, month));
+            assertThat(deleted).isPositive();
+            long start = System.nanoTime();
+            statement.execute("VACUUM " + vacuumed);
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+
+    private static long totalSize(Connection connection, String relation) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT pg_total_relation_size('" + relation + "')")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
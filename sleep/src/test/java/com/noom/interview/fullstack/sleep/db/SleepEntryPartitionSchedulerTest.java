@@ -0,0 +1,125 @@
+package com.noom.interview.fullstack.sleep.db;
+
+import com.noom.interview.fullstack.sleep.model.PartitionMaintenanceResult;
+import com.noom.interview.fullstack.sleep.service.SleepAggregateService;
+import com.noom.interview.fullstack.sleep.service.SleepEntryPartitionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SleepEntryPartitionSchedulerTest {
+    private static final Instant NOW = Instant.parse("2026-10-18T00:05:00Z");
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+
+    @Mock
+    private SleepEntryPartitionService sleepEntryPartitionService;
+
+    @Mock
+    private SleepAggregateService sleepAggregateService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void maintainPartitions_rebuildsReadModels_afterDetaching() {
+        when(sleepEntryPartitionService.maintain(TODAY)).thenReturn(PartitionMaintenanceResult.builder()
+                .created(List.of())
+                .detached(List.of("sleep_entry_p2026_01"))
+                .keptPastRetention(List.of())
+                .build());
+
+        scheduler().maintainPartitions();
+
+        InOrder inOrder = inOrder(sleepEntryPartitionService, sleepAggregateService);
+        inOrder.verify(sleepEntryPartitionService).maintain(TODAY);
+        inOrder.verify(sleepAggregateService).rebuildAll();
+        assertThat(count("success")).isEqualTo(1);
+        assertThat(meterRegistry.get(SleepEntryPartitionScheduler.LAST_SUCCESS_METRIC).gauge().value())
+                .isEqualTo(NOW.getEpochSecond());
+    }
+
+    @Test
+    void maintainPartitions_doesNotRebuild_whenNothingWasDetached() {
+        when(sleepEntryPartitionService.maintain(TODAY)).thenReturn(PartitionMaintenanceResult.builder()
+                .created(List.of("sleep_entry_p2027_01"))
+                .detached(List.of())
+                .keptPastRetention(List.of())
+                .build());
+
+        scheduler().maintainPartitions();
+
+        verifyNoInteractions(sleepAggregateService);
+        assertThat(count("success")).isEqualTo(1);
+    }
+
+    @Test
+    void maintainPartitions_succeeds_withoutRebuilding_whenLegacyIsKeptPastRetention() {
+        when(sleepEntryPartitionService.maintain(TODAY)).thenReturn(PartitionMaintenanceResult.builder()
+                .created(List.of())
+                .detached(List.of())
+                .keptPastRetention(List.of("sleep_entry_legacy"))
+                .build());
+
+        scheduler().maintainPartitions();
+
+        verifyNoInteractions(sleepAggregateService);
+        assertThat(count("success")).isEqualTo(1);
+    }
+
+    @Test
+    void maintainPartitions_countsFailure_withoutThrowing() {
+        when(sleepEntryPartitionService.maintain(TODAY)).thenThrow(new IllegalStateException("lock timeout"));
+
+        scheduler().maintainPartitions();
+
+        assertThat(count("failed")).isEqualTo(1);
+        assertThat(meterRegistry.get(SleepEntryPartitionScheduler.LAST_SUCCESS_METRIC).gauge().value()).isZero();
+    }
+
+    @Test
+    void maintainPartitions_countsFailure_whenRebuildAfterDetachFails() {
+        when(sleepEntryPartitionService.maintain(TODAY)).thenReturn(PartitionMaintenanceResult.builder()
+                .created(List.of())
+                .detached(List.of("sleep_entry_p2026_01"))
+                .keptPastRetention(List.of())
+                .build());
+        when(sleepAggregateService.rebuildAll()).thenThrow(new IllegalStateException("deadlock detected"));
+
+        scheduler().maintainPartitions();
+
+        assertThat(count("failed")).isEqualTo(1);
+        assertThat(meterRegistry.find(SleepEntryPartitionScheduler.MAINTENANCE_METRIC).tag("outcome", "success").counter())
+                .isNull();
+    }
+
+    @Test
+    void maintainPartitions_countsSkip() {
+        when(sleepEntryPartitionService.maintain(TODAY)).thenReturn(PartitionMaintenanceResult.SKIPPED);
+
+        scheduler().maintainPartitions();
+
+        assertThat(count("skipped")).isEqualTo(1);
+        verifyNoInteractions(sleepAggregateService);
+    }
+
+    private SleepEntryPartitionScheduler scheduler() {
+        return new SleepEntryPartitionScheduler(sleepEntryPartitionService, sleepAggregateService, meterRegistry,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get(SleepEntryPartitionScheduler.MAINTENANCE_METRIC).tag("outcome", outcome).counter().count();
+    }
+}
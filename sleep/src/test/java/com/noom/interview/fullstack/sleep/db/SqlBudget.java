@@ -0,0 +1,33 @@
+package com.noom.interview.fullstack.sleep.db;
+
+import com.noom.interview.fullstack.sleep.filter.SqlStatisticsFilter;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MockMvc matchers asserting how many SQL statements a request may execute, read from the headers of
+ * {@link SqlStatisticsFilter}. A budget that fails means a change added round trips to the endpoint.
+ */
+public final class SqlBudget {
+
+    private SqlBudget() {
+    }
+
+    public static ResultMatcher statementsAtMost(int budget) {
+        return result -> assertThat(count(result.getResponse().getHeader(SqlStatisticsFilter.STATEMENTS_HEADER)))
+                .as("SQL statements of %s %s", result.getRequest().getMethod(), result.getRequest().getRequestURI())
+                .isLessThanOrEqualTo(budget);
+    }
+
+    public static ResultMatcher hibernateStatementsAtMost(int budget) {
+        return result -> assertThat(count(result.getResponse().getHeader(SqlStatisticsFilter.HIBERNATE_STATEMENTS_HEADER)))
+                .as("Hibernate statements of %s %s", result.getRequest().getMethod(), result.getRequest().getRequestURI())
+                .isLessThanOrEqualTo(budget);
+    }
+
+    private static int count(String header) {
+        assertThat(header).as("SQL statistics header, is sleep.sql-stats.response-headers enabled?").isNotNull();
+        return Integer.parseInt(header);
+    }
+}
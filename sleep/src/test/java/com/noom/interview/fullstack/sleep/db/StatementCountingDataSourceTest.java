@@ -0,0 +1,96 @@
+package com.noom.interview.fullstack.sleep.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StatementCountingDataSourceTest {
+
+    @Mock
+    private DataSource target;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    @Mock
+    private Statement statement;
+
+    @AfterEach
+    void stopCounting() {
+        SqlStatistics.stop();
+    }
+
+    @Test
+    void countsEachExecution_ofStatementsOfTheCurrentThread() throws Exception {
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("SELECT 1")).thenReturn(preparedStatement);
+        when(connection.createStatement()).thenReturn(statement);
+        SqlStatistics statistics = SqlStatistics.start();
+
+        try (Connection counting = new StatementCountingDataSource(target).getConnection()) {
+            PreparedStatement prepared = counting.prepareStatement("SELECT 1");
+            prepared.setInt(1, 1);
+            prepared.executeQuery();
+            prepared.addBatch();
+            prepared.executeBatch();
+            counting.createStatement().execute("SELECT 2");
+        }
+
+        assertThat(statistics.getStatements()).isEqualTo(3);
+        assertThat(statistics.getDatabaseNanos()).isPositive();
+        verify(preparedStatement).setInt(1, 1);
+        verify(connection).close();
+    }
+
+    @Test
+    void countsFailedExecutions_andRethrowsTheDriverException() throws Exception {
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        SQLException failure = new SQLException("duplicate key");
+        when(statement.executeUpdate("INSERT")).thenThrow(failure);
+        SqlStatistics statistics = SqlStatistics.start();
+
+        Statement counting = new StatementCountingDataSource(target).getConnection().createStatement();
+
+        assertThatThrownBy(() -> counting.executeUpdate("INSERT")).isSameAs(failure);
+        assertThat(statistics.getStatements()).isEqualTo(1);
+    }
+
+    @Test
+    void ignoresStatements_whenNotCounting() throws Exception {
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("SELECT 1")).thenReturn(preparedStatement);
+
+        new StatementCountingDataSource(target).getConnection().prepareStatement("SELECT 1").executeQuery();
+
+        SqlStatistics statistics = SqlStatistics.start();
+        assertThat(statistics.getStatements()).isZero();
+        verify(preparedStatement).executeQuery();
+    }
+
+    @Test
+    void countsHibernateStatements_separately() {
+        SqlStatistics statistics = SqlStatistics.start();
+
+        assertThat(new CountingStatementInspector().inspect("select 1")).isEqualTo("select 1");
+
+        assertThat(statistics.getHibernateStatements()).isEqualTo(1);
+        assertThat(statistics.getStatements()).isZero();
+    }
+}
@@ -0,0 +1,58 @@
+package com.noom.interview.fullstack.sleep.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    @Test
+    void releasesPermit_afterRequestCompletes() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(2, Duration.ZERO);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest(), response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(filter.availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsWith503_whenNoPermitFreesUpWithinQueueTimeout() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(10));
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        FilterChain nested = (request, response) ->
+                filter.doFilter(new MockHttpServletRequest(), rejected, new MockFilterChain());
+
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), nested);
+
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsPermit_untilAsyncProcessingCompletes() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ZERO);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> req.startAsync());
+
+        assertThat(filter.availablePermits()).isZero();
+
+        MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+        asyncContext.complete();
+
+        assertThat(asyncContext.getListeners()).hasSize(1);
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+}
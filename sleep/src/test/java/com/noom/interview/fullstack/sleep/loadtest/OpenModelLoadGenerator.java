@@ -0,0 +1,144 @@
+package com.noom.interview.fullstack.sleep.loadtest;
+
+import lombok.Builder;
+import lombok.Value;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Sends requests at a constant arrival rate, whatever the response times: request {@code i} is due at
+ * {@code start + i / rate} and is sent then even if earlier requests are still in flight (open model). Latencies are
+ * measured from the time a request was due rather than from when it was sent, so a stalled client does not hide queueing
+ * (coordinated omission). Each request picks its endpoint at random by the weights of the mix.
+ */
+class OpenModelLoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final HttpClient client;
+    private final List<Endpoint> endpoints;
+    private final int totalWeight;
+
+    OpenModelLoadGenerator(HttpClient client, List<Endpoint> endpoints) {
+        this.client = client;
+        this.endpoints = endpoints;
+        this.totalWeight = endpoints.stream().mapToInt(Endpoint::getWeight).sum();
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("The mix needs at least one endpoint with a positive weight");
+        }
+    }
+
+    /**
+     * Runs the load for the duration and waits for the requests in flight
+     * @param recorded false for a warm up, whose results are dropped
+     * @return results by endpoint name, in the order of the mix
+     */
+    Map<String, EndpointResult> run(double requestsPerSecond, Duration duration, boolean recorded) throws InterruptedException {
+        Map<String, Recorder> recorders = new LinkedHashMap<>();
+        endpoints.forEach(endpoint -> recorders.put(endpoint.getName(), new Recorder()));
+
+        SplittableRandom random = new SplittableRandom();
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        CompletableFuture<?>[] inFlight = new CompletableFuture<?>[Math.toIntExact(Math.max(1,
+                (long) (requestsPerSecond * duration.toSeconds()) + 1))];
+        int sent = 0;
+
+        for (long due = start; due < end && sent < inFlight.length; due += intervalNanos) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            Endpoint endpoint = pick(random.nextInt(totalWeight));
+            Recorder recorder = recorders.get(endpoint.getName());
+            long dueAt = due;
+            inFlight[sent++] = client.sendAsync(endpoint.getRequests().get(), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        recorder.record(System.nanoTime() - dueAt,
+                                error == null && response.statusCode() == endpoint.getExpectedStatus());
+                        return null;
+                    });
+        }
+        CompletableFuture.allOf(Arrays.copyOf(inFlight, sent)).join();
+
+        long elapsedNanos = System.nanoTime() - start;
+        Map<String, EndpointResult> results = new LinkedHashMap<>();
+        if (recorded) {
+            recorders.forEach((name, recorder) -> results.put(name, recorder.toResult(elapsedNanos)));
+        }
+        return results;
+    }
+
+    private Endpoint pick(int roll) {
+        for (Endpoint endpoint : endpoints) {
+            roll -= endpoint.getWeight();
+            if (roll < 0) {
+                return endpoint;
+            }
+        }
+        throw new IllegalStateException("Roll above the total weight");
+    }
+
+    @Value
+    static class Endpoint {
+        String name;
+        int weight;
+        int expectedStatus;
+        Supplier<HttpRequest> requests;
+    }
+
+    @Value
+    @Builder
+    static class EndpointResult {
+        long requests;
+        long errors;
+        double requestsPerSecond;
+        double p50Millis;
+        double p95Millis;
+        double p99Millis;
+        double maxMillis;
+    }
+
+    private static class Recorder {
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        private final LongAdder errors = new LongAdder();
+
+        void record(long latencyNanos, boolean success) {
+            latencies.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+            if (!success) {
+                errors.increment();
+            }
+        }
+
+        EndpointResult toResult(long elapsedNanos) {
+            return EndpointResult.builder()
+                    .requests(latencies.getTotalCount())
+                    .errors(errors.sum())
+                    .requestsPerSecond(latencies.getTotalCount() / (elapsedNanos / 1e9))
+                    .p50Millis(millis(latencies.getValueAtPercentile(50)))
+                    .p95Millis(millis(latencies.getValueAtPercentile(95)))
+                    .p99Millis(millis(latencies.getValueAtPercentile(99)))
+                    .maxMillis(millis(latencies.getMaxValue()))
+                    .build();
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.noom.interview.fullstack.sleep.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.noom.interview.fullstack.sleep.SleepApplication;
+import com.noom.interview.fullstack.sleep.loadtest.OpenModelLoadGenerator.Endpoint;
+import com.noom.interview.fullstack.sleep.loadtest.OpenModelLoadGenerator.EndpointResult;
+import com.noom.interview.fullstack.sleep.service.SleepAggregateService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * End-to-end load test: boots the application against a Postgres container, seeds {@code load.users} users with
+ * {@code load.nights} nights each (the last one today), drives a mix of create, get-today and 30-day averages requests
+ * at a constant arrival rate and writes p50/p95/p99/max latencies and errors per endpoint to a JSON file. Run with
+ * {@code ./gradlew loadTest -Dload.rate=200 -Dload.mix=create:10,today:60,averages:30}; see the README for all the
+ * settings.
+ */
+@Testcontainers
+@Tag("load")
+@Slf4j
+class SleepLoadTest {
+
+    private static final int USERS = Integer.getInteger("load.users", 10_000);
+    private static final int NIGHTS = Integer.getInteger("load.nights", 365);
+    private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "200"));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.duration-seconds", 60));
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 15));
+    private static final String MIX = System.getProperty("load.mix", "create:10,today:60,averages:30");
+    private static final String OUTPUT_DIR = System.getProperty("load.output-dir", "build/load-test");
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13-alpine")
+            .withDatabaseName("sleepdb")
+            .withUsername("sleep")
+            .withPassword("sleep");
+
+    @Test
+    void constantArrivalRate() throws Exception {
+        try (ConfigurableApplicationContext context = start()) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            List<UUID> users = seed(context);
+
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            OpenModelLoadGenerator generator = new OpenModelLoadGenerator(client, endpoints(baseUrl, users));
+
+            log.info("Warming up for {}s at {} req/s", WARMUP.toSeconds(), RATE);
+            generator.run(RATE, WARMUP, false);
+            log.info("Running {}s at {} req/s, mix {}", DURATION.toSeconds(), RATE, MIX);
+            Map<String, EndpointResult> results = generator.run(RATE, DURATION, true);
+
+            log.info(String.format("%-10s %10s %8s %10s %10s %10s %10s %10s",
+                    "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+            results.forEach((name, result) -> log.info(String.format("%-10s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f",
+                    name, result.getRequests(), result.getErrors(), result.getRequestsPerSecond(),
+                    result.getP50Millis(), result.getP95Millis(), result.getP99Millis(), result.getMaxMillis())));
+            log.info("Results written to {}", write(results));
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(SleepApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + POSTGRES.getJdbcUrl(),
+                        "spring.datasource.username=" + POSTGRES.getUsername(),
+                        "spring.datasource.password=" + POSTGRES.getPassword(),
+                        "spring.flyway.enabled=true")
+                .run();
+    }
+
+    /**
+     * Seeds the entries in SQL and rebuilds the read models, as a bulk import does
+     */
+    private List<UUID> seed(ConfigurableApplicationContext context) throws Exception {
+        log.info("Seeding {} users x {} nights", USERS, NIGHTS);
+        List<UUID> users = new ArrayList<>(USERS);
+        try (Connection connection = POSTGRES.createConnection("")) {
+            try (PreparedStatement insertUser = connection.prepareStatement("INSERT INTO app_user (id) VALUES (?)")) {
+                for (int i = 0; i < USERS; i++) {
+                    UUID userId = UUID.randomUUID();
+                    users.add(userId);
+                    insertUser.setObject(1, userId);
+                    insertUser.addBatch();
+                }
+                insertUser.executeBatch();
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("INSERT INTO sleep_entry (user_id, sleep_date, time_in_bed_start, time_in_bed_end, " +
+                        "total_time_in_bed_minutes, morning_feeling) " +
+                        "SELECT u.id, d, d - interval '2 hours', d + interval '6 hours', 480, " +
+                        "(ARRAY['BAD', 'OK', 'GOOD'])[1 + (d - DATE '2000-01-01') % 3] " +
+                        "FROM app_user u, " +
+                        "LATERAL (SELECT CAST(current_date - n AS date) AS d FROM generate_series(0, " + (NIGHTS - 1) + ") AS n) AS night");
+                statement.execute("VACUUM ANALYZE sleep_entry");
+            }
+        }
+        // The aggregates and prefix sums are maintained on write, which the SQL seed bypasses
+        context.getBean(SleepAggregateService.class).rebuildAll();
+        return users;
+    }
+
+    private static List<Endpoint> endpoints(String baseUrl, List<UUID> users) {
+        Map<String, Integer> weights = parseMix(MIX);
+        List<Endpoint> endpoints = new ArrayList<>();
+        endpoints.add(new Endpoint("create", weights.getOrDefault("create", 0), 201,
+                () -> createRequest(baseUrl, UUID.randomUUID())));
+        endpoints.add(new Endpoint("today", weights.getOrDefault("today", 0), 200,
+                () -> getRequest(baseUrl + "/sleep-log", randomUser(users))));
+        endpoints.add(new Endpoint("averages", weights.getOrDefault("averages", 0), 200,
+                () -> getRequest(baseUrl + "/sleep-log/averages/last-30-days", randomUser(users))));
+        endpoints.removeIf(endpoint -> endpoint.getWeight() == 0);
+        return endpoints;
+    }
+
+    static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] nameAndWeight = part.trim().split(":");
+            if (nameAndWeight.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry '" + part + "', expected name:weight");
+            }
+            weights.put(nameAndWeight[0].trim(), Integer.parseInt(nameAndWeight[1].trim()));
+        }
+        return weights;
+    }
+
+    private static UUID randomUser(List<UUID> users) {
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+
+    private static HttpRequest createRequest(String baseUrl, UUID userId) {
+        Instant end = Instant.now();
+        String body = String.format("{\"timeInBedStart\":\"%s\",\"timeInBedEnd\":\"%s\",\"morningFeeling\":\"GOOD\"}",
+                end.minus(Duration.ofHours(8)), end);
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/sleep-log"))
+                .header("X-User-Id", userId.toString())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static HttpRequest getRequest(String url, UUID userId) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("X-User-Id", userId.toString())
+                .GET()
+                .build();
+    }
+
+    private static Path write(Map<String, EndpointResult> results) throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", Instant.now());
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("users", USERS);
+        settings.put("nights", NIGHTS);
+        settings.put("rate", RATE);
+        settings.put("durationSeconds", DURATION.toSeconds());
+        settings.put("warmupSeconds", WARMUP.toSeconds());
+        settings.put("mix", parseMix(MIX));
+        report.put("settings", settings);
+        report.put("endpoints", results);
+
+        Path directory = new File(OUTPUT_DIR).toPath();
+        Files.createDirectories(directory);
+        Path file = directory.resolve("load-test-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+                .withZone(ZoneOffset.UTC).format(Instant.now()) + ".json");
+        new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(file.toFile(), report);
+        return file;
+    }
+}
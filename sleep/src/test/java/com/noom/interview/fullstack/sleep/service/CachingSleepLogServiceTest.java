@@ -0,0 +1,282 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.cache.AveragesCache;
+import com.noom.interview.fullstack.sleep.cache.InMemoryAveragesCache;
+import com.noom.interview.fullstack.sleep.cache.TodayLog;
+import com.noom.interview.fullstack.sleep.cache.TodayLogCache;
+import com.noom.interview.fullstack.sleep.db.ReadOnlyRoutingDataSource;
+import com.noom.interview.fullstack.sleep.db.RecentWrites;
+import com.noom.interview.fullstack.sleep.exception.SleepLogAlreadyExistsException;
+import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogBatchRequest;
+import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogRequest;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogBatchResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityNotFoundException;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingSleepLogServiceTest {
+
+    @Mock
+    private SleepLogService delegate;
+
+    @Mock
+    private AveragesCache averagesCache;
+
+    @Mock
+    private TodayLogCache todayLogCache;
+
+    @Mock
+    private RecentWrites recentWrites;
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    private CachingSleepLogService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CachingSleepLogService(delegate, averagesCache, todayLogCache, recentWrites);
+    }
+
+    @Test
+    void getLast30DayAverages_returnsCachedValue_withoutCallingDelegate() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        SleepLogAveragesResponse cached = SleepLogAveragesResponse.builder().rangeEnd(today).build();
+
+        when(averagesCache.get(userId, today)).thenReturn(Optional.of(cached));
+
+        assertThat(service.getLast30DayAverages(userId)).isSameAs(cached);
+
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void getLast30DayAverages_computesAndCaches_onMiss() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        SleepLogAveragesResponse computed = SleepLogAveragesResponse.builder().rangeEnd(today).build();
+
+        when(averagesCache.get(userId, today)).thenReturn(Optional.empty());
+        when(averagesCache.generation(userId)).thenReturn(3L);
+        when(delegate.getLast30DayAverages(userId)).thenReturn(computed);
+
+        assertThat(service.getLast30DayAverages(userId)).isSameAs(computed);
+
+        verify(averagesCache).put(userId, 3L, computed);
+    }
+
+    @Test
+    void getLast30DayAverages_readsFromPrimary_whileReplicaMayLagBehindUsersWrite() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        SleepLogAveragesResponse computed = SleepLogAveragesResponse.builder().rangeEnd(today).build();
+        ReadOnlyRoutingDataSource routing = new ReadOnlyRoutingDataSource(primary, replica);
+
+        when(averagesCache.get(userId, today)).thenReturn(Optional.empty());
+        when(recentWrites.isRecent(userId)).thenReturn(true);
+        when(delegate.getLast30DayAverages(userId)).thenAnswer(invocation -> {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+            try {
+                routing.getConnection();
+            } finally {
+                TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            }
+            return computed;
+        });
+
+        assertThat(service.getLast30DayAverages(userId)).isSameAs(computed);
+
+        verify(primary).getConnection();
+        verifyNoInteractions(replica);
+        verify(averagesCache).put(userId, 0L, computed);
+    }
+
+    @Test
+    void getLast30DayAverages_doesNotCacheAveragesFromBeforeWrite_whenWriteCompletesWhileComputing() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        SleepLogAveragesResponse beforeWrite = SleepLogAveragesResponse.builder().rangeEnd(today).build();
+        SleepLogAveragesResponse afterWrite = SleepLogAveragesResponse.builder().rangeEnd(today).build();
+        CachingSleepLogService cachingService = new CachingSleepLogService(delegate,
+                new InMemoryAveragesCache(100, Duration.ofMinutes(10)), todayLogCache, recentWrites);
+        CreateSleepLogBatchRequest request = new CreateSleepLogBatchRequest();
+
+        when(delegate.getLast30DayAverages(userId))
+                .thenAnswer(invocation -> {
+                    cachingService.createLogs(userId, request);
+                    return beforeWrite;
+                })
+                .thenReturn(afterWrite);
+
+        assertThat(cachingService.getLast30DayAverages(userId)).isSameAs(beforeWrite);
+        assertThat(cachingService.getLast30DayAverages(userId)).isSameAs(afterWrite);
+        assertThat(cachingService.getLast30DayAverages(userId)).isSameAs(afterWrite);
+
+        verify(delegate, times(2)).getLast30DayAverages(userId);
+    }
+
+    @Test
+    void getLast30DayAveragesVersion_returnsCachedVersion_withoutCallingDelegate() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        when(averagesCache.getVersion(userId, today)).thenReturn(Optional.of("v1"));
+
+        assertThat(service.getLast30DayAveragesVersion(userId)).contains("v1");
+
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void getLast30DayAveragesVersion_cachesVersion_onMiss() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        when(averagesCache.getVersion(userId, today)).thenReturn(Optional.empty());
+        when(averagesCache.generation(userId)).thenReturn(3L);
+        when(delegate.getLast30DayAveragesVersion(userId)).thenReturn(Optional.of("v1"));
+
+        assertThat(service.getLast30DayAveragesVersion(userId)).contains("v1");
+
+        verify(averagesCache).putVersion(userId, 3L, today, "v1");
+    }
+
+    @Test
+    void getLast30DayAveragesVersion_doesNotCache_whenUserNeverLogged() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        when(averagesCache.getVersion(userId, today)).thenReturn(Optional.empty());
+        when(delegate.getLast30DayAveragesVersion(userId)).thenReturn(Optional.empty());
+
+        assertThat(service.getLast30DayAveragesVersion(userId)).isEmpty();
+
+        verify(averagesCache, never()).putVersion(any(), anyLong(), any(), any());
+    }
+
+    @Test
+    void createLastNightLog_invalidatesAverages_andWritesThroughTodayLog_afterDelegateCompletes() {
+        UUID userId = UUID.randomUUID();
+        CreateSleepLogRequest request = new CreateSleepLogRequest();
+        SleepLogResponse created = SleepLogResponse.builder().id(UUID.randomUUID()).build();
+
+        when(delegate.createLastNightLog(userId, request)).thenReturn(created);
+
+        assertThat(service.createLastNightLog(userId, request)).isSameAs(created);
+
+        InOrder inOrder = inOrder(delegate, todayLogCache, recentWrites, averagesCache);
+        inOrder.verify(delegate).createLastNightLog(userId, request);
+        inOrder.verify(todayLogCache).putLogged(userId, created);
+        inOrder.verify(recentWrites).recordWrite(userId);
+        inOrder.verify(averagesCache).invalidate(userId);
+    }
+
+    @Test
+    void createLastNightLog_invalidatesAverages_whenDelegateFails() {
+        UUID userId = UUID.randomUUID();
+        CreateSleepLogRequest request = new CreateSleepLogRequest();
+
+        when(delegate.createLastNightLog(userId, request)).thenThrow(new SleepLogAlreadyExistsException());
+
+        assertThatThrownBy(() -> service.createLastNightLog(userId, request))
+                .isInstanceOf(SleepLogAlreadyExistsException.class);
+
+        verify(averagesCache).invalidate(userId);
+        verify(todayLogCache).invalidate(userId);
+        verifyNoMoreInteractions(todayLogCache);
+    }
+
+    @Test
+    void getLastNightLog_returnsCachedLog_withoutCallingDelegate() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        SleepLogResponse cached = SleepLogResponse.builder().id(UUID.randomUUID()).sleepDate(today).build();
+
+        when(todayLogCache.get(userId, today)).thenReturn(Optional.of(TodayLog.logged(cached)));
+
+        assertThat(service.getLastNightLog(userId)).isSameAs(cached);
+
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void getLastNightLog_throwsNotFound_whenCachedAsNotLogged() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        when(todayLogCache.get(userId, today)).thenReturn(Optional.of(TodayLog.notLogged()));
+
+        assertThatThrownBy(() -> service.getLastNightLog(userId))
+                .isInstanceOf(EntityNotFoundException.class);
+
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void getLastNightLog_cachesNegativeEntry_whenDelegateFindsNothing() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        when(todayLogCache.get(userId, today)).thenReturn(Optional.empty());
+        when(delegate.getLastNightLog(userId)).thenThrow(new EntityNotFoundException("Sleep log for today not found"));
+
+        assertThatThrownBy(() -> service.getLastNightLog(userId))
+                .isInstanceOf(EntityNotFoundException.class);
+
+        verify(todayLogCache).putNotLogged(userId, today);
+    }
+
+    @Test
+    void getLastNightLog_cachesLog_onMiss() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        SleepLogResponse found = SleepLogResponse.builder().id(UUID.randomUUID()).sleepDate(today).build();
+
+        when(todayLogCache.get(userId, today)).thenReturn(Optional.empty());
+        when(delegate.getLastNightLog(userId)).thenReturn(found);
+
+        assertThat(service.getLastNightLog(userId)).isSameAs(found);
+
+        verify(todayLogCache).putLogged(userId, found);
+    }
+
+    @Test
+    void createLogs_invalidatesBothCaches_afterDelegateCompletes() {
+        UUID userId = UUID.randomUUID();
+        CreateSleepLogBatchRequest request = new CreateSleepLogBatchRequest();
+        SleepLogBatchResponse response = SleepLogBatchResponse.builder().created(2).build();
+
+        when(delegate.createLogs(userId, request)).thenReturn(response);
+
+        assertThat(service.createLogs(userId, request)).isSameAs(response);
+
+        InOrder inOrder = inOrder(delegate, recentWrites, todayLogCache, averagesCache);
+        inOrder.verify(delegate).createLogs(userId, request);
+        inOrder.verify(recentWrites).recordWrite(userId);
+        inOrder.verify(todayLogCache).invalidate(userId);
+        inOrder.verify(averagesCache).invalidate(userId);
+    }
+}
@@ -0,0 +1,125 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
+import com.noom.interview.fullstack.sleep.mapper.SleepEntryMapper;
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.repository.ReactiveSleepEntryRepository;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import javax.persistence.EntityNotFoundException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveSleepLogServiceImplTest {
+
+    @Mock
+    private ReactiveSleepEntryRepository reactiveSleepEntryRepository;
+
+    @Mock
+    private SleepEntryMapper sleepEntryMapper;
+
+    private ReactiveSleepLogServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ReactiveSleepLogServiceImpl(reactiveSleepEntryRepository, sleepEntryMapper,
+                new SleepLogCalculatorServiceImpl());
+    }
+
+    @Test
+    void getLastNightLog_mapsTodaysEntry() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        SleepEntryEntity entry = entry(today, "22:00", "06:00", MorningFeeling.GOOD);
+        SleepLogResponse response = SleepLogResponse.builder().id(entry.getId()).build();
+
+        when(reactiveSleepEntryRepository.findByUserIdAndSleepDate(userId, today)).thenReturn(Mono.just(entry));
+        when(sleepEntryMapper.toResponse(entry)).thenReturn(response);
+
+        StepVerifier.create(service.getLastNightLog(userId))
+                .expectNext(response)
+                .verifyComplete();
+    }
+
+    @Test
+    void getLastNightLog_failsWithNotFound_whenNoEntryToday() {
+        UUID userId = UUID.randomUUID();
+        when(reactiveSleepEntryRepository.findByUserIdAndSleepDate(userId, LocalDate.now(ZoneOffset.UTC)))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(service.getLastNightLog(userId))
+                .expectError(EntityNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void getLast30DayAverages_reducesStreamedEntries() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate from = today.minusDays(30);
+
+        when(reactiveSleepEntryRepository.findByUserIdAndSleepDateBetween(userId, from, today)).thenReturn(Flux.just(
+                entry(today.minusDays(2), "22:00", "06:00", MorningFeeling.GOOD),
+                entry(today.minusDays(1), "23:00", "06:00", MorningFeeling.OK),
+                entry(today, "22:00", "07:00", MorningFeeling.GOOD)
+        ));
+
+        StepVerifier.create(service.getLast30DayAverages(userId))
+                .assertNext(averages -> {
+                    assertThat(averages.getRangeStart()).isEqualTo(from);
+                    assertThat(averages.getRangeEnd()).isEqualTo(today);
+                    assertThat(averages.getAverageTimeInBedMinutes()).isEqualTo(480);
+                    assertThat(averages.getAverageTimeUserGetsInBed()).isEqualTo(LocalTime.of(22, 20));
+                    assertThat(averages.getAverageTimeUserGetsOutOfBed()).isEqualTo(LocalTime.of(6, 20));
+                    assertThat(averages.getMorningFeelingFrequencies().get(MorningFeeling.GOOD).getCount()).isEqualTo(2);
+                    assertThat(averages.getMorningFeelingFrequencies().get(MorningFeeling.OK).getPercentage())
+                            .isEqualByComparingTo(new BigDecimal("33.33"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getLast30DayAverages_failsWithNotFound_whenNoEntries() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        when(reactiveSleepEntryRepository.findByUserIdAndSleepDateBetween(userId, today.minusDays(30), today))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(service.getLast30DayAverages(userId))
+                .expectError(EntityNotFoundException.class)
+                .verify();
+    }
+
+    /**
+     * Entry of the night ending on {@code sleepDate}, going to bed at {@code bedTime} the evening before
+     */
+    private static SleepEntryEntity entry(LocalDate sleepDate, String bedTime, String wakeTime, MorningFeeling feeling) {
+        Instant start = sleepDate.minusDays(1).atTime(LocalTime.parse(bedTime)).toInstant(ZoneOffset.UTC);
+        Instant end = sleepDate.atTime(LocalTime.parse(wakeTime)).toInstant(ZoneOffset.UTC);
+        return SleepEntryEntity.builder()
+                .id(UUID.randomUUID())
+                .sleepDate(sleepDate)
+                .timeInBedStart(start)
+                .timeInBedEnd(end)
+                .totalTimeInBedMinutes((int) Duration.between(start, end).toMinutes())
+                .morningFeeling(feeling)
+                .build();
+    }
+}
@@ -0,0 +1,195 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.entity.AppUserEntity;
+import com.noom.interview.fullstack.sleep.entity.SleepAggregateEntity;
+import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.model.SleepLogTotals;
+import com.noom.interview.fullstack.sleep.repository.SleepAggregateRepository;
+import com.noom.interview.fullstack.sleep.repository.SleepPrefixSumRepository;
+import com.noom.interview.fullstack.sleep.repository.SleepReadModelRepository;
+import com.noom.interview.fullstack.sleep.repository.UserLockRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SleepAggregateServiceImplTest {
+
+    @Mock
+    private SleepAggregateRepository sleepAggregateRepository;
+
+    @Mock
+    private SleepPrefixSumRepository sleepPrefixSumRepository;
+
+    @Mock
+    private SleepReadModelRepository sleepReadModelRepository;
+
+    @Mock
+    private UserLockRepository userLockRepository;
+
+    @InjectMocks
+    private SleepAggregateServiceImpl service;
+
+    @Test
+    void recordEntry_addsEntryToBothReadModels_withWindowEndingOnItsSleepDate() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.of(2026, 2, 11);
+        SleepEntryEntity entry = entry(userId, today, "2026-02-10T22:00:00Z", "2026-02-11T06:00:00Z", MorningFeeling.GOOD);
+
+        service.recordEntry(entry);
+
+        verify(sleepReadModelRepository).addEntry(userId, today, today.minusDays(30), SleepLogTotals.of(entry));
+        verifyNoInteractions(sleepAggregateRepository, sleepPrefixSumRepository, userLockRepository);
+    }
+
+    @Test
+    void recordEntries_rebuildsWindowAndRunningTotalsFromEarliestSleepDate() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate earliest = today.minusDays(400);
+
+        service.recordEntries(userId, earliest);
+
+        InOrder inOrder = inOrder(userLockRepository, sleepAggregateRepository, sleepPrefixSumRepository);
+        inOrder.verify(userLockRepository).lockUser(userId);
+        inOrder.verify(sleepAggregateRepository).rebuildForUser(userId, today.minusDays(30), today);
+        inOrder.verify(sleepPrefixSumRepository).rebuildForUserFrom(userId, earliest);
+        verifyNoMoreInteractions(sleepPrefixSumRepository);
+    }
+
+    @Test
+    void findWindowTotals_returnsStoredTotals_whenWindowIsCurrent() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        SleepLogTotals totals = SleepLogTotals.builder().entryCount(3).okCount(3).totalTimeInBedMinutes(1200).build();
+
+        when(sleepAggregateRepository.findById(userId)).thenReturn(Optional.of(aggregate(userId, today, totals)));
+
+        Optional<SleepLogTotals> actual = service.findWindowTotals(userId, today.minusDays(30), today);
+
+        assertThat(actual).contains(totals);
+        verifyNoInteractions(sleepPrefixSumRepository);
+    }
+
+    @Test
+    void findWindowTotals_subtractsExpiredDaysFromRunningTotals_whenUserHasNotLoggedToday() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate previousEnd = today.minusDays(2);
+        SleepLogTotals totals = SleepLogTotals.builder().entryCount(3).okCount(2).badCount(1).totalTimeInBedMinutes(1200).build();
+        SleepLogTotals expired = SleepLogTotals.builder().entryCount(1).badCount(1).totalTimeInBedMinutes(300).build();
+
+        when(sleepAggregateRepository.findById(userId)).thenReturn(Optional.of(aggregate(userId, previousEnd, totals)));
+        when(sleepPrefixSumRepository.findBetween(userId, previousEnd.minusDays(30), today.minusDays(31))).thenReturn(expired);
+
+        Optional<SleepLogTotals> actual = service.findWindowTotals(userId, today.minusDays(30), today);
+
+        assertThat(actual).contains(totals.minus(expired));
+    }
+
+    @Test
+    void findWindowTotals_returnsEmptyTotals_whenWholeWindowExpired() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        SleepLogTotals totals = SleepLogTotals.builder().entryCount(3).okCount(3).build();
+
+        when(sleepAggregateRepository.findById(userId)).thenReturn(Optional.of(aggregate(userId, today.minusDays(40), totals)));
+
+        Optional<SleepLogTotals> actual = service.findWindowTotals(userId, today.minusDays(30), today);
+
+        assertThat(actual).contains(SleepLogTotals.EMPTY);
+        verifyNoInteractions(sleepPrefixSumRepository);
+    }
+
+    @Test
+    void findWindowTotals_returnsEmpty_whenAggregateMissing() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        when(sleepAggregateRepository.findById(userId)).thenReturn(Optional.empty());
+
+        assertThat(service.findWindowTotals(userId, today.minusDays(30), today)).isEmpty();
+    }
+
+    @Test
+    void findRangeTotals_subtractsRunningTotalsBeforeRangeStart() {
+        UUID userId = UUID.randomUUID();
+        LocalDate from = LocalDate.of(2026, 1, 1);
+        LocalDate to = LocalDate.of(2026, 3, 31);
+        SleepLogTotals upToEnd = SleepLogTotals.builder().entryCount(100).goodCount(60).okCount(40).totalTimeInBedMinutes(45_000).build();
+        SleepLogTotals beforeStart = SleepLogTotals.builder().entryCount(20).goodCount(5).okCount(15).totalTimeInBedMinutes(9_000).build();
+
+        when(sleepPrefixSumRepository.findUpTo(userId, to)).thenReturn(Optional.of(upToEnd));
+        when(sleepPrefixSumRepository.findUpTo(userId, from.minusDays(1))).thenReturn(Optional.of(beforeStart));
+
+        SleepLogTotals actual = service.findRangeTotals(userId, from, to);
+
+        assertThat(actual.getEntryCount()).isEqualTo(80);
+        assertThat(actual.getGoodCount()).isEqualTo(55);
+        assertThat(actual.getOkCount()).isEqualTo(25);
+        assertThat(actual.getTotalTimeInBedMinutes()).isEqualTo(36_000);
+    }
+
+    @Test
+    void findRangeTotals_returnsEmpty_withSingleLookup_whenNoEntriesUpToRangeEnd() {
+        UUID userId = UUID.randomUUID();
+        LocalDate to = LocalDate.of(2026, 3, 31);
+
+        when(sleepPrefixSumRepository.findUpTo(userId, to)).thenReturn(Optional.empty());
+
+        assertThat(service.findRangeTotals(userId, to.minusDays(6), to)).isEqualTo(SleepLogTotals.EMPTY);
+        verifyNoMoreInteractions(sleepPrefixSumRepository);
+    }
+
+    @Test
+    void rebuildAll_recomputesWindowEndingToday() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        when(sleepAggregateRepository.rebuildAll(today.minusDays(30), today)).thenReturn(5);
+
+        assertThat(service.rebuildAll()).isEqualTo(5);
+
+        InOrder inOrder = inOrder(userLockRepository, sleepAggregateRepository, sleepPrefixSumRepository);
+        inOrder.verify(userLockRepository).lockAllUsers();
+        inOrder.verify(sleepAggregateRepository).rebuildAll(today.minusDays(30), today);
+        inOrder.verify(sleepPrefixSumRepository).rebuildAll();
+    }
+
+    private static SleepEntryEntity entry(UUID userId, LocalDate sleepDate, String start, String end, MorningFeeling feeling) {
+        return SleepEntryEntity.builder()
+                .id(UUID.randomUUID())
+                .user(AppUserEntity.builder().id(userId).build())
+                .sleepDate(sleepDate)
+                .timeInBedStart(Instant.parse(start))
+                .timeInBedEnd(Instant.parse(end))
+                .morningFeeling(feeling)
+                .build();
+    }
+
+    private static SleepAggregateEntity aggregate(UUID userId, LocalDate windowEnd, SleepLogTotals totals) {
+        return SleepAggregateEntity.builder()
+                .userId(userId)
+                .windowStart(windowEnd.minusDays(30))
+                .windowEnd(windowEnd)
+                .entryCount(totals.getEntryCount())
+                .totalTimeInBedMinutes(totals.getTotalTimeInBedMinutes())
+                .totalBedTimeEpochSeconds(totals.getTotalBedTimeEpochSeconds())
+                .totalWakeTimeEpochSeconds(totals.getTotalWakeTimeEpochSeconds())
+                .badCount(totals.getBadCount())
+                .okCount(totals.getOkCount())
+                .goodCount(totals.getGoodCount())
+                .build();
+    }
+}
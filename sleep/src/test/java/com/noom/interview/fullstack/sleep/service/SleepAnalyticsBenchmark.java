@@ -0,0 +1,135 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.repository.SleepAnalyticsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures {@link SleepAnalyticsServiceImpl#aggregateDailyTotals} over a seeded population for every combination of
+ * number of chunks and pool parallelism, and logs the median duration of each. Run with
+ * {@code ./gradlew benchmark --tests '*SleepAnalyticsBenchmark'}; the size of the population is set with {@code -Dbenchmark.users} and
+ * {@code -Dbenchmark.days}.
+ */
+@Testcontainers
+@SpringBootTest
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Slf4j
+class SleepAnalyticsBenchmark {
+
+    private static final int USERS = Integer.getInteger("benchmark.users", 2_000);
+    private static final int DAYS = Integer.getInteger("benchmark.days", 730);
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 5;
+    private static final int[] CHUNK_COUNTS = {1, 2, 4, 8, 16, 32};
+    /**
+     * Every running chunk holds one of the 10 connections of the default pool
+     */
+    private static final int MAX_PARALLELISM = 8;
+
+    private static final LocalDate FIRST_NIGHT = LocalDate.of(2020, 1, 1);
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13-alpine")
+            .withDatabaseName("sleepdb")
+            .withUsername("sleep")
+            .withPassword("sleep");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.flyway.enabled", () -> "true");
+    }
+
+    @Autowired
+    SleepAnalyticsRepository sleepAnalyticsRepository;
+
+    @Autowired
+    SleepLogCalculatorService sleepLogCalculatorService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        log.info("Seeding {} users x {} nights", USERS, DAYS);
+        jdbcTemplate.update("INSERT INTO app_user (id) " +
+                "SELECT CAST(md5(CAST(u AS text)) AS uuid) FROM generate_series(1, ?) AS u", USERS);
+        jdbcTemplate.update("INSERT INTO sleep_entry (user_id, sleep_date, time_in_bed_start, time_in_bed_end, " +
+                        "total_time_in_bed_minutes, morning_feeling) " +
+                        "SELECT CAST(md5(CAST(u AS text)) AS uuid), d, " +
+                        "d - interval '2 hours' - (u % 90) * interval '1 minute', " +
+                        "d + interval '6 hours', " +
+                        "480 + u % 90, " +
+                        "(ARRAY['BAD', 'OK', 'GOOD'])[1 + (u + d - DATE '2020-01-01') % 3] " +
+                        "FROM generate_series(1, ?) AS u, " +
+                        "generate_series(CAST(? AS date), CAST(? AS date), interval '1 day') AS g(day), " +
+                        "LATERAL (SELECT CAST(g.day AS date) AS d) AS night",
+                USERS, FIRST_NIGHT, FIRST_NIGHT.plusDays(DAYS - 1));
+        jdbcTemplate.execute("VACUUM ANALYZE sleep_entry");
+    }
+
+    @Test
+    void aggregateDailyTotals_scalesWithChunksAndParallelism() {
+        LocalDate to = FIRST_NIGHT.plusDays(DAYS - 1);
+        int processors = Runtime.getRuntime().availableProcessors();
+        int[] parallelisms = IntStream.iterate(1, p -> p <= Math.min(processors, MAX_PARALLELISM), p -> p * 2).toArray();
+
+        log.info("{} users x {} nights, {} processors", USERS, DAYS, processors);
+        log.info(String.format("%8s %12s %12s %12s", "chunks", "parallelism", "median ms", "speedup"));
+        Long baseline = null;
+        for (int chunks : CHUNK_COUNTS) {
+            int chunkDays = (DAYS + chunks - 1) / chunks;
+            for (int parallelism : parallelisms) {
+                SleepAnalyticsServiceImpl service = new SleepAnalyticsServiceImpl(
+                        sleepAnalyticsRepository, sleepLogCalculatorService, new ForkJoinPool(parallelism), chunkDays);
+                try {
+                    long median = medianMillis(service, to);
+                    if (baseline == null) {
+                        baseline = median;
+                    }
+                    log.info(String.format("%8d %12d %12d %11.2fx",
+                            chunks, parallelism, median, (double) baseline / Math.max(median, 1)));
+                } finally {
+                    service.destroy();
+                }
+            }
+        }
+    }
+
+    private long medianMillis(SleepAnalyticsServiceImpl service, LocalDate to) {
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            service.aggregateDailyTotals(FIRST_NIGHT, to);
+        }
+        long[] millis = new long[MEASURED_RUNS];
+        for (int run = 0; run < MEASURED_RUNS; run++) {
+            long start = System.nanoTime();
+            int days = service.aggregateDailyTotals(FIRST_NIGHT, to).size();
+            millis[run] = (System.nanoTime() - start) / 1_000_000;
+            assertThat(days).isEqualTo(DAYS);
+        }
+        Arrays.sort(millis);
+        return millis[MEASURED_RUNS / 2];
+    }
+}
@@ -0,0 +1,113 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.exception.ValidationException;
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.model.SleepLogTotals;
+import com.noom.interview.fullstack.sleep.repository.SleepAnalyticsRepository;
+import com.noom.interview.fullstack.sleep.web.responses.SleepAnalyticsResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SleepAnalyticsServiceImplTest {
+
+    @Mock
+    private SleepAnalyticsRepository sleepAnalyticsRepository;
+
+    private ForkJoinPool pool;
+
+    private SleepAnalyticsServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(2);
+        service = new SleepAnalyticsServiceImpl(sleepAnalyticsRepository, new SleepLogCalculatorServiceImpl(), pool, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void getDailyStatistics_queriesEachChunk_andMergesDays() {
+        LocalDate from = LocalDate.of(2026, 1, 1);
+        LocalDate to = LocalDate.of(2026, 1, 10);
+
+        when(sleepAnalyticsRepository.findDailyTotals(any(), any())).thenAnswer(invocation -> {
+            LocalDate chunkStart = invocation.getArgument(0);
+            return Map.of(chunkStart, SleepLogTotals.builder()
+                    .entryCount(2)
+                    .totalTimeInBedMinutes(chunkStart.getDayOfMonth() == 1 ? 840 : 960)
+                    .goodCount(1)
+                    .badCount(1)
+                    .build());
+        });
+
+        SleepAnalyticsResponse actual = service.getDailyStatistics(from, to);
+
+        verify(sleepAnalyticsRepository).findDailyTotals(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 3));
+        verify(sleepAnalyticsRepository).findDailyTotals(LocalDate.of(2026, 1, 4), LocalDate.of(2026, 1, 6));
+        verify(sleepAnalyticsRepository).findDailyTotals(LocalDate.of(2026, 1, 7), LocalDate.of(2026, 1, 9));
+        verify(sleepAnalyticsRepository).findDailyTotals(LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 10));
+        verifyNoMoreInteractions(sleepAnalyticsRepository);
+
+        assertThat(actual.getRangeStart()).isEqualTo(from);
+        assertThat(actual.getRangeEnd()).isEqualTo(to);
+        assertThat(actual.getEntryCount()).isEqualTo(8);
+        assertThat(actual.getAverageTimeInBedMinutes()).isEqualTo(465);
+        assertThat(actual.getMorningFeelingFrequencies().get(MorningFeeling.GOOD).getCount()).isEqualTo(4);
+        assertThat(actual.getMorningFeelingFrequencies()).doesNotContainKey(MorningFeeling.OK);
+        assertThat(actual.getDays())
+                .extracting(SleepAnalyticsResponse.DailyStatistics::getSleepDate)
+                .containsExactly(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 4),
+                        LocalDate.of(2026, 1, 7), LocalDate.of(2026, 1, 10));
+        assertThat(actual.getDays().get(0).getAverageTimeInBedMinutes()).isEqualTo(420);
+        assertThat(actual.getDays().get(1).getAverageTimeInBedMinutes()).isEqualTo(480);
+    }
+
+    @Test
+    void getDailyStatistics_runsSingleQuery_whenRangeFitsInOneChunk() {
+        LocalDate from = LocalDate.of(2026, 1, 1);
+        LocalDate to = LocalDate.of(2026, 1, 3);
+
+        when(sleepAnalyticsRepository.findDailyTotals(from, to)).thenReturn(Map.of());
+
+        SleepAnalyticsResponse actual = service.getDailyStatistics(from, to);
+
+        assertThat(actual.getEntryCount()).isZero();
+        assertThat(actual.getDays()).isEmpty();
+        verifyNoMoreInteractions(sleepAnalyticsRepository);
+    }
+
+    @Test
+    void getDailyStatistics_throwsBadRequest_whenFromAfterTo() {
+        assertThatThrownBy(() -> service.getDailyStatistics(LocalDate.of(2026, 1, 2), LocalDate.of(2026, 1, 1)))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("from must not be after to");
+        verifyNoInteractions(sleepAnalyticsRepository);
+    }
+
+    @Test
+    void getDailyStatistics_throwsBadRequest_whenRangeTooLong() {
+        LocalDate from = LocalDate.of(2010, 1, 1);
+
+        assertThatThrownBy(() -> service.getDailyStatistics(from, from.plusDays(SleepAnalyticsServiceImpl.MAX_RANGE_DAYS)))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("range must not be longer than");
+        verifyNoInteractions(sleepAnalyticsRepository);
+    }
+}
@@ -0,0 +1,100 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.noom.interview.fullstack.sleep.model.PartitionMaintenanceResult;
+import com.noom.interview.fullstack.sleep.model.SleepEntryPartition;
+import com.noom.interview.fullstack.sleep.repository.SleepEntryPartitionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SleepEntryPartitionServiceImplTest {
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+
+    @Mock
+    private SleepEntryPartitionRepository sleepEntryPartitionRepository;
+
+    @Test
+    void maintain_createsMissingMonthsAhead() {
+        SleepEntryPartitionServiceImpl service = new SleepEntryPartitionServiceImpl(sleepEntryPartitionRepository, 3, 0);
+        when(sleepEntryPartitionRepository.tryLockMaintenance()).thenReturn(true);
+        when(sleepEntryPartitionRepository.findPartitions()).thenReturn(List.of(
+                legacy(LocalDate.of(2026, 9, 1)),
+                month(LocalDate.of(2026, 9, 1)),
+                month(LocalDate.of(2026, 10, 1)),
+                month(LocalDate.of(2026, 11, 1))));
+        when(sleepEntryPartitionRepository.createMonthlyPartition(any()))
+                .thenAnswer(invocation -> name(invocation.getArgument(0)));
+
+        PartitionMaintenanceResult result = service.maintain(TODAY);
+
+        assertThat(result.getCreated()).containsExactly("sleep_entry_p2026_12", "sleep_entry_p2027_01");
+        assertThat(result.getDetached()).isEmpty();
+        verify(sleepEntryPartitionRepository, never()).detachPartition(any());
+    }
+
+    @Test
+    void maintain_detachesMonthlyPartitionsPastRetention_butNotCurrentOnesNorLegacy() {
+        SleepEntryPartitionServiceImpl service = new SleepEntryPartitionServiceImpl(sleepEntryPartitionRepository, 0, 2);
+        when(sleepEntryPartitionRepository.tryLockMaintenance()).thenReturn(true);
+        when(sleepEntryPartitionRepository.findPartitions()).thenReturn(List.of(
+                legacy(LocalDate.of(2026, 7, 1)),
+                month(LocalDate.of(2026, 7, 1)),
+                month(LocalDate.of(2026, 8, 1)),
+                month(LocalDate.of(2026, 9, 1)),
+                month(LocalDate.of(2026, 10, 1))));
+
+        PartitionMaintenanceResult result = service.maintain(TODAY);
+
+        assertThat(result.getDetached()).containsExactly("sleep_entry_p2026_07");
+        assertThat(result.getKeptPastRetention()).containsExactly("sleep_entry_legacy");
+        assertThat(result.getCreated()).isEmpty();
+        verify(sleepEntryPartitionRepository).detachPartition("sleep_entry_p2026_07");
+        verify(sleepEntryPartitionRepository, never()).detachPartition("sleep_entry_legacy");
+        verify(sleepEntryPartitionRepository, never()).createMonthlyPartition(any());
+    }
+
+    @Test
+    void maintain_doesNotReportLegacy_whileItsRowsAreWithinRetention() {
+        SleepEntryPartitionServiceImpl service = new SleepEntryPartitionServiceImpl(sleepEntryPartitionRepository, 0, 6);
+        when(sleepEntryPartitionRepository.tryLockMaintenance()).thenReturn(true);
+        when(sleepEntryPartitionRepository.findPartitions()).thenReturn(List.of(
+                legacy(LocalDate.of(2026, 7, 1)),
+                month(LocalDate.of(2026, 10, 1))));
+
+        PartitionMaintenanceResult result = service.maintain(TODAY);
+
+        assertThat(result.getDetached()).isEmpty();
+        assertThat(result.getKeptPastRetention()).isEmpty();
+        verify(sleepEntryPartitionRepository, never()).detachPartition(any());
+    }
+
+    @Test
+    void maintain_changesNothing_whenAnotherInstanceHoldsTheLock() {
+        SleepEntryPartitionServiceImpl service = new SleepEntryPartitionServiceImpl(sleepEntryPartitionRepository, 3, 2);
+        when(sleepEntryPartitionRepository.tryLockMaintenance()).thenReturn(false);
+
+        assertThat(service.maintain(TODAY)).isSameAs(PartitionMaintenanceResult.SKIPPED);
+        verifyNoMoreInteractions(sleepEntryPartitionRepository);
+    }
+
+    private static SleepEntryPartition legacy(LocalDate to) {
+        return SleepEntryPartition.builder().name("sleep_entry_legacy").to(to).build();
+    }
+
+    private static SleepEntryPartition month(LocalDate from) {
+        return SleepEntryPartition.builder().name(name(from)).from(from).to(from.plusMonths(1)).build();
+    }
+
+    private static String name(LocalDate monthStart) {
+        return String.format("sleep_entry_p%d_%02d", monthStart.getYear(), monthStart.getMonthValue());
+    }
+}
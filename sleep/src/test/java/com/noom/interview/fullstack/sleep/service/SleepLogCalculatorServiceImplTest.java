@@ -3,14 +3,20 @@ package com.noom.interview.fullstack.sleep.service;
 
 import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
 import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.model.SleepLogStatistics;
+import com.noom.interview.fullstack.sleep.model.SleepLogTotals;
 import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -121,4 +127,87 @@ class SleepLogCalculatorServiceImplTest {
         assertThat(morningFeelingFeelingFrequencyMap.get(MorningFeeling.BAD).getCount()).isEqualTo(2);
         assertThat(morningFeelingFeelingFrequencyMap.get(MorningFeeling.BAD).getPercentage()).isEqualByComparingTo(BigDecimal.valueOf(33.33));
     }
-}
\ No newline at end of file
+
+    @Test
+    void calculateStatistics_fromTotals_matchesPerEntryCalculations() {
+        SleepEntryEntity e1 = new SleepEntryEntity();
+        e1.setTimeInBedStart(Instant.parse("2026-02-09T22:10:17Z"));
+        e1.setTimeInBedEnd(Instant.parse("2026-02-10T06:02:45Z"));
+        e1.setMorningFeeling(MorningFeeling.GOOD);
+
+        SleepEntryEntity e2 = new SleepEntryEntity();
+        e2.setTimeInBedStart(Instant.parse("2026-02-10T23:45:00Z"));
+        e2.setTimeInBedEnd(Instant.parse("2026-02-11T07:13:59Z"));
+        e2.setMorningFeeling(MorningFeeling.OK);
+
+        SleepEntryEntity e3 = new SleepEntryEntity();
+        e3.setTimeInBedStart(Instant.parse("2026-02-12T00:20:00Z"));
+        e3.setTimeInBedEnd(Instant.parse("2026-02-12T06:50:30Z"));
+        e3.setMorningFeeling(MorningFeeling.GOOD);
+
+        List<SleepEntryEntity> entries = List.of(e1, e2, e3);
+        SleepLogTotals totals = SleepLogTotals.of(e1).plus(SleepLogTotals.of(e2)).plus(SleepLogTotals.of(e3));
+
+        SleepLogStatistics statistics = service.calculateStatistics(totals);
+
+        assertThat(statistics.getAverageTimeInBedMinutes()).isEqualTo(service.calculateAverageTimeInBed(entries));
+        assertThat(statistics.getAverageTimeUserGetsInBed()).isEqualTo(service.calculateAverageTimeUserGetsInBed(entries));
+        assertThat(statistics.getAverageTimeUserGetsOutOfBed()).isEqualTo(service.calculateAverageTimeUserGetsOutOfBed(entries));
+        assertThat(statistics.getMorningFeelingFrequencies()).isEqualTo(service.calculateMorningFrequencies(entries));
+    }
+
+    @Test
+    void calculateStatistics_returnsZeroValues_whenTotalsEmpty() {
+        SleepLogStatistics statistics = service.calculateStatistics(SleepLogTotals.EMPTY);
+
+        assertThat(statistics.getAverageTimeInBedMinutes()).isZero();
+        assertThat(statistics.getAverageTimeUserGetsInBed()).isEqualTo(LocalTime.MIDNIGHT);
+        assertThat(statistics.getAverageTimeUserGetsOutOfBed()).isEqualTo(LocalTime.MIDNIGHT);
+        assertThat(statistics.getMorningFeelingFrequencies()).isEmpty();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 30, 365, 3650})
+    void calculateStatistics_fromEntries_matchesPerMetricMethods(int size) {
+        List<SleepEntryEntity> entries = randomEntries(size, new Random(size));
+
+        SleepLogStatistics statistics = service.calculateStatistics(entries);
+
+        assertThat(statistics.getAverageTimeInBedMinutes()).isEqualTo(service.calculateAverageTimeInBed(entries));
+        assertThat(statistics.getAverageTimeUserGetsInBed()).isEqualTo(service.calculateAverageTimeUserGetsInBed(entries));
+        assertThat(statistics.getAverageTimeUserGetsOutOfBed()).isEqualTo(service.calculateAverageTimeUserGetsOutOfBed(entries));
+        assertThat(statistics.getMorningFeelingFrequencies()).isEqualTo(service.calculateMorningFrequencies(entries));
+    }
+
+    @Test
+    void calculateStatistics_fromEntries_truncatesPartialMinutesLikeDuration() {
+        SleepEntryEntity e1 = new SleepEntryEntity();
+        e1.setTimeInBedStart(Instant.parse("2026-02-10T22:00:00.900Z"));
+        e1.setTimeInBedEnd(Instant.parse("2026-02-11T06:00:00.100Z")); // 479 minutes 59.2 seconds
+        e1.setMorningFeeling(MorningFeeling.OK);
+
+        SleepLogStatistics statistics = service.calculateStatistics(List.of(e1));
+
+        assertThat(statistics.getAverageTimeInBedMinutes()).isEqualTo(479);
+        assertThat(statistics.getAverageTimeInBedMinutes()).isEqualTo(service.calculateAverageTimeInBed(List.of(e1)));
+    }
+
+    private static List<SleepEntryEntity> randomEntries(int size, Random random) {
+        Instant base = Instant.parse("2016-01-01T21:00:00Z");
+        MorningFeeling[] feelings = MorningFeeling.values();
+        List<SleepEntryEntity> entries = new ArrayList<>(size);
+        for (int day = 0; day < size; day++) {
+            Instant start = base.plusSeconds(day * 86_400L + random.nextInt(4 * 3600))
+                    .plusNanos(random.nextInt(1_000_000_000));
+            Instant end = start.plusSeconds(5 * 3600 + random.nextInt(5 * 3600))
+                    .plusNanos(random.nextInt(1_000_000_000));
+
+            SleepEntryEntity entry = new SleepEntryEntity();
+            entry.setTimeInBedStart(start);
+            entry.setTimeInBedEnd(end);
+            entry.setMorningFeeling(feelings[random.nextInt(feelings.length)]);
+            entries.add(entry);
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,89 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.repository.SleepEntryExportRepository;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class SleepLogExportServiceImplTest {
+
+    @Mock
+    private SleepEntryExportRepository sleepEntryExportRepository;
+
+    private SleepLogExportServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        service = new SleepLogExportServiceImpl(sleepEntryExportRepository, objectMapper);
+    }
+
+    @Test
+    void exportLogs_writesOneJsonObjectPerLine() throws IOException {
+        UUID userId = UUID.randomUUID();
+        SleepLogResponse first = sleepLog(LocalDate.of(2026, 2, 10), MorningFeeling.BAD);
+        SleepLogResponse second = sleepLog(LocalDate.of(2026, 2, 11), MorningFeeling.GOOD);
+
+        doAnswer(invocation -> {
+            Consumer<SleepLogResponse> action = invocation.getArgument(1);
+            action.accept(first);
+            action.accept(second);
+            return null;
+        }).when(sleepEntryExportRepository).forEachByUserId(eq(userId), any());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long exported = service.exportLogs(userId, output);
+
+        assertThat(exported).isEqualTo(2);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).startsWith("{\"id\":\"" + first.getId() + "\"")
+                .contains("\"sleepDate\":\"2026-02-10\"")
+                .contains("\"timeInBedStart\":\"2026-02-09T22:00:00Z\"")
+                .contains("\"morningFeeling\":\"BAD\"");
+        assertThat(lines[1]).contains("\"sleepDate\":\"2026-02-11\"");
+        assertThat(lines[2]).isEmpty();
+    }
+
+    @Test
+    void exportLogs_writesNothing_whenUserHasNoEntries() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertThat(service.exportLogs(UUID.randomUUID(), output)).isZero();
+        assertThat(output.size()).isZero();
+    }
+
+    private static SleepLogResponse sleepLog(LocalDate sleepDate, MorningFeeling feeling) {
+        return SleepLogResponse.builder()
+                .id(UUID.randomUUID())
+                .sleepDate(sleepDate)
+                .timeInBedStart(sleepDate.minusDays(1).atTime(22, 0).toInstant(ZoneOffset.UTC))
+                .timeInBedEnd(sleepDate.atTime(6, 0).toInstant(ZoneOffset.UTC))
+                .totalTimeInBedMinutes(480)
+                .morningFeeling(feeling)
+                .build();
+    }
+}
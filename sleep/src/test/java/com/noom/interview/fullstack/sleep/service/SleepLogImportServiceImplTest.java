@@ -0,0 +1,183 @@
+package com.noom.interview.fullstack.sleep.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.noom.interview.fullstack.sleep.cache.AveragesCache;
+import com.noom.interview.fullstack.sleep.cache.TodayLogCache;
+import com.noom.interview.fullstack.sleep.db.RecentWrites;
+import com.noom.interview.fullstack.sleep.model.ImportFormat;
+import com.noom.interview.fullstack.sleep.repository.SleepEntryImportRepository;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogImportResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SleepLogImportServiceImplTest {
+
+    private static final String USER_ID = "11111111-1111-1111-1111-111111111111";
+
+    @Mock
+    private SleepEntryImportRepository sleepEntryImportRepository;
+
+    @Mock
+    private SleepAggregateService sleepAggregateService;
+
+    @Mock
+    private AveragesCache averagesCache;
+
+    @Mock
+    private TodayLogCache todayLogCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private RecentWrites recentWrites;
+
+    private SleepLogImportServiceImpl service;
+
+    private final List<List<String>> copiedChunks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        service = new SleepLogImportServiceImpl(sleepEntryImportRepository, sleepAggregateService, averagesCache,
+                todayLogCache, new TransactionTemplate(transactionManager), new ObjectMapper(), recentWrites);
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+    }
+
+    @Test
+    void importLogs_csv_copiesInChunks_andRejectsInvalidLines() {
+        stubTransactions();
+        stubCopy();
+        when(sleepEntryImportRepository.mergeStaging()).thenReturn(2, 1, 1);
+
+        String csv = "user_id,sleep_date,time_in_bed_start,time_in_bed_end,morning_feeling\n" +
+                csvLine("2026-02-01", "GOOD") +
+                csvLine("2026-02-02", "OK") +
+                USER_ID + ",2026-02-03,2026-02-03T06:00:00Z,2026-02-02T22:00:00Z,BAD\n" +
+                "\n" +
+                csvLine("2026-02-04", "BAD") +
+                csvLine("2026-02-05", "GOOD") +
+                csvLine("2026-02-05", "OK");
+
+        SleepLogImportResponse actual = service.importLogs(input(csv), ImportFormat.CSV);
+
+        assertThat(actual.getChunks()).isEqualTo(3);
+        assertThat(actual.getRowsRead()).isEqualTo(6);
+        assertThat(actual.getCreated()).isEqualTo(4);
+        assertThat(actual.getSkipped()).isEqualTo(1);
+        assertThat(actual.getRejected()).isEqualTo(1);
+        assertThat(actual.getErrors()).containsExactly("line 4: timeInBedEnd must be after timeInBedStart");
+        assertThat(copiedChunks).extracting(List::size).containsExactly(2, 2, 1);
+
+        verify(sleepEntryImportRepository, times(3)).createStagingTable();
+        verify(transactionManager, times(3)).commit(any());
+        verify(sleepAggregateService).rebuildAll();
+        verify(recentWrites).recordBulkWrite();
+        verify(averagesCache).invalidateAll();
+        verify(todayLogCache).invalidateAll();
+    }
+
+    @Test
+    void importLogs_ndjson_writesStagingRowWithComputedMinutes() {
+        stubTransactions();
+        stubCopy();
+        when(sleepEntryImportRepository.mergeStaging()).thenReturn(1);
+
+        String ndjson = "{\"userId\":\"" + USER_ID + "\",\"sleepDate\":\"2026-02-11\"," +
+                "\"timeInBedStart\":\"2026-02-10T22:00:00Z\",\"timeInBedEnd\":\"2026-02-11T06:00:00Z\"," +
+                "\"morningFeeling\":\"GOOD\"}\n" +
+                "{\"userId\":\"" + USER_ID + "\",\"sleepDate\":\"2026-02-12\"}\n";
+
+        SleepLogImportResponse actual = service.importLogs(input(ndjson), ImportFormat.NDJSON);
+
+        assertThat(actual.getCreated()).isEqualTo(1);
+        assertThat(actual.getRejected()).isEqualTo(1);
+        assertThat(actual.getErrors()).containsExactly("line 2: timeInBedStart is required");
+        assertThat(copiedChunks).hasSize(1);
+        assertThat(copiedChunks.get(0).get(0))
+                .endsWith("," + USER_ID + ",2026-02-11,2026-02-10T22:00:00Z,2026-02-11T06:00:00Z,480,GOOD,1\n");
+    }
+
+    @Test
+    void importLogs_doesNotOpenTransactions_whenNoValidRows() {
+        SleepLogImportResponse actual = service.importLogs(input("not,a,valid,row\n"), ImportFormat.CSV);
+
+        assertThat(actual.getChunks()).isZero();
+        assertThat(actual.getRejected()).isEqualTo(1);
+        verifyNoInteractions(transactionManager, sleepEntryImportRepository, sleepAggregateService, averagesCache, todayLogCache,
+                recentWrites);
+    }
+
+    @Test
+    void importLogs_doesNotRebuildAggregates_whenEverythingWasSkipped() {
+        stubTransactions();
+        stubCopy();
+        when(sleepEntryImportRepository.mergeStaging()).thenReturn(0);
+
+        SleepLogImportResponse actual = service.importLogs(input(csvLine("2026-02-01", "OK")), ImportFormat.CSV);
+
+        assertThat(actual.getSkipped()).isEqualTo(1);
+        verifyNoInteractions(sleepAggregateService, averagesCache, todayLogCache);
+    }
+
+    @Test
+    void importLogs_rebuildsAggregates_whenLaterChunkFailsAfterCommittedOnes() {
+        stubTransactions();
+        stubCopy();
+        when(sleepEntryImportRepository.mergeStaging())
+                .thenReturn(2)
+                .thenThrow(new IllegalStateException("merge failed"));
+
+        String csv = csvLine("2026-02-01", "GOOD") + csvLine("2026-02-02", "OK") + csvLine("2026-02-03", "BAD");
+
+        assertThatThrownBy(() -> service.importLogs(input(csv), ImportFormat.CSV))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("merge failed");
+
+        verify(transactionManager).commit(any());
+        verify(sleepAggregateService).rebuildAll();
+        verify(averagesCache).invalidateAll();
+        verify(todayLogCache).invalidateAll();
+    }
+
+    private void stubTransactions() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+    }
+
+    private void stubCopy() {
+        when(sleepEntryImportRepository.copyIntoStaging(any())).thenAnswer(invocation -> {
+            Iterator<String> rows = invocation.getArgument(0);
+            List<String> chunk = new ArrayList<>();
+            rows.forEachRemaining(chunk::add);
+            copiedChunks.add(chunk);
+            return (long) chunk.size();
+        });
+    }
+
+    private static String csvLine(String sleepDate, String feeling) {
+        return USER_ID + "," + sleepDate + ",2026-01-31T22:00:00Z,2026-02-01T06:00:00Z," + feeling + "\n";
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
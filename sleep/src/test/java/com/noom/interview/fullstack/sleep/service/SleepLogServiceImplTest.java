@@ -1,21 +1,35 @@
 package com.noom.interview.fullstack.sleep.service;
 
+import com.noom.interview.fullstack.sleep.cache.KnownUserCache;
 import com.noom.interview.fullstack.sleep.entity.AppUserEntity;
 import com.noom.interview.fullstack.sleep.entity.SleepEntryEntity;
 import com.noom.interview.fullstack.sleep.exception.SleepLogAlreadyExistsException;
 import com.noom.interview.fullstack.sleep.mapper.SleepEntryMapper;
 import com.noom.interview.fullstack.sleep.model.MorningFeeling;
-import com.noom.interview.fullstack.sleep.repository.AppUserRepository;
+import com.noom.interview.fullstack.sleep.model.SleepLogStatistics;
+import com.noom.interview.fullstack.sleep.model.SleepLogTotals;
 import com.noom.interview.fullstack.sleep.repository.SleepEntityRepository;
+import com.noom.interview.fullstack.sleep.repository.SleepEntryBatchRepository;
+import com.noom.interview.fullstack.sleep.repository.SleepEntryBatchRepository.InsertResult;
+import com.noom.interview.fullstack.sleep.repository.SleepTotalsProjection;
+import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogBatchRequest;
 import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogRequest;
+import com.noom.interview.fullstack.sleep.web.requests.SleepLogBatchEntry;
 import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogBatchResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogHistoryResponse;
 import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.EntityNotFoundException;
+import javax.validation.Validator;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
@@ -31,9 +45,6 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class SleepLogServiceImplTest {
 
-    @Mock
-    private AppUserRepository appUserRepository;
-
     @Mock
     private SleepEntityRepository sleepEntityRepository;
 
@@ -43,11 +54,23 @@ class SleepLogServiceImplTest {
     @Mock
     private SleepLogCalculatorService sleepLogCalculatorService;
 
+    @Mock
+    private SleepAggregateService sleepAggregateService;
+
+    @Mock
+    private SleepEntryBatchRepository sleepEntryBatchRepository;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private KnownUserCache knownUserCache;
+
     @InjectMocks
     private SleepLogServiceImpl service;
 
     @Test
-    void createLastNightLog_createsRecord_whenNotExists_andUserExists() {
+    void createLastNightLog_insertsUserAndRecord_inSingleStatement() {
         UUID userId = UUID.randomUUID();
         LocalDate todayUtc = LocalDate.now(ZoneOffset.UTC);
 
@@ -56,18 +79,14 @@ class SleepLogServiceImplTest {
         request.setTimeInBedEnd(Instant.parse("2026-02-11T06:00:00Z"));
         request.setMorningFeeling(MorningFeeling.GOOD);
 
-        AppUserEntity user = AppUserEntity.builder().id(userId).build();
-
         SleepEntryEntity mappedEntity = SleepEntryEntity.builder()
                 .id(UUID.randomUUID())
-                .user(user)
+                .user(AppUserEntity.builder().id(userId).build())
                 .sleepDate(todayUtc)
                 .build();
 
-        SleepEntryEntity savedEntity = mappedEntity;
-
         SleepLogResponse response = SleepLogResponse.builder()
-                .id(savedEntity.getId())
+                .id(mappedEntity.getId())
                 .sleepDate(todayUtc)
                 .timeInBedStart(request.getTimeInBedStart())
                 .timeInBedEnd(request.getTimeInBedEnd())
@@ -75,72 +94,103 @@ class SleepLogServiceImplTest {
                 .morningFeeling(MorningFeeling.GOOD)
                 .build();
 
-        when(appUserRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(sleepEntityRepository.findByUserIdAndSleepDate(userId, todayUtc)).thenReturn(Optional.empty());
-        when(sleepEntryMapper.toNewEntity(request, user, todayUtc, 480)).thenReturn(mappedEntity);
-        when(sleepEntityRepository.save(mappedEntity)).thenReturn(savedEntity);
-        when(sleepEntryMapper.toResponse(savedEntity)).thenReturn(response);
+        when(sleepEntryMapper.toNewEntity(eq(request), any(AppUserEntity.class), eq(todayUtc), eq(480))).thenReturn(mappedEntity);
+        when(sleepEntryBatchRepository.insertIfAbsent(mappedEntity)).thenReturn(true);
+        when(sleepEntryMapper.toResponse(mappedEntity)).thenReturn(response);
 
         SleepLogResponse actual = service.createLastNightLog(userId, request);
 
         assertThat(actual).isSameAs(response);
 
-        verify(appUserRepository).findById(userId);
-        verify(sleepEntityRepository).findByUserIdAndSleepDate(userId, todayUtc);
-        verify(sleepEntryMapper).toNewEntity(request, user, todayUtc, 480);
-        verify(sleepEntityRepository).save(mappedEntity);
-        verify(sleepEntryMapper).toResponse(savedEntity);
+        ArgumentCaptor<AppUserEntity> userCaptor = ArgumentCaptor.forClass(AppUserEntity.class);
+        verify(sleepEntryMapper).toNewEntity(eq(request), userCaptor.capture(), eq(todayUtc), eq(480));
+        assertThat(userCaptor.getValue().getId()).isEqualTo(userId);
+
+        verify(sleepEntryBatchRepository).insertIfAbsent(mappedEntity);
+        verify(knownUserCache).add(userId);
+        verify(sleepAggregateService).recordEntry(mappedEntity);
+        verify(sleepEntryMapper).toResponse(mappedEntity);
 
-        verifyNoMoreInteractions(appUserRepository, sleepEntityRepository, sleepEntryMapper);
+        verifyNoMoreInteractions(sleepEntryBatchRepository, sleepEntryMapper, sleepAggregateService);
+        verifyNoInteractions(sleepEntityRepository);
     }
 
     @Test
-    void createLastNightLog_createsUser_thenCreatesRecord_whenUserMissing() {
+    void createLastNightLog_skipsUserUpsert_whenUserKnown() {
         UUID userId = UUID.randomUUID();
-        LocalDate todayUtc = LocalDate.now(ZoneOffset.UTC);
-
-        CreateSleepLogRequest request = new CreateSleepLogRequest();
-        request.setTimeInBedStart(Instant.parse("2026-02-10T22:00:00Z"));
-        request.setTimeInBedEnd(Instant.parse("2026-02-11T06:00:00Z"));
-        request.setMorningFeeling(MorningFeeling.OK);
+        CreateSleepLogRequest request = lastNightRequest();
+        SleepEntryEntity mappedEntity = newEntity(userId);
 
-        AppUserEntity savedUser = AppUserEntity.builder().id(userId).build();
+        when(knownUserCache.contains(userId)).thenReturn(true);
+        when(sleepEntryMapper.toNewEntity(eq(request), any(AppUserEntity.class), any(LocalDate.class), eq(480))).thenReturn(mappedEntity);
+        when(sleepEntryBatchRepository.insertIfAbsentForExistingUser(mappedEntity)).thenReturn(InsertResult.INSERTED);
 
-        SleepEntryEntity mappedEntity = SleepEntryEntity.builder()
-                .id(UUID.randomUUID())
-                .user(savedUser)
-                .sleepDate(todayUtc)
-                .build();
-
-        SleepLogResponse response = SleepLogResponse.builder()
-                .id(mappedEntity.getId())
-                .sleepDate(todayUtc)
-                .totalTimeInBedMinutes(480)
-                .morningFeeling(MorningFeeling.OK)
-                .build();
+        service.createLastNightLog(userId, request);
 
-        when(appUserRepository.findById(userId)).thenReturn(Optional.empty());
-        when(appUserRepository.save(any(AppUserEntity.class))).thenReturn(savedUser);
+        verify(sleepEntryBatchRepository).insertIfAbsentForExistingUser(mappedEntity);
+        verify(sleepEntryBatchRepository, never()).insertIfAbsent(any());
+        verify(knownUserCache, never()).invalidate(any());
+        verify(sleepAggregateService).recordEntry(mappedEntity);
+    }
 
-        when(sleepEntityRepository.findByUserIdAndSleepDate(userId, todayUtc)).thenReturn(Optional.empty());
-        when(sleepEntryMapper.toNewEntity(request, savedUser, todayUtc, 480)).thenReturn(mappedEntity);
-        when(sleepEntityRepository.save(mappedEntity)).thenReturn(mappedEntity);
-        when(sleepEntryMapper.toResponse(mappedEntity)).thenReturn(response);
+    @Test
+    void createLastNightLog_forgetsKnownUser_andUpsertsUser_whenUserMissing() {
+        UUID userId = UUID.randomUUID();
+        CreateSleepLogRequest request = lastNightRequest();
+        SleepEntryEntity mappedEntity = newEntity(userId);
+
+        when(knownUserCache.contains(userId)).thenReturn(true);
+        when(sleepEntryMapper.toNewEntity(eq(request), any(AppUserEntity.class), any(LocalDate.class), eq(480))).thenReturn(mappedEntity);
+        when(sleepEntryBatchRepository.insertIfAbsentForExistingUser(mappedEntity)).thenReturn(InsertResult.USER_MISSING);
+        when(sleepEntryBatchRepository.insertIfAbsent(mappedEntity)).thenReturn(true);
+
+        service.createLastNightLog(userId, request);
+
+        InOrder inOrder = inOrder(sleepEntryBatchRepository, knownUserCache);
+        inOrder.verify(sleepEntryBatchRepository).insertIfAbsentForExistingUser(mappedEntity);
+        inOrder.verify(knownUserCache).invalidate(userId);
+        inOrder.verify(sleepEntryBatchRepository).insertIfAbsent(mappedEntity);
+        inOrder.verify(knownUserCache).add(userId);
+        verify(sleepAggregateService).recordEntry(mappedEntity);
+    }
 
-        SleepLogResponse actual = service.createLastNightLog(userId, request);
+    @Test
+    void createLastNightLog_throwsConflict_withoutUserUpsert_whenKnownUserAlreadyLogged() {
+        UUID userId = UUID.randomUUID();
+        CreateSleepLogRequest request = lastNightRequest();
+        SleepEntryEntity mappedEntity = newEntity(userId);
 
-        assertThat(actual).isSameAs(response);
+        when(knownUserCache.contains(userId)).thenReturn(true);
+        when(sleepEntryMapper.toNewEntity(eq(request), any(AppUserEntity.class), any(LocalDate.class), eq(480))).thenReturn(mappedEntity);
+        when(sleepEntryBatchRepository.insertIfAbsentForExistingUser(mappedEntity)).thenReturn(InsertResult.ALREADY_EXISTS);
 
-        verify(appUserRepository).findById(userId);
+        assertThatThrownBy(() -> service.createLastNightLog(userId, request))
+                .isInstanceOf(SleepLogAlreadyExistsException.class);
 
-        ArgumentCaptor<AppUserEntity> userCaptor = ArgumentCaptor.forClass(AppUserEntity.class);
-        verify(appUserRepository).save(userCaptor.capture());
-        assertThat(userCaptor.getValue().getId()).isEqualTo(userId);
+        verify(sleepEntryBatchRepository, never()).insertIfAbsent(any());
+        verify(knownUserCache, never()).invalidate(any());
+        verifyNoInteractions(sleepAggregateService);
+    }
 
-        verify(sleepEntityRepository).findByUserIdAndSleepDate(userId, todayUtc);
-        verify(sleepEntryMapper).toNewEntity(request, savedUser, todayUtc, 480);
-        verify(sleepEntityRepository).save(mappedEntity);
-        verify(sleepEntryMapper).toResponse(mappedEntity);
+    @Test
+    void createLastNightLog_addsKnownUser_onlyOnceTransactionCommits() {
+        UUID userId = UUID.randomUUID();
+        CreateSleepLogRequest request = lastNightRequest();
+        SleepEntryEntity mappedEntity = newEntity(userId);
+
+        when(sleepEntryMapper.toNewEntity(eq(request), any(AppUserEntity.class), any(LocalDate.class), eq(480))).thenReturn(mappedEntity);
+        when(sleepEntryBatchRepository.insertIfAbsent(mappedEntity)).thenReturn(true);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.createLastNightLog(userId, request);
+            verify(knownUserCache, never()).add(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(knownUserCache).add(userId);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
@@ -156,7 +206,7 @@ class SleepLogServiceImplTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("timeInBedEnd must be after timeInBedStart");
 
-        verifyNoInteractions(appUserRepository, sleepEntityRepository, sleepEntryMapper);
+        verifyNoInteractions(sleepEntryBatchRepository, sleepEntityRepository, sleepEntryMapper);
     }
 
     @Test
@@ -169,25 +219,22 @@ class SleepLogServiceImplTest {
         request.setTimeInBedEnd(Instant.parse("2026-02-11T06:00:00Z"));
         request.setMorningFeeling(MorningFeeling.GOOD);
 
-        AppUserEntity user = AppUserEntity.builder().id(userId).build();
-        SleepEntryEntity existing = SleepEntryEntity.builder()
+        SleepEntryEntity mappedEntity = SleepEntryEntity.builder()
                 .id(UUID.randomUUID())
-                .user(user)
+                .user(AppUserEntity.builder().id(userId).build())
                 .sleepDate(todayUtc)
                 .build();
 
-        when(appUserRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(sleepEntityRepository.findByUserIdAndSleepDate(userId, todayUtc)).thenReturn(Optional.of(existing));
+        when(sleepEntryMapper.toNewEntity(eq(request), any(AppUserEntity.class), eq(todayUtc), eq(480))).thenReturn(mappedEntity);
+        when(sleepEntryBatchRepository.insertIfAbsent(mappedEntity)).thenReturn(false);
 
         assertThatThrownBy(() -> service.createLastNightLog(userId, request))
                 .isInstanceOf(SleepLogAlreadyExistsException.class)
                 .hasMessageContaining("already exists");
 
-        verify(appUserRepository).findById(userId);
-        verify(sleepEntityRepository).findByUserIdAndSleepDate(userId, todayUtc);
-
-        verifyNoMoreInteractions(appUserRepository, sleepEntityRepository);
-        verifyNoInteractions(sleepEntryMapper);
+        verify(sleepEntryBatchRepository).insertIfAbsent(mappedEntity);
+        verify(sleepEntryMapper, never()).toResponse(any());
+        verifyNoInteractions(sleepAggregateService, sleepEntityRepository);
     }
 
     @Test
@@ -222,7 +269,6 @@ class SleepLogServiceImplTest {
         verify(sleepEntityRepository).findByUserIdAndSleepDate(userId, todayUtc);
         verify(sleepEntryMapper).toResponse(entity);
         verifyNoMoreInteractions(sleepEntityRepository, sleepEntryMapper);
-        verifyNoInteractions(appUserRepository);
     }
 
     @Test
@@ -239,11 +285,12 @@ class SleepLogServiceImplTest {
 
         verify(sleepEntityRepository).findByUserIdAndSleepDate(userId, todayUtc);
         verifyNoMoreInteractions(sleepEntryMapper);
-        verifyNoInteractions(sleepEntryMapper, appUserRepository);
+        verifyNoInteractions(sleepEntryMapper);
     }
 
     @Test
     void shouldReturnLast30DayAverages() {
+        ReflectionTestUtils.setField(service, "averagesSource", AveragesSource.ENTRIES);
         UUID userId = UUID.randomUUID();
 
         LocalDate today = LocalDate.now(ZoneOffset.UTC);
@@ -269,17 +316,13 @@ class SleepLogServiceImplTest {
                 eq(userId), eq(thirtyDaysAgo), eq(today)))
                 .thenReturn(sleepEntries);
 
-        when(sleepLogCalculatorService.calculateAverageTimeInBed(sleepEntries))
-                .thenReturn(420);
-
-        when(sleepLogCalculatorService.calculateAverageTimeUserGetsInBed(sleepEntries))
-                .thenReturn(LocalTime.of(23, 15));
-
-        when(sleepLogCalculatorService.calculateAverageTimeUserGetsOutOfBed(sleepEntries))
-                .thenReturn(LocalTime.of(7, 30));
-
-        when(sleepLogCalculatorService.calculateMorningFrequencies(sleepEntries))
-                .thenReturn(mockedFrequencies);
+        when(sleepLogCalculatorService.calculateStatistics(sleepEntries))
+                .thenReturn(SleepLogStatistics.builder()
+                        .averageTimeInBedMinutes(420)
+                        .averageTimeUserGetsInBed(LocalTime.of(23, 15))
+                        .averageTimeUserGetsOutOfBed(LocalTime.of(7, 30))
+                        .morningFeelingFrequencies(mockedFrequencies)
+                        .build());
 
         SleepLogAveragesResponse response = service.getLast30DayAverages(userId);
 
@@ -294,16 +337,14 @@ class SleepLogServiceImplTest {
         verify(sleepEntityRepository)
                 .findByUserIdAndSleepDateBetween(eq(userId), eq(thirtyDaysAgo), eq(today));
 
-        verify(sleepLogCalculatorService).calculateAverageTimeInBed(sleepEntries);
-        verify(sleepLogCalculatorService).calculateAverageTimeUserGetsInBed(sleepEntries);
-        verify(sleepLogCalculatorService).calculateAverageTimeUserGetsOutOfBed(sleepEntries);
-        verify(sleepLogCalculatorService).calculateMorningFrequencies(sleepEntries);
+        verify(sleepLogCalculatorService).calculateStatistics(sleepEntries);
 
         verifyNoMoreInteractions(sleepEntityRepository, sleepLogCalculatorService);
     }
 
     @Test
     void shouldThrowWhenNoSleepLogsFound() {
+        ReflectionTestUtils.setField(service, "averagesSource", AveragesSource.ENTRIES);
         UUID userId = UUID.randomUUID();
 
         LocalDate today = LocalDate.now(ZoneOffset.UTC);
@@ -321,4 +362,458 @@ class SleepLogServiceImplTest {
 
         verifyNoInteractions(sleepLogCalculatorService);
     }
+
+    @Test
+    void shouldReturnLast30DayAverages_fromAggregate() {
+        UUID userId = UUID.randomUUID();
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate thirtyDaysAgo = today.minusDays(30);
+
+        SleepLogTotals totals = SleepLogTotals.builder()
+                .entryCount(2)
+                .totalTimeInBedMinutes(840)
+                .goodCount(2)
+                .build();
+
+        Map<MorningFeeling, SleepLogAveragesResponse.FeelingFrequency> frequencies = Map.of(
+                MorningFeeling.GOOD, SleepLogAveragesResponse.FeelingFrequency.builder()
+                        .count(2)
+                        .percentage(new BigDecimal("100.00"))
+                        .build()
+        );
+
+        SleepLogStatistics statistics = SleepLogStatistics.builder()
+                .averageTimeInBedMinutes(420)
+                .averageTimeUserGetsInBed(LocalTime.of(23, 15))
+                .averageTimeUserGetsOutOfBed(LocalTime.of(7, 30))
+                .morningFeelingFrequencies(frequencies)
+                .build();
+
+        when(sleepAggregateService.findWindowTotals(userId, thirtyDaysAgo, today)).thenReturn(Optional.of(totals));
+        when(sleepLogCalculatorService.calculateStatistics(totals)).thenReturn(statistics);
+
+        SleepLogAveragesResponse response = service.getLast30DayAverages(userId);
+
+        assertEquals(thirtyDaysAgo, response.getRangeStart());
+        assertEquals(today, response.getRangeEnd());
+        assertEquals(420, response.getAverageTimeInBedMinutes());
+        assertEquals(LocalTime.of(23, 15), response.getAverageTimeUserGetsInBed());
+        assertEquals(LocalTime.of(7, 30), response.getAverageTimeUserGetsOutOfBed());
+        assertEquals(frequencies, response.getMorningFeelingFrequencies());
+
+        verify(sleepLogCalculatorService).calculateStatistics(totals);
+        verifyNoMoreInteractions(sleepLogCalculatorService);
+        verifyNoInteractions(sleepEntityRepository);
+    }
+
+    @Test
+    void last30DayAveragesVersion_changesWithAggregateWriteAndDay() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        when(sleepAggregateService.findLastUpdate(userId))
+                .thenReturn(Optional.of(Instant.parse("2026-02-11T06:00:00.000001Z")))
+                .thenReturn(Optional.of(Instant.parse("2026-02-11T06:00:00.000002Z")));
+
+        Optional<String> first = service.getLast30DayAveragesVersion(userId);
+        Optional<String> second = service.getLast30DayAveragesVersion(userId);
+
+        assertThat(first).hasValueSatisfying(version -> assertThat(version).startsWith(today.toEpochDay() + "-"));
+        assertThat(second).isPresent().isNotEqualTo(first);
+        verifyNoInteractions(sleepLogCalculatorService, sleepEntityRepository);
+    }
+
+    @Test
+    void last30DayAveragesVersion_isEmpty_whenUserHasNoAggregate() {
+        UUID userId = UUID.randomUUID();
+        when(sleepAggregateService.findLastUpdate(userId)).thenReturn(Optional.empty());
+
+        assertThat(service.getLast30DayAveragesVersion(userId)).isEmpty();
+    }
+
+    @Test
+    void shouldThrowWhenAggregateIsEmpty() {
+        UUID userId = UUID.randomUUID();
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate thirtyDaysAgo = today.minusDays(30);
+
+        when(sleepAggregateService.findWindowTotals(userId, thirtyDaysAgo, today)).thenReturn(Optional.of(SleepLogTotals.EMPTY));
+
+        assertThrows(EntityNotFoundException.class,
+                () -> service.getLast30DayAverages(userId));
+
+        verifyNoInteractions(sleepEntityRepository, sleepLogCalculatorService);
+    }
+
+    @Test
+    void shouldReturnLast30DayAverages_fromSqlAggregate() {
+        ReflectionTestUtils.setField(service, "averagesSource", AveragesSource.SQL);
+        UUID userId = UUID.randomUUID();
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate thirtyDaysAgo = today.minusDays(30);
+
+        SleepLogTotals totals = SleepLogTotals.builder()
+                .entryCount(2)
+                .totalTimeInBedMinutes(840)
+                .totalBedTimeEpochSeconds(3_540_000_000L)
+                .totalWakeTimeEpochSeconds(3_540_050_400L)
+                .okCount(1)
+                .goodCount(1)
+                .build();
+
+        SleepLogStatistics statistics = SleepLogStatistics.builder()
+                .averageTimeInBedMinutes(420)
+                .morningFeelingFrequencies(Map.of())
+                .build();
+
+        when(sleepEntityRepository.aggregateByUserIdAndSleepDateBetween(userId, thirtyDaysAgo, today))
+                .thenReturn(Optional.of(projectionOf(totals)));
+        when(sleepLogCalculatorService.calculateStatistics(totals)).thenReturn(statistics);
+
+        SleepLogAveragesResponse response = service.getLast30DayAverages(userId);
+
+        assertEquals(thirtyDaysAgo, response.getRangeStart());
+        assertEquals(today, response.getRangeEnd());
+        assertEquals(420, response.getAverageTimeInBedMinutes());
+
+        verify(sleepEntityRepository).aggregateByUserIdAndSleepDateBetween(userId, thirtyDaysAgo, today);
+        verifyNoMoreInteractions(sleepEntityRepository);
+        verifyNoInteractions(sleepAggregateService);
+    }
+
+    @Test
+    void shouldThrowWhenSqlAggregateFindsNoRows() {
+        ReflectionTestUtils.setField(service, "averagesSource", AveragesSource.SQL);
+        UUID userId = UUID.randomUUID();
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate thirtyDaysAgo = today.minusDays(30);
+
+        when(sleepEntityRepository.aggregateByUserIdAndSleepDateBetween(userId, thirtyDaysAgo, today))
+                .thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class,
+                () -> service.getLast30DayAverages(userId));
+
+        verifyNoInteractions(sleepLogCalculatorService, sleepAggregateService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createLogs_reportsStatusPerEntry_andRebuildsAggregate() {
+        UUID userId = UUID.randomUUID();
+        UUID createdId = UUID.randomUUID();
+        LocalDate first = LocalDate.of(2026, 2, 1);
+        LocalDate second = LocalDate.of(2026, 2, 2);
+
+        CreateSleepLogBatchRequest request = new CreateSleepLogBatchRequest();
+        request.setEntries(List.of(
+                batchEntry(first, "2026-01-31T22:00:00Z", "2026-02-01T06:00:00Z"),
+                batchEntry(second, "2026-02-01T23:00:00Z", "2026-02-02T06:30:00Z"),
+                batchEntry(first, "2026-01-31T23:00:00Z", "2026-02-01T07:00:00Z"),
+                batchEntry(LocalDate.of(2026, 2, 3), "2026-02-03T06:00:00Z", "2026-02-02T22:00:00Z")
+        ));
+
+        when(validator.validate(any(SleepLogBatchEntry.class))).thenReturn(Set.of());
+        when(sleepEntryBatchRepository.insertIgnoringConflicts(anyList())).thenReturn(Map.of(first, createdId));
+
+        SleepLogBatchResponse actual = service.createLogs(userId, request);
+
+        assertThat(actual.getCreated()).isEqualTo(1);
+        assertThat(actual.getAlreadyExisting()).isEqualTo(1);
+        assertThat(actual.getRejected()).isEqualTo(2);
+        assertThat(actual.getItems()).extracting(SleepLogBatchResponse.ItemResult::getStatus).containsExactly(
+                SleepLogBatchResponse.ItemStatus.CREATED,
+                SleepLogBatchResponse.ItemStatus.ALREADY_EXISTS,
+                SleepLogBatchResponse.ItemStatus.DUPLICATE_IN_BATCH,
+                SleepLogBatchResponse.ItemStatus.INVALID
+        );
+        assertThat(actual.getItems().get(0).getId()).isEqualTo(createdId);
+        assertThat(actual.getItems().get(1).getId()).isNull();
+        assertThat(actual.getItems().get(3).getErrors()).containsExactly("timeInBedEnd must be after timeInBedStart");
+
+        ArgumentCaptor<List<SleepEntryEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(sleepEntryBatchRepository).insertUserIfMissing(userId);
+        verify(sleepEntryBatchRepository).insertIgnoringConflicts(captor.capture());
+        assertThat(captor.getValue()).extracting(SleepEntryEntity::getSleepDate).containsExactly(first, second);
+        assertThat(captor.getValue()).extracting(SleepEntryEntity::getTotalTimeInBedMinutes).containsExactly(480, 450);
+        assertThat(captor.getValue()).allSatisfy(entry -> assertThat(entry.getUser().getId()).isEqualTo(userId));
+        verify(sleepAggregateService).recordEntries(userId, first);
+        verifyNoInteractions(sleepEntityRepository, sleepEntryMapper);
+    }
+
+    @Test
+    void createLogs_skipsInsert_whenAllEntriesRejected() {
+        UUID userId = UUID.randomUUID();
+
+        CreateSleepLogBatchRequest request = new CreateSleepLogBatchRequest();
+        request.setEntries(List.of(
+                batchEntry(LocalDate.of(2026, 2, 1), "2026-02-01T06:00:00Z", "2026-02-01T06:00:30Z")
+        ));
+
+        when(validator.validate(any(SleepLogBatchEntry.class))).thenReturn(Set.of());
+
+        SleepLogBatchResponse actual = service.createLogs(userId, request);
+
+        assertThat(actual.getRejected()).isEqualTo(1);
+        assertThat(actual.getItems().get(0).getErrors()).containsExactly("time in bed must be at least one minute");
+        verifyNoInteractions(sleepEntryBatchRepository, sleepAggregateService);
+    }
+
+    @Test
+    void createLogs_rejectsEntries_whoseWakeTimeIsNotOnSleepDate() {
+        UUID userId = UUID.randomUUID();
+
+        CreateSleepLogBatchRequest request = new CreateSleepLogBatchRequest();
+        request.setEntries(List.of(
+                batchEntry(LocalDate.of(2026, 2, 2), "2026-01-31T22:00:00Z", "2026-02-01T06:00:00Z"),
+                batchEntry(LocalDate.of(2026, 1, 31), "2026-01-31T22:00:00Z", "2026-02-01T06:00:00Z"),
+                // Past midnight UTC the wake time is on the next date, whatever the zone of the JVM
+                batchEntry(LocalDate.of(2026, 2, 1), "2026-02-01T16:00:00Z", "2026-02-02T00:30:00Z")
+        ));
+
+        when(validator.validate(any(SleepLogBatchEntry.class))).thenReturn(Set.of());
+
+        SleepLogBatchResponse actual = service.createLogs(userId, request);
+
+        assertThat(actual.getRejected()).isEqualTo(3);
+        assertThat(actual.getItems()).allSatisfy(item ->
+                assertThat(item.getErrors()).containsExactly("timeInBedEnd must fall on sleepDate (UTC)"));
+        verifyNoInteractions(sleepEntryBatchRepository, sleepAggregateService);
+    }
+
+    @Test
+    void createLogs_rejectsEntries_inBedLongerThanADay() {
+        UUID userId = UUID.randomUUID();
+
+        CreateSleepLogBatchRequest request = new CreateSleepLogBatchRequest();
+        request.setEntries(List.of(
+                batchEntry(LocalDate.of(2026, 2, 10), "2026-01-01T22:00:00Z", "2026-02-10T06:00:00Z"),
+                batchEntry(LocalDate.of(2026, 2, 11), "2026-02-10T06:00:00Z", "2026-02-11T06:00:00Z")
+        ));
+
+        when(validator.validate(any(SleepLogBatchEntry.class))).thenReturn(Set.of());
+        when(sleepEntryBatchRepository.insertIgnoringConflicts(anyList()))
+                .thenReturn(Map.of(LocalDate.of(2026, 2, 11), UUID.randomUUID()));
+
+        SleepLogBatchResponse actual = service.createLogs(userId, request);
+
+        assertThat(actual.getItems()).extracting(SleepLogBatchResponse.ItemResult::getStatus).containsExactly(
+                SleepLogBatchResponse.ItemStatus.INVALID,
+                SleepLogBatchResponse.ItemStatus.CREATED
+        );
+        assertThat(actual.getItems().get(0).getErrors()).containsExactly("time in bed must be at most 24 hours");
+    }
+
+    @Test
+    void createLogs_reportsNullEntryAsInvalid() {
+        UUID userId = UUID.randomUUID();
+
+        CreateSleepLogBatchRequest request = new CreateSleepLogBatchRequest();
+        request.setEntries(Collections.singletonList(null));
+
+        SleepLogBatchResponse actual = service.createLogs(userId, request);
+
+        assertThat(actual.getRejected()).isEqualTo(1);
+        assertThat(actual.getItems()).singleElement().satisfies(item -> {
+            assertThat(item.getStatus()).isEqualTo(SleepLogBatchResponse.ItemStatus.INVALID);
+            assertThat(item.getSleepDate()).isNull();
+            assertThat(item.getErrors()).containsExactly("entry must not be null");
+        });
+        verifyNoInteractions(sleepEntryBatchRepository, sleepAggregateService, validator);
+    }
+
+    @Test
+    void createLogs_doesNotRebuildAggregate_whenNothingInserted() {
+        UUID userId = UUID.randomUUID();
+
+        CreateSleepLogBatchRequest request = new CreateSleepLogBatchRequest();
+        request.setEntries(List.of(
+                batchEntry(LocalDate.of(2026, 2, 1), "2026-01-31T22:00:00Z", "2026-02-01T06:00:00Z")
+        ));
+
+        when(validator.validate(any(SleepLogBatchEntry.class))).thenReturn(Set.of());
+        when(sleepEntryBatchRepository.insertIgnoringConflicts(anyList())).thenReturn(Map.of());
+
+        SleepLogBatchResponse actual = service.createLogs(userId, request);
+
+        assertThat(actual.getAlreadyExisting()).isEqualTo(1);
+        verifyNoInteractions(sleepAggregateService);
+    }
+
+    @Test
+    void getAverages_readsPrefixSums_whenRangeIsNotTheAggregateWindow() {
+        UUID userId = UUID.randomUUID();
+        LocalDate from = LocalDate.of(2025, 2, 12);
+        LocalDate to = LocalDate.of(2026, 2, 11);
+        SleepLogTotals totals = SleepLogTotals.builder().entryCount(300).okCount(300).totalTimeInBedMinutes(126_000).build();
+        SleepLogStatistics statistics = SleepLogStatistics.builder()
+                .averageTimeInBedMinutes(420)
+                .morningFeelingFrequencies(Map.of())
+                .build();
+
+        when(sleepAggregateService.findWindowTotals(userId, from, to)).thenReturn(Optional.empty());
+        when(sleepAggregateService.findRangeTotals(userId, from, to)).thenReturn(totals);
+        when(sleepLogCalculatorService.calculateStatistics(totals)).thenReturn(statistics);
+
+        SleepLogAveragesResponse response = service.getAverages(userId, from, to);
+
+        assertEquals(from, response.getRangeStart());
+        assertEquals(to, response.getRangeEnd());
+        assertEquals(420, response.getAverageTimeInBedMinutes());
+        verifyNoInteractions(sleepEntityRepository);
+    }
+
+    @Test
+    void getAverages_skipsAggregateWindow_whenSourceIsPrefixSum() {
+        ReflectionTestUtils.setField(service, "averagesSource", AveragesSource.PREFIX_SUM);
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        SleepLogTotals totals = SleepLogTotals.builder().entryCount(1).goodCount(1).build();
+
+        when(sleepAggregateService.findRangeTotals(userId, today.minusDays(30), today)).thenReturn(totals);
+        when(sleepLogCalculatorService.calculateStatistics(totals)).thenReturn(SleepLogStatistics.builder().build());
+
+        SleepLogAveragesResponse response = service.getLast30DayAverages(userId);
+
+        assertEquals(today.minusDays(30), response.getRangeStart());
+        verify(sleepAggregateService, never()).findWindowTotals(any(), any(), any());
+    }
+
+    @Test
+    void getAverages_throwsNotFound_whenRangeHasNoEntries() {
+        UUID userId = UUID.randomUUID();
+        LocalDate from = LocalDate.of(2026, 1, 1);
+        LocalDate to = LocalDate.of(2026, 1, 7);
+
+        when(sleepAggregateService.findWindowTotals(userId, from, to)).thenReturn(Optional.empty());
+        when(sleepAggregateService.findRangeTotals(userId, from, to)).thenReturn(SleepLogTotals.EMPTY);
+
+        assertThatThrownBy(() -> service.getAverages(userId, from, to))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessageContaining("between 2026-01-01 and 2026-01-07");
+        verifyNoInteractions(sleepLogCalculatorService);
+    }
+
+    @Test
+    void getAverages_throwsBadRequest_whenFromAfterTo() {
+        UUID userId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> service.getAverages(userId, LocalDate.of(2026, 2, 2), LocalDate.of(2026, 2, 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("from must not be after to");
+        verifyNoInteractions(sleepAggregateService, sleepEntityRepository);
+    }
+
+    @Test
+    void getHistory_returnsPage_andNextBefore_whenMoreEntriesExist() {
+        UUID userId = UUID.randomUUID();
+        LocalDate before = LocalDate.of(2026, 2, 11);
+        List<SleepLogResponse> rows = List.of(
+                SleepLogResponse.builder().sleepDate(LocalDate.of(2026, 2, 10)).build(),
+                SleepLogResponse.builder().sleepDate(LocalDate.of(2026, 2, 8)).build(),
+                SleepLogResponse.builder().sleepDate(LocalDate.of(2026, 2, 7)).build()
+        );
+
+        when(sleepEntityRepository.findHistoryPage(userId, before, PageRequest.ofSize(3))).thenReturn(rows);
+
+        SleepLogHistoryResponse actual = service.getHistory(userId, before, 2);
+
+        assertThat(actual.getItems()).containsExactlyElementsOf(rows.subList(0, 2));
+        assertThat(actual.getNextBefore()).isEqualTo(LocalDate.of(2026, 2, 8));
+    }
+
+    @Test
+    void getHistory_startsAfterToday_andHasNoNextPage_whenBeforeMissing() {
+        UUID userId = UUID.randomUUID();
+        LocalDate tomorrow = LocalDate.now(ZoneOffset.UTC).plusDays(1);
+        List<SleepLogResponse> rows = List.of(SleepLogResponse.builder().sleepDate(tomorrow.minusDays(1)).build());
+
+        when(sleepEntityRepository.findHistoryPage(userId, tomorrow, PageRequest.ofSize(31))).thenReturn(rows);
+
+        SleepLogHistoryResponse actual = service.getHistory(userId, null, 30);
+
+        assertThat(actual.getItems()).isEqualTo(rows);
+        assertThat(actual.getNextBefore()).isNull();
+    }
+
+    @Test
+    void getHistory_throwsBadRequest_whenLimitOutOfRange() {
+        UUID userId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> service.getHistory(userId, null, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("limit must be between 1 and 365");
+        assertThatThrownBy(() -> service.getHistory(userId, null, 366))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verifyNoInteractions(sleepEntityRepository);
+    }
+
+    private static CreateSleepLogRequest lastNightRequest() {
+        CreateSleepLogRequest request = new CreateSleepLogRequest();
+        request.setTimeInBedStart(Instant.parse("2026-02-10T22:00:00Z"));
+        request.setTimeInBedEnd(Instant.parse("2026-02-11T06:00:00Z"));
+        request.setMorningFeeling(MorningFeeling.GOOD);
+        return request;
+    }
+
+    private static SleepEntryEntity newEntity(UUID userId) {
+        return SleepEntryEntity.builder()
+                .id(UUID.randomUUID())
+                .user(AppUserEntity.builder().id(userId).build())
+                .sleepDate(LocalDate.now(ZoneOffset.UTC))
+                .build();
+    }
+
+    private static SleepLogBatchEntry batchEntry(LocalDate sleepDate, String start, String end) {
+        SleepLogBatchEntry entry = new SleepLogBatchEntry();
+        entry.setSleepDate(sleepDate);
+        entry.setTimeInBedStart(Instant.parse(start));
+        entry.setTimeInBedEnd(Instant.parse(end));
+        entry.setMorningFeeling(MorningFeeling.OK);
+        return entry;
+    }
+
+    private static SleepTotalsProjection projectionOf(SleepLogTotals totals) {
+        return new SleepTotalsProjection() {
+            @Override
+            public long getEntryCount() {
+                return totals.getEntryCount();
+            }
+
+            @Override
+            public long getTotalTimeInBedMinutes() {
+                return totals.getTotalTimeInBedMinutes();
+            }
+
+            @Override
+            public long getTotalBedTimeEpochSeconds() {
+                return totals.getTotalBedTimeEpochSeconds();
+            }
+
+            @Override
+            public long getTotalWakeTimeEpochSeconds() {
+                return totals.getTotalWakeTimeEpochSeconds();
+            }
+
+            @Override
+            public long getBadCount() {
+                return totals.getBadCount();
+            }
+
+            @Override
+            public long getOkCount() {
+                return totals.getOkCount();
+            }
+
+            @Override
+            public long getGoodCount() {
+                return totals.getGoodCount();
+            }
+        };
+    }
 }
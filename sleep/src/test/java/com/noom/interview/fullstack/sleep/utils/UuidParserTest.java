@@ -0,0 +1,40 @@
+package com.noom.interview.fullstack.sleep.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidParserTest {
+
+    @Test
+    void parseOrNull_matchesUuidFromString_forCanonicalUuids() {
+        for (int i = 0; i < 1000; i++) {
+            UUID expected = UUID.randomUUID();
+            assertThat(UuidParser.parseOrNull(expected.toString())).isEqualTo(expected);
+            assertThat(UuidParser.parseOrNull(expected.toString().toUpperCase())).isEqualTo(expected);
+        }
+        assertThat(UuidParser.parseOrNull("ffffffff-ffff-ffff-ffff-ffffffffffff")).isEqualTo(new UUID(-1L, -1L));
+        assertThat(UuidParser.parseOrNull("00000000-0000-0000-0000-000000000000")).isEqualTo(new UUID(0L, 0L));
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {
+            "not-a-uuid",
+            "11111111x1111-1111-1111-111111111111",
+            "11111111-1111-1111-1111-11111111111g",
+            "11111111-1111-1111-1111-1111111111111",
+            "11111111-1111-1111-1111-11111111111",
+            "1-1-1-1-1",
+            "1111111-11111-1111-1111-111111111111",
+            "11111111-1111-1111-1111-11111111111\u0661"
+    })
+    void parseOrNull_returnsNull_forMalformedValues(String value) {
+        assertThat(UuidParser.parseOrNull(value)).isNull();
+    }
+}
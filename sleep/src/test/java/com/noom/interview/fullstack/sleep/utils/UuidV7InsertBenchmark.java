@@ -0,0 +1,150 @@
+package com.noom.interview.fullstack.sleep.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Inserts the same synthetic sleep entries into two copies of sleep_entry, one keyed by random v4 ids and one by
+ * {@link UuidV7} ids, and logs the insert throughput of each round, the size of the primary key index and the WAL
+ * written. Run with {@code ./gradlew benchmark --tests '*UuidV7InsertBenchmark'}; the number of rows is set with
+ * {@code -Dbenchmark.rows}.
+ */
+@Testcontainers
+@Tag("benchmark")
+@Slf4j
+class UuidV7InsertBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 5_000_000);
+    private static final int ROUNDS = 10;
+    private static final int BATCH_SIZE = 1_000;
+
+    private static final String CREATE_TABLE = "CREATE TABLE %s (" +
+            "id UUID PRIMARY KEY, " +
+            "user_id UUID NOT NULL, " +
+            "sleep_date DATE NOT NULL, " +
+            "time_in_bed_start TIMESTAMPTZ NOT NULL, " +
+            "time_in_bed_end TIMESTAMPTZ NOT NULL, " +
+            "total_time_in_bed_minutes INTEGER NOT NULL, " +
+            "morning_feeling VARCHAR(4) NOT NULL)";
+
+    /**
+     * Small shared buffers, so the random index pages of a large table stop fitting in memory as they would in
+     * production
+     */
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13-alpine")
+            .withDatabaseName("sleepdb")
+            .withUsername("sleep")
+            .withPassword("sleep")
+            .withCommand("postgres", "-c", "shared_buffers=64MB", "-c", "max_wal_size=4GB");
+
+    @Test
+    void insertThroughputAndIndexSize_v4VersusV7() throws SQLException {
+        log.info("Inserting {} rows in {} rounds per table", ROWS, ROUNDS);
+        Result v4 = insertAll("sleep_entry_v4", UUID::randomUUID);
+        Result v7 = insertAll("sleep_entry_v7", UuidV7::randomUuid);
+
+        log.info(String.format("%6s %14s %16s %14s", "ids", "rows/s", "pk index MB", "WAL MB"));
+        for (Result result : new Result[]{v4, v7}) {
+            log.info(String.format("%6s %14.0f %16.1f %14.1f", result.name, result.rowsPerSecond(),
+                    result.indexBytes / 1048576.0, result.walBytes / 1048576.0));
+        }
+    }
+
+    private Result insertAll(String table, Supplier<UUID> ids) throws SQLException {
+        try (Connection connection = POSTGRES.createConnection("?reWriteBatchedInserts=true")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(String.format(CREATE_TABLE, table));
+            }
+            connection.setAutoCommit(false);
+
+            long walStart = walPosition(connection);
+            long totalNanos = 0;
+            int rowsPerRound = ROWS / ROUNDS;
+            String insert = "INSERT INTO " + table + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+            try (PreparedStatement statement = connection.prepareStatement(insert)) {
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    for (int i = 0; i < rowsPerRound; i++) {
+                        bind(statement, ids.get(), round * rowsPerRound + i);
+                        statement.addBatch();
+                        if ((i + 1) % BATCH_SIZE == 0) {
+                            statement.executeBatch();
+                            connection.commit();
+                        }
+                    }
+                    statement.executeBatch();
+                    connection.commit();
+                    long nanos = System.nanoTime() - start;
+                    totalNanos += nanos;
+                    log.info("{} round {}: {} rows/s", table, round + 1, Math.round(rowsPerRound / (nanos / 1e9)));
+                }
+            }
+            long walBytes = walPosition(connection) - walStart;
+
+            long indexBytes = queryLong(connection, "SELECT pg_relation_size('" + table + "_pkey')");
+            assertThat(queryLong(connection, "SELECT count(*) FROM " + table)).isEqualTo((long) rowsPerRound * ROUNDS);
+            return new Result(table.substring(table.length() - 2), (long) rowsPerRound * ROUNDS, totalNanos, indexBytes, walBytes);
+        }
+    }
+
+    private static void bind(PreparedStatement statement, UUID id, int row) throws SQLException {
+        LocalDate sleepDate = LocalDate.of(2020, 1, 1).plusDays(row % 2000);
+        OffsetDateTime wakeTime = sleepDate.atTime(6, 0).atOffset(ZoneOffset.UTC);
+        statement.setObject(1, id);
+        statement.setObject(2, new UUID(row / 2000, 1));
+        statement.setObject(3, sleepDate);
+        statement.setObject(4, wakeTime.minusHours(8));
+        statement.setObject(5, wakeTime);
+        statement.setInt(6, 480);
+        statement.setString(7, "GOOD");
+    }
+
+    private static long walPosition(Connection connection) throws SQLException {
+        return queryLong(connection, "SELECT CAST(pg_wal_lsn_diff(pg_current_wal_lsn(), '0/0') AS bigint)");
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static class Result {
+        private final String name;
+        private final long rows;
+        private final long nanos;
+        private final long indexBytes;
+        private final long walBytes;
+
+        Result(String name, long rows, long nanos, long indexBytes, long walBytes) {
+            this.name = name;
+            this.rows = rows;
+            this.nanos = nanos;
+            this.indexBytes = indexBytes;
+            this.walBytes = walBytes;
+        }
+
+        double rowsPerSecond() {
+            return rows / (nanos / 1e9);
+        }
+    }
+}
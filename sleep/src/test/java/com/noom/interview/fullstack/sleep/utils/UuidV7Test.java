@@ -0,0 +1,105 @@
+package com.noom.interview.fullstack.sleep.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7Test {
+
+    @Test
+    void randomUuid_hasVersion7_andRfcVariant_andCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7.randomUuid();
+        long after = System.currentTimeMillis();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(UuidV7.timestampMillis(uuid)).isBetween(before, after + 1);
+    }
+
+    @Test
+    void next_isStrictlyIncreasing_withinSameMillisecond() {
+        UuidV7 generator = new UuidV7();
+        long now = System.currentTimeMillis();
+        UUID previous = generator.next(now);
+        for (int i = 0; i < 10_000; i++) {
+            UUID next = generator.next(now);
+            assertThat(compareUnsigned(next, previous)).isPositive();
+            previous = next;
+        }
+    }
+
+    @Test
+    void next_isStrictlyIncreasing_whenClockMovesBack() {
+        UuidV7 generator = new UuidV7();
+        long now = System.currentTimeMillis();
+        UUID later = generator.next(now);
+        UUID earlier = generator.next(now - 5_000);
+
+        assertThat(compareUnsigned(earlier, later)).isPositive();
+        assertThat(UuidV7.timestampMillis(earlier)).isGreaterThanOrEqualTo(now);
+    }
+
+    @Test
+    void randomUuid_isUniqueAndIncreasingPerThread_acrossThreads() throws Exception {
+        int threads = 8;
+        int idsPerThread = 20_000;
+        Set<UUID> all = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    boolean increasing = true;
+                    UUID previous = UuidV7.randomUuid();
+                    all.add(previous);
+                    for (int i = 1; i < idsPerThread; i++) {
+                        UUID next = UuidV7.randomUuid();
+                        increasing &= compareUnsigned(next, previous) > 0;
+                        all.add(next);
+                        previous = next;
+                    }
+                    return increasing;
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(30, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(all).hasSize(threads * idsPerThread);
+    }
+
+    @Test
+    void randomUuid_textFormSortsInGenerationOrder() {
+        String previous = UuidV7.randomUuid().toString();
+        for (int i = 0; i < 1_000; i++) {
+            String next = UuidV7.randomUuid().toString();
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+    }
+
+    /**
+     * Byte-wise order used by Postgres, unlike {@link UUID#compareTo} which compares signed longs
+     */
+    private static int compareUnsigned(UUID a, UUID b) {
+        int msb = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return msb != 0 ? msb : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
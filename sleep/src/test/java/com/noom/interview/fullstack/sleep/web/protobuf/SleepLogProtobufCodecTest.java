@@ -0,0 +1,148 @@
+package com.noom.interview.fullstack.sleep.web.protobuf;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.noom.interview.fullstack.sleep.model.MorningFeeling;
+import com.noom.interview.fullstack.sleep.web.requests.CreateSleepLogRequest;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogAveragesResponse;
+import com.noom.interview.fullstack.sleep.web.responses.SleepLogResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SleepLogProtobufCodecTest {
+
+    @Test
+    void write_encodesSleepLogFields() throws IOException {
+        UUID id = UUID.randomUUID();
+        SleepLogResponse log = SleepLogResponse.builder()
+                .id(id)
+                .sleepDate(LocalDate.of(2026, 2, 11))
+                .timeInBedStart(Instant.parse("2026-02-10T22:00:00Z"))
+                .timeInBedEnd(Instant.parse("2026-02-11T06:00:00Z"))
+                .totalTimeInBedMinutes(480)
+                .morningFeeling(MorningFeeling.GOOD)
+                .build();
+
+        CodedInputStream input = CodedInputStream.newInstance(encode(log));
+
+        assertThat(input.readTag()).isEqualTo(WireFormat.makeTag(1, WireFormat.WIRETYPE_LENGTH_DELIMITED));
+        ByteBuffer idBytes = input.readBytes().asReadOnlyByteBuffer();
+        assertThat(new UUID(idBytes.getLong(), idBytes.getLong())).isEqualTo(id);
+        assertThat(input.readTag()).isEqualTo(WireFormat.makeTag(2, WireFormat.WIRETYPE_VARINT));
+        assertThat(input.readInt32()).isEqualTo(LocalDate.of(2026, 2, 11).toEpochDay());
+        assertThat(input.readTag()).isEqualTo(WireFormat.makeTag(3, WireFormat.WIRETYPE_VARINT));
+        assertThat(input.readInt64()).isEqualTo(Instant.parse("2026-02-10T22:00:00Z").toEpochMilli());
+        assertThat(input.readTag()).isEqualTo(WireFormat.makeTag(4, WireFormat.WIRETYPE_VARINT));
+        assertThat(input.readInt64()).isEqualTo(Instant.parse("2026-02-11T06:00:00Z").toEpochMilli());
+        assertThat(input.readTag()).isEqualTo(WireFormat.makeTag(5, WireFormat.WIRETYPE_VARINT));
+        assertThat(input.readInt32()).isEqualTo(480);
+        assertThat(input.readTag()).isEqualTo(WireFormat.makeTag(6, WireFormat.WIRETYPE_VARINT));
+        assertThat(input.readEnum()).isEqualTo(3);
+        assertThat(input.isAtEnd()).isTrue();
+    }
+
+    @Test
+    void write_encodesFrequenciesAsNestedMessages_andPercentagesInHundredths() throws IOException {
+        Map<MorningFeeling, SleepLogAveragesResponse.FeelingFrequency> frequencies = new EnumMap<>(MorningFeeling.class);
+        frequencies.put(MorningFeeling.BAD, frequency(3, "9.68"));
+        frequencies.put(MorningFeeling.GOOD, frequency(28, "90.32"));
+        SleepLogAveragesResponse averages = SleepLogAveragesResponse.builder()
+                .rangeStart(LocalDate.of(2026, 1, 12))
+                .rangeEnd(LocalDate.of(2026, 2, 11))
+                .averageTimeInBedMinutes(465)
+                .averageTimeUserGetsInBed(LocalTime.MIDNIGHT)
+                .morningFeelingFrequencies(frequencies)
+                .build();
+
+        CodedInputStream input = CodedInputStream.newInstance(encode(averages));
+        List<int[]> nested = new ArrayList<>();
+        Integer inBed = null;
+        Integer outOfBed = null;
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 4:
+                    inBed = input.readInt32();
+                    break;
+                case 5:
+                    outOfBed = input.readInt32();
+                    break;
+                case 6:
+                    CodedInputStream frequency = input.readBytes().newCodedInput();
+                    int[] values = new int[3];
+                    while ((tag = frequency.readTag()) != 0) {
+                        values[WireFormat.getTagFieldNumber(tag) - 1] = frequency.readInt32();
+                    }
+                    nested.add(values);
+                    break;
+                default:
+                    input.skipField(tag);
+            }
+        }
+
+        assertThat(inBed).as("midnight is written, unlike a missing time").isZero();
+        assertThat(outOfBed).isNull();
+        assertThat(nested).containsExactly(new int[]{1, 3, 968}, new int[]{3, 28, 9032});
+    }
+
+    @Test
+    void readCreateSleepLogRequest_decodesFields_andSkipsUnknownOnes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        output.writeInt64(1, Instant.parse("2026-02-10T22:00:00Z").toEpochMilli());
+        output.writeString(9, "added by a newer client");
+        output.writeInt64(2, Instant.parse("2026-02-11T06:00:00Z").toEpochMilli());
+        output.writeEnum(3, 2);
+        output.flush();
+
+        CreateSleepLogRequest request = SleepLogProtobufCodec.readCreateSleepLogRequest(
+                new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertThat(request).isEqualTo(new CreateSleepLogRequest(
+                Instant.parse("2026-02-10T22:00:00Z"), Instant.parse("2026-02-11T06:00:00Z"), MorningFeeling.OK));
+    }
+
+    @Test
+    void readCreateSleepLogRequest_leavesMissingAndUnknownValuesNull() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        output.writeEnum(3, 7);
+        output.flush();
+
+        CreateSleepLogRequest request = SleepLogProtobufCodec.readCreateSleepLogRequest(
+                new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertThat(request).isEqualTo(new CreateSleepLogRequest());
+    }
+
+    private static byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        SleepLogProtobufCodec.write(value, output);
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private static SleepLogAveragesResponse.FeelingFrequency frequency(int count, String percentage) {
+        return SleepLogAveragesResponse.FeelingFrequency.builder()
+                .count(count)
+                .percentage(new BigDecimal(percentage))
+                .build();
+    }
+}
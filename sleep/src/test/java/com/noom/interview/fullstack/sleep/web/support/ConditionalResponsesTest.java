@@ -0,0 +1,126 @@
+package com.noom.interview.fullstack.sleep.web.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConditionalResponsesTest {
+
+    @Test
+    void cacheControl_usesMaxAge_farFromMidnight() {
+        ConditionalResponses responses = at("2026-02-11T12:00:00Z");
+
+        assertThat(responses.cacheControl().getHeaderValue()).isEqualTo("max-age=300, must-revalidate, private");
+    }
+
+    @Test
+    void cacheControl_endsAtNextUtcMidnight() {
+        ConditionalResponses responses = at("2026-02-11T23:58:30Z");
+
+        assertThat(responses.cacheControl().getHeaderValue()).isEqualTo("max-age=90, must-revalidate, private");
+    }
+
+    @Test
+    void respond_doesNotComputeBody_whenEtagMatches() {
+        ConditionalResponses responses = at("2026-02-11T12:00:00Z");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip, deflate");
+        request.addHeader("If-None-Match", "\"other\", " + responses.etag(request, "v1"));
+
+        ResponseEntity<String> response = responses.respond(request, "v1", () -> {
+            throw new AssertionError("body computed");
+        });
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo(responses.etag(request, "v1"));
+    }
+
+    @Test
+    void respond_writesBodyInNegotiatedMediaType() {
+        ConditionalResponses responses = at("2026-02-11T12:00:00Z");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept", "application/json;q=0.5, application/cbor");
+
+        ResponseEntity<String> response = responses.respond(request, "v1", () -> "body");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"v1-cbor-identity\"");
+    }
+
+    @Test
+    void respond_returns406_withoutComputingBody_whenNoMediaTypeIsAcceptable() {
+        ConditionalResponses responses = at("2026-02-11T12:00:00Z");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept", "text/csv");
+
+        ResponseEntity<String> response = responses.respond(request, "v1", () -> {
+            throw new AssertionError("body computed");
+        });
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_ACCEPTABLE);
+        assertThat(response.getHeaders().getETag()).isNull();
+    }
+
+    @Test
+    void etag_differsByEncodingAndVersion() {
+        ConditionalResponses responses = at("2026-02-11T12:00:00Z");
+        MockHttpServletRequest identity = new MockHttpServletRequest();
+        MockHttpServletRequest gzip = new MockHttpServletRequest();
+        gzip.addHeader("Accept-Encoding", "gzip");
+
+        assertThat(responses.etag(identity, "v1")).isEqualTo("\"v1-json-identity\"");
+        assertThat(responses.etag(gzip, "v1")).isEqualTo("\"v1-json-gzip\"");
+        assertThat(responses.etag(gzip, "v2")).isEqualTo("\"v2-json-gzip\"");
+    }
+
+    @Test
+    void etag_isSame_forAcceptHeadersNegotiatingSameMediaType() {
+        ConditionalResponses responses = at("2026-02-11T12:00:00Z");
+
+        assertThat(List.of("*/*", "application/json", "application/*", "application/json, application/cbor;q=0.5",
+                "text/csv, */*;q=0.1"))
+                .allSatisfy(accept -> {
+                    MockHttpServletRequest request = new MockHttpServletRequest();
+                    request.addHeader("Accept", accept);
+                    assertThat(responses.etag(request, "v1")).isEqualTo("\"v1-json-identity\"");
+                });
+    }
+
+    @Test
+    void etag_differsByNegotiatedMediaType() {
+        ConditionalResponses responses = at("2026-02-11T12:00:00Z");
+        MockHttpServletRequest smile = new MockHttpServletRequest();
+        smile.addHeader("Accept", "application/x-jackson-smile");
+        MockHttpServletRequest protobuf = new MockHttpServletRequest();
+        protobuf.addHeader("Accept", "application/json;q=0, application/x-protobuf;q=0.1");
+
+        assertThat(responses.etag(smile, "v1")).isEqualTo("\"v1-x-jackson-smile-identity\"");
+        assertThat(responses.etag(protobuf, "v1")).isEqualTo("\"v1-x-protobuf-identity\"");
+    }
+
+    @Test
+    void etag_namesIdentity_forMediaTypesThatAreNotCompressed() {
+        ConditionalResponses responses = at("2026-02-11T12:00:00Z");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept", "application/cbor");
+        request.addHeader("Accept-Encoding", "gzip");
+
+        assertThat(responses.etag(request, "v1")).isEqualTo("\"v1-cbor-identity\"");
+    }
+
+    private static ConditionalResponses at(String instant) {
+        return new ConditionalResponses(Duration.ofMinutes(5), List.of(MediaType.APPLICATION_JSON),
+                Clock.fixed(Instant.parse(instant), ZoneOffset.UTC));
+    }
+}